@@ -1,8 +1,10 @@
 package com.uni.research;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 
 /**
@@ -11,7 +13,11 @@ import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfi
  * @author wrench1024
  * @since 2026-01-02
  */
-@SpringBootApplication(exclude = {SecurityAutoConfiguration.class})  // 临时禁用 Security，方便测试
+@SpringBootApplication(exclude = {
+        SecurityAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class
+})  // 临时禁用 Security（含 Actuator 的默认安全配置），方便测试
+@EnableScheduling
 public class UniResearchApplication {
 
     public static void main(String[] args) {
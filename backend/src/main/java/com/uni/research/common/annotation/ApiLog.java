@@ -0,0 +1,37 @@
+package com.uni.research.common.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * API 日志选项（标注在 Controller 方法或类上）
+ *
+ * 未标注的接口使用 api-log.* 的全局配置；流式响应、文件上传等接口
+ * 应关闭参数或结果的序列化，避免把大对象转成字符串
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Documented
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ApiLog {
+
+    /**
+     * 是否记录访问日志
+     */
+    boolean enabled() default true;
+
+    /**
+     * 是否记录请求参数
+     */
+    boolean args() default true;
+
+    /**
+     * 是否记录响应结果
+     */
+    boolean result() default true;
+}
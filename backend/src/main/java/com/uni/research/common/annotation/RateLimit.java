@@ -0,0 +1,91 @@
+package com.uni.research.common.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 接口限流（标注在 Controller 方法上，可重复标注以叠加多个维度）
+ *
+ * 令牌桶：容量 capacity（允许的突发），每 periodSeconds 秒补充 permits 个令牌。
+ * 集群内共享同一个桶（Redis），超出时返回 429。
+ *
+ * 示例（登录失败节流：同一 IP 每分钟 20 次，同一账号每分钟 5 次）：
+ * <pre>
+ * &#64;RateLimit(name = "login", dimension = RateLimit.Dimension.IP, permits = 20, periodSeconds = 60)
+ * &#64;RateLimit(name = "login-account", key = "#request.username", permits = 5, periodSeconds = 60)
+ * </pre>
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(RateLimit.List.class)
+public @interface RateLimit {
+
+    /**
+     * 限流名称，作为 Redis Key 和指标标签的一部分；为空时使用 类名.方法名
+     */
+    String name() default "";
+
+    /**
+     * 限流维度
+     */
+    Dimension dimension() default Dimension.USER;
+
+    /**
+     * 附加的 SpEL 表达式（以参数名引用方法参数，如 #request.username），结果拼接到维度之后
+     */
+    String key() default "";
+
+    /**
+     * 每个周期补充的令牌数
+     */
+    int permits();
+
+    /**
+     * 补充周期（秒）
+     */
+    int periodSeconds() default 1;
+
+    /**
+     * 桶容量（允许的突发请求数），0 表示等于 permits
+     */
+    int capacity() default 0;
+
+    /**
+     * 被限流时返回的提示
+     */
+    String message() default "请求过于频繁，请稍后重试";
+
+    enum Dimension {
+
+        /**
+         * 所有请求共享一个桶
+         */
+        GLOBAL,
+
+        /**
+         * 每个登录用户一个桶（未登录时退化为按 IP）
+         */
+        USER,
+
+        /**
+         * 每个客户端 IP 一个桶
+         */
+        IP
+    }
+
+    @Documented
+    @Target(ElementType.METHOD)
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface List {
+
+        RateLimit[] value();
+    }
+}
@@ -1,107 +1,348 @@
 package com.uni.research.common.aspect;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.uni.research.common.annotation.ApiLog;
+import com.uni.research.common.config.ApiLogProperties;
+import com.uni.research.common.exception.BizException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.servlet.http.HttpServletRequest;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * API 日志切面
- * 
+ *
  * 对应 408 考点：设计模式 - 代理模式（动态代理）
- * 
+ *
  * 设计思路：
  * 1. 使用 Spring AOP 实现非侵入式日志记录
  * 2. 基于 JDK 动态代理或 CGLIB 代理实现
  * 3. 记录请求参数、响应结果、执行耗时
  * 4. 便于性能监控和问题排查
- * 
+ * 5. 每个请求只输出一条结构化日志（key=value），经异步 Appender 写出（见 logback-spring.xml）
+ * 6. 参数和结果按采样率记录，长度有上限，只有确定要输出时才渲染；对象用 Jackson 写入有界 Writer，
+ *    写满上限立即中止，不会先把整个列表 toString 再截断（最多多渲染 Jackson 一个输出缓冲）；
+ *    流式响应、文件、Servlet 对象从不序列化，接口也可通过 @ApiLog 单独关闭；
+ *    非预期异常总是记录参数，可预期的业务异常与成功请求一样按采样率记录
+ *
  * 面试话术：
  * "我使用 Spring AOP 实现了统一的 API 日志切面。
  * AOP 底层基于动态代理模式，对于实现了接口的类使用 JDK 动态代理，
  * 对于没有接口的类使用 CGLIB 字节码增强。
- * 
+ *
  * 这个切面会拦截所有 Controller 层的方法，记录：
  * 1. 请求 URL 和 HTTP 方法
  * 2. 请求参数（用于问题复现）
  * 3. 执行耗时（用于性能监控）
  * 4. 异常信息（用于错误排查）
- * 
+ *
+ * 最早的版本每个请求打 5~7 行日志，还会把参数和返回值整个 toString，
+ * 压测时发现日志本身成了 CPU 和内存分配的大头。后来改成每个请求一条结构化日志，
+ * 用 System.nanoTime() 计时，参数和结果按采样率、截断长度记录，
+ * 再交给异步 Appender 的环形队列由后台线程写出，请求线程不再等磁盘 I/O。
+ *
  * 这体现了面向切面编程（AOP）的思想，将横切关注点（日志）
  * 从业务逻辑中分离，提高了代码的可维护性。
- * 
+ *
  * 对应 408 考点：
  * - 设计模式：代理模式
  * - 软件工程：关注点分离（Separation of Concerns）
- * - 操作系统：系统调用拦截机制"
- * 
+ * - 操作系统：系统调用拦截机制、生产者-消费者模型（异步日志队列）"
+ *
  * @author wrench1024
  * @since 2026-01-02
  */
 @Slf4j
 @Aspect
 @Component
+@EnableConfigurationProperties(ApiLogProperties.class)
 public class ApiLogAspect {
-    
+
+    private static final long NANOS_PER_MICRO = 1_000L;
+
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final ApiLogProperties properties;
+
+    /**
+     * 参数 / 结果渲染：空 Bean 输出 {}，不报错
+     */
+    private final ObjectWriter payloadWriter;
+
+    /**
+     * 每个接口的日志元数据（注解解析结果、处理器名称），只在首次调用时计算
+     */
+    private final Map<Method, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public ApiLogAspect(ApiLogProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.payloadWriter = objectMapper.writer().without(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+    }
+
     /**
      * 定义切点：拦截所有 Controller
      */
     @Pointcut("execution(public * com.uni.research.module.*.controller.*.*(..))")
     public void apiLog() {
     }
-    
+
     /**
      * 环绕通知：记录 API 调用日志
      */
     @Around("apiLog()")
     public Object around(ProceedingJoinPoint point) throws Throwable {
-        long startTime = System.currentTimeMillis();
-        
+        if (!properties.isEnabled() || !log.isInfoEnabled()) {
+            return point.proceed();
+        }
+
         // 获取请求信息
-        ServletRequestAttributes attributes = 
+        ServletRequestAttributes attributes =
             (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        
-        if (attributes != null) {
-            HttpServletRequest request = attributes.getRequest();
-            String url = request.getRequestURI();
-            String method = request.getMethod();
-            String className = point.getTarget().getClass().getSimpleName();
-            String methodName = point.getSignature().getName();
-            Object[] args = point.getArgs();
-            
-            log.info("========== API 请求开始 ==========");
-            log.info("请求 URL: {} {}", method, url);
-            log.info("请求方法: {}.{}", className, methodName);
-            log.info("请求参数: {}", args);
-            
-            try {
-                // 执行目标方法
-                Object result = point.proceed();
-                
-                long costTime = System.currentTimeMillis() - startTime;
-                log.info("响应结果: {}", result);
-                log.info("执行耗时: {} ms", costTime);
-                log.info("========== API 请求结束 ==========\n");
-                
-                return result;
-                
-            } catch (Throwable e) {
-                long costTime = System.currentTimeMillis() - startTime;
-                log.error("========== API 请求异常 ==========");
-                log.error("异常信息: {}", e.getMessage());
-                log.error("执行耗时: {} ms", costTime);
-                log.error("========== API 请求结束 ==========\n");
-                throw e;
+
+        // 如果不是 HTTP 请求，直接执行
+        if (attributes == null) {
+            return point.proceed();
+        }
+
+        Endpoint endpoint = resolve(point);
+        if (!endpoint.enabled) {
+            return point.proceed();
+        }
+
+        long startTime = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            // 执行目标方法
+            result = point.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            long costNanos = System.nanoTime() - startTime;
+            logRequest(attributes.getRequest(), endpoint, point.getArgs(), result, error, costNanos);
+        }
+    }
+
+    /**
+     * 输出一条结构化访问日志
+     */
+    private void logRequest(HttpServletRequest request, Endpoint endpoint, Object[] args,
+                            Object result, Throwable error, long costNanos) {
+        boolean slow = costNanos >= properties.getSlowThresholdMs() * NANOS_PER_MILLI;
+        // 可预期的业务异常（参数错误、限流等）和成功请求一样按采样率记录参数，被刷接口时不放大日志量
+        boolean unexpected = error != null && !(error instanceof BizException biz && biz.isExpected());
+        boolean withArgs = endpoint.args && (unexpected || slow || sampled(properties.getArgsSampleRate()));
+        boolean withResult = endpoint.result && error == null && sampled(properties.getResultSampleRate());
+
+        StringBuilder line = new StringBuilder(128)
+                .append("api method=").append(request.getMethod())
+                .append(" uri=").append(request.getRequestURI())
+                .append(" handler=").append(endpoint.name)
+                .append(" status=").append(error == null ? "ok" : "error")
+                .append(" costUs=").append(costNanos / NANOS_PER_MICRO);
+        if (slow) {
+            line.append(" slow=true");
+        }
+        if (withArgs) {
+            line.append(" args=");
+            appendArgs(line, args);
+        }
+        if (withResult) {
+            line.append(" result=");
+            appendValue(line, result, line.length() + properties.getMaxPayloadLength());
+        }
+        if (error != null) {
+            line.append(" error=").append(error.getClass().getSimpleName())
+                    .append(" errorMsg=");
+            appendValue(line, error.getMessage(), line.length() + properties.getMaxPayloadLength());
+            log.warn(line.toString());
+        } else {
+            log.info(line.toString());
+        }
+    }
+
+    private boolean sampled(double rate) {
+        return rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private void appendArgs(StringBuilder line, Object[] args) {
+        int limit = line.length() + properties.getMaxPayloadLength();
+        line.append('[');
+        for (int i = 0; i < args.length && line.length() < limit; i++) {
+            if (i > 0) {
+                line.append(", ");
             }
+            appendValue(line, args[i], limit);
         }
-        
-        // 如果不是 HTTP 请求，直接执行
-        return point.proceed();
+        line.append(']');
+    }
+
+    /**
+     * 渲染单个值，超出 limit 截断；不可序列化的类型只输出类型名
+     */
+    private void appendValue(StringBuilder line, Object value, int limit) {
+        if (line.length() >= limit) {
+            line.append("...");
+            return;
+        }
+        if (value == null || value instanceof CharSequence || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum<?>) {
+            CharSequence text = value instanceof CharSequence chars ? chars : String.valueOf(value);
+            int room = limit - line.length();
+            if (text.length() > room) {
+                line.append(text, 0, room).append("...");
+            } else {
+                line.append(text);
+            }
+            return;
+        }
+        if (isOpaque(value)) {
+            line.append('<').append(value.getClass().getSimpleName()).append('>');
+            return;
+        }
+        int start = line.length();
+        BoundedWriter out = new BoundedWriter(line, limit);
+        try {
+            payloadWriter.writeValue(out, value);
+        } catch (IOException | RuntimeException e) {
+            if (!out.full) {
+                // 序列化失败（而不是写满），退回只输出类型名
+                line.setLength(start);
+                line.append('<').append(value.getClass().getSimpleName()).append('>');
+                return;
+            }
+        }
+        if (out.full) {
+            line.append("...");
+        }
+    }
+
+    /**
+     * 流式响应、文件、Servlet 对象等不应 toString 的类型
+     */
+    private boolean isOpaque(Object value) {
+        return value instanceof ResponseBodyEmitter
+                || value instanceof StreamingResponseBody
+                || value instanceof InputStreamSource
+                || value instanceof InputStream
+                || value instanceof OutputStream
+                || value instanceof ServletRequest
+                || value instanceof ServletResponse
+                || value instanceof byte[]
+                || (value instanceof Collection<?> c && c.size() > properties.getMaxPayloadLength());
+    }
+
+    private Endpoint resolve(ProceedingJoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        return endpoints.computeIfAbsent(method, m -> {
+            Class<?> targetClass = point.getTarget().getClass();
+            ApiLog apiLog = AnnotatedElementUtils.findMergedAnnotation(m, ApiLog.class);
+            if (apiLog == null) {
+                apiLog = AnnotatedElementUtils.findMergedAnnotation(targetClass, ApiLog.class);
+            }
+            String name = targetClass.getSimpleName() + "." + m.getName();
+            return apiLog == null
+                    ? new Endpoint(name, true, true, true)
+                    : new Endpoint(name, apiLog.enabled(), apiLog.args(), apiLog.result());
+        });
+    }
+
+    /**
+     * 写入 StringBuilder，写满 limit 后抛出 PayloadFull 中止序列化
+     */
+    private static final class BoundedWriter extends Writer {
+
+        private final StringBuilder line;
+
+        private final int limit;
+
+        private boolean full;
+
+        private BoundedWriter(StringBuilder line, int limit) {
+            this.line = line;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            int room = reserve(length);
+            line.append(chars, offset, room);
+            checkFull(room, length);
+        }
+
+        @Override
+        public void write(String text, int offset, int length) throws IOException {
+            int room = reserve(length);
+            line.append(text, offset, offset + room);
+            checkFull(room, length);
+        }
+
+        private int reserve(int length) throws IOException {
+            if (full) {
+                throw new PayloadFull();
+            }
+            return Math.min(length, Math.max(limit - line.length(), 0));
+        }
+
+        private void checkFull(int written, int length) throws IOException {
+            if (written < length) {
+                full = true;
+                throw new PayloadFull();
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 写满上限的信号，不填充堆栈（每次新建：Jackson 关闭生成器时可能向它追加 suppressed 异常）
+     */
+    private static final class PayloadFull extends IOException {
+
+        private PayloadFull() {
+            super("payload limit reached");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    private record Endpoint(String name, boolean enabled, boolean args, boolean result) {
     }
 }
@@ -0,0 +1,128 @@
+package com.uni.research.common.aspect;
+
+import com.uni.research.common.exception.BizException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API 耗时指标切面
+ *
+ * 对应 408 考点：数据结构 - 直方图（分桶统计）
+ *
+ * 设计思路：
+ * 1. 每个 Controller 方法一组 Timer（按结果 success / biz_error / error 区分），导出为 Prometheus 直方图
+ * 2. Micrometer 的直方图按指数分桶、桶计数使用无锁累加器，记录一次只是一次原子加
+ * 3. Timer 在首次出现对应结果时创建并缓存，之后每次请求不再查找注册表
+ * 4. 直方图桶范围限定在 1ms ~ 60s，控制时间序列数量
+ *
+ * 面试话术：
+ * "以前只能从日志里 grep '执行耗时' 看性能，平均值掩盖了长尾。
+ * 我给每个接口记录了直方图，通过 /actuator/prometheus 暴露，
+ * Prometheus 用 histogram_quantile 计算 p99，可以直接针对 p99 告警。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Aspect
+@Component
+public class ApiMetricsAspect {
+
+    private static final String METRIC_NAME = "api.latency";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, Timers> timers = new ConcurrentHashMap<>();
+
+    public ApiMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 定义切点：拦截所有 Controller（与 ApiLogAspect 一致）
+     */
+    @Pointcut("execution(public * com.uni.research.module.*.controller.*.*(..))")
+    public void apiMetrics() {
+    }
+
+    @Around("apiMetrics()")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        Timers endpoint = resolve(point);
+        long startTime = System.nanoTime();
+        try {
+            Object result = point.proceed();
+            endpoint.success().record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (BizException e) {
+            endpoint.bizError().record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (Throwable e) {
+            endpoint.error().record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private Timers resolve(ProceedingJoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        return timers.computeIfAbsent(method,
+                m -> new Timers(point.getTarget().getClass().getSimpleName() + "." + m.getName()));
+    }
+
+    /**
+     * 单个接口的三组 Timer，首次出现对应结果时才注册，避免产生大量空的直方图序列
+     */
+    private final class Timers {
+
+        private final String handler;
+
+        private volatile Timer success;
+
+        private volatile Timer bizError;
+
+        private volatile Timer error;
+
+        private Timers(String handler) {
+            this.handler = handler;
+        }
+
+        private Timer success() {
+            Timer timer = success;
+            return timer != null ? timer : (success = register("success"));
+        }
+
+        private Timer bizError() {
+            Timer timer = bizError;
+            return timer != null ? timer : (bizError = register("biz_error"));
+        }
+
+        private Timer error() {
+            Timer timer = error;
+            return timer != null ? timer : (error = register("error"));
+        }
+
+        /**
+         * 并发首次注册时 MeterRegistry 返回同一个 Timer，重复赋值无害
+         */
+        private Timer register(String outcome) {
+            return Timer.builder(METRIC_NAME)
+                    .description("Controller 方法执行耗时")
+                    .tag("handler", handler)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(60))
+                    .register(meterRegistry);
+        }
+    }
+}
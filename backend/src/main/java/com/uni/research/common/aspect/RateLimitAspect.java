@@ -0,0 +1,125 @@
+package com.uni.research.common.aspect;
+
+import com.uni.research.common.annotation.RateLimit;
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.ratelimit.DistributedRateLimiter;
+import com.uni.research.common.result.ResultCode;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口限流切面
+ *
+ * 对应 408 考点：设计模式 - 代理模式
+ *
+ * 设计思路：
+ * 1. 拦截所有 Controller 方法，读取方法上的 @RateLimit（可多个），解析结果按方法缓存，
+ *    没有标注的接口只多一次 Map 查找
+ * 2. 每条规则对应一个 DistributedRateLimiter.Bucket，限流 Key = 维度值（用户 / IP）+ 可选的 SpEL 结果
+ * 3. 任一规则拒绝即抛出 429 业务异常，由全局异常处理器设置状态码和 Retry-After
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Aspect
+@Component
+public class RateLimitAspect {
+
+    private static final String UNKNOWN = "unknown";
+
+    private final DistributedRateLimiter rateLimiter;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private final ParameterNameDiscoverer parameterNames = new DefaultParameterNameDiscoverer();
+
+    private final Map<Method, List<Rule>> rules = new ConcurrentHashMap<>();
+
+    public RateLimitAspect(DistributedRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * 定义切点：拦截所有 Controller（与 ApiLogAspect 一致）
+     */
+    @Pointcut("execution(public * com.uni.research.module.*.controller.*.*(..))")
+    public void rateLimit() {
+    }
+
+    @Around("rateLimit()")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        List<Rule> endpointRules = rules.computeIfAbsent(method, m -> resolve(point, m));
+        for (Rule rule : endpointRules) {
+            if (!rule.bucket.tryAcquire(key(rule, point, method))) {
+                throw rule.rejection;
+            }
+        }
+        return point.proceed();
+    }
+
+    private List<Rule> resolve(ProceedingJoinPoint point, Method method) {
+        Set<RateLimit> annotations = AnnotatedElementUtils.findMergedRepeatableAnnotations(method, RateLimit.class);
+        if (annotations.isEmpty()) {
+            return List.of();
+        }
+        String defaultName = point.getTarget().getClass().getSimpleName() + "." + method.getName();
+        return annotations.stream().map(limit -> {
+            String name = StringUtils.hasText(limit.name()) ? limit.name() : defaultName;
+            long capacity = limit.capacity() > 0 ? limit.capacity() : limit.permits();
+            double permitsPerSecond = (double) limit.permits() / limit.periodSeconds();
+            Expression key = StringUtils.hasText(limit.key()) ? parser.parseExpression(limit.key()) : null;
+            return new Rule(rateLimiter.bucket(name, capacity, permitsPerSecond), limit.dimension(), key,
+                    new BizException(ResultCode.TOO_MANY_REQUESTS, limit.message()));
+        }).toList();
+    }
+
+    private String key(Rule rule, ProceedingJoinPoint point, Method method) {
+        String dimension = switch (rule.dimension) {
+            case GLOBAL -> "all";
+            case USER -> {
+                Long userId = UserContext.getUserId();
+                yield userId != null ? "u" + userId : "ip" + clientIp();
+            }
+            case IP -> "ip" + clientIp();
+        };
+        if (rule.key == null) {
+            return dimension;
+        }
+        MethodBasedEvaluationContext context =
+                new MethodBasedEvaluationContext(point.getTarget(), method, point.getArgs(), parameterNames);
+        return dimension + ":" + rule.key.getValue(context, String.class);
+    }
+
+    private String clientIp() {
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        return attributes == null ? UNKNOWN : attributes.getRequest().getRemoteAddr();
+    }
+
+    /**
+     * @param rejection 限流时抛出的异常（不采集堆栈，每条规则共享一个实例）
+     */
+    private record Rule(DistributedRateLimiter.Bucket bucket, RateLimit.Dimension dimension, Expression key,
+                        BizException rejection) {
+    }
+}
@@ -0,0 +1,343 @@
+package com.uni.research.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.config.MetadataCacheProperties;
+import com.uni.research.common.constant.RedisKeyConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 元数据读穿缓存（本地 Caffeine + Redis 两级）
+ *
+ * 对应 408 考点：计算机组成 - 存储层次结构（多级缓存、写失效）
+ *
+ * 设计思路：
+ * 1. 按区域（如 doc、chat-session）划分，每个区域缓存两类数据：
+ *    单个实体（按 ID）和某个用户的列表页（按用户 + 页标识）
+ * 2. 读：L1 本地 → L2 Redis → 数据库，逐级回填
+ * 3. 实体写失效：写库后删除 Redis Key 和本地条目，并广播给其他实例
+ * 4. 列表页不逐个删除（不知道一个用户缓存了哪些页），而是给每个用户维护一个版本号，
+ *    页的 Key 里带版本号；写操作把版本号加 1，旧版本的页自然不再被读到，等 TTL 过期即可
+ * 5. 版本号本地缓存并由广播失效，读列表页时正常情况下不访问 Redis；广播丢失时由 versionTtl 兜底
+ * 6. Redis 不可用时直接查库，缓存只影响性能不影响可用性
+ * 7. 先写库再删缓存，实体回填用租约防止旧值写回：未命中时先 SET NX 一个租约标记，查库后只在标记未被删除时
+ *    才用 Lua 比较并替换为真实值；查库期间发生的写失效会删掉租约，旧值就不会再写进 Redis（也随即移出本地）。
+ *    租约被占用时说明其他请求正在回填，本次直接查库不回填
+ * 8. 仍有一个很小的窗口：L2 命中读到旧值、随即发生写失效、之后才放入本地，旧值最多存活一个 localTtl。
+ *    依据状态做决策的逻辑（如重新处理、进度查询）不要读缓存，直接查库
+ *
+ * 面试话术：
+ * "文档列表、会话列表这类接口读多写少，我做了一个通用的两级读穿缓存。
+ * 难点在失效：一个用户的列表可能缓存了好多页，写一条数据要让所有页失效。
+ * 我没有去枚举删除，而是给每个用户一个版本号拼进 Key，写操作只要 INCR 一下版本号，
+ * 旧的页就全部作废了，O(1) 失效；再配合 Redis 发布订阅让各实例的本地缓存同步。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(MetadataCacheProperties.class)
+public class MetadataCache {
+
+    private static final String ENTITY_EVENT = "e";
+
+    private static final String VERSION_EVENT = "v";
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * 回填租约标记前缀：JSON 不会以 ~ 开头，不会与真实值混淆
+     */
+    private static final String LEASE_PREFIX = "~lease:";
+
+    /**
+     * 租约仍在时替换为真实值。KEYS: 缓存 Key；ARGV: 租约标记、JSON、TTL 毫秒。成功返回 1
+     */
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+              return 1
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * 租约仍在时删除（查库结果为 null 时释放租约）。KEYS: 缓存 Key；ARGV: 租约标记
+     */
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+              return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final MetadataCacheProperties properties;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 本地缓存：Key 与 Redis Key 相同，值为反序列化后的对象（调用方不得修改）
+     */
+    private final Cache<String, Object> localEntries;
+
+    /**
+     * 本地缓存的用户列表版本号：Key 为 区域:userId
+     */
+    private final Cache<String, Long> localVersions;
+
+    public MetadataCache(MetadataCacheProperties properties, StringRedisTemplate redisTemplate,
+                         ObjectMapper objectMapper, RedisMessageListenerContainer listenerContainer,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.localEntries = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getLocalTtl())
+                .recordStats()
+                .build();
+        this.localVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getVersionTtl())
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localEntries, "metadata.local");
+        listenerContainer.addMessageListener(this::onChanged, new ChannelTopic(RedisKeyConstant.META_CHANGED_CHANNEL));
+    }
+
+    /**
+     * 创建一个缓存区域，调用方应持有并复用
+     *
+     * @param name 区域名，作为 Key 和指标标签的一部分
+     */
+    public <T> Region<T> region(String name, Class<T> type) {
+        return new Region<>(name, objectMapper.constructType(type));
+    }
+
+    public <T> Region<T> region(String name, TypeReference<T> type) {
+        return new Region<>(name, objectMapper.constructType(type));
+    }
+
+    /**
+     * 其他实例的变更广播：e|区域|id 删除本地实体，v|区域|userId 删除本地版本号
+     */
+    private void onChanged(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("忽略无效的元数据变更消息: {}", body);
+            return;
+        }
+        if (ENTITY_EVENT.equals(parts[0])) {
+            localEntries.invalidate(RedisKeyConstant.META_ENTITY + parts[1] + ":" + parts[2]);
+        } else if (VERSION_EVENT.equals(parts[0])) {
+            localVersions.invalidate(parts[1] + ":" + parts[2]);
+        }
+    }
+
+    private void publish(String event, String region, Object id) {
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.META_CHANGED_CHANNEL, event + SEPARATOR + region + SEPARATOR + id);
+        } catch (RuntimeException e) {
+            log.warn("元数据变更广播失败，其他实例的本地缓存将在 TTL 后失效: region={}, id={}, error={}",
+                    region, id, e.getMessage());
+        }
+    }
+
+    /**
+     * 一个缓存区域：同一类实体及其按用户划分的列表页
+     */
+    public final class Region<T> {
+
+        private final String name;
+
+        private final JavaType type;
+
+        private final Counter l1Hits;
+
+        private final Counter l2Hits;
+
+        private final Counter misses;
+
+        private Region(String name, JavaType type) {
+            this.name = name;
+            this.type = type;
+            this.l1Hits = lookupCounter("l1_hit");
+            this.l2Hits = lookupCounter("l2_hit");
+            this.misses = lookupCounter("miss");
+        }
+
+        private Counter lookupCounter(String result) {
+            return Counter.builder("metadata.cache.lookups")
+                    .description("元数据缓存查询次数")
+                    .tag("region", name)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+
+        /**
+         * 按 ID 读取实体，未命中时调用 loader 查库并回填；loader 返回 null 时不缓存
+         */
+        public T get(Object id, Supplier<T> loader) {
+            if (!properties.isEnabled()) {
+                return loader.get();
+            }
+            return read(RedisKeyConstant.META_ENTITY + name + ":" + id, loader, true);
+        }
+
+        /**
+         * 写库后调用：删除实体缓存并通知其他实例
+         */
+        public void evict(Object id) {
+            String key = RedisKeyConstant.META_ENTITY + name + ":" + id;
+            if (properties.isEnabled()) {
+                try {
+                    redisTemplate.delete(key);
+                } catch (RuntimeException e) {
+                    log.warn("删除元数据缓存失败，将在 TTL 后过期: key={}, error={}", key, e.getMessage());
+                }
+                publish(ENTITY_EVENT, name, id);
+            }
+            // 先删 Redis 再删本地，否则并发读可能把 Redis 里的旧值又回填到本地
+            localEntries.invalidate(key);
+        }
+
+        /**
+         * 读取用户的某个列表页（pageKey 区分页码 / 游标 / 条数），未命中时调用 loader 查库并回填
+         */
+        public T getForUser(Long userId, String pageKey, Supplier<T> loader) {
+            if (!properties.isEnabled()) {
+                return loader.get();
+            }
+            Long version = version(userId);
+            if (version == null) {
+                return loader.get();
+            }
+            // 列表页的 Key 带版本号，写失效后旧 Key 不会再被读到，回填旧值无害，不需要租约
+            return read(RedisKeyConstant.META_PAGE + name + ":" + userId + ":" + version + ":" + pageKey, loader, false);
+        }
+
+        /**
+         * 用户的数据有增删改时调用：版本号加 1，该用户所有已缓存的列表页失效
+         */
+        public void evictUser(Long userId) {
+            String versionKey = name + ":" + userId;
+            if (properties.isEnabled()) {
+                try {
+                    redisTemplate.opsForValue().increment(RedisKeyConstant.META_VERSION + versionKey);
+                } catch (RuntimeException e) {
+                    log.warn("更新列表版本号失败，列表缓存将在 TTL 后失效: key={}, error={}", versionKey, e.getMessage());
+                }
+                publish(VERSION_EVENT, name, userId);
+            }
+            // 自增之后再删本地版本号，否则并发读可能把旧版本号重新缓存一个 versionTtl
+            localVersions.invalidate(versionKey);
+        }
+
+        /**
+         * 读取用户列表版本号（本地缓存），Redis 不可用时返回 null（调用方跳过缓存）
+         */
+        private Long version(Long userId) {
+            try {
+                return localVersions.get(name + ":" + userId, key -> {
+                    String value = redisTemplate.opsForValue().get(RedisKeyConstant.META_VERSION + key);
+                    return value == null ? 0L : Long.parseLong(value);
+                });
+            } catch (RuntimeException e) {
+                log.debug("读取列表版本号失败，跳过缓存: region={}, userId={}, error={}", name, userId, e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * @param leased 是否用租约回填（实体 Key 会被写失效删除，需要防止旧值写回）
+         */
+        @SuppressWarnings("unchecked")
+        private T read(String key, Supplier<T> loader, boolean leased) {
+            Object local = localEntries.getIfPresent(key);
+            if (local != null) {
+                l1Hits.increment();
+                return (T) local;
+            }
+            String lease = null;
+            try {
+                String json = redisTemplate.opsForValue().get(key);
+                if (json != null && !json.startsWith(LEASE_PREFIX)) {
+                    T value = objectMapper.readValue(json, type);
+                    localEntries.put(key, value);
+                    l2Hits.increment();
+                    return value;
+                }
+                if (leased) {
+                    String token = LEASE_PREFIX + UUID.randomUUID();
+                    if (json != null || !Boolean.TRUE.equals(redisTemplate.opsForValue()
+                            .setIfAbsent(key, token, properties.getFillLeaseTtl()))) {
+                        // 其他请求正在回填（或刚刚回填完成），本次只查库
+                        misses.increment();
+                        return loader.get();
+                    }
+                    lease = token;
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.debug("读取 Redis 元数据缓存失败: key={}, error={}", key, e.getMessage());
+            }
+            misses.increment();
+            T value = loader.get();
+            if (value == null) {
+                release(key, lease);
+                return null;
+            }
+            // 先放本地再回填 Redis：回填失败（租约已被写失效删除）时再移出本地，
+            // 保证写失效之前放入本地的旧值都会被写失效或这里清掉；没拿到租约（Redis 不可用）时只放本地
+            localEntries.put(key, value);
+            try {
+                String json = objectMapper.writeValueAsString(value);
+                if (!leased) {
+                    redisTemplate.opsForValue().set(key, json, properties.getRedisTtl());
+                } else if (lease != null && !Long.valueOf(1).equals(redisTemplate.execute(FILL_SCRIPT, List.of(key), lease, json,
+                        String.valueOf(properties.getRedisTtl().toMillis())))) {
+                    localEntries.invalidate(key);
+                    log.debug("回填期间元数据已变更，放弃回填: key={}", key);
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.debug("写入 Redis 元数据缓存失败: key={}, error={}", key, e.getMessage());
+            }
+            return value;
+        }
+
+        private void release(String key, String lease) {
+            if (lease == null) {
+                return;
+            }
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), lease);
+            } catch (RuntimeException e) {
+                log.debug("释放元数据回填租约失败，将在租约到期后释放: key={}, error={}", key, e.getMessage());
+            }
+        }
+    }
+}
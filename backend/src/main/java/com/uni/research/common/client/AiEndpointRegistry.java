@@ -0,0 +1,205 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.config.AiServiceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 服务各接口（/chat、/embed、/search ...）的运行状态：熔断器、延迟分位数、对冲额度、请求合并和指标
+ *
+ * 按请求路径惰性创建，一个接口变慢或故障不会影响其他接口
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class AiEndpointRegistry {
+
+    /**
+     * 对冲额度上限：短时间内最多攒下这么多次对冲机会
+     */
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private final AiServiceProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public AiEndpointRegistry(AiServiceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Endpoint get(String path) {
+        return endpoints.computeIfAbsent(path, Endpoint::new);
+    }
+
+    public final class Endpoint {
+
+        private final String path;
+
+        private final CircuitBreaker breaker;
+
+        private final LatencyTracker latency;
+
+        private final Timer latencyTimer;
+
+        private final Counter successes;
+
+        private final Counter failures;
+
+        private final Counter rejections;
+
+        private final Counter hedges;
+
+        private final Counter coalesceLeaders;
+
+        private final Counter coalesceFollowers;
+
+        private final boolean hedgeable;
+
+        private double hedgeTokens;
+
+        private Endpoint(String path) {
+            this.path = path;
+            this.breaker = new CircuitBreaker(properties.getBreaker());
+            AiServiceProperties.AdaptiveTimeout timeout = properties.getAdaptiveTimeout();
+            this.latency = new LatencyTracker(timeout.getSampleSize(), timeout.getMinSamples());
+            this.hedgeable = properties.getHedge().isEnabled() && properties.getHedge().getEndpoints().contains(path);
+            this.latencyTimer = Timer.builder("ai.client.latency")
+                    .description("AI 服务调用延迟（到收到响应头）")
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            this.successes = callCounter(path, "success");
+            this.failures = callCounter(path, "failure");
+            this.rejections = callCounter(path, "rejected");
+            this.hedges = Counter.builder("ai.client.hedges")
+                    .description("发出的对冲请求数")
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            this.coalesceLeaders = coalesceCounter(path, "leader");
+            this.coalesceFollowers = coalesceCounter(path, "follower");
+            Gauge.builder("ai.client.coalesce.ratio", this, Endpoint::coalesceRatio)
+                    .description("请求合并比例：共享他人上游调用的请求占比（启动以来）")
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            Gauge.builder("ai.client.breaker.state", breaker, b -> b.state().ordinal())
+                    .description("熔断器状态：0-关闭，1-打开，2-半开")
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+            Gauge.builder("ai.client.timeout", this, Endpoint::timeoutMillis)
+                    .description("当前生效的调用超时（毫秒）")
+                    .tag("endpoint", path)
+                    .register(meterRegistry);
+        }
+
+        private Counter callCounter(String path, String outcome) {
+            return Counter.builder("ai.client.calls")
+                    .description("AI 服务调用次数")
+                    .tag("endpoint", path)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private Counter coalesceCounter(String path, String role) {
+            return Counter.builder("ai.client.coalesce")
+                    .description("经过请求合并层的调用次数：leader 发起上游调用，follower 共享在途调用")
+                    .tag("endpoint", path)
+                    .tag("role", role)
+                    .register(meterRegistry);
+        }
+
+        public String path() {
+            return path;
+        }
+
+        /**
+         * 熔断检查，放行返回 true
+         */
+        public boolean tryAcquire() {
+            if (breaker.tryAcquire()) {
+                return true;
+            }
+            rejections.increment();
+            return false;
+        }
+
+        public void onSuccess(long nanos) {
+            breaker.record(true);
+            latency.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+            latencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+            successes.increment();
+        }
+
+        public void onFailure() {
+            breaker.record(false);
+            failures.increment();
+        }
+
+        /**
+         * 普通调用的整体超时：高分位延迟 × 倍数，限制在 [minTimeout, readTimeout]；样本不足时为 readTimeout
+         */
+        public long timeoutMillis() {
+            AiServiceProperties.AdaptiveTimeout timeout = properties.getAdaptiveTimeout();
+            long max = properties.getReadTimeout();
+            if (!timeout.isEnabled()) {
+                return max;
+            }
+            long observed = latency.percentile(timeout.getPercentile());
+            if (observed < 0) {
+                return max;
+            }
+            long adaptive = (long) (observed * timeout.getMultiplier());
+            return Math.max(timeout.getMinTimeout().toMillis(), Math.min(adaptive, max));
+        }
+
+        /**
+         * 对冲等待时间（p95，不低于 minDelay）；不可对冲或样本不足时返回 -1
+         */
+        public long hedgeDelayMillis() {
+            if (!hedgeable) {
+                return -1;
+            }
+            long observed = latency.percentile(properties.getHedge().getPercentile());
+            return observed < 0 ? -1 : Math.max(observed, properties.getHedge().getMinDelay().toMillis());
+        }
+
+        /**
+         * 每个请求积累 maxRatio 个对冲额度，发一次对冲消耗 1 个，对冲请求不会超过总量的 maxRatio
+         */
+        public synchronized void earnHedge() {
+            hedgeTokens = Math.min(MAX_HEDGE_TOKENS, hedgeTokens + properties.getHedge().getMaxRatio());
+        }
+
+        public synchronized boolean tryHedge() {
+            if (hedgeTokens < 1) {
+                return false;
+            }
+            hedgeTokens -= 1;
+            hedges.increment();
+            return true;
+        }
+
+        /**
+         * 记录一次经过合并层的请求
+         *
+         * @param shared true 表示共享了在途的相同请求，没有发起上游调用
+         */
+        public void recordCoalesce(boolean shared) {
+            (shared ? coalesceFollowers : coalesceLeaders).increment();
+        }
+
+        private double coalesceRatio() {
+            double followers = coalesceFollowers.count();
+            double total = followers + coalesceLeaders.count();
+            return total == 0 ? 0 : followers / total;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.uni.research.common.client;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.uni.research.common.concurrent.RejectableTask;
+import com.uni.research.common.concurrent.TaskFeedback;
+import com.uni.research.common.config.AiServiceProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * AI 服务调用的请求合并（single-flight）
+ *
+ * 对应 408 考点：操作系统 - 进程同步（多个等待者共享一次临界区的结果）
+ *
+ * 设计思路：
+ * 1. 普通调用：Key = 路径 + sha256(规范化请求体)，规范化即 Map 按 Key 排序后序列化为 JSON；
+ *    Key 相同的请求在途时，后来者直接拿到同一个结果（CompletableFuture 的副本），
+ *    不提交任务到 aiTaskExecutor，也不占用许可，突发时的排队和上游负载同时下降
+ * 2. 流式调用：由调用方给出共享 Key（请求体在 executor 中才组装完成，调用方用 key() 对决定回答的输入取哈希，
+ *    如问题 + 历史 + 文档，去掉会话 ID 这类不影响回答的字段），同一时刻只有一个上游 SSE 流，
+ *    事件通过 SseBroadcast 广播给所有订阅者，中途加入的订阅者先补发已推送的部分
+ * 3. 结果只在在途期间共享，完成即从合并表移除，不承担缓存职责（缓存见 AnswerCacheService）
+ * 4. 每个接口记录 leader（发起上游调用）/ follower（共享在途调用）次数和合并比例
+ *
+ * 面试话术：
+ * "热门文档刚被打开时，几十个人几乎同时问同一个问题，每个请求都排队进 aiTaskExecutor 再打到 Python 服务。
+ * 我在 AI 客户端前面加了一层 single-flight：相同请求在途时，后来的请求直接挂在第一个请求的 Future 上；
+ * 流式回答则是一个上游流广播给多个 SSE 连接，中途加入的人先补发前面的 Token。
+ * 合并比例做成了指标，突发时能直接看到省掉了多少上游调用。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class AiRequestCoalescer {
+
+    private final AiServiceClient client;
+
+    private final AiServiceProperties properties;
+
+    private final AiEndpointRegistry endpoints;
+
+    private final ObjectWriter canonicalWriter;
+
+    private final Map<String, CompletableFuture<?>> calls = new ConcurrentHashMap<>();
+
+    private final Map<String, SseBroadcast> streams = new ConcurrentHashMap<>();
+
+    public AiRequestCoalescer(AiServiceClient client, AiServiceProperties properties, AiEndpointRegistry endpoints,
+                              ObjectMapper objectMapper) {
+        this.client = client;
+        this.properties = properties;
+        this.endpoints = endpoints;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    /**
+     * 普通调用：在 executor 中执行，相同请求在途时共享结果
+     *
+     * 同一路径的调用方应使用相同的 reader（结果按路径 + 请求体共享，不区分 reader）
+     *
+     * @param reader 解析响应体，只在发起上游调用的请求中执行一次
+     * @return 失败时以 BizException 结束
+     */
+    public <T> CompletableFuture<T> call(String path, Object body, Executor executor, ResponseReader<T> reader) {
+        AiEndpointRegistry.Endpoint endpoint = endpoints.get(path);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!properties.getCoalesce().isEnabled()) {
+            endpoint.recordCoalesce(false);
+            submit(path, body, executor, reader, future);
+            return future;
+        }
+
+        String key = path + '#' + payloadHash(body);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> existing = (CompletableFuture<T>) calls.putIfAbsent(key, future);
+        if (existing != null) {
+            endpoint.recordCoalesce(true);
+            return existing.copy();
+        }
+        endpoint.recordCoalesce(false);
+        future.whenComplete((result, error) -> calls.remove(key, future));
+        submit(path, body, executor, reader, future);
+        // 返回副本：某个调用方取消或超时不影响共享同一结果的其他调用方
+        return future.copy();
+    }
+
+    /**
+     * 流式调用：shareKey 相同的在途请求共享一个上游 SSE 流
+     *
+     * @param body     异步组装请求体（可包含检索等耗时步骤），只有发起上游调用的请求才会执行；
+     *                 完成后才向 executor 提交流式任务，组装过程不占用 executor 的工作线程，失败时推送 error 事件
+     * @param shareKey 共享 Key，为 null 时不合并
+     * @param shared   每次上游调用回调一次的监听器（生成指标、缓存录制）
+     * @param own      本请求自己的监听器（写入自己的会话等），共享时补发的事件也会回调
+     */
+    public void stream(String path, Supplier<? extends CompletionStage<?>> body, String shareKey, SseEmitter emitter, Executor executor,
+                       SseStreamRelay.StreamListener shared, SseStreamRelay.StreamListener own) {
+        AiEndpointRegistry.Endpoint endpoint = endpoints.get(path);
+        if (shareKey == null || !properties.getCoalesce().isEnabled()) {
+            endpoint.recordCoalesce(false);
+            SseStreamRelay.StreamListener listener = shared.andThen(own);
+            submitWhenReady(body, executor, payload -> new StreamTask(path, payload, emitter, listener, null));
+            return;
+        }
+
+        String key = path + '#' + shareKey;
+        SseBroadcast existing = streams.get(key);
+        if (existing != null && existing.subscribe(emitter, own)) {
+            endpoint.recordCoalesce(true);
+            return;
+        }
+
+        SseBroadcast[] holder = new SseBroadcast[1];
+        SseBroadcast broadcast = new SseBroadcast(properties.getCoalesce().getMaxReplayChars(),
+                () -> streams.remove(key, holder[0]));
+        holder[0] = broadcast;
+        broadcast.subscribe(emitter, own);
+        endpoint.recordCoalesce(false);
+        // 已结束或补发内容超限的广播被新的替换；并发创建时后到者覆盖，先到者照常完成，只是不再接受新订阅者
+        streams.put(key, broadcast);
+        SseStreamRelay.StreamListener listener = shared.andThen(broadcast);
+        submitWhenReady(body, executor,
+                payload -> broadcast.wrap(new StreamTask(path, payload, broadcast, listener, broadcast)));
+    }
+
+    /**
+     * 请求体组装完成后再提交流式任务；组装失败时任务以 reject 结束（推送 error 事件）
+     *
+     * 回调在组装线程（或已完成时在当前线程）中执行，提交时由其上下文决定任务所属用户和链路
+     */
+    private void submitWhenReady(Supplier<? extends CompletionStage<?>> body, Executor executor,
+                                 Function<Object, RejectableTask> task) {
+        CompletionStage<?> payload;
+        try {
+            payload = body.get();
+        } catch (RuntimeException e) {
+            task.apply(null).reject(e);
+            return;
+        }
+        payload.whenComplete((value, error) -> {
+            if (error != null) {
+                task.apply(null).reject(error instanceof CompletionException && error.getCause() != null
+                        ? unchecked(error.getCause()) : unchecked(error));
+                return;
+            }
+            try {
+                executor.execute(task.apply(value));
+            } catch (TaskRejectedException e) {
+                // 拒绝策略已回调 RejectableTask.reject 推送 error 事件
+            }
+        });
+    }
+
+    private static RuntimeException unchecked(Throwable error) {
+        return error instanceof RuntimeException e ? e : new CompletionException(error);
+    }
+
+    /**
+     * 共享 Key：sha256(规范化 body)，供流式调用的调用方使用
+     */
+    public String key(Object body) {
+        return payloadHash(body);
+    }
+
+    private <T> void submit(String path, Object body, Executor executor, ResponseReader<T> reader,
+                            CompletableFuture<T> future) {
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(read(path, body, reader));
+                } catch (RuntimeException e) {
+                    TaskFeedback.dropped();
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 限流、许可超时、线程池已满
+            future.completeExceptionally(e);
+        }
+    }
+
+    private <T> T read(String path, Object body, ResponseReader<T> reader) {
+        try (Response response = client.execute(path, body)) {
+            ResponseBody responseBody = response.body();
+            if (!response.isSuccessful() || responseBody == null) {
+                throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 服务响应异常: HTTP " + response.code());
+            }
+            return reader.read(responseBody);
+        } catch (CircuitOpenException e) {
+            throw new BizException(ResultCode.AI_SERVICE_BUSY, e.getMessage());
+        } catch (IOException e) {
+            throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 服务调用失败: " + e.getMessage());
+        }
+    }
+
+    private String payloadHash(Object body) {
+        try {
+            return DigestUtil.sha256Hex(canonicalWriter.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 请求序列化失败: " + e.getOriginalMessage());
+        }
+    }
+
+    /**
+     * 在 executor 中发起上游流式调用并转发
+     */
+    private final class StreamTask implements RejectableTask {
+
+        private final String path;
+
+        private final Object body;
+
+        private final SseEmitter emitter;
+
+        private final SseStreamRelay.StreamListener listener;
+
+        private final SseBroadcast broadcast;
+
+        private StreamTask(String path, Object body, SseEmitter emitter, SseStreamRelay.StreamListener listener,
+                           SseBroadcast broadcast) {
+            this.path = path;
+            this.body = body;
+            this.emitter = emitter;
+            this.listener = listener;
+            this.broadcast = broadcast;
+        }
+
+        @Override
+        public void run() {
+            Call call;
+            try {
+                call = client.newStreamCall(path, body);
+            } catch (RuntimeException e) {
+                // 本地序列化请求失败，与下游无关
+                TaskFeedback.ignored();
+                SseStreamRelay.fail(emitter, e);
+                return;
+            }
+            if (broadcast != null) {
+                broadcast.upstream(call);
+            }
+            new SseStreamRelay(call, emitter, properties.getStreamMaxEventBytes(), listener).run();
+        }
+
+        @Override
+        public void reject(RuntimeException cause) {
+            SseStreamRelay.fail(emitter, cause);
+        }
+    }
+
+    /**
+     * 响应体解析（在发起上游调用的线程中执行，响应体随后关闭）
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T> {
+
+        T read(ResponseBody body) throws IOException;
+    }
+}
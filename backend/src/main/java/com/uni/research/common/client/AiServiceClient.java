@@ -0,0 +1,211 @@
+package com.uni.research.common.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.common.config.AiServiceProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Python AI 服务客户端
+ *
+ * 设计思路：
+ * 1. 统一封装 /chat、/embed、/search 的请求构建，调用方只关心路径和请求体
+ * 2. 流式调用使用单独派生的客户端：读超时表示"两个 Token 的最大间隔"，
+ *    与普通调用共享连接池
+ * 3. 不读取响应体，流式场景由调用方边读边转发
+ * 4. 每个接口独立熔断（ResilienceInterceptor），普通调用的整体超时按最近延迟的高分位自适应，
+ *    AI 服务变慢时不会让调用线程一律等满 30 秒
+ * 5. 幂等接口（/embed、/search）等待超过 p95 仍未返回时发出对冲请求，先返回的胜出，另一份取消；
+ *    对冲额度按请求数的比例发放，服务整体变慢时不会把负载翻倍
+ *
+ * 面试话术：
+ * "AI 服务偶尔会有长尾，一个请求卡住就把调用线程卡满 30 秒。我做了三件事：
+ * 按接口熔断，失败率过半直接快速失败；超时不再写死，而是取最近 p99 的两倍；
+ * 对幂等的 embed / search 做了对冲请求，等过 p95 还没回来就再发一份，谁先回来用谁，
+ * 对冲比例限制在 10% 以内。这些在本地用故障注入的桩服务验证过。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class AiServiceClient {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final AiServiceProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final OkHttpClient httpClient;
+
+    private final OkHttpClient streamClient;
+
+    private final AiEndpointRegistry endpoints;
+
+    public AiServiceClient(AiServiceProperties properties, ObjectMapper objectMapper,
+                           @Qualifier("aiServiceHttpClient") OkHttpClient httpClient,
+                           AiEndpointRegistry endpoints) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+        this.endpoints = endpoints;
+        this.streamClient = httpClient.newBuilder()
+                .readTimeout(properties.getStreamReadTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 执行普通 POST 调用（自适应超时，幂等接口自动对冲），调用方负责关闭响应
+     *
+     * @throws CircuitOpenException 接口已熔断
+     */
+    public Response execute(String path, Object body) throws IOException {
+        Request request = buildPost(path, body, "application/json");
+        AiEndpointRegistry.Endpoint endpoint = endpoints.get(path);
+        endpoint.earnHedge();
+        long hedgeDelay = endpoint.hedgeDelayMillis();
+        if (hedgeDelay < 0) {
+            return newTimedCall(request, endpoint).execute();
+        }
+
+        HedgedCall hedged = new HedgedCall();
+        hedged.start(newTimedCall(request, endpoint));
+        Response response = hedged.await(hedgeDelay);
+        if (response != null) {
+            return response;
+        }
+        if (endpoint.tryHedge()) {
+            hedged.start(newTimedCall(request, endpoint));
+        }
+        return hedged.await(-1);
+    }
+
+    /**
+     * 创建流式 POST 调用（响应为 text/event-stream）
+     */
+    public Call newStreamCall(String path, Object body) {
+        return streamClient.newCall(buildPost(path, body, "text/event-stream"));
+    }
+
+    private Call newTimedCall(Request request, AiEndpointRegistry.Endpoint endpoint) {
+        Call call = httpClient.newCall(request);
+        call.timeout().timeout(endpoint.timeoutMillis(), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    private Request buildPost(String path, Object body, String accept) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 请求序列化失败: " + e.getOriginalMessage());
+        }
+        Span parent = TraceContext.current();
+        return new Request.Builder()
+                .url(properties.getBaseUrl() + path)
+                .header("Accept", accept)
+                .post(RequestBody.create(json, JSON))
+                // 调度线程上没有调用方的 ThreadLocal，父 Span 随请求传给 TracingInterceptor
+                .tag(Span.class, parent.isNoop() ? null : parent)
+                .build();
+    }
+
+    /**
+     * 一组对冲调用：第一个非 429 / 5xx 的响应胜出并取消其余调用；全部失败时返回最后一个结果
+     */
+    private static final class HedgedCall implements Callback {
+
+        private final CompletableFuture<Response> winner = new CompletableFuture<>();
+
+        private final List<Call> calls = new ArrayList<>(2);
+
+        private int outstanding;
+
+        synchronized void start(Call call) {
+            if (winner.isDone()) {
+                return;
+            }
+            calls.add(call);
+            outstanding++;
+            call.enqueue(this);
+        }
+
+        /**
+         * 等待结果，超时返回 null；millis 为负数时一直等待（受各调用自身的整体超时约束）
+         */
+        Response await(long millis) throws IOException {
+            try {
+                return millis < 0 ? winner.get() : winner.get(millis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAllExcept(null);
+                throw new InterruptedIOException("等待 AI 服务响应时被中断");
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            boolean failed = response.code() == 429 || response.code() >= 500;
+            synchronized (this) {
+                outstanding--;
+                if (failed && outstanding > 0) {
+                    // 另一份还在进行，等它的结果
+                    response.close();
+                    return;
+                }
+            }
+            if (winner.complete(response)) {
+                cancelAllExcept(call);
+            } else {
+                response.close();
+            }
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            synchronized (this) {
+                outstanding--;
+                if (outstanding > 0) {
+                    return;
+                }
+            }
+            winner.completeExceptionally(e);
+        }
+
+        private synchronized void cancelAllExcept(Call keep) {
+            for (Call call : calls) {
+                if (call != keep) {
+                    call.cancel();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.config.AiServiceProperties;
+
+/**
+ * 单个接口的熔断器（关闭 → 打开 → 半开）
+ *
+ * 对应 408 考点：操作系统 - 有限状态机；数据结构 - 循环队列
+ *
+ * 设计思路：
+ * 1. 关闭状态用长度为 windowSize 的环形数组记录最近调用结果，失败率达到阈值就打开
+ * 2. 打开状态直接拒绝，openDuration 后进入半开，只放行 halfOpenCalls 个试探请求
+ * 3. 试探全部成功才关闭，任何一个失败重新打开；试探请求长时间没有结果（被取消）时重新放行
+ * 4. 状态变更很少，用 synchronized 保护即可，临界区只有几次数组读写
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final AiServiceProperties.Breaker properties;
+
+    private final boolean[] failures;
+
+    private int position;
+
+    private int calls;
+
+    private int failureCount;
+
+    private State state = State.CLOSED;
+
+    private long openUntilNanos;
+
+    private long halfOpenSinceNanos;
+
+    private int trialsIssued;
+
+    private int trialsSucceeded;
+
+    public CircuitBreaker(AiServiceProperties.Breaker properties) {
+        this.properties = properties;
+        this.failures = new boolean[properties.getWindowSize()];
+    }
+
+    /**
+     * 是否放行本次调用
+     */
+    public synchronized boolean tryAcquire() {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now - openUntilNanos < 0) {
+                return false;
+            }
+            halfOpen(now);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsIssued >= properties.getHalfOpenCalls()
+                    && now - halfOpenSinceNanos > properties.getOpenDuration().toNanos()) {
+                // 试探请求迟迟没有结果（被取消或丢失），重新放行一轮
+                halfOpen(now);
+            }
+            if (trialsIssued >= properties.getHalfOpenCalls()) {
+                return false;
+            }
+            trialsIssued++;
+        }
+        return true;
+    }
+
+    /**
+     * 记录一次调用结果
+     */
+    public synchronized void record(boolean success) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        switch (state) {
+            case HALF_OPEN -> {
+                if (!success) {
+                    open();
+                } else if (++trialsSucceeded >= properties.getHalfOpenCalls()) {
+                    close();
+                }
+            }
+            case CLOSED -> {
+                if (calls == failures.length) {
+                    if (failures[position]) {
+                        failureCount--;
+                    }
+                } else {
+                    calls++;
+                }
+                failures[position] = !success;
+                if (!success) {
+                    failureCount++;
+                }
+                position = (position + 1) % failures.length;
+                if (calls >= properties.getMinimumCalls()
+                        && failureCount >= properties.getFailureRateThreshold() * calls) {
+                    open();
+                }
+            }
+            default -> {
+                // 打开状态下收到的是熔断前发出的请求结果，忽略
+            }
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntilNanos = System.nanoTime() + properties.getOpenDuration().toNanos();
+    }
+
+    private void halfOpen(long now) {
+        state = State.HALF_OPEN;
+        halfOpenSinceNanos = now;
+        trialsIssued = 0;
+        trialsSucceeded = 0;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        position = 0;
+        calls = 0;
+        failureCount = 0;
+    }
+}
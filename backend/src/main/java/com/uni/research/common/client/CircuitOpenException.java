@@ -0,0 +1,18 @@
+package com.uni.research.common.client;
+
+import java.io.IOException;
+
+/**
+ * 接口已熔断，请求未发出
+ *
+ * 继承 IOException 以便从 OkHttp 拦截器中抛出，调用方按"AI 服务繁忙"处理
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class CircuitOpenException extends IOException {
+
+    public CircuitOpenException(String endpoint) {
+        super("AI 服务接口已熔断: " + endpoint);
+    }
+}
@@ -0,0 +1,91 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.trace.TraceContext;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 大模型流式生成指标：首 Token 延迟（TTFT）与生成速度
+ *
+ * 设计思路：
+ * 1. 首 Token 延迟 = 发起 /chat 请求到第一个 Token 事件推送给浏览器，包含连接、排队和 prefill
+ * 2. 生成速度 = (Token 事件数 - 1) / (最后一个事件 - 第一个事件)，只看 decode 阶段，不被首 Token 延迟拉低；
+ *    上游一个事件对应一个 Token，事件数即近似 Token 数
+ * 3. 同时写入当前链路：首 Token 延迟记为 llm.first-token Span，Token 数和速度记为 llm.stream 的标签
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class GenerationMetrics {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final Timer firstToken;
+
+    private final DistributionSummary tokensPerSecond;
+
+    public GenerationMetrics(MeterRegistry meterRegistry) {
+        this.firstToken = Timer.builder("llm.first.token")
+                .description("发起生成请求到首个 Token 推送的耗时")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(60))
+                .register(meterRegistry);
+        this.tokensPerSecond = DistributionSummary.builder("llm.tokens.per.second")
+                .description("流式生成速度（decode 阶段）")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(500.0)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 为一次流式调用创建监听器（每次调用一个实例，只在转发线程中使用）
+     */
+    public SseStreamRelay.StreamListener listener() {
+        return new SseStreamRelay.StreamListener() {
+
+            private long startNanos;
+
+            private long firstNanos;
+
+            private long lastNanos;
+
+            private int tokens;
+
+            @Override
+            public void onStart() {
+                startNanos = System.nanoTime();
+            }
+
+            @Override
+            public void onEvent(String eventName, String data) {
+                if (eventName != null) {
+                    return;
+                }
+                lastNanos = System.nanoTime();
+                if (tokens++ == 0) {
+                    firstNanos = lastNanos;
+                    firstToken.record(firstNanos - startNanos, TimeUnit.NANOSECONDS);
+                    TraceContext.current().record("llm.first-token", startNanos, firstNanos);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                TraceContext.current().tag("tokens", tokens);
+                if (tokens > 1 && lastNanos > firstNanos) {
+                    double rate = (tokens - 1) * NANOS_PER_SECOND / (lastNanos - firstNanos);
+                    tokensPerSecond.record(rate);
+                    TraceContext.current().tag("tokensPerSecond", Math.round(rate * 10) / 10.0);
+                }
+            }
+        };
+    }
+}
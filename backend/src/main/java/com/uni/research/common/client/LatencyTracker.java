@@ -0,0 +1,70 @@
+package com.uni.research.common.client;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 最近 N 次调用延迟的分位数统计
+ *
+ * 对应 408 考点：数据结构 - 循环队列、排序与第 k 小元素
+ *
+ * 设计思路：
+ * 1. 环形数组保存最近 sampleSize 个延迟（毫秒），写入 O(1)
+ * 2. 分位数按需计算：复制并排序一份快照，最多每秒重算一次，多次读取共用同一份有序快照
+ * 3. 样本数不足 minSamples 时返回 -1，由调用方使用静态配置
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class LatencyTracker {
+
+    private static final long SNAPSHOT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int[] samples;
+
+    private final int minSamples;
+
+    private int position;
+
+    private int count;
+
+    private int[] sorted = new int[0];
+
+    private long sortedAtNanos;
+
+    private boolean dirty;
+
+    public LatencyTracker(int sampleSize, int minSamples) {
+        this.samples = new int[sampleSize];
+        this.minSamples = minSamples;
+    }
+
+    public synchronized void record(long millis) {
+        samples[position] = (int) Math.min(millis, Integer.MAX_VALUE);
+        position = (position + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        dirty = true;
+    }
+
+    /**
+     * 分位数（毫秒），样本不足时返回 -1
+     *
+     * @param quantile 0~1，如 0.95
+     */
+    public synchronized long percentile(double quantile) {
+        if (count < minSamples) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        if (dirty && (sorted.length == 0 || now - sortedAtNanos >= SNAPSHOT_INTERVAL_NANOS)) {
+            sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            sortedAtNanos = now;
+            dirty = false;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,52 @@
+package com.uni.research.common.client;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * AI 服务调用拦截器：熔断检查 + 记录每次尝试的结果和延迟（对冲请求的每一份单独记录）
+ *
+ * 结果判定：
+ * - 2xx ~ 4xx 视为成功（4xx 是请求本身的问题，不代表服务不健康）
+ * - 429、5xx、连接失败和超时视为失败
+ * - 被主动取消（对冲输掉的一份、浏览器断开）不计入统计
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class ResilienceInterceptor implements Interceptor {
+
+    private final AiEndpointRegistry registry;
+
+    public ResilienceInterceptor(AiEndpointRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        AiEndpointRegistry.Endpoint endpoint = registry.get(chain.request().url().encodedPath());
+        if (!endpoint.tryAcquire()) {
+            throw new CircuitOpenException(endpoint.path());
+        }
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        } catch (IOException e) {
+            // 超时是 InterruptedIOException（整体超时也会把 Call 标记为取消），其余取消是主动放弃
+            if (e instanceof InterruptedIOException || !chain.call().isCanceled()) {
+                endpoint.onFailure();
+            }
+            throw e;
+        }
+        if (response.code() == 429 || response.code() >= 500) {
+            endpoint.onFailure();
+        } else {
+            endpoint.onSuccess(System.nanoTime() - start);
+        }
+        return response;
+    }
+}
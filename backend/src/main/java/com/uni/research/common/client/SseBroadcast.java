@@ -0,0 +1,230 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.concurrent.RejectableTask;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 一条上游 SSE 流 → 多个浏览器 SSE 连接的广播
+ *
+ * 对应 408 考点：操作系统 - 生产者-消费者（一写多读）、进程同步
+ *
+ * 设计思路：
+ * 1. 作为 SseStreamRelay 的"emitter"：转发器照常逐事件 send，本类把每个事件写给所有订阅者；
+ *    同时作为转发器的 StreamListener，把 (事件名, 数据) 转给每个订阅者自己的监听器（如写入各自的会话）
+ * 2. 已推送的事件保留一份，中途加入的订阅者先补发这些事件再接收后续事件，看到的是完整回答；
+ *    保留内容超过 maxReplayChars 后不再接受新订阅者，由调用方单独发起上游调用
+ * 3. 单个订阅者写失败只移除它自己；最后一个订阅者离开时取消上游调用，send 抛出 IOException 让转发器停止
+ * 4. 事件在同一把锁内依次写给各订阅者，慢订阅者会拖慢其他订阅者，背压最终传导到上游（与单连接转发一致）
+ * 5. 结束（正常、出错、全部离开）后从合并表中移除，之后的相同请求会发起新的上游调用（或命中回答缓存）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+public class SseBroadcast extends SseEmitter implements SseStreamRelay.StreamListener {
+
+    private final int maxReplayChars;
+
+    private final Runnable onFinish;
+
+    private final List<Set<DataWithMediaType>> sent = new ArrayList<>();
+
+    private final List<Event> events = new ArrayList<>();
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    private int replayChars;
+
+    private boolean replayFull;
+
+    private boolean finished;
+
+    private Call upstream;
+
+    /**
+     * @param maxReplayChars 为中途加入的订阅者保留的已推送内容上限（字符）
+     * @param onFinish       广播结束时回调一次（从合并表中移除）
+     */
+    public SseBroadcast(int maxReplayChars, Runnable onFinish) {
+        this.maxReplayChars = maxReplayChars;
+        this.onFinish = onFinish;
+    }
+
+    /**
+     * 最后一个订阅者离开时取消的上游调用
+     */
+    public synchronized void upstream(Call call) {
+        this.upstream = call;
+        // 发起调用前订阅者已全部离开
+        if (finished) {
+            call.cancel();
+        }
+    }
+
+    /**
+     * 包装上游转发任务：无论转发以何种方式结束，都结束广播并关闭剩余订阅者
+     */
+    public RejectableTask wrap(RejectableTask relay) {
+        return new RejectableTask() {
+            @Override
+            public void run() {
+                try {
+                    relay.run();
+                } finally {
+                    complete();
+                }
+            }
+
+            @Override
+            public void reject(RuntimeException cause) {
+                try {
+                    relay.reject(cause);
+                } finally {
+                    complete();
+                }
+            }
+        };
+    }
+
+    /**
+     * 加入广播：先补发已推送的事件，再接收后续事件
+     *
+     * @param listener 本订阅者的监听器，补发的事件也会回调
+     * @return false 表示广播已结束或补发内容已超上限，调用方应单独发起上游调用
+     */
+    public synchronized boolean subscribe(SseEmitter emitter, SseStreamRelay.StreamListener listener) {
+        if (finished || replayFull) {
+            return false;
+        }
+        Subscriber subscriber = new Subscriber(emitter, listener);
+        try {
+            for (Set<DataWithMediaType> event : sent) {
+                emitter.send(event);
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("补发事件失败，订阅者已断开: {}", e.getMessage());
+            return true;
+        }
+        for (Event event : events) {
+            subscriber.onEvent(event);
+        }
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> leave(subscriber));
+        emitter.onTimeout(() -> leave(subscriber));
+        emitter.onError(e -> leave(subscriber));
+        return true;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+        Set<DataWithMediaType> event = builder.build();
+        synchronized (this) {
+            if (!replayFull) {
+                for (DataWithMediaType item : event) {
+                    replayChars += String.valueOf(item.getData()).length();
+                }
+                if (replayChars > maxReplayChars) {
+                    replayFull = true;
+                    sent.clear();
+                    events.clear();
+                } else {
+                    sent.add(event);
+                }
+            }
+            Iterator<Subscriber> iterator = subscribers.iterator();
+            while (iterator.hasNext()) {
+                Subscriber subscriber = iterator.next();
+                try {
+                    subscriber.emitter().send(event);
+                } catch (IOException | IllegalStateException e) {
+                    iterator.remove();
+                }
+            }
+            if (subscribers.isEmpty()) {
+                throw new IOException("所有订阅者已断开");
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(String eventName, String data) {
+        Event event = new Event(eventName, data);
+        if (!replayFull) {
+            events.add(event);
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onEvent(event);
+        }
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.listener().onComplete();
+            } catch (RuntimeException e) {
+                log.warn("流式事件监听器异常: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void complete() {
+        if (finish()) {
+            subscribers.forEach(subscriber -> subscriber.emitter().complete());
+        }
+    }
+
+    @Override
+    public synchronized void completeWithError(Throwable ex) {
+        if (finish()) {
+            subscribers.forEach(subscriber -> subscriber.emitter().completeWithError(ex));
+        }
+    }
+
+    /**
+     * 标记结束（只生效一次），不再接受新订阅者；订阅者列表保留，转发器随后回调的 onComplete 仍能送达
+     */
+    private boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        sent.clear();
+        events.clear();
+        onFinish.run();
+        return true;
+    }
+
+    private synchronized void leave(Subscriber subscriber) {
+        if (finished || !subscribers.remove(subscriber) || !subscribers.isEmpty()) {
+            return;
+        }
+        finish();
+        if (upstream != null) {
+            upstream.cancel();
+        }
+    }
+
+    private record Event(String name, String data) {
+    }
+
+    private record Subscriber(SseEmitter emitter, SseStreamRelay.StreamListener listener) {
+
+        void onEvent(Event event) {
+            try {
+                listener.onEvent(event.name(), event.data());
+            } catch (RuntimeException e) {
+                log.warn("流式事件监听器异常: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.concurrent.RejectableTask;
+import com.uni.research.common.concurrent.TaskFeedback;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * 上游 SSE 流 → 浏览器 SSE 的逐事件转发器
+ *
+ * 对应 408 考点：计算机网络 - TCP 流量控制（滑动窗口）
+ *
+ * 设计思路：
+ * 1. 逐行读取上游事件，读到一个完整事件就立即 send + flush，首 Token 延迟只多一次内存拷贝
+ * 2. 每个连接只持有 Okio 的分段缓冲和一个事件大小的 StringBuilder，从不拼接完整回答
+ * 3. 背压：浏览器读得慢时 send 会阻塞在 Socket 写上，转发线程就不再读上游，
+ *    上游 TCP 接收窗口被填满，压力自然传导回 Python 服务
+ * 4. 浏览器断开 / 超时时取消上游 Call，及时释放连接和 AI 服务资源
+ * 5. 可选的 StreamListener 在转发的同时观察每个事件（缓存录制、消息落库等），监听器异常不影响转发
+ * 6. 整个转发过程记为 llm.stream Span（从发起请求到最后一个事件推送完）
+ * 7. 出错时推送 error 事件后正常返回，真实结果通过 TaskFeedback 报告给限流器：
+ *    5xx / 429、熔断、连接中断算下游失败，客户端断开、其他 4xx 不计；延迟样本取首个事件的时刻
+ *
+ * 面试话术：
+ * "SSE 转发最容易犯的错是把上游响应 body().string() 读完再返回，这样既没有流式效果，
+ * 又会把整个回答放进内存。我的做法是拿到 OkHttp 的 BufferedSource 逐事件转发，
+ * 每个连接的缓冲区有上限；浏览器消费慢时写操作阻塞，读上游也随之停止，
+ * 依靠 TCP 滑动窗口实现端到端背压，不需要额外的队列。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+public class SseStreamRelay implements RejectableTask {
+
+    /**
+     * 上游结束标记（与 OpenAI 流式协议一致）
+     */
+    private static final String DONE = "[DONE]";
+
+    private final Call call;
+
+    private final SseEmitter emitter;
+
+    private final int maxEventBytes;
+
+    private final StreamListener listener;
+
+    public SseStreamRelay(Call call, SseEmitter emitter, int maxEventBytes) {
+        this(call, emitter, maxEventBytes, StreamListener.NONE);
+    }
+
+    public SseStreamRelay(Call call, SseEmitter emitter, int maxEventBytes, StreamListener listener) {
+        this.call = call;
+        this.emitter = emitter;
+        this.maxEventBytes = maxEventBytes;
+        this.listener = listener;
+        // 浏览器断开、超时或出错时取消上游请求
+        emitter.onCompletion(call::cancel);
+        emitter.onTimeout(call::cancel);
+        emitter.onError(e -> call.cancel());
+    }
+
+    @Override
+    public void run() {
+        try (Span span = TraceContext.start("llm.stream")) {
+            notifyStart();
+            relay(span);
+        }
+    }
+
+    private void relay(Span span) {
+        try (Response response = call.execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                log.warn("AI 服务流式响应异常: HTTP {}", response.code());
+                span.tag("status", response.code());
+                if (response.code() >= 500 || response.code() == 429 || body == null) {
+                    TaskFeedback.dropped();
+                } else {
+                    TaskFeedback.ignored();
+                }
+                sendErrorAndComplete(ResultCode.AI_SERVICE_ERROR);
+                return;
+            }
+            pump(body.source());
+            emitter.complete();
+            notifyComplete();
+        } catch (CircuitOpenException e) {
+            TaskFeedback.dropped();
+            span.error(e);
+            sendErrorAndComplete(ResultCode.AI_SERVICE_BUSY);
+        } catch (IOException e) {
+            if (call.isCanceled()) {
+                log.debug("客户端已断开，停止转发 AI 流式响应");
+                span.tag("canceled", true);
+                // 已收到首个事件时延迟样本仍然有效
+                if (!TaskFeedback.hasResponded()) {
+                    TaskFeedback.ignored();
+                }
+                return;
+            }
+            log.warn("AI 服务流式响应中断: {}", e.getMessage());
+            TaskFeedback.dropped();
+            span.error(e);
+            sendErrorAndComplete(ResultCode.AI_SERVICE_ERROR);
+        } catch (BizException e) {
+            TaskFeedback.dropped();
+            span.error(e);
+            sendErrorAndComplete(e.getCode(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void reject(RuntimeException cause) {
+        fail(emitter, cause);
+    }
+
+    /**
+     * 还没有发起上游调用就失败（任务被拒绝、组装请求失败）时推送 error 事件并结束
+     */
+    public static void fail(SseEmitter emitter, RuntimeException cause) {
+        if (cause instanceof BizException e) {
+            sendErrorAndComplete(emitter, e.getCode(), e.getMessage());
+        } else {
+            sendErrorAndComplete(emitter, ResultCode.AI_SERVICE_BUSY.getCode(), ResultCode.AI_SERVICE_BUSY.getMessage());
+        }
+    }
+
+    /**
+     * 按 SSE 协议解析上游：data 行累积到当前事件，空行表示事件结束
+     */
+    private void pump(BufferedSource source) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String eventName = null;
+        while (true) {
+            String line = readLine(source);
+            if (line == null) {
+                break;
+            }
+            if (line.isEmpty()) {
+                if (data.length() > 0) {
+                    if (DONE.contentEquals(data)) {
+                        return;
+                    }
+                    dispatch(eventName, data.toString());
+                    data.setLength(0);
+                }
+                eventName = null;
+            } else if (line.startsWith("data:")) {
+                if (data.length() > 0) {
+                    data.append('\n');
+                }
+                data.append(line, line.startsWith("data: ") ? 6 : 5, line.length());
+                if (data.length() > maxEventBytes) {
+                    throw new IOException("上游 SSE 事件超过上限 " + maxEventBytes + " 字节");
+                }
+            } else if (line.startsWith("event:")) {
+                eventName = line.substring(6).trim();
+            }
+            // id:、retry: 以及 ":" 开头的注释行不需要转发
+        }
+        if (data.length() > 0 && !DONE.contentEquals(data)) {
+            dispatch(eventName, data.toString());
+        }
+    }
+
+    /**
+     * 读取一行（不含换行符），单行长度受 maxEventBytes 限制；流结束返回 null
+     */
+    private String readLine(BufferedSource source) throws IOException {
+        if (source.exhausted()) {
+            return null;
+        }
+        try {
+            return source.readUtf8LineStrict(maxEventBytes);
+        } catch (EOFException e) {
+            long remaining = source.getBuffer().size();
+            if (remaining > maxEventBytes) {
+                throw new IOException("上游 SSE 行超过上限 " + maxEventBytes + " 字节");
+            }
+            // 最后一行没有换行符
+            return source.readUtf8();
+        }
+    }
+
+    private void dispatch(String eventName, String payload) throws IOException {
+        TaskFeedback.responded();
+        SseEmitter.SseEventBuilder event = SseEmitter.event().data(payload, MediaType.TEXT_PLAIN);
+        if (eventName != null && !eventName.isEmpty()) {
+            event.name(eventName);
+        }
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // 浏览器已断开：取消上游，交给 run() 按取消处理
+            call.cancel();
+            throw new IOException("客户端连接已关闭", e);
+        }
+        try {
+            listener.onEvent(eventName, payload);
+        } catch (RuntimeException e) {
+            log.warn("流式事件监听器异常: {}", e.getMessage());
+        }
+    }
+
+    private void notifyStart() {
+        try {
+            listener.onStart();
+        } catch (RuntimeException e) {
+            log.warn("流式事件监听器异常: {}", e.getMessage());
+        }
+    }
+
+    private void notifyComplete() {
+        try {
+            listener.onComplete();
+        } catch (RuntimeException e) {
+            log.warn("流式事件监听器异常: {}", e.getMessage());
+        }
+    }
+
+    private void sendErrorAndComplete(ResultCode resultCode) {
+        sendErrorAndComplete(resultCode.getCode(), resultCode.getMessage());
+    }
+
+    private void sendErrorAndComplete(int code, String message) {
+        sendErrorAndComplete(emitter, code, message);
+    }
+
+    private static void sendErrorAndComplete(SseEmitter emitter, int code, String message) {
+        try {
+            emitter.send(SseEmitter.event().name("error")
+                    .data(Result.fail(code, message), MediaType.APPLICATION_JSON));
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            log.debug("发送错误事件失败，客户端可能已断开: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 流式事件监听器（在转发线程中同步回调，实现应尽量轻量）
+     */
+    public interface StreamListener {
+
+        StreamListener NONE = new StreamListener() {
+        };
+
+        /**
+         * 即将向上游发起请求（在转发线程中回调）
+         */
+        default void onStart() {
+        }
+
+        /**
+         * 一个事件已成功推送给浏览器
+         *
+         * @param eventName 事件名，普通 Token 事件为 null
+         * @param data      事件数据
+         */
+        default void onEvent(String eventName, String data) {
+        }
+
+        /**
+         * 上游正常结束（收到 [DONE] 或流结束），出错、客户端断开时不会回调
+         */
+        default void onComplete() {
+        }
+
+        /**
+         * 组合监听器：先回调当前监听器，再回调 next，互不影响
+         */
+        default StreamListener andThen(StreamListener next) {
+            if (this == NONE) {
+                return next;
+            }
+            if (next == NONE) {
+                return this;
+            }
+            StreamListener first = this;
+            return new StreamListener() {
+                @Override
+                public void onStart() {
+                    try {
+                        first.onStart();
+                    } finally {
+                        next.onStart();
+                    }
+                }
+
+                @Override
+                public void onEvent(String eventName, String data) {
+                    try {
+                        first.onEvent(eventName, data);
+                    } finally {
+                        next.onEvent(eventName, data);
+                    }
+                }
+
+                @Override
+                public void onComplete() {
+                    try {
+                        first.onComplete();
+                    } finally {
+                        next.onComplete();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.uni.research.common.client;
+
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+
+/**
+ * AI 服务调用的链路打点：每次尝试一个 Span（对冲请求的每一份单独记录）
+ *
+ * 父 Span 优先取当前线程的 Span（同步调用）；对冲调用通过 enqueue 在 OkHttp 调度线程上执行，
+ * 那里没有调用方的 ThreadLocal，改用 AiServiceClient 构建请求时放进 Request tag 的 Span。
+ * 流式调用的 Span 在收到响应头时结束，读取响应体的耗时由 SseStreamRelay 的 llm.stream 记录
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class TracingInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Span parent = TraceContext.current();
+        if (parent.isNoop()) {
+            parent = request.tag(Span.class);
+        }
+        if (parent == null) {
+            return chain.proceed(request);
+        }
+        try (Span span = parent.startChild("http " + request.url().encodedPath())) {
+            try {
+                Response response = chain.proceed(request);
+                span.tag("status", response.code());
+                return response;
+            } catch (IOException | RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+}
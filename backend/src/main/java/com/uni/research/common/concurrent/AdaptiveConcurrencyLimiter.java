@@ -0,0 +1,197 @@
+package com.uni.research.common.concurrent;
+
+import com.uni.research.common.config.AiTaskProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI 任务自适应并发限制器（梯度算法）
+ *
+ * 对应 408 考点：计算机网络 - TCP 拥塞控制（AIMD、基于时延的 Vegas）
+ *
+ * 设计思路：
+ * 1. 在途任务数（从提交到完成，含排队）达到当前上限时，新任务立即拒绝（503），不排队也不占用调用线程
+ * 2. 每个任务完成时用耗时更新两条指数加权平均：短期（最近约 10 个）和长期（最近约 600 个）
+ * 3. 梯度 = 容忍倍数 × 长期延迟 / 短期延迟，限制在 [0.5, 1]：延迟变高说明下游开始排队，
+ *    上限按梯度缩小；延迟正常时梯度为 1，上限每次加 √limit 的余量试探更高的并发
+ * 4. 任务抛出异常或通过 TaskFeedback 报告下游失败视为丢包，上限乘以 backoffRatio（乘性减）；
+ *    流式任务的耗时取首 Token 延迟
+ * 5. 在途数不足上限一半时不增长（应用本身没压满，延迟不能说明下游容量）
+ * 6. 长期平均比短期高出一倍以上时向短期靠拢，避免一次长时间拥堵后长期基线被拉高、上限迟迟不收缩
+ *
+ * 面试话术：
+ * "原来 AI 任务靠固定的队列 100 + CallerRunsPolicy 兜底，队列满了 Tomcat 线程自己去跑 LLM 调用，
+ * 整个 API 都被拖住。我参考 TCP 拥塞控制写了一个自适应并发限制器：
+ * 用短期和长期平均延迟的比值作为梯度，下游一变慢上限就自动收缩，恢复后再慢慢探测回来；
+ * 超出上限的请求直接返回 503，尾延迟有界。当前上限和拒绝次数都做成了指标。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final AiTaskProperties.Limiter properties;
+
+    private final int maxLimit;
+
+    private final double shortAlpha;
+
+    private final double longAlpha;
+
+    private final Counter admitted;
+
+    private final Counter shed;
+
+    private double limit;
+
+    private int inFlight;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(AiTaskProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getLimiter();
+        // 上限不超过全局许可数，否则多出来的任务只会在许可上排队
+        this.maxLimit = Math.min(this.properties.getMaxLimit(), properties.getGlobalPermits());
+        this.limit = Math.min(this.properties.getInitialLimit(), maxLimit);
+        this.shortAlpha = 2.0 / (this.properties.getShortWindow() + 1);
+        this.longAlpha = 2.0 / (this.properties.getLongWindow() + 1);
+        this.admitted = Counter.builder("ai.limiter.requests")
+                .description("自适应限流器处理的任务数")
+                .tag("outcome", "admitted")
+                .register(meterRegistry);
+        this.shed = Counter.builder("ai.limiter.requests")
+                .description("自适应限流器处理的任务数")
+                .tag("outcome", "shed")
+                .register(meterRegistry);
+        Gauge.builder("ai.limiter.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("当前在途 AI 任务上限")
+                .register(meterRegistry);
+        Gauge.builder("ai.limiter.inflight", this, AdaptiveConcurrencyLimiter::inFlight)
+                .description("当前在途 AI 任务数（含排队）")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请一个在途名额，超过当前上限返回 null（调用方应立即拒绝请求）
+     */
+    public Token tryAcquire() {
+        if (!properties.isEnabled()) {
+            return new Token(System.nanoTime());
+        }
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                shed.increment();
+                return null;
+            }
+            inFlight++;
+        }
+        admitted.increment();
+        return new Token(System.nanoTime());
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private synchronized void release(long rttNanos, boolean dropped, boolean ignored) {
+        int current = inFlight;
+        inFlight--;
+        if (ignored) {
+            return;
+        }
+        if (dropped) {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            return;
+        }
+        double rtt = rttNanos;
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+        } else {
+            shortRtt += shortAlpha * (rtt - shortRtt);
+            // 拥塞期间基线只以 1/10 的速度跟随，否则排队造成的高延迟会被当成新常态，上限越调越大
+            boolean congested = shortRtt > longRtt * properties.getRttTolerance();
+            longRtt += (congested ? longAlpha / 10 : longAlpha) * (rtt - longRtt);
+            if (longRtt > shortRtt * 2) {
+                longRtt = shortRtt * 2;
+            }
+        }
+        if (current < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - properties.getSmoothing()) + target * properties.getSmoothing();
+        next = Math.max(properties.getMinLimit(), Math.min(next, maxLimit));
+        if ((int) next != (int) limit) {
+            log.debug("AI 任务并发上限调整: {} -> {}, gradient={}", (int) limit, (int) next,
+                    String.format("%.2f", gradient));
+        }
+        limit = next;
+    }
+
+    /**
+     * 已获得的在途名额，必须且只能调用一次 onSuccess / onDropped / onIgnore
+     */
+    public final class Token {
+
+        private final long startNanos;
+
+        private boolean released;
+
+        private Token(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * 任务正常完成，耗时参与上限计算
+         */
+        public void onSuccess() {
+            finish(System.nanoTime(), false, false);
+        }
+
+        /**
+         * 任务正常完成，以首个响应时刻计算耗时（流式任务的首 Token 延迟）
+         *
+         * @param responseNanos System.nanoTime() 取得的响应时刻
+         */
+        public void onSuccess(long responseNanos) {
+            finish(responseNanos, false, false);
+        }
+
+        /**
+         * 任务失败（相当于丢包），上限乘性减
+         */
+        public void onDropped() {
+            finish(System.nanoTime(), true, false);
+        }
+
+        /**
+         * 任务没有执行（被拒绝、取消），只归还名额
+         */
+        public void onIgnore() {
+            finish(System.nanoTime(), false, true);
+        }
+
+        private void finish(long endNanos, boolean dropped, boolean ignored) {
+            if (released || !properties.isEnabled()) {
+                return;
+            }
+            released = true;
+            release(endNanos - startNanos, dropped, ignored);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.uni.research.common.concurrent;
+
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.TaskDecorator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 任务装饰器
+ *
+ * 设计思路：
+ * 1. 提交时（调用线程）先向自适应限流器申请在途名额，超出上限立即拒绝（503），不进入队列
+ * 2. 提交时记录提交时间和当前用户 ID；执行时（工作线程）上报排队耗时，恢复用户上下文
+ * 3. 执行前申请并发许可，执行后归还，两种执行模式共用同一套限流逻辑
+ * 4. 被拒绝（限流、许可超时、线程池已满）时，RejectableTask 会收到回调，其他任务直接抛出异常
+ * 5. 任务结束时把耗时和成败反馈给限流器，用于调整上限；内部消化了失败的任务（流式转发、攒批向量化）
+ *    通过 TaskFeedback 报告真实结果和首个响应时刻
+ * 6. 提交时捕获调用方的链路，执行时以 ai.task 子 Span 继续（排队耗时记为 ai.task.queue），被拒绝时释放
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class AiTaskDecorator implements TaskDecorator {
+
+    private final AiTaskPermits permits;
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    private final Timer queueWaitTimer;
+
+    public AiTaskDecorator(AiTaskPermits permits, AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        this.permits = permits;
+        this.limiter = limiter;
+        this.queueWaitTimer = Timer.builder("ai.task.queue.wait")
+                .description("AI 任务从提交到开始执行的排队耗时")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        AdaptiveConcurrencyLimiter.Token token = limiter.tryAcquire();
+        if (token == null) {
+            BizException overloaded = BizException.of(ResultCode.SERVICE_OVERLOADED);
+            if (runnable instanceof RejectableTask task) {
+                task.reject(overloaded);
+                return () -> {
+                };
+            }
+            throw overloaded;
+        }
+        return new LimitedTask(runnable, token, UserContext.getUserId(), TraceContext.capture());
+    }
+
+    /**
+     * 持有限流名额的任务：无论执行、失败还是被线程池拒绝，名额都会归还
+     */
+    private final class LimitedTask implements RejectableTask {
+
+        private final Runnable delegate;
+
+        private final AdaptiveConcurrencyLimiter.Token token;
+
+        private final Long userId;
+
+        private final TraceContext.Handoff trace;
+
+        private final long submitTime = System.nanoTime();
+
+        private LimitedTask(Runnable delegate, AdaptiveConcurrencyLimiter.Token token, Long userId,
+                            TraceContext.Handoff trace) {
+            this.delegate = delegate;
+            this.token = token;
+            this.userId = userId;
+            this.trace = trace;
+        }
+
+        @Override
+        @SuppressWarnings("try")
+        public void run() {
+            queueWaitTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+            Long previous = UserContext.getUserId();
+            UserContext.setUserId(userId);
+            trace.recordWait("ai.task.queue");
+            try (Span span = trace.open("ai.task")) {
+                AiTaskPermits.Permit permit;
+                try (Span ignored = TraceContext.start("ai.task.permit")) {
+                    permit = permits.acquire(userId);
+                } catch (RuntimeException e) {
+                    // 许可等待超时说明下游已经拥塞，按丢包处理
+                    token.onDropped();
+                    span.error(e);
+                    if (delegate instanceof RejectableTask task) {
+                        task.reject(e);
+                        return;
+                    }
+                    throw e;
+                }
+                TaskFeedback feedback = TaskFeedback.bind();
+                try (permit) {
+                    delegate.run();
+                    feedback.apply(token);
+                } catch (RuntimeException | Error e) {
+                    token.onDropped();
+                    span.error(e);
+                    throw e;
+                } finally {
+                    TaskFeedback.unbind();
+                }
+            } finally {
+                UserContext.setUserId(previous);
+            }
+        }
+
+        @Override
+        public void reject(RuntimeException cause) {
+            token.onIgnore();
+            trace.discard();
+            if (delegate instanceof RejectableTask task) {
+                task.reject(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.uni.research.common.concurrent;
+
+import com.uni.research.common.config.AiTaskProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 调用并发许可（全局 + 单用户两级信号量）
+ *
+ * 对应 408 考点：操作系统 - 信号量（P/V 操作）与资源分配
+ *
+ * 设计思路：
+ * 1. 并发上限不再由线程池大小决定，而由信号量决定（虚拟线程模式下线程几乎无成本）
+ * 2. 先申请单用户许可，再申请全局许可，避免单个用户占满全局许可
+ * 3. 用户信号量按引用计数惰性创建和回收，空闲用户不占内存
+ * 4. 等待许可超时则抛出 AI_SERVICE_BUSY，快速失败而不是无限阻塞
+ *
+ * 面试话术：
+ * "线程池的 maxPoolSize 本质上是在用线程数做限流，但 AI 调用 99% 的时间在等网络，
+ * 用一个平台线程去等太浪费。切到虚拟线程后，我用 Semaphore 做两级许可：
+ * 全局许可保护下游 AI 服务，单用户许可保证公平性。
+ * 这就是操作系统里的 P/V 操作，许可等待时间也会上报成指标，方便定位瓶颈。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+public class AiTaskPermits {
+
+    private final AiTaskProperties properties;
+
+    private final Semaphore globalPermits;
+
+    private final ConcurrentHashMap<Long, UserPermits> userPermits = new ConcurrentHashMap<>();
+
+    private final Timer permitWaitTimer;
+
+    public AiTaskPermits(AiTaskProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.globalPermits = new Semaphore(properties.getGlobalPermits(), true);
+        this.permitWaitTimer = Timer.builder("ai.task.permit.wait")
+                .description("AI 任务等待并发许可的耗时")
+                .register(meterRegistry);
+        Gauge.builder("ai.task.permits.available", globalPermits, Semaphore::availablePermits)
+                .description("全局剩余并发许可数")
+                .register(meterRegistry);
+        Gauge.builder("ai.task.permits.users", userPermits, ConcurrentHashMap::size)
+                .description("当前持有或等待许可的用户数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 申请许可（阻塞直到获得许可或超时）
+     *
+     * @param userId 用户 ID，为 null 时只申请全局许可
+     * @return 许可句柄，使用 try-with-resources 释放
+     */
+    public Permit acquire(Long userId) {
+        long startTime = System.nanoTime();
+        long timeoutNanos = properties.getPermitTimeout().toNanos();
+        UserPermits user = userId == null ? null : retainUser(userId);
+        boolean userAcquired = false;
+        try {
+            if (user != null) {
+                userAcquired = user.semaphore.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+                if (!userAcquired) {
+                    throw busy("用户并发许可", userId);
+                }
+            }
+            long remaining = timeoutNanos - (System.nanoTime() - startTime);
+            if (!globalPermits.tryAcquire(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+                throw busy("全局并发许可", userId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseUser(userId, user, userAcquired);
+            throw BizException.of(ResultCode.AI_SERVICE_BUSY);
+        } catch (RuntimeException e) {
+            releaseUser(userId, user, userAcquired);
+            throw e;
+        } finally {
+            permitWaitTimer.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        return new Permit(userId, user);
+    }
+
+    private BizException busy(String what, Long userId) {
+        log.warn("等待{}超时: userId={}, timeout={}", what, userId, properties.getPermitTimeout());
+        return BizException.of(ResultCode.AI_SERVICE_BUSY);
+    }
+
+    private UserPermits retainUser(Long userId) {
+        return userPermits.compute(userId, (key, holder) -> {
+            if (holder == null) {
+                holder = new UserPermits(properties.getPerUserPermits());
+            }
+            holder.refs++;
+            return holder;
+        });
+    }
+
+    private void releaseUser(Long userId, UserPermits user, boolean acquired) {
+        if (user == null) {
+            return;
+        }
+        if (acquired) {
+            user.semaphore.release();
+        }
+        userPermits.computeIfPresent(userId, (key, holder) -> --holder.refs == 0 ? null : holder);
+    }
+
+    /**
+     * 单用户许可，refs 只在 ConcurrentHashMap.compute 内修改（桶锁保护）
+     */
+    private static final class UserPermits {
+
+        private final Semaphore semaphore;
+
+        private int refs;
+
+        private UserPermits(int permits) {
+            this.semaphore = new Semaphore(permits, true);
+        }
+    }
+
+    /**
+     * 已获得的许可，close 时归还
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final Long userId;
+
+        private final UserPermits user;
+
+        private boolean released;
+
+        private Permit(Long userId, UserPermits user) {
+            this.userId = userId;
+            this.user = user;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            globalPermits.release();
+            releaseUser(userId, user, true);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.uni.research.common.concurrent;
+
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * 普通线程池的上下文传递：当前用户 + 链路
+ *
+ * 对应 408 考点：操作系统 - 线程私有存储（TLS）
+ *
+ * 设计思路：
+ * 1. 提交时捕获 UserContext 和 TraceContext，执行时恢复，以 spanName 为子 Span 继续链路，排队时间记为 spanName.queue
+ * 2. 不申请 AI 并发许可、不经过自适应限流：用于不直接调用 AI 服务的线程池（如混合检索）
+ * 3. 线程池拒绝时（配合 MeteredRejectPolicy）释放捕获的链路，避免链路计数泄漏
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class ContextTaskDecorator implements TaskDecorator {
+
+    private final String spanName;
+
+    public ContextTaskDecorator(String spanName) {
+        this.spanName = spanName;
+    }
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return new ContextTask(runnable, UserContext.getUserId(), TraceContext.capture());
+    }
+
+    private final class ContextTask implements RejectableTask {
+
+        private final Runnable delegate;
+
+        private final Long userId;
+
+        private final TraceContext.Handoff trace;
+
+        private ContextTask(Runnable delegate, Long userId, TraceContext.Handoff trace) {
+            this.delegate = delegate;
+            this.userId = userId;
+            this.trace = trace;
+        }
+
+        @Override
+        @SuppressWarnings("try")
+        public void run() {
+            Long previous = UserContext.getUserId();
+            UserContext.setUserId(userId);
+            trace.recordWait(spanName + ".queue");
+            try (Span ignored = trace.open(spanName)) {
+                delegate.run();
+            } finally {
+                UserContext.setUserId(previous);
+            }
+        }
+
+        @Override
+        public void reject(RuntimeException cause) {
+            trace.discard();
+            if (delegate instanceof RejectableTask task) {
+                task.reject(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.uni.research.common.concurrent;
+
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 带计数的快速拒绝策略
+ *
+ * 线程池和队列都满（或已关闭）时不再由调用线程执行，避免阻塞 Tomcat 线程：
+ * RejectableTask 收到 SERVICE_OVERLOADED 回调（如 SSE 推送错误事件），其他任务抛出 RejectedExecutionException
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class MeteredRejectPolicy implements RejectedExecutionHandler {
+
+    private final Counter rejections;
+
+    public MeteredRejectPolicy(String executorName, MeterRegistry meterRegistry) {
+        this.rejections = Counter.builder("executor.rejections")
+                .description("线程池拒绝任务次数")
+                .tag("name", executorName)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+        rejections.increment();
+        if (task instanceof RejectableTask rejectable) {
+            rejectable.reject(BizException.of(ResultCode.SERVICE_OVERLOADED));
+            return;
+        }
+        throw new RejectedExecutionException("AI 任务线程池已满或已关闭");
+    }
+}
@@ -0,0 +1,20 @@
+package com.uni.research.common.concurrent;
+
+/**
+ * 可感知拒绝的任务
+ *
+ * AiTaskDecorator 在申请许可失败时不会执行任务本身；
+ * 实现该接口的任务会收到回调，用于释放资源或通知调用方（例如结束 SSE 连接）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface RejectableTask extends Runnable {
+
+    /**
+     * 任务未被执行
+     *
+     * @param cause 拒绝原因
+     */
+    void reject(RuntimeException cause);
+}
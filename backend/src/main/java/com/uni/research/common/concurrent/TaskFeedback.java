@@ -0,0 +1,102 @@
+package com.uni.research.common.concurrent;
+
+/**
+ * AI 任务的执行结果反馈
+ *
+ * 对应 408 考点：操作系统 - 线程私有存储（TLS）；计算机网络 - TCP 拥塞控制（丢包信号、RTT 采样）
+ *
+ * 设计思路：
+ * 1. 有些任务在内部消化了失败：流式转发出错时向浏览器推送 error 事件后正常返回，
+ *    攒批向量化失败时让 Future 异常结束后正常返回。AiTaskDecorator 只看 run() 是否抛异常，会一律当成成功
+ * 2. AiTaskDecorator 执行任务前把一个反馈对象绑定到工作线程，任务（及其包装）在同一线程中直接上报，
+ *    不需要每一层包装都转发结果
+ * 3. 流式任务的延迟样本取首个响应（首 Token）时刻，而不是整个流的时长：回答长短不代表下游是否拥塞
+ * 4. 没有绑定（不在 aiTaskExecutor 中执行）时上报是空操作
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class TaskFeedback {
+
+    private static final ThreadLocal<TaskFeedback> CURRENT = new ThreadLocal<>();
+
+    private Outcome outcome = Outcome.SUCCESS;
+
+    private long responseNanos;
+
+    private TaskFeedback() {
+    }
+
+    /**
+     * 绑定到当前线程（AiTaskDecorator 调用），结束时必须 unbind
+     */
+    static TaskFeedback bind() {
+        TaskFeedback feedback = new TaskFeedback();
+        CURRENT.set(feedback);
+        return feedback;
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 收到首个响应（如首 Token），只记录第一次
+     */
+    public static void responded() {
+        TaskFeedback feedback = CURRENT.get();
+        if (feedback != null && feedback.responseNanos == 0) {
+            feedback.responseNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 是否已收到过响应
+     */
+    public static boolean hasResponded() {
+        TaskFeedback feedback = CURRENT.get();
+        return feedback != null && feedback.responseNanos != 0;
+    }
+
+    /**
+     * 下游失败（5xx、熔断、连接中断），限流器按丢包处理
+     */
+    public static void dropped() {
+        report(Outcome.DROPPED);
+    }
+
+    /**
+     * 结果不反映下游状态（客户端断开、参数错误），只归还名额
+     */
+    public static void ignored() {
+        report(Outcome.IGNORED);
+    }
+
+    private static void report(Outcome outcome) {
+        TaskFeedback feedback = CURRENT.get();
+        if (feedback != null) {
+            feedback.outcome = outcome;
+        }
+    }
+
+    /**
+     * 把结果交给限流名额
+     */
+    void apply(AdaptiveConcurrencyLimiter.Token token) {
+        switch (outcome) {
+            case DROPPED -> token.onDropped();
+            case IGNORED -> token.onIgnore();
+            default -> {
+                if (responseNanos != 0) {
+                    token.onSuccess(responseNanos);
+                } else {
+                    token.onSuccess();
+                }
+            }
+        }
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED
+    }
+}
@@ -0,0 +1,64 @@
+package com.uni.research.common.config;
+
+import com.uni.research.common.client.AiEndpointRegistry;
+import com.uni.research.common.client.ResilienceInterceptor;
+import com.uni.research.common.client.TracingInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Python AI 服务 HTTP 客户端配置
+ *
+ * 对应 408 考点：计算机网络 - TCP 连接复用（HTTP Keep-Alive）
+ *
+ * 设计思路：
+ * 1. 全局共享一个 OkHttpClient（连接池、调度器复用，避免每次调用都三次握手）
+ * 2. 超时参数从 ai-service.* 读取，不在代码里写死
+ * 3. 流式调用通过 newBuilder() 派生客户端，共享连接池，仅放宽读超时
+ * 4. Keep-Alive 连接数和保活时间可配置；对冲请求走异步调度器，放开 OkHttp 默认每主机 5 个的并发限制
+ * 5. AI 服务支持 h2c 时可切换为 HTTP/2 直连，一条连接多路复用
+ * 6. 熔断与延迟统计放在应用拦截器里，普通调用和流式调用都经过；链路打点在最外层，熔断快速失败也会记录
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(AiServiceProperties.class)
+public class AiServiceConfig {
+
+    @Bean("aiServiceHttpClient")
+    public OkHttpClient aiServiceHttpClient(AiServiceProperties properties, AiEndpointRegistry endpoints) {
+        AiServiceProperties.Pool pool = properties.getPool();
+        log.info("初始化 AI 服务客户端: baseUrl={}, connectTimeout={}ms, readTimeout={}ms, maxIdle={}, h2c={}",
+                properties.getBaseUrl(), properties.getConnectTimeout(), properties.getReadTimeout(),
+                pool.getMaxIdleConnections(), pool.isHttp2PriorKnowledge());
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(pool.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(pool.getMaxRequestsPerHost());
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectTimeout(properties.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(properties.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(properties.getWriteTimeout(), TimeUnit.MILLISECONDS)
+                .connectionPool(new ConnectionPool(pool.getMaxIdleConnections(),
+                        pool.getKeepAlive().toMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .addInterceptor(new TracingInterceptor())
+                .addInterceptor(new ResilienceInterceptor(endpoints));
+        if (pool.isHttp2PriorKnowledge()) {
+            builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Python AI 服务配置（对应 application.yml 中的 ai-service.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "ai-service")
+public class AiServiceProperties {
+
+    /**
+     * 服务地址
+     */
+    private String baseUrl = "http://localhost:8000";
+
+    /**
+     * 连接超时（毫秒）
+     */
+    private long connectTimeout = 5000;
+
+    /**
+     * 读取超时（毫秒），普通请求-响应调用使用
+     */
+    private long readTimeout = 30000;
+
+    /**
+     * 写入超时（毫秒）
+     */
+    private long writeTimeout = 30000;
+
+    /**
+     * 流式读取超时（毫秒）：两个 Token 之间的最长间隔，而不是整个回答的耗时
+     */
+    private long streamReadTimeout = 60000;
+
+    /**
+     * SSE 连接总超时（毫秒）
+     */
+    private long streamTimeout = 300000;
+
+    /**
+     * 单个上游 SSE 事件的最大字节数（每连接缓冲上限）
+     */
+    private int streamMaxEventBytes = 16 * 1024;
+
+    private Pool pool = new Pool();
+
+    private Breaker breaker = new Breaker();
+
+    private AdaptiveTimeout adaptiveTimeout = new AdaptiveTimeout();
+
+    private Hedge hedge = new Hedge();
+
+    private Coalesce coalesce = new Coalesce();
+
+    /**
+     * 连接池与调度器
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * 空闲 Keep-Alive 连接上限
+         */
+        private int maxIdleConnections = 64;
+
+        /**
+         * 空闲连接保活时间，应小于 AI 服务端的 keep-alive 超时
+         */
+        private Duration keepAlive = Duration.ofMinutes(5);
+
+        /**
+         * 异步调用（对冲请求）的全局并发上限
+         */
+        private int maxRequests = 256;
+
+        /**
+         * 对同一主机的异步并发上限（OkHttp 默认只有 5）
+         */
+        private int maxRequestsPerHost = 128;
+
+        /**
+         * 使用 HTTP/2 明文直连（h2c），AI 服务端支持时打开，单连接多路复用
+         */
+        private boolean http2PriorKnowledge = false;
+    }
+
+    /**
+     * 按接口熔断
+     */
+    @Data
+    public static class Breaker {
+
+        private boolean enabled = true;
+
+        /**
+         * 统计最近多少次调用
+         */
+        private int windowSize = 50;
+
+        /**
+         * 窗口内至少这么多次调用才计算失败率
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * 失败率达到该值时熔断
+         */
+        private double failureRateThreshold = 0.5;
+
+        /**
+         * 熔断持续时间，之后进入半开状态放行试探请求
+         */
+        private Duration openDuration = Duration.ofSeconds(10);
+
+        /**
+         * 半开状态放行的试探请求数，全部成功才恢复
+         */
+        private int halfOpenCalls = 3;
+    }
+
+    /**
+     * 自适应超时：普通调用的整体超时取最近延迟的高分位 × 倍数，限制在 [minTimeout, readTimeout] 内
+     */
+    @Data
+    public static class AdaptiveTimeout {
+
+        private boolean enabled = true;
+
+        private double percentile = 0.99;
+
+        private double multiplier = 2.0;
+
+        private Duration minTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 每个接口保留的最近延迟样本数
+         */
+        private int sampleSize = 1000;
+
+        /**
+         * 样本不足时使用静态的 readTimeout
+         */
+        private int minSamples = 50;
+    }
+
+    /**
+     * 对冲请求：幂等接口在等待超过 p95 仍未返回时再发一份，先返回的胜出，另一份取消
+     */
+    @Data
+    public static class Hedge {
+
+        private boolean enabled = true;
+
+        /**
+         * 允许对冲的接口（必须幂等）
+         */
+        private List<String> endpoints = List.of("/embed", "/search");
+
+        private double percentile = 0.95;
+
+        /**
+         * 对冲等待时间下限，避免极快的接口也频繁对冲
+         */
+        private Duration minDelay = Duration.ofMillis(50);
+
+        /**
+         * 对冲请求占总请求的比例上限，防止 AI 服务整体变慢时对冲把负载放大一倍
+         */
+        private double maxRatio = 0.1;
+    }
+
+    /**
+     * 相同请求合并（single-flight）：在途的相同请求共享一次上游调用和结果
+     */
+    @Data
+    public static class Coalesce {
+
+        private boolean enabled = true;
+
+        /**
+         * 流式回答为中途加入的订阅者保留的已推送内容上限（字符），超过后相同请求不再加入，单独调用
+         */
+        private int maxReplayChars = 256 * 1024;
+    }
+}
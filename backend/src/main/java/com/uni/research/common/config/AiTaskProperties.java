@@ -0,0 +1,92 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * AI 任务执行配置（对应 application.yml 中的 ai-task.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "ai-task")
+public class AiTaskProperties {
+
+    /**
+     * 执行模式：PLATFORM（平台线程池）/ VIRTUAL（虚拟线程，需 Java 21+，低版本自动回退）
+     */
+    private ExecutorMode mode = ExecutorMode.PLATFORM;
+
+    /**
+     * 平台线程池模式下的队列容量
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * 全局并发许可数（同时在途的 AI 调用上限）
+     */
+    private int globalPermits = 256;
+
+    /**
+     * 单用户并发许可数（防止单个用户占满全局许可）
+     */
+    private int perUserPermits = 4;
+
+    /**
+     * 等待许可的最长时间，超时则快速失败
+     */
+    private Duration permitTimeout = Duration.ofSeconds(30);
+
+    private Limiter limiter = new Limiter();
+
+    /**
+     * 自适应并发限制（梯度算法）：按延迟变化自动调整在途 AI 任务上限，超出立即拒绝
+     */
+    @Data
+    public static class Limiter {
+
+        private boolean enabled = true;
+
+        /**
+         * 初始上限
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        /**
+         * 上限的上限，不超过 globalPermits
+         */
+        private int maxLimit = 256;
+
+        /**
+         * 长期延迟允许超过短期延迟的倍数，在此范围内不降低上限
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * 每个样本对上限的平滑系数
+         */
+        private double smoothing = 0.05;
+
+        /**
+         * 短期 / 长期平均延迟的样本窗口（指数加权）
+         */
+        private int shortWindow = 10;
+
+        private int longWindow = 600;
+
+        /**
+         * 任务失败时上限乘以该系数（乘性减）
+         */
+        private double backoffRatio = 0.9;
+    }
+
+    public enum ExecutorMode {
+        PLATFORM,
+        VIRTUAL
+    }
+}
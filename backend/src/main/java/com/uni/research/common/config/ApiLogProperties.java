@@ -0,0 +1,53 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * API 日志配置（对应 application.yml 中的 api-log.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "api-log")
+public class ApiLogProperties {
+
+    /**
+     * 是否开启 API 访问日志
+     */
+    private boolean enabled = true;
+
+    /**
+     * 请求参数采样率（0~1），异常和慢请求总是记录参数
+     */
+    private double argsSampleRate = 0.1;
+
+    /**
+     * 响应结果采样率（0~1）
+     */
+    private double resultSampleRate = 0.01;
+
+    /**
+     * 参数 / 结果渲染后的最大字符数，超出部分截断
+     */
+    private int maxPayloadLength = 512;
+
+    /**
+     * 慢请求阈值（毫秒）
+     */
+    private long slowThresholdMs = 1000;
+
+    /**
+     * 异步日志队列长度（logback-spring.xml 读取）
+     */
+    private int queueSize = 8192;
+
+    /**
+     * 可预期错误（业务异常、参数错误、限流）的日志汇总周期：
+     * 每个周期内同类错误第一次出现时输出一条，其余只计数，周期结束输出汇总
+     */
+    private Duration errorSummaryInterval = Duration.ofSeconds(10);
+}
@@ -0,0 +1,86 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 对话上下文窗口配置（对应 application.yml 中的 chat-context.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "chat-context")
+public class ChatContextProperties {
+
+    /**
+     * 上下文窗口的 token 预算（含本轮用户消息），超出后从最早的消息开始淘汰
+     */
+    private int tokenBudget = 3000;
+
+    /**
+     * 单条消息保存的最大字符数，超长的回答截断后再进入上下文和数据库
+     */
+    private int maxMessageChars = 32 * 1024;
+
+    /**
+     * Redis 中窗口的过期时间（每次追加消息时续期）
+     */
+    private Duration redisTtl = Duration.ofHours(24);
+
+    /**
+     * 本地缓存的会话数上限
+     */
+    private long localMaxSessions = 10_000;
+
+    /**
+     * 本地缓存过期时间
+     */
+    private Duration localTtl = Duration.ofMinutes(10);
+
+    /**
+     * Redis 窗口过期后从 MySQL 回填时每页读取的消息数
+     */
+    private int loadPageSize = 50;
+
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * chat_message 异步批量写入
+     */
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 关闭时每条消息同步 INSERT
+         */
+        private boolean enabled = true;
+
+        /**
+         * 待写入队列容量，满了之后调用方同步刷盘（降级为同步写）
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * 攒够这么多条立即刷盘，也是单条多行 INSERT 的最大行数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 最长刷盘间隔
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * 一批写入失败后的最大重试次数，用尽后丢弃并告警
+         */
+        private int maxRetries = 5;
+
+        /**
+         * 重试退避基数，按 1x / 2x / 4x ... 递增
+         */
+        private Duration retryBaseDelay = Duration.ofMillis(500);
+    }
+}
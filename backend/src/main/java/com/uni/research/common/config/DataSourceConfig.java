@@ -0,0 +1,74 @@
+package com.uni.research.common.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * 多数据源配置
+ *
+ * 对应 408 考点：数据库 - 连接池
+ *
+ * 设计思路：
+ * 1. 业务数据（用户、文档、会话）在 MySQL，文本块向量在 PostgreSQL + pgvector
+ * 2. 一旦手动声明了第二个 DataSource，Spring Boot 的自动配置就会退出，
+ *    所以主数据源（MySQL）也在这里显式声明并标记 @Primary，MyBatis-Plus 继续使用它
+ * 3. 向量库访问量小、SQL 固定，直接用 JdbcTemplate，不再引入第二套 SqlSessionFactory
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * 主数据源配置（spring.datasource.*）
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 主数据源（MySQL），连接池参数绑定 spring.datasource.hikari.*
+     */
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * 向量库数据源配置（vector-store.datasource.*）
+     */
+    @Bean
+    @ConfigurationProperties("vector-store.datasource")
+    public DataSourceProperties vectorDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    /**
+     * 向量库数据源（PostgreSQL + pgvector），连接池参数绑定 vector-store.datasource.hikari.*
+     */
+    @Bean
+    @ConfigurationProperties("vector-store.datasource.hikari")
+    public HikariDataSource vectorDataSource(
+            @Qualifier("vectorDataSourceProperties") DataSourceProperties vectorDataSourceProperties) {
+        return vectorDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public JdbcTemplate vectorJdbcTemplate(@Qualifier("vectorDataSource") DataSource vectorDataSource) {
+        return new JdbcTemplate(vectorDataSource);
+    }
+}
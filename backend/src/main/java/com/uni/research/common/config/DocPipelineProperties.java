@@ -0,0 +1,86 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 文档解析与向量化流水线配置（对应 application.yml 中的 doc-pipeline.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "doc-pipeline")
+public class DocPipelineProperties {
+
+    /**
+     * 每个文本块的 token 数（近似值）
+     */
+    private int chunkTokens = 512;
+
+    /**
+     * 相邻文本块重叠的 token 数
+     */
+    private int overlapTokens = 50;
+
+    /**
+     * 每次写入 pgvector 的文本块数
+     */
+    private int writeBatchSize = 32;
+
+    /**
+     * 已提交向量化但尚未写库的文本块上限，超过后先写库再继续解析（背压）
+     */
+    private int maxInFlightChunks = 128;
+
+    /**
+     * 同时处理的文档数
+     */
+    private int workers = 2;
+
+    /**
+     * 处理进度在 Redis 中的保留时间
+     */
+    private Duration progressTtl = Duration.ofHours(1);
+
+    private Job job = new Job();
+
+    /**
+     * 持久化任务队列（doc_job 表）
+     */
+    @Data
+    public static class Job {
+
+        /**
+         * 没有可领取任务时的轮询间隔（本实例入队时会立即唤醒）
+         */
+        private Duration pollInterval = Duration.ofSeconds(2);
+
+        /**
+         * 租约时长；执行期间每 1/3 租约续约一次，实例宕机后最多这么久任务被其他实例接管
+         */
+        private Duration lease = Duration.ofSeconds(60);
+
+        /**
+         * 最大尝试次数（含首次），用尽后进入死信
+         */
+        private int maxAttempts = 4;
+
+        /**
+         * 重试基础间隔，第 n 次失败后等待 base × 2^(n-1)：1s / 2s / 4s
+         */
+        private Duration retryBaseDelay = Duration.ofSeconds(1);
+
+        /**
+         * 每次调度扫描的候选任务数
+         */
+        private int scanLimit = 50;
+
+        /**
+         * 候选任务中每个用户最多占的条数，某个用户批量上传时其他用户的任务仍能进入候选
+         */
+        private int perUserScanLimit = 5;
+    }
+}
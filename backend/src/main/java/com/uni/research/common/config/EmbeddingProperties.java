@@ -0,0 +1,52 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 向量化配置（对应 application.yml 中的 embedding.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "embedding")
+public class EmbeddingProperties {
+
+    /**
+     * Embedding 模型名称（参与缓存 Key，换模型后旧向量自动失效）
+     */
+    private String model = "text-embedding-ada-002";
+
+    /**
+     * 向量维度
+     */
+    private int dimension = 1536;
+
+    /**
+     * 单批最大文本块数
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * 攒批最长等待时间：第一个文本块入队后最多等待这么久就发送
+     */
+    private Duration maxBatchDelay = Duration.ofMillis(20);
+
+    /**
+     * 待向量化队列容量（满时调用方阻塞，形成背压）
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * 本地向量缓存上限（字节）
+     */
+    private long localCacheBytes = 256L * 1024 * 1024;
+
+    /**
+     * Redis 向量缓存过期时间
+     */
+    private Duration redisTtl = Duration.ofDays(7);
+}
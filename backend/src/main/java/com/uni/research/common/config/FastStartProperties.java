@@ -0,0 +1,25 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 快速启动配置（对应 application-fast.yml 中的 fast-start.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "fast-start")
+public class FastStartProperties {
+
+    /**
+     * 是否开启：Redis 订阅、数据库连接池、线程池改为启动后在后台预热，预热完成前就绪探针返回 OUT_OF_SERVICE
+     */
+    private boolean enabled = false;
+
+    /**
+     * 预热完成后是否在后台创建其余延迟加载的 Bean（首个请求更快，但常驻内存回到全量加载的水平）
+     */
+    private boolean preInstantiateLazyBeans = false;
+}
@@ -0,0 +1,67 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * JWT 配置（对应 application.yml 中的 jwt.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "jwt")
+public class JwtProperties {
+
+    /**
+     * HMAC-SHA256 密钥（至少 32 字节）
+     */
+    private String secret;
+
+    /**
+     * Token 有效期（纯数字按毫秒解析）
+     */
+    private Duration expiration = Duration.ofHours(24);
+
+    /**
+     * 携带 Token 的请求头
+     */
+    private String header = "Authorization";
+
+    /**
+     * Token 前缀（如 Bearer）
+     */
+    private String prefix = "Bearer";
+
+    /**
+     * 已验签 Token 的本地缓存条数，缓存到 Token 过期为止
+     */
+    private long verifiedCacheSize = 100_000;
+
+    /**
+     * 吊销名单（登出后的 Token）
+     */
+    private Blacklist blacklist = new Blacklist();
+
+    @Data
+    public static class Blacklist {
+
+        /**
+         * 布隆过滤器预计容纳的吊销 Token 数
+         */
+        private long expectedInsertions = 100_000;
+
+        /**
+         * 布隆过滤器误判率，误判时才需要查 Redis
+         */
+        private double falsePositiveRate = 0.001;
+
+        /**
+         * 从 Redis 全量重建布隆过滤器的间隔：清掉已过期的 Token，
+         * 也兜底订阅断开期间漏掉的吊销消息
+         */
+        private Duration rebuildInterval = Duration.ofMinutes(5);
+    }
+}
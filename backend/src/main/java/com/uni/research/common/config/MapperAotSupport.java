@@ -0,0 +1,79 @@
+package com.uni.research.common.config;
+
+import org.mybatis.spring.SqlSessionTemplate;
+import org.mybatis.spring.mapper.MapperFactoryBean;
+import org.mybatis.spring.mapper.MapperScannerConfigurer;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.aot.BeanRegistrationExcludeFilter;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.MergedBeanDefinitionPostProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+/**
+ * 让 @MapperScan 注册的 Mapper 能被 Spring AOT 预处理（mvn -Pfast-start）
+ *
+ * 设计思路：
+ * 1. 扫描器注册的 MapperFactoryBean 只在属性里记录了 Mapper 接口，AOT 生成代码时构造参数丢失、
+ *    目标类型退化为原始 MapperFactoryBean；这里在 AOT 处理前把接口写回构造参数，
+ *    并把目标类型补成 MapperFactoryBean&lt;XxxMapper&gt;，生成的代码才能按类型注入 Mapper
+ * 2. 扫描器用 AUTOWIRE_BY_TYPE 注入 SqlSessionTemplate，生成的代码不保留自动装配模式，
+ *    改为显式的按类型引用
+ * 3. Mapper 的 Bean 定义已经生成为代码，扫描器本身不再进入 AOT 产物，
+ *    否则运行时会再扫一遍，与生成的定义同名冲突（ConflictingBeanDefinitionException）
+ * 4. 本类以 Bean 的形式注册排除规则，Spring 要求它同时是 AOT 处理器（自身不产出任何代码，也不进入 AOT 产物）
+ * 5. 普通启动（未开启 spring.aot.enabled）时同样执行，只是把已有信息补全，不改变行为
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class MapperAotSupport implements MergedBeanDefinitionPostProcessor, BeanRegistrationAotProcessor,
+        BeanRegistrationExcludeFilter {
+
+    @Override
+    public void postProcessMergedBeanDefinition(RootBeanDefinition beanDefinition, Class<?> beanType, String beanName) {
+        if (!beanDefinition.hasBeanClass() || !MapperFactoryBean.class.isAssignableFrom(beanDefinition.getBeanClass())
+                || !beanDefinition.getResolvableType().hasUnresolvableGenerics()) {
+            return;
+        }
+        Class<?> mapperInterface = mapperInterface(beanDefinition);
+        if (mapperInterface == null) {
+            return;
+        }
+        ConstructorArgumentValues arguments = new ConstructorArgumentValues();
+        arguments.addGenericArgumentValue(mapperInterface);
+        beanDefinition.setConstructorArgumentValues(arguments);
+        beanDefinition.setTargetType(ResolvableType.forClassWithGenerics(beanDefinition.getBeanClass(), mapperInterface));
+        if (beanDefinition.getAutowireMode() == AbstractBeanDefinition.AUTOWIRE_BY_TYPE
+                && !beanDefinition.getPropertyValues().contains("sqlSessionFactory")
+                && !beanDefinition.getPropertyValues().contains("sqlSessionTemplate")) {
+            beanDefinition.getPropertyValues().add("sqlSessionTemplate", new RuntimeBeanReference(SqlSessionTemplate.class));
+        }
+    }
+
+    @Override
+    public boolean isExcludedFromAotProcessing(RegisteredBean registeredBean) {
+        return MapperScannerConfigurer.class.isAssignableFrom(registeredBean.getBeanClass());
+    }
+
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        return null;
+    }
+
+    private static Class<?> mapperInterface(RootBeanDefinition beanDefinition) {
+        Object value = beanDefinition.getPropertyValues().get("mapperInterface");
+        if (value instanceof Class<?> type) {
+            return type;
+        }
+        if (value instanceof String className) {
+            return ClassUtils.resolveClassName(className, beanDefinition.getBeanClass().getClassLoader());
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 元数据缓存配置（对应 application.yml 中的 metadata-cache.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "metadata-cache")
+public class MetadataCacheProperties {
+
+    /**
+     * 是否开启（关闭后所有查询直接访问数据库）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存条数（实体和列表页共用）
+     */
+    private long localMaxEntries = 10_000;
+
+    /**
+     * 本地缓存有效期
+     */
+    private Duration localTtl = Duration.ofSeconds(30);
+
+    /**
+     * Redis 缓存有效期
+     */
+    private Duration redisTtl = Duration.ofMinutes(10);
+
+    /**
+     * 实体回填租约有效期（应大于一次查库耗时；持有者异常退出时到期自动释放）
+     */
+    private Duration fillLeaseTtl = Duration.ofSeconds(5);
+
+    /**
+     * 本地缓存的用户列表版本号有效期（正常由广播失效，这里兜底广播丢失的情况）
+     */
+    private Duration versionTtl = Duration.ofMinutes(1);
+
+    /**
+     * 列表接口单页最大条数
+     */
+    private int maxPageSize = 50;
+}
@@ -3,7 +3,7 @@ package com.uni.research.common.config;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
 import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
-// import org.mybatis.spring.annotation.MapperScan;  // 暂时注释
+import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -16,7 +16,7 @@ import org.springframework.context.annotation.Configuration;
  * 设计思路：
  * 1. 配置分页插件，自动处理分页逻辑
  * 2. 指定数据库类型为 MySQL
- * 3. 扫描 Mapper 接口
+ * 3. 扫描 Mapper 接口（AOT 构建时由 MapperAotSupport 补全 Mapper 的 Bean 定义）
  * 
  * 面试话术：
  * "我配置了 MyBatis-Plus 的分页插件，它会自动在 SQL 中添加 LIMIT 子句。
@@ -27,7 +27,7 @@ import org.springframework.context.annotation.Configuration;
  * @since 2026-01-02
  */
 @Configuration
-// @MapperScan("com.uni.research.module.*.mapper")  // 暂时注释，等创建 Mapper 后再启用
+@MapperScan("com.uni.research.module.*.mapper")
 public class MyBatisPlusConfig {
     
     /**
@@ -40,4 +40,12 @@ public class MyBatisPlusConfig {
         interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
         return interceptor;
     }
+
+    /**
+     * 必须是 static：BeanPostProcessor 要先于本配置类实例化
+     */
+    @Bean
+    public static MapperAotSupport mapperAotSupport() {
+        return new MapperAotSupport();
+    }
 }
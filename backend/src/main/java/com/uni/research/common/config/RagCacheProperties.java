@@ -0,0 +1,47 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * RAG 回答缓存配置（对应 application.yml 中的 rag-cache.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "rag-cache")
+public class RagCacheProperties {
+
+    /**
+     * 是否开启回答缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地 L1 最大条目数
+     */
+    private long localMaxEntries = 10_000;
+
+    /**
+     * 本地 L1 过期时间
+     */
+    private Duration localTtl = Duration.ofMinutes(10);
+
+    /**
+     * Redis L2 过期时间
+     */
+    private Duration redisTtl = Duration.ofHours(24);
+
+    /**
+     * 文档版本号本地缓存时间（发布 / 订阅消息丢失时的兜底）
+     */
+    private Duration versionTtl = Duration.ofSeconds(60);
+
+    /**
+     * 可缓存回答的最大字符数，超过则不缓存
+     */
+    private int maxAnswerChars = 32 * 1024;
+}
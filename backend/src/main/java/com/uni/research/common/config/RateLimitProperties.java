@@ -0,0 +1,50 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 接口限流配置（对应 application.yml 中的 rate-limit.*）
+ *
+ * 具体的速率和容量由 @RateLimit 注解声明，这里只控制本地预扣的行为
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否开启限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每次从 Redis 预扣的令牌数占桶容量的比例（至少 1 个）。
+     * 越大 Redis 调用越少，但多实例之间的分配越不均匀
+     */
+    private double leaseRatio = 0.1;
+
+    /**
+     * 预扣令牌的有效期，过期未用完的令牌作废（不归还），避免某个实例长期囤积
+     */
+    private Duration leaseTtl = Duration.ofSeconds(1);
+
+    /**
+     * Redis 判定令牌耗尽后，本地直接拒绝的最长时间（实际取桶的补充等待时间与该值的较小者）
+     */
+    private Duration maxRejectCache = Duration.ofSeconds(1);
+
+    /**
+     * 本地桶最多保留的 Key 数（按用户 / IP 维度时每个用户一个桶）
+     */
+    private long localMaxKeys = 100_000;
+
+    /**
+     * 本地桶闲置多久后淘汰
+     */
+    private Duration localExpire = Duration.ofMinutes(10);
+}
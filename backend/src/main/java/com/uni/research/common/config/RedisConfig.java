@@ -0,0 +1,55 @@
+package com.uni.research.common.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 配置
+ *
+ * 对应 408 考点：计算机组成 - 存储层次结构（多级缓存）
+ *
+ * 设计思路：
+ * 1. 字符串读写直接使用 Spring Boot 自动配置的 StringRedisTemplate，值统一序列化为 JSON 字符串
+ * 2. 提供发布 / 订阅监听容器，用于多实例之间广播本地缓存失效消息
+ * 3. 启动时 Redis 不可达不阻断应用启动：本地缓存都有 TTL 兜底，订阅失败只记录警告
+ * 4. 开启快速启动（fast-start.enabled）时监听容器不随上下文启动，由 StartupWarmer 在后台订阅，
+ *    主线程不再等待 Lettuce 建连
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(FastStartProperties.class)
+public class RedisConfig {
+
+    /**
+     * Redis 发布 / 订阅监听容器
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       FastStartProperties fastStart) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void start() {
+                try {
+                    super.start();
+                } catch (DataAccessException e) {
+                    log.warn("Redis 订阅启动失败，缓存失效广播不可用（本地缓存依赖 TTL 过期）: {}", e.getMessage());
+                }
+            }
+
+            @Override
+            public boolean isAutoStartup() {
+                return !fastStart.isEnabled();
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -0,0 +1,87 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 混合检索配置（对应 application.yml 中的 retrieval.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "retrieval")
+public class RetrievalProperties {
+
+    /**
+     * 最终返回的文本块数
+     */
+    private int topK = 5;
+
+    /**
+     * 向量检索相似度阈值，低于该值的向量结果不参与融合
+     */
+    private float minVectorScore = 0.7f;
+
+    /**
+     * 每一路召回的候选数 = topK × candidateMultiplier
+     */
+    private int candidateMultiplier = 4;
+
+    /**
+     * RRF 平滑常数：score = Σ 1 / (rrfK + rank)
+     */
+    private int rrfK = 60;
+
+    /**
+     * 等待问题向量化的上限，超时后只用关键词检索的结果
+     */
+    private Duration embedTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 检索线程数（retrievalExecutor）
+     */
+    private int workers = 16;
+
+    /**
+     * 检索线程池队列容量，满时本次对话不带 contexts
+     */
+    private int queueCapacity = 200;
+
+    /**
+     * 是否启用关键词检索
+     */
+    private boolean keywordEnabled = true;
+
+    /**
+     * BM25 词频饱和参数
+     */
+    private float bm25K1 = 1.2f;
+
+    /**
+     * BM25 文本长度归一化参数
+     */
+    private float bm25B = 0.75f;
+
+    /**
+     * 所有用户关键词索引合计的内存上限（字节）
+     */
+    private long keywordMaxResidentBytes = 512L * 1024 * 1024;
+
+    /**
+     * 用户关键词索引空闲多久后释放
+     */
+    private Duration keywordIdleTtl = Duration.ofMinutes(30);
+
+    /**
+     * 墓碑占比超过该值时重建关键词索引
+     */
+    private double keywordRebuildDeletedRatio = 0.3;
+
+    /**
+     * 预热时每页从 pgvector 读取的行数
+     */
+    private int warmUpPageSize = 1000;
+}
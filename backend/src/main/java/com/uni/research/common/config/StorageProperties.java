@@ -0,0 +1,61 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 文件存储与分片上传配置（对应 application.yml 中的 storage.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "storage")
+public class StorageProperties {
+
+    /**
+     * 存储实现：local / minio
+     */
+    private String type = "local";
+
+    /**
+     * 本地存储根目录
+     */
+    private String localRoot = "data/files";
+
+    /**
+     * 分片临时目录（与本地存储根目录放在同一磁盘，合并后可直接 rename）
+     */
+    private String tempDir = "data/upload-tmp";
+
+    /**
+     * 分片大小（字节），由服务端决定，前端按此切片
+     */
+    private int chunkSize = 5 * 1024 * 1024;
+
+    /**
+     * 单个文件最大字节数
+     */
+    private long maxFileSize = 200L * 1024 * 1024;
+
+    /**
+     * 上传会话有效期，超时未完成的分片会被清理
+     */
+    private Duration uploadTtl = Duration.ofHours(24);
+
+    private Minio minio = new Minio();
+
+    @Data
+    public static class Minio {
+
+        private String endpoint = "http://localhost:9000";
+
+        private String accessKey = "minioadmin";
+
+        private String secretKey = "minioadmin";
+
+        private String bucket = "uni-research";
+    }
+}
@@ -1,8 +1,17 @@
 package com.uni.research.common.config;
 
+import com.uni.research.common.concurrent.AdaptiveConcurrencyLimiter;
+import com.uni.research.common.concurrent.AiTaskDecorator;
+import com.uni.research.common.concurrent.AiTaskPermits;
+import com.uni.research.common.concurrent.ContextTaskDecorator;
+import com.uni.research.common.concurrent.MeteredRejectPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.ThreadPoolExecutor;
@@ -17,7 +26,7 @@ import java.util.concurrent.ThreadPoolExecutor;
  * 2. 核心线程数 = CPU 核心数（避免过多线程切换）
  * 3. 最大线程数 = CPU 核心数 * 2（应对突发流量）
  * 4. 使用有界队列防止内存溢出（OOM）
- * 5. 使用 CallerRunsPolicy 拒绝策略实现优雅降级
+ * 5. 超出处理能力时快速拒绝（自适应限流 + 快速拒绝策略），不阻塞调用线程
  * 
  * 面试话术：
  * "我针对 AI 接口调用场景设计了专用线程池。
@@ -35,6 +44,16 @@ import java.util.concurrent.ThreadPoolExecutor;
  * 此外，我还配置了 waitForTasksToCompleteOnShutdown = true，
  * 确保应用关闭时等待所有任务执行完毕，避免数据丢失。
  * 
+ * 后来发现 AI 服务变慢时，CallerRunsPolicy 会把阻塞调用推回 Tomcat 线程，整个 API 跟着卡住。
+ * 所以又增加了虚拟线程模式（Java 21+）：每个任务一个虚拟线程，
+ * 并发上限改由全局 + 单用户两级信号量控制（见 AiTaskPermits），
+ * 上千个在途 LLM 调用只占用 KB 级内存；Java 17 下自动回退到平台线程池。
+ * 排队耗时和许可等待耗时都会上报为指标，方便定位请求卡在哪一环。
+ * 
+ * 再后来，固定的队列 100 和线程数都说明不了下游 LLM 到底能承受多少并发。
+ * 现在所有 AI 任务提交前先经过自适应并发限制器（见 AdaptiveConcurrencyLimiter），
+ * 按延迟梯度自动调整在途上限，超出直接返回 503；线程池满时也改为快速拒绝，不再 CallerRuns。
+ * 
  * 对应 408 考点：
  * - 操作系统：线程池原理、线程生命周期、线程调度算法
  * - 数据结构：阻塞队列（BlockingQueue）的实现原理
@@ -45,10 +64,132 @@ import java.util.concurrent.ThreadPoolExecutor;
  */
 @Slf4j
 @Configuration
+@EnableConfigurationProperties({AiTaskProperties.class, DocPipelineProperties.class, RetrievalProperties.class})
 public class ThreadPoolConfig {
     
     /**
-     * AI 调用专用线程池
+     * 虚拟线程最低要求的 Java 版本
+     */
+    private static final int VIRTUAL_THREAD_MIN_JAVA_VERSION = 21;
+    
+    /**
+     * AI 调用专用执行器
+     * 
+     * 根据 ai-task.mode 选择虚拟线程执行器或平台线程池，两者共用 AiTaskDecorator（自适应限流 + 排队指标 + 并发许可）
+     */
+    @Bean("aiTaskExecutor")
+    public AsyncTaskExecutor aiTaskExecutor(AiTaskProperties properties, AiTaskPermits permits,
+                                            AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        AiTaskDecorator decorator = new AiTaskDecorator(permits, limiter, meterRegistry);
+        
+        if (properties.getMode() == AiTaskProperties.ExecutorMode.VIRTUAL) {
+            int javaVersion = Runtime.version().feature();
+            if (javaVersion >= VIRTUAL_THREAD_MIN_JAVA_VERSION) {
+                return virtualThreadExecutor(properties, decorator);
+            }
+            log.warn("当前 Java 版本 {} 不支持虚拟线程，AI 任务执行器回退为平台线程池", javaVersion);
+        }
+        return platformThreadExecutor(properties, decorator, meterRegistry);
+    }
+    
+    /**
+     * 向量索引预热专用线程池
+     *
+     * 预热是读 pgvector + 建图的 CPU / 数据库任务，不占用 AI 调用许可；
+     * 线程数固定为 2，避免大量用户同时登录时建图抢占请求线程的 CPU，队列满直接拒绝（本次走 pgvector，下次再预热）
+     */
+    @Bean("vectorIndexExecutor")
+    public ThreadPoolTaskExecutor vectorIndexExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("vector-index-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 对话混合检索线程池
+     *
+     * 检索会等待问题向量化，而向量化批次在 aiTaskExecutor 中执行；检索若也占用 aiTaskExecutor 的工作线程，
+     * 并发对话数达到线程数时所有线程都在等向量，向量化批次却排在队列里，形成循环等待。
+     * 因此检索在独立线程池中完成后才提交上游流式任务；不申请 AI 许可，队列满直接拒绝（本次不带 contexts）
+     */
+    @Bean("retrievalExecutor")
+    public ThreadPoolTaskExecutor retrievalExecutor(RetrievalProperties properties, MeterRegistry meterRegistry) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("retrieval-");
+        executor.setTaskDecorator(new ContextTaskDecorator("rag.retrieve"));
+        executor.setRejectedExecutionHandler(new MeteredRejectPolicy("retrievalExecutor", meterRegistry));
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 文档解析与向量化线程池
+     *
+     * 每个线程处理一篇文档（解析 → 切块 → 提交向量化 → 写库），向量化本身由攒批线程完成，
+     * 线程数取 doc-pipeline.workers，避免多篇大文档同时解析占满 CPU 和数据库连接；
+     * 任务由 DocJobServiceImpl 按空闲槽位领取后提交，队列通常为空，排队发生在 doc_job 表中
+     */
+    @Bean("docProcessExecutor")
+    public ThreadPoolTaskExecutor docProcessExecutor(DocPipelineProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getWorkers());
+        executor.setMaxPoolSize(properties.getWorkers());
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("doc-process-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 对话消息刷盘线程
+     *
+     * 只运行 ChatMessageWriter 的刷盘循环；waitForTasksToCompleteOnShutdown 保证关闭时
+     * 等刷盘循环把队列里剩余的消息写完才销毁数据源
+     */
+    @Bean("chatPersistExecutor")
+    public ThreadPoolTaskExecutor chatPersistExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("chat-persist-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 虚拟线程执行器
+     *
+     * 每个任务一个虚拟线程，不设队列和线程上限，并发由 AiTaskPermits 控制；
+     * taskTerminationTimeout 对应平台线程池的 awaitTerminationSeconds，关闭时等待在途任务完成
+     */
+    private AsyncTaskExecutor virtualThreadExecutor(AiTaskProperties properties, AiTaskDecorator decorator) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("ai-vt-");
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(decorator);
+        executor.setTaskTerminationTimeout(60_000);
+        
+        log.info("AI 任务执行器初始化完成: mode=VIRTUAL, globalPermits={}, perUserPermits={}",
+                properties.getGlobalPermits(), properties.getPerUserPermits());
+        
+        return executor;
+    }
+    
+    /**
+     * AI 调用专用线程池（平台线程）
      * 
      * 参数说明：
      * - corePoolSize: 核心线程数，即使空闲也不会被回收
@@ -57,8 +198,8 @@ public class ThreadPoolConfig {
      * - keepAliveTime: 非核心线程的空闲存活时间（默认 60 秒）
      * - rejectedExecutionHandler: 拒绝策略
      */
-    @Bean("aiTaskExecutor")
-    public ThreadPoolTaskExecutor aiTaskExecutor() {
+    private ThreadPoolTaskExecutor platformThreadExecutor(AiTaskProperties properties, AiTaskDecorator decorator,
+                                                          MeterRegistry meterRegistry) {
         // 获取 CPU 核心数
         int corePoolSize = Runtime.getRuntime().availableProcessors();
         
@@ -72,14 +213,19 @@ public class ThreadPoolConfig {
         // 最大线程数 = CPU 核心数 * 2
         executor.setMaxPoolSize(corePoolSize * 2);
         
-        // 队列容量 = 100（有界队列，防止 OOM）
-        executor.setQueueCapacity(100);
+        // 队列容量默认 100（有界队列，防止 OOM）
+        executor.setQueueCapacity(properties.getQueueCapacity());
         
         // 线程名称前缀（便于日志排查）
         executor.setThreadNamePrefix("ai-task-");
         
-        // 拒绝策略：CallerRunsPolicy（由调用线程执行，实现优雅降级）
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 拒绝策略：快速拒绝（SSE 推送 503 错误事件），不再由调用线程执行，同时统计拒绝次数
+        // 正常情况下自适应限流器先于队列拒绝，这里是兜底
+        // 活跃线程数、队列深度等指标由 Spring Boot Actuator 自动绑定（executor.*{name=aiTaskExecutor}）
+        executor.setRejectedExecutionHandler(new MeteredRejectPolicy("aiTaskExecutor", meterRegistry));
+        
+        // 排队耗时指标 + 并发许可
+        executor.setTaskDecorator(decorator);
         
         // 关闭时等待任务完成
         executor.setWaitForTasksToCompleteOnShutdown(true);
@@ -90,8 +236,8 @@ public class ThreadPoolConfig {
         // 初始化线程池
         executor.initialize();
         
-        log.info("AI 任务线程池初始化完成: corePoolSize={}, maxPoolSize={}, queueCapacity={}", 
-                corePoolSize, corePoolSize * 2, 100);
+        log.info("AI 任务线程池初始化完成: mode=PLATFORM, corePoolSize={}, maxPoolSize={}, queueCapacity={}", 
+                corePoolSize, corePoolSize * 2, properties.getQueueCapacity());
         
         return executor;
     }
@@ -0,0 +1,35 @@
+package com.uni.research.common.config;
+
+import com.uni.research.common.trace.TracingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 链路追踪配置
+ *
+ * 数据源在初始化（包括连接池参数绑定）完成后再包装为 TracingDataSource，
+ * Span 名称取 Bean 名：jdbc.dataSource（MySQL）、jdbc.vectorDataSource（pgvector）。
+ * 包装后的数据源实现了 unwrap()，连接池指标和健康检查仍能拿到 HikariDataSource
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Configuration
+public class TraceConfig {
+
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource(dataSource, "jdbc." + beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
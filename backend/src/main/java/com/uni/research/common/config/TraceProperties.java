@@ -0,0 +1,47 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 请求链路追踪配置（对应 application.yml 中的 trace.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "trace")
+public class TraceProperties {
+
+    /**
+     * 是否开启（关闭后不创建任何 Span，各埋点退化为一次 ThreadLocal 读取）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 请求采样率（0~1），未采样的请求不记录分段耗时
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * 单条链路最多保存的 Span 数，超出部分仍计入指标，但不在慢链路中展示
+     */
+    private int maxSpans = 200;
+
+    /**
+     * 保留最慢的链路条数（每个窗口）
+     */
+    private int slowestTraces = 20;
+
+    /**
+     * 慢链路统计窗口：只展示最近两个窗口内的链路
+     */
+    private Duration slowTraceWindow = Duration.ofMinutes(5);
+
+    /**
+     * Span 标签值（如 SQL）的最大字符数
+     */
+    private int maxTagLength = 256;
+}
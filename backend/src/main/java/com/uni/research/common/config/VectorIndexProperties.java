@@ -0,0 +1,77 @@
+package com.uni.research.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 进程内向量索引配置（对应 application.yml 中的 vector-index.*）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@ConfigurationProperties(prefix = "vector-index")
+public class VectorIndexProperties {
+
+    /**
+     * 是否启用进程内 HNSW 索引；关闭后所有检索直接走 pgvector
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个节点的最大邻居数（第 0 层为 2M），越大召回率越高、内存越多
+     */
+    private int m = 16;
+
+    /**
+     * 构建时的候选集大小（与 pgvector HNSW 索引默认值一致）
+     */
+    private int efConstruction = 64;
+
+    /**
+     * 检索时的候选集大小（实际取 max(efSearch, topK)）
+     */
+    private int efSearch = 64;
+
+    /**
+     * 所有用户索引合计的内存上限（字节），超出后按 W-TinyLFU 淘汰整个用户的索引
+     */
+    private long maxResidentBytes = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * 用户索引空闲多久后释放
+     */
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    /**
+     * 墓碑占比超过该值时重建索引
+     */
+    private double compactDeletedRatio = 0.3;
+
+    /**
+     * 单个用户最多加载的文本块数，超出则不建本地索引、直接走 pgvector
+     */
+    private int maxChunksPerUser = 100_000;
+
+    /**
+     * 预热时每页从 pgvector 读取的行数
+     */
+    private int warmUpPageSize = 1000;
+
+    /**
+     * 是否把向量持久化为本地段文件（重启后内存映射即可服务，不再从 pgvector 全量拉取）
+     */
+    private boolean segmentsEnabled = true;
+
+    /**
+     * 段文件目录，每个用户一个子目录
+     */
+    private String segmentDir = "data/vector-segments";
+
+    /**
+     * 单个段文件的最大行数，写满后滚动新段
+     */
+    private int segmentMaxRows = 65_536;
+}
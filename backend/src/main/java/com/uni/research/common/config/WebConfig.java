@@ -1,9 +1,14 @@
 package com.uni.research.common.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.common.result.ResultHttpMessageConverter;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 /**
  * Web 配置类
  * 
@@ -12,6 +17,7 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * 设计思路：
  * 1. 配置 CORS 允许前端跨域访问
  * 2. 开发环境允许所有域名，生产环境需限制
+ * 3. Result 返回值优先交给专用转换器（复用 ObjectWriter、直接写输出流），其余类型走默认转换器
  * 
  * 面试话术：
  * "我配置了 CORS 跨域支持，允许前端应用访问后端 API。
@@ -24,6 +30,12 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
     
+    private final ObjectMapper objectMapper;
+    
+    public WebConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -33,4 +45,9 @@ public class WebConfig implements WebMvcConfigurer {
                 .allowCredentials(true)
                 .maxAge(3600);  // 预检请求缓存时间（秒）
     }
+    
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new ResultHttpMessageConverter(objectMapper));
+    }
 }
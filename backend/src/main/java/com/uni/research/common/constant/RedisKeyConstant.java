@@ -0,0 +1,85 @@
+package com.uni.research.common.constant;
+
+/**
+ * Redis Key 常量
+ *
+ * 命名规范：业务模块:对象:标识，统一在此维护，避免 Key 冲突和拼写错误
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class RedisKeyConstant {
+
+    private RedisKeyConstant() {
+    }
+
+    /**
+     * RAG 回答缓存：rag:answer:{sha256(归一化问题 + 文档指纹)}
+     */
+    public static final String RAG_ANSWER = "rag:answer:";
+
+    /**
+     * 文档向量版本号：rag:doc:version:{docId}，文档重新向量化时自增
+     */
+    public static final String RAG_DOC_VERSION = "rag:doc:version:";
+
+    /**
+     * 文本块向量缓存：rag:embed:{sha256(模型名 + 文本)}，值为 float32 小端字节的 Base64
+     */
+    public static final String RAG_EMBEDDING = "rag:embed:";
+
+    /**
+     * 文档向量变更广播频道（payload 为 docId），各实例收到后清理本地缓存
+     */
+    public static final String RAG_DOC_CHANGED_CHANNEL = "rag:doc:changed";
+
+    /**
+     * 文档处理进度：doc:progress:{docId}，Hash 结构（state / percent / chunks / error）
+     */
+    public static final String DOC_PROGRESS = "doc:progress:";
+
+    /**
+     * 对话上下文窗口：chat:ctx:{sessionId}，List 结构，元素为消息 JSON（role / content / tokens），按时间顺序
+     */
+    public static final String CHAT_CONTEXT = "chat:ctx:";
+
+    /**
+     * 对话上下文窗口元数据：chat:ctx:meta:{sessionId}，Hash 结构（tokens / version / truncated）
+     */
+    public static final String CHAT_CONTEXT_META = "chat:ctx:meta:";
+
+    /**
+     * 限流令牌桶：rate:{规则名}:{维度值}，Hash 结构（tokens / ts）
+     */
+    public static final String RATE_LIMIT = "rate:";
+
+    /**
+     * 已吊销的 Token：auth:revoked:{jti}，TTL 为 Token 剩余有效期
+     */
+    public static final String AUTH_REVOKED = "auth:revoked:";
+
+    /**
+     * Token 吊销广播频道（payload 为 jti），各实例收到后加入本地布隆过滤器
+     */
+    public static final String AUTH_REVOKED_CHANNEL = "auth:revoked";
+
+    /**
+     * 元数据实体缓存：meta:entity:{区域}:{id}，值为实体 JSON
+     */
+    public static final String META_ENTITY = "meta:entity:";
+
+    /**
+     * 元数据列表页缓存：meta:page:{区域}:{userId}:{版本号}:{页标识}，值为分页结果 JSON
+     */
+    public static final String META_PAGE = "meta:page:";
+
+    /**
+     * 用户列表版本号：meta:ver:{区域}:{userId}，写操作自增，旧版本的列表页随之失效
+     */
+    public static final String META_VERSION = "meta:ver:";
+
+    /**
+     * 元数据变更广播频道（payload 为 e|区域|id 或 v|区域|userId），各实例收到后清理本地缓存
+     */
+    public static final String META_CHANGED_CHANNEL = "meta:changed";
+}
@@ -0,0 +1,41 @@
+package com.uni.research.common.context;
+
+/**
+ * 当前请求用户上下文
+ *
+ * 对应 408 考点：操作系统 - 线程私有存储（TLS）
+ *
+ * 设计思路：
+ * 1. 使用 ThreadLocal 保存当前请求的用户 ID，避免层层传参
+ * 2. 由认证过滤器在请求进入时写入，请求结束时清理（防止线程复用导致串号）
+ * 3. 异步任务由 TaskDecorator 负责把用户 ID 传递到工作线程
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class UserContext {
+
+    private static final ThreadLocal<Long> USER_ID = new ThreadLocal<>();
+
+    private UserContext() {
+    }
+
+    /**
+     * 获取当前用户 ID，未登录或非 HTTP 线程返回 null
+     */
+    public static Long getUserId() {
+        return USER_ID.get();
+    }
+
+    public static void setUserId(Long userId) {
+        if (userId == null) {
+            USER_ID.remove();
+        } else {
+            USER_ID.set(userId);
+        }
+    }
+
+    public static void clear() {
+        USER_ID.remove();
+    }
+}
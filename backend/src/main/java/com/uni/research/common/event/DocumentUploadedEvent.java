@@ -0,0 +1,26 @@
+package com.uni.research.common.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 文档上传完成事件
+ *
+ * 上传流程发布，文档处理流水线监听后异步解析和向量化，上传接口立即返回
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Getter
+public class DocumentUploadedEvent extends ApplicationEvent {
+
+    private final Long docId;
+
+    private final Long userId;
+
+    public DocumentUploadedEvent(Object source, Long docId, Long userId) {
+        super(source);
+        this.docId = docId;
+        this.userId = userId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.uni.research.common.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户登录成功事件
+ *
+ * 登录流程发布，各模块按需监听做预热（如向量索引），登录接口本身不依赖这些模块
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Getter
+public class UserLoginEvent extends ApplicationEvent {
+
+    private final Long userId;
+
+    public UserLoginEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
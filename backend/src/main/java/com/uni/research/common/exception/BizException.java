@@ -3,6 +3,9 @@ package com.uni.research.common.exception;
 import com.uni.research.common.result.ResultCode;
 import lombok.Getter;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * 自定义业务异常
  * 
@@ -12,6 +15,9 @@ import lombok.Getter;
  * 1. 继承 RuntimeException，无需强制捕获
  * 2. 包含错误码和错误消息，便于统一处理
  * 3. 提供多种构造方法，灵活使用
+ * 4. 可预期的失败（4xx、4xxx 业务码、限流 / 过载）不采集堆栈：这类异常由客户端输入或负载触发，
+ *    堆栈没有排查价值，而 fillInStackTrace 要遍历整个调用栈，被刷接口时错误路径会比正常路径慢一个数量级。
+ *    不带自定义消息时还可以用 of(ResultCode) 复用同一个实例（不采集堆栈也不记录 suppressed，共享是安全的）
  * 
  * @author wrench1024
  * @since 2026-01-02
@@ -21,6 +27,19 @@ public class BizException extends RuntimeException {
     
     private static final long serialVersionUID = 1L;
     
+    /**
+     * 可预期响应码的共享实例
+     */
+    private static final Map<ResultCode, BizException> SHARED = new EnumMap<>(ResultCode.class);
+    
+    static {
+        for (ResultCode resultCode : ResultCode.values()) {
+            if (isExpected(resultCode.getCode())) {
+                SHARED.put(resultCode, new BizException(resultCode));
+            }
+        }
+    }
+    
     /**
      * 错误码
      */
@@ -32,26 +51,42 @@ public class BizException extends RuntimeException {
     private String message;
     
     public BizException(String message) {
-        super(message);
-        this.code = ResultCode.INTERNAL_SERVER_ERROR.getCode();
-        this.message = message;
+        this(ResultCode.INTERNAL_SERVER_ERROR.getCode(), message);
     }
     
     public BizException(int code, String message) {
-        super(message);
+        super(message, null, !isExpected(code), !isExpected(code));
         this.code = code;
         this.message = message;
     }
     
     public BizException(ResultCode resultCode) {
-        super(resultCode.getMessage());
-        this.code = resultCode.getCode();
-        this.message = resultCode.getMessage();
+        this(resultCode.getCode(), resultCode.getMessage());
     }
     
     public BizException(ResultCode resultCode, String message) {
-        super(message);
-        this.code = resultCode.getCode();
-        this.message = message;
+        this(resultCode.getCode(), message);
+    }
+    
+    /**
+     * 返回响应码对应的异常；可预期的响应码返回共享实例，其余每次新建
+     */
+    public static BizException of(ResultCode resultCode) {
+        BizException shared = SHARED.get(resultCode);
+        return shared != null ? shared : new BizException(resultCode);
+    }
+    
+    /**
+     * 是否为可预期的失败（客户端错误、限流、过载），这类异常不采集堆栈，日志按响应码汇总输出
+     */
+    public static boolean isExpected(int code) {
+        return (code >= 400 && code < 500)
+                || (code >= 4000 && code < 5000)
+                || code == ResultCode.SERVICE_OVERLOADED.getCode()
+                || code == ResultCode.AI_SERVICE_BUSY.getCode();
+    }
+    
+    public boolean isExpected() {
+        return isExpected(code);
     }
 }
@@ -0,0 +1,120 @@
+package com.uni.research.common.exception;
+
+import com.uni.research.common.config.ApiLogProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可预期错误的汇总日志
+ *
+ * 对应 408 考点：操作系统 - I/O 缓冲（合并写）
+ *
+ * 设计思路：
+ * 1. 按（错误类型, 响应码）分组计数，计数用 LongAdder，高并发下各线程累加到不同的 Cell
+ * 2. 每个周期内同组错误第一次出现时立即输出一条（保留现场），之后只计数
+ * 3. 周期结束时输出一条汇总（次数 + 最近一条消息），日志量与错误次数无关
+ *
+ * 面试话术：
+ * "被刷接口时，每个失败请求打一行 ERROR 日志，日志比业务本身还重。
+ * 我把业务异常、参数错误这类可预期的错误按响应码汇总，每 10 秒输出一次次数，
+ * 第一次出现时仍然立即打印，排查问题不受影响。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(ApiLogProperties.class)
+public class ErrorLogAggregator {
+
+    private final ApiLogProperties properties;
+
+    private final Map<Long, Stat> stats = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    public ErrorLogAggregator(ApiLogProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        long intervalMillis = properties.getErrorSummaryInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "error-log-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdownNow();
+        flush();
+    }
+
+    /**
+     * 记录一次可预期的错误
+     *
+     * @param category 错误类型（如"业务异常"），作为日志前缀
+     */
+    public void record(String category, int code, String message) {
+        long key = ((long) category.hashCode() << 32) | (code & 0xffffffffL);
+        Stat stat = stats.get(key);
+        if (stat == null) {
+            stat = stats.computeIfAbsent(key, k -> new Stat(category, code));
+        }
+        stat.count.increment();
+        stat.lastMessage = message;
+        // 先读再 CAS：周期内绝大多数调用只读不写，避免所有线程争抢同一个缓存行
+        if (!stat.reported.get() && stat.reported.compareAndSet(false, true)) {
+            log.warn("{}: code={}, message={}（{} 秒内同类错误汇总输出）", category, code, message,
+                    properties.getErrorSummaryInterval().toSeconds());
+        }
+    }
+
+    private void flush() {
+        for (Stat stat : stats.values()) {
+            long count = stat.count.sumThenReset();
+            stat.reported.set(false);
+            // 只出现一次的已经在发生时输出过
+            if (count > 1) {
+                log.warn("{}汇总: code={}, count={}, interval={}s, lastMessage={}", stat.category, stat.code, count,
+                        properties.getErrorSummaryInterval().toSeconds(), stat.lastMessage);
+            }
+        }
+    }
+
+    private static final class Stat {
+
+        private final String category;
+
+        private final int code;
+
+        private final LongAdder count = new LongAdder();
+
+        private final AtomicBoolean reported = new AtomicBoolean();
+
+        /**
+         * 只用于汇总时展示，允许读到稍旧的值，不加 volatile 避免每次写入都刷缓存行
+         */
+        private String lastMessage;
+
+        private Stat(String category, int code) {
+            this.category = category;
+            this.code = code;
+        }
+    }
+}
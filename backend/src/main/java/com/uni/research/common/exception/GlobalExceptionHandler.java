@@ -2,7 +2,9 @@ package com.uni.research.common.exception;
 
 import com.uni.research.common.result.Result;
 import com.uni.research.common.result.ResultCode;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -21,6 +23,9 @@ import java.util.stream.Collectors;
  * 2. 针对不同异常类型返回不同的错误信息
  * 3. 记录异常日志，便于问题排查
  * 4. 避免敏感信息泄露（生产环境不返回堆栈信息）
+ * 5. 限流（429）和过载（503）同时设置 HTTP 状态码和 Retry-After，网关和客户端可以据此退避重试
+ * 6. 可预期的错误（业务异常、参数错误、限流）交给 ErrorLogAggregator 按响应码汇总输出，
+ *    消息与响应码默认消息相同时直接返回共享的 Result 实例，错误路径和正常路径开销相当
  * 
  * 面试话术：
  * "我实现了全局异常处理器，统一拦截和处理所有异常，避免异常信息直接暴露给前端。
@@ -35,13 +40,53 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 public class GlobalExceptionHandler {
     
+    private static final String BIZ_ERROR = "业务异常";
+    
+    private static final String VALIDATION_ERROR = "参数校验异常";
+    
+    private static final String BIND_ERROR = "参数绑定异常";
+    
+    private static final String ILLEGAL_ARGUMENT = "非法参数异常";
+    
+    private final ErrorLogAggregator errorLog;
+    
+    public GlobalExceptionHandler(ErrorLogAggregator errorLog) {
+        this.errorLog = errorLog;
+    }
+    
+    /**
+     * 限流 / 过载时建议客户端等待的秒数
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+    
     /**
      * 处理业务异常
      */
     @ExceptionHandler(BizException.class)
-    public Result<?> handleBizException(BizException e) {
-        log.error("业务异常: code={}, message={}", e.getCode(), e.getMessage());
-        return Result.fail(e.getCode(), e.getMessage());
+    public Result<?> handleBizException(BizException e, HttpServletResponse response) {
+        if (e.getCode() == ResultCode.TOO_MANY_REQUESTS.getCode()
+                || e.getCode() == ResultCode.SERVICE_OVERLOADED.getCode()) {
+            response.setStatus(e.getCode());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+        if (e.isExpected()) {
+            // 高负载或被刷接口时这类异常很多，汇总输出，避免日志本身成为负担
+            errorLog.record(BIZ_ERROR, e.getCode(), e.getMessage());
+        } else {
+            log.error("业务异常: code={}, message={}", e.getCode(), e.getMessage());
+        }
+        return fail(e.getCode(), e.getMessage());
+    }
+    
+    /**
+     * 消息与响应码的默认消息一致时返回共享实例
+     */
+    private static Result<?> fail(int code, String message) {
+        ResultCode resultCode = ResultCode.of(code);
+        if (resultCode != null && resultCode.getMessage().equals(message)) {
+            return Result.fail(resultCode);
+        }
+        return Result.fail(code, message);
     }
     
     /**
@@ -53,7 +98,7 @@ public class GlobalExceptionHandler {
                 .stream()
                 .map(FieldError::getDefaultMessage)
                 .collect(Collectors.joining("; "));
-        log.error("参数校验异常: {}", errorMsg);
+        errorLog.record(VALIDATION_ERROR, ResultCode.BAD_REQUEST.getCode(), errorMsg);
         return Result.fail(ResultCode.BAD_REQUEST, errorMsg);
     }
     
@@ -66,7 +111,7 @@ public class GlobalExceptionHandler {
                 .stream()
                 .map(FieldError::getDefaultMessage)
                 .collect(Collectors.joining("; "));
-        log.error("参数绑定异常: {}", errorMsg);
+        errorLog.record(BIND_ERROR, ResultCode.BAD_REQUEST.getCode(), errorMsg);
         return Result.fail(ResultCode.BAD_REQUEST, errorMsg);
     }
     
@@ -75,7 +120,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(IllegalArgumentException.class)
     public Result<?> handleIllegalArgumentException(IllegalArgumentException e) {
-        log.error("非法参数异常: {}", e.getMessage());
+        errorLog.record(ILLEGAL_ARGUMENT, ResultCode.BAD_REQUEST.getCode(), e.getMessage());
         return Result.fail(ResultCode.BAD_REQUEST, e.getMessage());
     }
     
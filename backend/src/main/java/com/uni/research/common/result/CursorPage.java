@@ -0,0 +1,26 @@
+package com.uni.research.common.result;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果（键集分页）
+ *
+ * @param items      本页数据
+ * @param nextCursor 下一页游标（本页最后一条的 ID），没有更多数据时为 null
+ * @param hasMore    是否还有下一页
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record CursorPage<T>(List<T> items, Long nextCursor, boolean hasMore) {
+
+    /**
+     * 由多查一条的结果构造分页：查询 size + 1 条，多出来的一条只用于判断是否还有下一页
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, Long> idGetter) {
+        boolean hasMore = rows.size() > size;
+        List<T> items = hasMore ? List.copyOf(rows.subList(0, size)) : List.copyOf(rows);
+        Long nextCursor = hasMore ? idGetter.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+}
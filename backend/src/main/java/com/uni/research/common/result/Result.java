@@ -1,8 +1,11 @@
 package com.uni.research.common.result;
 
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 
 import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * 统一响应封装类
@@ -13,15 +16,34 @@ import java.io.Serializable;
  * 1. 使用泛型 T 支持任意类型的数据返回
  * 2. 包含 code、message、data 三个核心字段
  * 3. 提供静态工厂方法，简化调用
+ * 4. 不带数据的成功 / 失败响应（success()、fail(ResultCode)）返回预先创建的只读单例，
+ *    时间戳在序列化时取当前时间；序列化由 ResultSerializer 按固定字段顺序流式写出，不走反射
  * 
  * @author wrench1024
  * @since 2026-01-02
  */
 @Data
+@JsonSerialize(using = ResultSerializer.class)
 public class Result<T> implements Serializable {
     
     private static final long serialVersionUID = 1L;
     
+    /**
+     * 无数据的成功响应单例
+     */
+    private static final Result<?> SUCCESS = new Shared<>(ResultCode.SUCCESS);
+    
+    /**
+     * 每个响应码一个无数据的失败响应单例
+     */
+    private static final Map<ResultCode, Result<?>> FAILURES = new EnumMap<>(ResultCode.class);
+    
+    static {
+        for (ResultCode resultCode : ResultCode.values()) {
+            FAILURES.put(resultCode, new Shared<>(resultCode));
+        }
+    }
+    
     /**
      * 响应码
      */
@@ -55,8 +77,9 @@ public class Result<T> implements Serializable {
     
     // ========== 成功响应 ==========
     
+    @SuppressWarnings("unchecked")
     public static <T> Result<T> success() {
-        return new Result<>(ResultCode.SUCCESS.getCode(), ResultCode.SUCCESS.getMessage(), null);
+        return (Result<T>) SUCCESS;
     }
     
     public static <T> Result<T> success(T data) {
@@ -70,16 +93,16 @@ public class Result<T> implements Serializable {
     // ========== 失败响应 ==========
     
     public static <T> Result<T> fail() {
-        return new Result<>(ResultCode.INTERNAL_SERVER_ERROR.getCode(), 
-                           ResultCode.INTERNAL_SERVER_ERROR.getMessage(), null);
+        return fail(ResultCode.INTERNAL_SERVER_ERROR);
     }
     
     public static <T> Result<T> fail(String message) {
         return new Result<>(ResultCode.INTERNAL_SERVER_ERROR.getCode(), message, null);
     }
     
+    @SuppressWarnings("unchecked")
     public static <T> Result<T> fail(ResultCode resultCode) {
-        return new Result<>(resultCode.getCode(), resultCode.getMessage(), null);
+        return (Result<T>) FAILURES.get(resultCode);
     }
     
     public static <T> Result<T> fail(ResultCode resultCode, String message) {
@@ -95,4 +118,41 @@ public class Result<T> implements Serializable {
     public boolean isSuccess() {
         return this.code == ResultCode.SUCCESS.getCode();
     }
+    
+    /**
+     * 共享的只读响应：修改会抛出异常，时间戳总是当前时间
+     */
+    private static final class Shared<T> extends Result<T> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private Shared(ResultCode resultCode) {
+            super(resultCode.getCode(), resultCode.getMessage(), null);
+        }
+        
+        @Override
+        public long getTimestamp() {
+            return System.currentTimeMillis();
+        }
+        
+        @Override
+        public void setCode(int code) {
+            throw new UnsupportedOperationException("共享的 Result 实例不可修改");
+        }
+        
+        @Override
+        public void setMessage(String message) {
+            throw new UnsupportedOperationException("共享的 Result 实例不可修改");
+        }
+        
+        @Override
+        public void setData(T data) {
+            throw new UnsupportedOperationException("共享的 Result 实例不可修改");
+        }
+        
+        @Override
+        public void setTimestamp(long timestamp) {
+            throw new UnsupportedOperationException("共享的 Result 实例不可修改");
+        }
+    }
 }
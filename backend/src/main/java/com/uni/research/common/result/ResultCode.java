@@ -1,5 +1,8 @@
 package com.uni.research.common.result;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * 统一响应码枚举
  * 
@@ -18,6 +21,7 @@ public enum ResultCode {
     UNAUTHORIZED(401, "未授权，请先登录"),
     FORBIDDEN(403, "权限不足，拒绝访问"),
     NOT_FOUND(404, "请求的资源不存在"),
+    TOO_MANY_REQUESTS(429, "请求过于频繁，请稍后重试"),
     
     // 业务错误 4xx
     USER_NOT_FOUND(4001, "用户不存在"),
@@ -29,10 +33,22 @@ public enum ResultCode {
     DOCUMENT_NOT_FOUND(4101, "文档不存在"),
     DOCUMENT_PROCESSING(4102, "文档正在处理中"),
     
+    SESSION_NOT_FOUND(4201, "会话不存在"),
+    
     // 服务器错误 5xx
     INTERNAL_SERVER_ERROR(500, "服务器内部错误"),
+    SERVICE_OVERLOADED(503, "服务负载过高，请稍后重试"),
     AI_SERVICE_ERROR(5001, "AI 服务调用失败"),
-    DATABASE_ERROR(5002, "数据库操作失败");
+    DATABASE_ERROR(5002, "数据库操作失败"),
+    AI_SERVICE_BUSY(5003, "AI 服务繁忙，请稍后重试");
+    
+    private static final Map<Integer, ResultCode> BY_CODE = new HashMap<>();
+    
+    static {
+        for (ResultCode resultCode : values()) {
+            BY_CODE.put(resultCode.code, resultCode);
+        }
+    }
     
     private final int code;
     private final String message;
@@ -42,6 +58,13 @@ public enum ResultCode {
         this.message = message;
     }
     
+    /**
+     * 按响应码查找，不存在时返回 null
+     */
+    public static ResultCode of(int code) {
+        return BY_CODE.get(code);
+    }
+    
     public int getCode() {
         return code;
     }
@@ -0,0 +1,62 @@
+package com.uni.research.common.result;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+
+/**
+ * Result 专用的 JSON 消息转换器（只写不读）
+ *
+ * 对应 408 考点：计算机网络 - 应用层协议（HTTP 报文体编码）
+ *
+ * 设计思路：
+ * 1. 通用的 MappingJackson2HttpMessageConverter 每次写出都要解析泛型类型、检查 JSON View / Filter、
+ *    新建 ObjectWriter；Controller 的返回值统一是 Result，这里启动时建好一个 ObjectWriter 复用
+ * 2. JsonGenerator 直接建在响应输出流上，以 UTF-8 边序列化边写出，不先生成完整的 byte[] / String
+ * 3. 只处理 Result 且媒体类型兼容 JSON 的情况，其他返回值（SSE、文件、actuator）仍交给默认转换器
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class ResultHttpMessageConverter extends AbstractHttpMessageConverter<Result<?>> {
+
+    private final ObjectWriter writer;
+
+    public ResultHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.writer = objectMapper.writerFor(Result.class);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Result.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Result<?> readInternal(Class<? extends Result<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Result 不支持反序列化", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Result<?> result, HttpOutputMessage outputMessage) throws IOException {
+        // 不关闭底层输出流，由容器负责；关闭 generator 会把缓冲区刷到输出流
+        try (JsonGenerator generator = writer.getFactory()
+                .createGenerator(StreamUtils.nonClosing(outputMessage.getBody()), JsonEncoding.UTF8)) {
+            writer.writeValue(generator, result);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.uni.research.common.result;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Result 的流式序列化器
+ *
+ * 对应 408 考点：编译原理 - 序列化（把对象图线性化为字节流）
+ *
+ * 设计思路：
+ * 1. 默认的 BeanSerializer 通过反射发现属性、逐个调用 getter；Result 结构固定，直接按字段顺序写出
+ * 2. 字段名使用预编码的 SerializedString，UTF-8 字节只计算一次
+ * 3. 输出与默认序列化一致：code、message、data、timestamp、success，data 为 null 时输出 null
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class ResultSerializer extends StdSerializer<Result<?>> {
+
+    private static final SerializedString CODE = new SerializedString("code");
+
+    private static final SerializedString MESSAGE = new SerializedString("message");
+
+    private static final SerializedString DATA = new SerializedString("data");
+
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+    private static final SerializedString SUCCESS = new SerializedString("success");
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ResultSerializer() {
+        super((Class) Result.class);
+    }
+
+    @Override
+    public void serialize(Result<?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(value);
+        gen.writeFieldName(CODE);
+        gen.writeNumber(value.getCode());
+        gen.writeFieldName(MESSAGE);
+        gen.writeString(value.getMessage());
+        gen.writeFieldName(DATA);
+        provider.defaultSerializeValue(value.getData(), gen);
+        gen.writeFieldName(TIMESTAMP);
+        gen.writeNumber(value.getTimestamp());
+        gen.writeFieldName(SUCCESS);
+        gen.writeBoolean(value.isSuccess());
+        gen.writeEndObject();
+    }
+}
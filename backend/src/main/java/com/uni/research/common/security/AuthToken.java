@@ -0,0 +1,13 @@
+package com.uni.research.common.security;
+
+/**
+ * 验签通过的 Token 信息
+ *
+ * @param userId    用户 ID（subject）
+ * @param tokenId   Token 唯一 ID（jti），吊销时按它拉黑
+ * @param expiresAt 过期时间（毫秒时间戳）
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record AuthToken(Long userId, String tokenId, long expiresAt) {
+}
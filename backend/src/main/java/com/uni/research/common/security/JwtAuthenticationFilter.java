@@ -0,0 +1,135 @@
+package com.uni.research.common.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.config.JwtProperties;
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.event.UserLoginEvent;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JWT 认证过滤器
+ *
+ * 对应 408 考点：操作系统 - 线程私有存储（TLS）、计算机网络 - 数字签名
+ *
+ * 设计思路：
+ * 1. 从请求头取出 Token，校验通过后把用户 ID 写入 UserContext，请求结束时清理
+ * 2. 快速路径：已验签 Token 命中本地缓存（一次哈希查找）+ 布隆过滤器判定未吊销（k 次位运算），
+ *    不做 HMAC、不访问 Redis，单次认证开销在微秒级
+ * 3. 未携带 Token 的请求按匿名放行，由具体接口决定是否需要登录；携带了无效 / 已吊销的 Token 返回 401
+ * 4. 本实例第一次见到某个用户的有效 Token 时发布 UserLoginEvent，向量 / 关键词索引据此在后台预热；
+ *    用户超过一个 Token 有效期没有请求后再次出现，视为重新登录
+ *
+ * 面试话术：
+ * "最直接的写法是每个请求验一次签、再查一次 Redis 黑名单，一个请求就多了几十微秒 CPU 和一次网络往返。
+ * 我把验签结果按 Token 缓存到它过期为止，黑名单前面挡了一个布隆过滤器，
+ * 常规请求的认证完全在本地内存里完成。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtProperties properties;
+
+    private final JwtTokenProvider tokenProvider;
+
+    private final TokenBlacklist tokenBlacklist;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 本实例已发布过登录事件的用户
+     */
+    private final Cache<Long, Boolean> activeUsers;
+
+    public JwtAuthenticationFilter(JwtProperties properties, JwtTokenProvider tokenProvider,
+                                   TokenBlacklist tokenBlacklist, ObjectMapper objectMapper,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.tokenProvider = tokenProvider;
+        this.tokenBlacklist = tokenBlacklist;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.activeUsers = Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedCacheSize())
+                .expireAfterAccess(properties.getExpiration())
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = resolveToken(request);
+        if (token == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AuthToken auth;
+        try {
+            auth = tokenProvider.verify(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token 校验失败: uri={}, error={}", request.getRequestURI(), e.getMessage());
+            reject(response, "登录已失效，请重新登录");
+            return;
+        }
+        if (tokenBlacklist.isRevoked(auth.tokenId())) {
+            reject(response, "登录已注销，请重新登录");
+            return;
+        }
+        if (activeUsers.asMap().putIfAbsent(auth.userId(), Boolean.TRUE) == null) {
+            eventPublisher.publishEvent(new UserLoginEvent(this, auth.userId()));
+        }
+        UserContext.setUserId(auth.userId());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            UserContext.clear();
+        }
+    }
+
+    private String resolveToken(HttpServletRequest request) {
+        String header = request.getHeader(properties.getHeader());
+        if (header == null) {
+            return null;
+        }
+        String prefix = properties.getPrefix();
+        if (prefix != null && !prefix.isBlank()) {
+            if (!header.regionMatches(true, 0, prefix.trim(), 0, prefix.trim().length())) {
+                return null;
+            }
+            header = header.substring(prefix.trim().length());
+        }
+        header = header.trim();
+        return header.isEmpty() ? null : header;
+    }
+
+    private void reject(HttpServletResponse response, String message) throws IOException {
+        response.setStatus(ResultCode.UNAUTHORIZED.getCode());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Result.fail(ResultCode.UNAUTHORIZED, message));
+    }
+}
@@ -0,0 +1,130 @@
+package com.uni.research.common.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.uni.research.common.config.JwtProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 签发与校验（HMAC-SHA256）
+ *
+ * 对应 408 考点：计算机网络 - 数字签名与消息认证码（HMAC）
+ *
+ * 设计思路：
+ * 1. Token 内含 subject（用户 ID）、jti（唯一 ID，用于吊销）、过期时间，服务端无状态
+ * 2. 验签（Base64 解码 + JSON 解析 + HMAC 计算）每次要几十微秒，而同一个 Token 会在有效期内被反复使用，
+ *    所以验签通过后按完整 Token 字符串缓存解析结果，条目在 Token 过期时刻自动失效
+ * 3. 缓存 Key 是完整 Token 而不只是签名，篡改任意一个字节都会缓存未命中，重新走完整验签
+ * 4. 缓存只省去验签，吊销检查每次都做（见 TokenBlacklist）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+@EnableConfigurationProperties(JwtProperties.class)
+public class JwtTokenProvider {
+
+    private final JwtProperties properties;
+
+    private final SecretKey key;
+
+    private final JwtParser parser;
+
+    private final Cache<String, AuthToken> verified;
+
+    public JwtTokenProvider(JwtProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.key = Keys.hmacShaKeyFor(properties.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getVerifiedCacheSize())
+                .expireAfter(new Expiry<String, AuthToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, AuthToken auth, long currentTime) {
+                        long remaining = auth.expiresAt() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, AuthToken auth, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, AuthToken auth, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "auth.token.verified");
+    }
+
+    /**
+     * 为用户签发 Token
+     */
+    public String createToken(Long userId) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(String.valueOf(userId))
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + properties.getExpiration().toMillis()))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * 校验 Token（签名、过期时间），已验证过的 Token 直接返回缓存结果
+     *
+     * @throws JwtException Token 无效或已过期
+     */
+    public AuthToken verify(String token) {
+        AuthToken auth = verified.getIfPresent(token);
+        if (auth != null) {
+            // 缓存按 Caffeine 的定时清理失效，这里再精确判断一次过期
+            if (auth.expiresAt() > System.currentTimeMillis()) {
+                return auth;
+            }
+            verified.invalidate(token);
+        }
+        auth = parse(token);
+        verified.put(token, auth);
+        return auth;
+    }
+
+    /**
+     * 完整验签，不使用缓存
+     *
+     * @throws JwtException Token 无效或已过期
+     */
+    public AuthToken parse(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        if (claims.getId() == null || claims.getSubject() == null || claims.getExpiration() == null) {
+            throw new JwtException("Token 缺少必要字段");
+        }
+        try {
+            return new AuthToken(Long.valueOf(claims.getSubject()), claims.getId(),
+                    claims.getExpiration().getTime());
+        } catch (NumberFormatException e) {
+            throw new JwtException("Token subject 不是用户 ID", e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.uni.research.common.security;
+
+import com.uni.research.common.config.JwtProperties;
+import com.uni.research.common.constant.RedisKeyConstant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 吊销名单（登出后 Token 在过期前不可再用）
+ *
+ * 对应 408 考点：数据结构 - 布隆过滤器（空间换时间、单侧误判）
+ *
+ * 设计思路：
+ * 1. 吊销记录以 auth:revoked:{jti} 存在 Redis，TTL 等于 Token 剩余有效期，过期自动清理
+ * 2. 每个实例在本地维护吊销 jti 的布隆过滤器：判定不存在就一定没被吊销，绝大多数请求不访问 Redis；
+ *    只有命中（真吊销或约 0.1% 的误判）时才查 Redis 确认
+ * 3. 吊销时发布 auth:revoked 频道，各实例实时加入本地过滤器
+ * 4. 布隆过滤器不能删除，定期用 SCAN 从 Redis 全量重建一个新的再替换，顺带清掉已过期的 jti，
+ *    也补上订阅断开期间漏掉的消息；重建期间收到的消息同时写入新旧两个过滤器
+ * 5. 布隆命中但 Redis 不可用时按已吊销处理（宁可让用户重新登录，也不放过已登出的 Token）
+ *
+ * 面试话术：
+ * "JWT 无状态，登出只能靠黑名单，但每个请求都查一次 Redis 太浪费。
+ * 我在本地放了一个布隆过滤器，它只会误报不会漏报，所以'不在过滤器里'就可以直接放行，
+ * 只有命中时才去 Redis 确认；过滤器靠 Redis 发布订阅同步，再定期全量重建去掉过期的 Token。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+public class TokenBlacklist {
+
+    private final JwtProperties.Blacklist properties;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Counter bloomMisses;
+
+    private final Counter revokedHits;
+
+    private final Counter falsePositives;
+
+    private final Counter errors;
+
+    private volatile BloomFilter current;
+
+    /**
+     * 正在重建的过滤器，重建期间收到的吊销消息也要写入
+     */
+    private volatile BloomFilter building;
+
+    private ScheduledExecutorService rebuilder;
+
+    public TokenBlacklist(JwtProperties properties, StringRedisTemplate redisTemplate,
+                          RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry) {
+        this.properties = properties.getBlacklist();
+        this.redisTemplate = redisTemplate;
+        this.current = newFilter();
+        this.bloomMisses = checkCounter(meterRegistry, "bloom_miss");
+        this.revokedHits = checkCounter(meterRegistry, "revoked");
+        this.falsePositives = checkCounter(meterRegistry, "false_positive");
+        this.errors = checkCounter(meterRegistry, "error");
+        listenerContainer.addMessageListener(this::onRevoked,
+                new ChannelTopic(RedisKeyConstant.AUTH_REVOKED_CHANNEL));
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.blacklist.checks")
+                .description("Token 吊销检查次数（bloom_miss 表示未访问 Redis）")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        rebuild();
+        long intervalMillis = properties.getRebuildInterval().toMillis();
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-blacklist-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(this::rebuild, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * 吊销 Token，直到其原本的过期时间
+     */
+    public void revoke(AuthToken token) {
+        long ttlMillis = token.expiresAt() - System.currentTimeMillis();
+        if (ttlMillis <= 0) {
+            return;
+        }
+        // 先写 Redis 再广播：收到广播的实例如果立即查 Redis，一定能查到
+        redisTemplate.opsForValue().set(RedisKeyConstant.AUTH_REVOKED + token.tokenId(), "1",
+                Duration.ofMillis(ttlMillis));
+        add(token.tokenId());
+        try {
+            redisTemplate.convertAndSend(RedisKeyConstant.AUTH_REVOKED_CHANNEL, token.tokenId());
+        } catch (RuntimeException e) {
+            log.warn("Token 吊销广播失败，其他实例将在下次重建时同步: jti={}, error={}", token.tokenId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 是否已吊销：布隆过滤器未命中直接返回 false，命中时查 Redis 确认
+     */
+    public boolean isRevoked(String tokenId) {
+        if (!current.mightContain(tokenId)) {
+            bloomMisses.increment();
+            return false;
+        }
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(RedisKeyConstant.AUTH_REVOKED + tokenId))) {
+                revokedHits.increment();
+                return true;
+            }
+            falsePositives.increment();
+            return false;
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("查询 Token 吊销状态失败，按已吊销处理: jti={}, error={}", tokenId, e.getMessage());
+            return true;
+        }
+    }
+
+    private void onRevoked(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void add(String tokenId) {
+        // 先写重建中的过滤器：读到 null 说明重建未开始（SCAN 会扫到）或已结束（current 已是新过滤器）
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(tokenId);
+        }
+        current.put(tokenId);
+    }
+
+    /**
+     * 从 Redis 全量重建布隆过滤器，失败时保留旧的
+     */
+    private void rebuild() {
+        BloomFilter next = newFilter();
+        building = next;
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(RedisKeyConstant.AUTH_REVOKED + "*")
+                .count(1000)
+                .build();
+        int prefixLength = RedisKeyConstant.AUTH_REVOKED.length();
+        long count = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                next.put(cursor.next().substring(prefixLength));
+                count++;
+            }
+            current = next;
+            if (count > properties.getExpectedInsertions()) {
+                log.warn("吊销 Token 数超过布隆过滤器容量，误判率将升高: count={}, expected={}",
+                        count, properties.getExpectedInsertions());
+            }
+            log.debug("Token 吊销名单已重建: count={}", count);
+        } catch (RuntimeException e) {
+            log.warn("Token 吊销名单重建失败，继续使用旧的过滤器: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(properties.getExpectedInsertions(), properties.getFalsePositiveRate());
+    }
+}
@@ -0,0 +1,180 @@
+package com.uni.research.common.startup;
+
+import com.uni.research.common.config.FastStartProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热与就绪门控
+ *
+ * 对应 408 考点：操作系统 - 进程创建与装入（延迟装入）、线程池预创建
+ *
+ * 设计思路：
+ * 1. fast 配置开启 spring.main.lazy-initialization，主线程只创建过滤器、定时任务等必须立即存在的 Bean，
+ *    Tomcat 尽早监听端口，存活探针立刻通过
+ * 2. 应用就绪（ApplicationReadyEvent）后由一个后台线程依次预热：
+ *    Redis 订阅与共享连接、各数据源的连接池（取一次连接，Hikari 随后自行补齐 minimum-idle）、
+ *    各平台线程池的核心线程（含平台线程模式下的 aiTaskExecutor）
+ * 3. 本类同时是一个健康检查（startupWarmer），加入 readiness 分组：预热完成前返回 OUT_OF_SERVICE，
+ *    负载均衡不会把流量导到连接池还是空的实例上
+ * 4. 单步失败（如 Redis 暂不可达）只记录警告并写进健康详情，不阻塞就绪；依赖是否可用由各自的健康检查负责
+ *
+ * 面试话术：
+ * "扩容时每台新实例都要完整走一遍 Spring Boot 启动：Knife4j 扫描接口、建线程池、Hikari 建 5 个连接、Lettuce 建连。
+ * 我加了一个 fast 配置：Bean 全部延迟加载，接口文档关闭，Redis 订阅和连接池预热挪到后台线程，
+ * 预热完成前 readiness 探针返回 OUT_OF_SERVICE，所以不会有请求打到冷实例上；
+ * 另外在构建阶段做 Spring AOT 和 CDS 归档，启动时省掉反射解析配置类和类加载的时间。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "fast-start", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(FastStartProperties.class)
+public class StartupWarmer implements ApplicationListener<ApplicationReadyEvent>, HealthIndicator {
+
+    private final FastStartProperties properties;
+
+    private final ConfigurableApplicationContext context;
+
+    /**
+     * 每一步的结果（耗时或失败原因），预热线程写、健康检查读
+     */
+    private final Map<String, String> steps = new LinkedHashMap<>();
+
+    private volatile boolean started;
+
+    private volatile boolean finished;
+
+    private volatile long durationMillis;
+
+    public StartupWarmer(FastStartProperties properties, ConfigurableApplicationContext context) {
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        // 父子上下文会各收到一次事件，只预热一次
+        if (started || event.getApplicationContext() != context) {
+            return;
+        }
+        started = true;
+        Thread warmer = new Thread(this::warmUp, "startup-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = finished ? Health.up().withDetail("durationMs", durationMillis)
+                : Health.outOfService();
+        synchronized (steps) {
+            return builder.withDetails(steps).build();
+        }
+    }
+
+    private void warmUp() {
+        long start = System.nanoTime();
+        step("redisSubscription", this::startRedisSubscription);
+        step("redisConnection", this::pingRedis);
+        context.getBeansOfType(DataSource.class).forEach((name, dataSource) ->
+                step("dataSource." + name, () -> touch(dataSource)));
+        step("threadPools", this::prestartThreadPools);
+        if (properties.isPreInstantiateLazyBeans()) {
+            step("lazyBeans", this::instantiateLazyBeans);
+        }
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        finished = true;
+        log.info("启动预热完成: duration={}ms, steps={}", durationMillis, health().getDetails());
+    }
+
+    private void step(String name, Runnable action) {
+        long start = System.nanoTime();
+        String result;
+        try {
+            action.run();
+            result = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms";
+        } catch (RuntimeException e) {
+            result = "failed: " + e.getMessage();
+            log.warn("启动预热失败，跳过: step={}, error={}", name, e.getMessage());
+        }
+        synchronized (steps) {
+            steps.put(name, result);
+        }
+    }
+
+    /**
+     * fast 配置下监听容器没有随上下文启动（见 RedisConfig），在这里订阅
+     */
+    private void startRedisSubscription() {
+        for (RedisMessageListenerContainer container : context.getBeansOfType(RedisMessageListenerContainer.class).values()) {
+            if (!container.isRunning()) {
+                container.start();
+            }
+        }
+    }
+
+    private void pingRedis() {
+        for (RedisConnectionFactory factory : context.getBeansOfType(RedisConnectionFactory.class).values()) {
+            try (RedisConnection connection = factory.getConnection()) {
+                connection.ping();
+            }
+        }
+    }
+
+    private void touch(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 平台线程池的线程默认在提交任务时才创建；虚拟线程模式的 aiTaskExecutor 不是 ThreadPoolTaskExecutor，无需预热
+     */
+    private void prestartThreadPools() {
+        for (ThreadPoolTaskExecutor executor : context.getBeansOfType(ThreadPoolTaskExecutor.class).values()) {
+            executor.getThreadPoolExecutor().prestartAllCoreThreads();
+        }
+    }
+
+    private void instantiateLazyBeans() {
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        int created = 0;
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (definition.isSingleton() && !definition.isAbstract() && definition.isLazyInit()
+                    && !beanFactory.containsSingleton(name)) {
+                try {
+                    beanFactory.getBean(name);
+                    created++;
+                } catch (RuntimeException e) {
+                    log.warn("延迟加载的 Bean 预创建失败: bean={}, error={}", name, e.getMessage());
+                }
+            }
+        }
+        log.debug("延迟加载的 Bean 已预创建: count={}", created);
+    }
+}
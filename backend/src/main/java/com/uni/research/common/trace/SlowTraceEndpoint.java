@@ -0,0 +1,31 @@
+package com.uni.research.common.trace;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 慢链路管理端点：GET /api/actuator/slowtraces
+ *
+ * 与 prometheus 端点一样通过 management.endpoints.web.exposure.include 控制是否暴露
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+@Endpoint(id = "slowtraces")
+public class SlowTraceEndpoint {
+
+    private final TraceRecorder recorder;
+
+    public SlowTraceEndpoint(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public List<TraceView> slowTraces() {
+        return recorder.slowest();
+    }
+}
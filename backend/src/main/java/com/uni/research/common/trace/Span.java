@@ -0,0 +1,152 @@
+package com.uni.research.common.trace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 链路中的一段耗时
+ *
+ * 设计思路：
+ * 1. 在哪个线程开始就在哪个线程结束：开始时成为该线程的当前 Span，close() 时恢复上一个，
+ *    配合 try-with-resources 使用，嵌套关系就是调用关系
+ * 2. 没有进行中的链路时 TraceContext.start() 返回 NOOP，所有方法都是空操作，埋点不需要判空
+ * 3. 标签只在结束前由持有线程写入，链路结束后才会被读取，不需要同步
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class Span implements AutoCloseable {
+
+    /**
+     * 空 Span：未采样或没有进行中的链路
+     */
+    public static final Span NOOP = new Span();
+
+    private final Trace trace;
+
+    private final Span parent;
+
+    private final int index;
+
+    private final long startNanos;
+
+    private String name;
+
+    private long endNanos;
+
+    private Span previous;
+
+    private List<String> tags;
+
+    private Span() {
+        this.trace = null;
+        this.parent = null;
+        this.index = -1;
+        this.startNanos = 0;
+    }
+
+    Span(Trace trace, Span parent, String name, long startNanos) {
+        this.trace = trace;
+        this.parent = parent;
+        this.name = name;
+        this.startNanos = startNanos;
+        this.index = trace.register(this);
+    }
+
+    /**
+     * 开始一个子 Span 并设为当前线程的当前 Span；链路已结束时返回 NOOP
+     */
+    public Span startChild(String childName) {
+        if (this == NOOP || !trace.retain()) {
+            return NOOP;
+        }
+        return new Span(trace, this, childName, System.nanoTime()).activate();
+    }
+
+    /**
+     * 记录一个已经结束的子 Span（如排队等待、首 Token 延迟这类只知道起止时间的阶段）
+     */
+    public void record(String childName, long childStartNanos, long childEndNanos) {
+        if (this == NOOP || !trace.retain()) {
+            return;
+        }
+        Span child = new Span(trace, this, childName, childStartNanos);
+        child.endNanos = Math.max(childEndNanos, childStartNanos + 1);
+        trace.onSpanEnd(child);
+    }
+
+    public Span tag(String key, Object value) {
+        if (this != NOOP && value != null) {
+            if (tags == null) {
+                tags = new ArrayList<>(4);
+            }
+            tags.add(key);
+            tags.add(trace.truncate(String.valueOf(value)));
+        }
+        return this;
+    }
+
+    public Span error(Throwable error) {
+        return tag("error", error.getClass().getSimpleName());
+    }
+
+    /**
+     * 修改名称（入口处在请求结束后才知道匹配到的路由），只能在结束前由持有线程调用
+     */
+    public void rename(String newName) {
+        if (this != NOOP) {
+            this.name = newName;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (this == NOOP || endNanos != 0) {
+            return;
+        }
+        endNanos = System.nanoTime();
+        TraceContext.restore(this, previous);
+        trace.onSpanEnd(this);
+    }
+
+    Span activate() {
+        previous = TraceContext.swap(this);
+        return this;
+    }
+
+    public boolean isNoop() {
+        return this == NOOP;
+    }
+
+    public Trace trace() {
+        return trace;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    Span parent() {
+        return parent;
+    }
+
+    int index() {
+        return index;
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    long endNanos() {
+        return endNanos;
+    }
+
+    long durationNanos() {
+        return endNanos - startNanos;
+    }
+
+    List<String> tags() {
+        return tags == null ? List.of() : tags;
+    }
+}
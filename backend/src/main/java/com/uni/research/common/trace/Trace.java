@@ -0,0 +1,118 @@
+package com.uni.research.common.trace;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一次请求的完整链路
+ *
+ * 对应 408 考点：操作系统 - 引用计数
+ *
+ * 设计思路：
+ * 1. open 计数 = 未结束的 Span 数 + 已移交但尚未在其他线程开始的任务数；
+ *    归零时链路结束。SSE 请求的 Controller 早已返回，但 AI 任务还持有计数，
+ *    所以链路耗时覆盖到最后一个 Token 推送完
+ * 2. 计数归零后不能再"复活"：retain() 用 CAS 拒绝从 0 增加，迟到的 Span（如被取消的对冲请求）直接丢弃
+ * 3. Span 按开始顺序存入定长数组，超出上限的只计入指标、不保存
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class Trace {
+
+    private final String id;
+
+    private final long startEpochMillis;
+
+    private final TraceRecorder recorder;
+
+    private final Span[] spans;
+
+    private final AtomicInteger spanCount = new AtomicInteger();
+
+    /**
+     * 根 Span 创建时计数为 1
+     */
+    private final AtomicInteger open = new AtomicInteger(1);
+
+    private Span root;
+
+    private volatile long durationNanos;
+
+    Trace(String id, TraceRecorder recorder, int maxSpans) {
+        this.id = id;
+        this.startEpochMillis = System.currentTimeMillis();
+        this.recorder = recorder;
+        this.spans = new Span[maxSpans];
+    }
+
+    Span start(String name) {
+        root = new Span(this, null, name, System.nanoTime()).activate();
+        return root;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    boolean retain() {
+        while (true) {
+            int current = open.get();
+            if (current == 0) {
+                return false;
+            }
+            if (open.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (open.decrementAndGet() == 0) {
+            long end = root.startNanos();
+            int stored = Math.min(spanCount.get(), spans.length);
+            for (int i = 0; i < stored; i++) {
+                end = Math.max(end, spans[i].endNanos());
+            }
+            durationNanos = end - root.startNanos();
+            recorder.onTraceEnd(this);
+        }
+    }
+
+    int register(Span span) {
+        int index = spanCount.getAndIncrement();
+        if (index < spans.length) {
+            spans[index] = span;
+            return index;
+        }
+        return -1;
+    }
+
+    void onSpanEnd(Span span) {
+        recorder.onSpanEnd(span);
+        release();
+    }
+
+    String truncate(String value) {
+        return recorder.truncate(value);
+    }
+
+    Span root() {
+        return root;
+    }
+
+    Span[] spans() {
+        return spans;
+    }
+
+    int storedSpans() {
+        return Math.min(spanCount.get(), spans.length);
+    }
+
+    long startEpochMillis() {
+        return startEpochMillis;
+    }
+
+    long durationNanos() {
+        return durationNanos;
+    }
+}
@@ -0,0 +1,142 @@
+package com.uni.research.common.trace;
+
+/**
+ * 当前线程的链路上下文
+ *
+ * 对应 408 考点：操作系统 - 线程私有存储（TLS）
+ *
+ * 设计思路：
+ * 1. 与 UserContext 一样用 ThreadLocal 保存当前 Span，埋点处不需要层层传参
+ * 2. 跨线程时先在提交线程 capture() 得到 Handoff（持有链路计数，保证任务开始前链路不会提前结束），
+ *    再在执行线程 open() 出子 Span；AiTaskDecorator 对 aiTaskExecutor 的所有任务自动完成这一步，
+ *    CompletableFuture 的 *Async(…, aiTaskExecutor) 回调同样经过它
+ * 3. 不经过 aiTaskExecutor 的异步回调用 wrap() 包装
+ * 4. 没有链路时所有方法退化为一次 ThreadLocal 读取
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class TraceContext {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private TraceContext() {
+    }
+
+    /**
+     * 当前 Span，没有进行中的链路时返回 Span.NOOP
+     */
+    public static Span current() {
+        Span span = CURRENT.get();
+        return span == null ? Span.NOOP : span;
+    }
+
+    /**
+     * 在当前 Span 下开始一个子 Span，用 try-with-resources 结束
+     */
+    public static Span start(String name) {
+        Span parent = CURRENT.get();
+        return parent == null ? Span.NOOP : parent.startChild(name);
+    }
+
+    /**
+     * 捕获当前链路，交给其他线程继续
+     */
+    public static Handoff capture() {
+        Span parent = CURRENT.get();
+        if (parent == null || !parent.trace().retain()) {
+            return Handoff.NONE;
+        }
+        return new Handoff(parent);
+    }
+
+    /**
+     * 包装回调：执行时以 name 为子 Span 继续当前链路
+     */
+    @SuppressWarnings("try")
+    public static Runnable wrap(String name, Runnable task) {
+        Handoff handoff = capture();
+        if (handoff == Handoff.NONE) {
+            return task;
+        }
+        return () -> {
+            try (Span ignored = handoff.open(name)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * 请求结束时调用，防止线程复用时串链路
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    static Span swap(Span span) {
+        Span previous = CURRENT.get();
+        CURRENT.set(span);
+        return previous;
+    }
+
+    /**
+     * span 结束时恢复上一个 Span（只有 span 仍是当前 Span 时才恢复，跨线程结束的不影响当前线程）
+     */
+    static void restore(Span span, Span previous) {
+        if (CURRENT.get() == span) {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 跨线程移交的链路句柄：open() 和 discard() 二选一，且只能调用一次
+     */
+    public static final class Handoff {
+
+        public static final Handoff NONE = new Handoff(null);
+
+        private final Span parent;
+
+        private final long capturedNanos = System.nanoTime();
+
+        private boolean consumed;
+
+        private Handoff(Span parent) {
+            this.parent = parent;
+        }
+
+        /**
+         * 在当前线程开始子 Span，沿用 capture() 时持有的计数
+         */
+        public Span open(String name) {
+            if (parent == null || consumed) {
+                return Span.NOOP;
+            }
+            consumed = true;
+            return new Span(parent.trace(), parent, name, System.nanoTime()).activate();
+        }
+
+        /**
+         * 记录从 capture() 到现在的等待时间（如线程池排队），需在 open() 之前调用
+         */
+        public void recordWait(String name) {
+            if (parent != null && !consumed) {
+                parent.record(name, capturedNanos, System.nanoTime());
+            }
+        }
+
+        /**
+         * 任务被拒绝、不会执行时释放计数
+         */
+        public void discard() {
+            if (parent != null && !consumed) {
+                consumed = true;
+                parent.trace().release();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.uni.research.common.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * 链路入口：每个 HTTP 请求开始一条链路，响应头返回 X-Trace-Id
+ *
+ * 设计思路：
+ * 1. 排在认证过滤器之前，认证耗时也计入链路
+ * 2. 根 Span 在请求结束后按"方法 + 路由模板"命名（/doc/{id}/progress 而不是具体 ID），控制指标序列数量
+ * 3. SSE 请求的 Controller 返回后根 Span 即结束，链路由 AI 任务继续持有，直到流结束
+ * 4. Actuator 请求（Prometheus 抓取）不追踪
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TraceFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private static final String ACTUATOR_PATH = "/actuator";
+
+    private final TraceRecorder recorder;
+
+    public TraceFilter(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getServletPath().startsWith(ACTUATOR_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Span root = recorder.begin(request.getMethod());
+        if (root.isNoop()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        response.setHeader(TRACE_ID_HEADER, root.trace().id());
+        try {
+            chain.doFilter(request, response);
+        } catch (ServletException | IOException | RuntimeException e) {
+            root.error(e);
+            throw e;
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            root.rename(request.getMethod() + " " + (pattern == null ? "UNMATCHED" : pattern));
+            root.tag("status", response.getStatus());
+            root.close();
+            TraceContext.clear();
+        }
+    }
+}
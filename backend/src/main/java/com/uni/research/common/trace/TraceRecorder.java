@@ -0,0 +1,187 @@
+package com.uni.research.common.trace;
+
+import com.uni.research.common.config.TraceProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 链路记录器：分段耗时直方图 + 最近最慢链路
+ *
+ * 对应 408 考点：数据结构 - 堆（Top-K）、直方图
+ *
+ * 设计思路：
+ * 1. 每个 Span 结束时按名称记录到 trace.span.latency 直方图（Prometheus 可按阶段算 p99），
+ *    Timer 按名称缓存，记录一次只是一次哈希查找 + 原子加
+ * 2. 链路结束时放入当前窗口的小顶堆，只保留最慢的 N 条；比堆顶还快的链路读一次 volatile 门槛就返回，不加锁
+ * 3. 两个窗口轮换（懒轮换，不需要定时线程），展示最近两个窗口内最慢的链路
+ * 4. 不依赖外部采集器，慢链路通过 /actuator/slowtraces 查看
+ *
+ * 面试话术：
+ * "对话接口慢的时候，只看 Controller 耗时分不清是查上下文、Redis、向量检索还是大模型生成慢。
+ * 我写了一个很轻的链路追踪：ThreadLocal 保存当前 Span，线程池装饰器负责跨线程传递，
+ * OkHttp 拦截器和 JDBC 代理自动打点，每个阶段出一个直方图，
+ * 另外用小顶堆保留最近最慢的 20 条完整链路，出问题直接看是哪一段慢。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+@EnableConfigurationProperties(TraceProperties.class)
+public class TraceRecorder {
+
+    private static final String METRIC_NAME = "trace.span.latency";
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private static final Comparator<Trace> BY_DURATION = Comparator.comparingLong(Trace::durationNanos);
+
+    private final TraceProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final long windowNanos;
+
+    private PriorityQueue<Trace> currentWindow = new PriorityQueue<>(BY_DURATION);
+
+    private PriorityQueue<Trace> previousWindow = new PriorityQueue<>(BY_DURATION);
+
+    private volatile long windowEnd;
+
+    /**
+     * 当前窗口已满时的堆顶耗时，更快的链路不用加锁
+     */
+    private volatile long admission;
+
+    public TraceRecorder(TraceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.windowNanos = properties.getSlowTraceWindow().toNanos();
+        this.windowEnd = System.nanoTime() + windowNanos;
+    }
+
+    /**
+     * 开始一条新链路并把根 Span 设为当前 Span；未开启或未被采样时返回 Span.NOOP
+     */
+    public Span begin(String name) {
+        if (!properties.isEnabled()) {
+            return Span.NOOP;
+        }
+        double rate = properties.getSampleRate();
+        if (rate < 1.0 && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return Span.NOOP;
+        }
+        String id = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        return new Trace(id, this, properties.getMaxSpans()).start(name);
+    }
+
+    /**
+     * 最近两个窗口内最慢的链路，从慢到快
+     */
+    public List<TraceView> slowest() {
+        List<Trace> traces;
+        synchronized (this) {
+            rotateIfExpired(System.nanoTime());
+            traces = new ArrayList<>(currentWindow.size() + previousWindow.size());
+            traces.addAll(currentWindow);
+            traces.addAll(previousWindow);
+        }
+        traces.sort(BY_DURATION.reversed());
+        List<TraceView> views = new ArrayList<>(Math.min(traces.size(), properties.getSlowestTraces()));
+        for (Trace trace : traces) {
+            if (views.size() == properties.getSlowestTraces()) {
+                break;
+            }
+            views.add(toView(trace));
+        }
+        return views;
+    }
+
+    void onSpanEnd(Span span) {
+        timer(span.name()).record(span.durationNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    void onTraceEnd(Trace trace) {
+        long duration = trace.durationNanos();
+        long now = System.nanoTime();
+        if (duration <= admission && now - windowEnd < 0) {
+            return;
+        }
+        synchronized (this) {
+            rotateIfExpired(now);
+            if (currentWindow.size() < properties.getSlowestTraces()) {
+                currentWindow.add(trace);
+            } else if (duration > currentWindow.peek().durationNanos()) {
+                currentWindow.poll();
+                currentWindow.add(trace);
+            }
+            admission = currentWindow.size() < properties.getSlowestTraces()
+                    ? 0 : currentWindow.peek().durationNanos();
+        }
+    }
+
+    String truncate(String value) {
+        int max = properties.getMaxTagLength();
+        return value.length() <= max ? value : value.substring(0, max) + "...";
+    }
+
+    private void rotateIfExpired(long now) {
+        if (now - windowEnd < 0) {
+            return;
+        }
+        // 超过两个窗口没有新链路时，上一个窗口也已过期
+        previousWindow = now - windowEnd < windowNanos ? currentWindow : new PriorityQueue<>(BY_DURATION);
+        currentWindow = new PriorityQueue<>(BY_DURATION);
+        windowEnd = now + windowNanos;
+        admission = 0;
+    }
+
+    private Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(name, key -> Timer.builder(METRIC_NAME)
+                    .description("链路各阶段耗时")
+                    .tag("span", key)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(100_000))
+                    .maximumExpectedValue(Duration.ofMinutes(2))
+                    .register(meterRegistry));
+        }
+        return timer;
+    }
+
+    private static TraceView toView(Trace trace) {
+        Span root = trace.root();
+        Span[] spans = trace.spans();
+        int stored = trace.storedSpans();
+        List<TraceView.SpanView> views = new ArrayList<>(stored);
+        for (int i = 0; i < stored; i++) {
+            Span span = spans[i];
+            Map<String, String> tags = new LinkedHashMap<>();
+            List<String> pairs = span.tags();
+            for (int j = 0; j + 1 < pairs.size(); j += 2) {
+                tags.put(pairs.get(j), pairs.get(j + 1));
+            }
+            Span parent = span.parent();
+            views.add(new TraceView.SpanView(i, parent == null ? null : parent.index(), span.name(),
+                    (span.startNanos() - root.startNanos()) / NANOS_PER_MILLI,
+                    span.durationNanos() / NANOS_PER_MILLI, tags));
+        }
+        return new TraceView(trace.id(), root.name(), trace.startEpochMillis(),
+                trace.durationNanos() / NANOS_PER_MILLI, views);
+    }
+}
@@ -0,0 +1,27 @@
+package com.uni.research.common.trace;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 慢链路展示结构
+ *
+ * @param traceId    链路 ID（与响应头 X-Trace-Id 一致）
+ * @param name       入口（请求方法 + 路由）
+ * @param startTime  开始时间（毫秒时间戳）
+ * @param durationMs 总耗时，覆盖到最后一个异步任务结束
+ * @param spans      各段耗时，按开始顺序
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record TraceView(String traceId, String name, long startTime, double durationMs, List<SpanView> spans) {
+
+    /**
+     * @param id       Span 序号
+     * @param parentId 父 Span 序号，根为 null
+     * @param offsetMs 相对链路开始的偏移
+     */
+    public record SpanView(int id, Integer parentId, String name, double offsetMs, double durationMs,
+                           Map<String, String> tags) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.uni.research.common.trace;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JDBC 链路打点：每次执行 SQL 一个 Span，标签为 SQL 模板（只有占位符，不含参数值）
+ *
+ * 设计思路：
+ * 1. 包装连接池数据源，MyBatis（MySQL）和 JdbcTemplate（pgvector）都经过这里，不用逐个 Mapper 埋点
+ * 2. 取连接时没有进行中的链路就直接返回原始连接，不创建代理：后台任务（文档处理、刷盘）零开销
+ * 3. 只拦截 execute* 方法，其余方法原样转发
+ * 4. 实现 Closeable：Spring 按包装后的对象推断销毁方法，不实现的话关闭应用时连接池不会被关闭
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class TracingDataSource extends DelegatingDataSource implements Closeable {
+
+    private final String spanName;
+
+    public TracingDataSource(DataSource target, String spanName) {
+        super(target);
+        this.spanName = spanName;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trace(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trace(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (obtainTargetDataSource() instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection trace(Connection connection) {
+        if (TraceContext.current().isNoop()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        private ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = TracingDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                String sql = method.getName().startsWith("prepare") && args != null && args[0] instanceof String s
+                        ? s : null;
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+                return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                        new StatementHandler(statement, sql));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+
+        private final String sql;
+
+        private StatementHandler(Statement target, String sql) {
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return TracingDataSource.invoke(target, method, args);
+            }
+            try (Span span = TraceContext.start(spanName)) {
+                span.tag("sql", sql != null ? sql : args != null && args.length > 0 ? args[0] : null);
+                try {
+                    return TracingDataSource.invoke(target, method, args);
+                } catch (Throwable e) {
+                    span.error(e);
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.uni.research.module.chat.controller;
+
+import com.uni.research.common.annotation.ApiLog;
+import com.uni.research.common.annotation.RateLimit;
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.chat.dto.ChatRequest;
+import com.uni.research.module.chat.dto.ChatSessionRequest;
+import com.uni.research.module.chat.dto.ChatSessionVO;
+import com.uni.research.module.chat.service.ChatService;
+import com.uni.research.module.chat.service.ChatSessionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 对话控制器
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Tag(name = "AI 对话", description = "会话管理、对话消息发送与流式响应")
+@RestController
+@RequestMapping("/chat")
+@RequiredArgsConstructor
+public class ChatController {
+
+    private final ChatService chatService;
+
+    private final ChatSessionService chatSessionService;
+
+    @Operation(summary = "会话列表", description = "按创建时间从新到旧的游标分页，下一页传上一页返回的 nextCursor")
+    @GetMapping("/sessions")
+    public Result<CursorPage<ChatSessionVO>> sessions(@RequestParam(required = false) Long cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        return Result.success(chatSessionService.list(currentUserId(), cursor, size));
+    }
+
+    @Operation(summary = "创建会话")
+    @PostMapping("/sessions")
+    public Result<ChatSessionVO> createSession(@Valid @RequestBody ChatSessionRequest request) {
+        return Result.success(chatSessionService.create(currentUserId(), request.getTitle()));
+    }
+
+    @Operation(summary = "重命名会话")
+    @PutMapping("/sessions/{id}")
+    public Result<ChatSessionVO> renameSession(@PathVariable Long id, @Valid @RequestBody ChatSessionRequest request) {
+        return Result.success(chatSessionService.rename(currentUserId(), id, request.getTitle()));
+    }
+
+    /**
+     * 发送消息（SSE 流式返回）
+     */
+    @Operation(summary = "发送消息", description = "AI 回答通过 SSE 逐 Token 推送，出错时推送 error 事件")
+    @ApiLog(result = false)
+    @RateLimit(name = "chat-send", permits = 20, periodSeconds = 60, capacity = 10,
+            message = "提问过于频繁，请稍后再试")
+    @PostMapping(value = "/send", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter send(@Valid @RequestBody ChatRequest request) {
+        return chatService.send(currentUserId(), request);
+    }
+
+    private static Long currentUserId() {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,34 @@
+package com.uni.research.module.chat.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 发送消息请求
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+public class ChatRequest {
+
+    /**
+     * 会话 ID
+     */
+    @NotNull(message = "会话 ID 不能为空")
+    private Long sessionId;
+
+    /**
+     * 用户消息
+     */
+    @NotBlank(message = "消息内容不能为空")
+    private String message;
+
+    /**
+     * 参与检索的文档 ID（为空表示不做 RAG 检索）
+     */
+    private List<Long> docIds;
+}
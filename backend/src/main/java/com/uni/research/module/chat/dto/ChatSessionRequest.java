@@ -0,0 +1,22 @@
+package com.uni.research.module.chat.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 创建 / 重命名会话请求
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+public class ChatSessionRequest {
+
+    /**
+     * 会话标题
+     */
+    @NotBlank(message = "会话标题不能为空")
+    @Size(max = 255, message = "会话标题不能超过 255 个字符")
+    private String title;
+}
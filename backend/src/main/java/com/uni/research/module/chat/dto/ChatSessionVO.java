@@ -0,0 +1,23 @@
+package com.uni.research.module.chat.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话列表项
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+public class ChatSessionVO {
+
+    private Long id;
+
+    private String title;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
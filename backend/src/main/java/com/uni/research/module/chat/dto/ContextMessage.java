@@ -0,0 +1,26 @@
+package com.uni.research.module.chat.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 上下文窗口中的一条消息（Redis List 元素，也是发给 AI 服务的 history 项）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContextMessage {
+
+    private String role;
+
+    private String content;
+
+    /**
+     * 近似 token 数
+     */
+    private int tokens;
+}
@@ -0,0 +1,16 @@
+package com.uni.research.module.chat.dto;
+
+import java.util.List;
+
+/**
+ * 会话上下文窗口快照（不可变）
+ *
+ * @param messages  按时间顺序的消息，token 总数不超过预算（最后一条单独超预算时除外）
+ * @param tokens    窗口内 token 总数
+ * @param version   窗口版本号，每追加一条消息加 1，用于校验本地缓存
+ * @param truncated 是否有更早的消息因超出预算被移出窗口
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record ContextWindow(List<ContextMessage> messages, int tokens, long version, boolean truncated) {
+}
@@ -0,0 +1,42 @@
+package com.uni.research.module.chat.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对话消息实体（chat_message）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@TableName("chat_message")
+public class ChatMessage {
+
+    public static final String ROLE_USER = "user";
+
+    public static final String ROLE_ASSISTANT = "assistant";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long sessionId;
+
+    /**
+     * 角色：user / assistant
+     */
+    private String role;
+
+    private String content;
+
+    /**
+     * 近似 token 数，写入时计算一次，回填上下文时不再重新分词
+     */
+    private Integer tokenCount;
+
+    private LocalDateTime createTime;
+}
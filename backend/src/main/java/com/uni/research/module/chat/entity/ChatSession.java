@@ -0,0 +1,30 @@
+package com.uni.research.module.chat.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对话会话实体（chat_session）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@TableName("chat_session")
+public class ChatSession {
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId;
+
+    private String title;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
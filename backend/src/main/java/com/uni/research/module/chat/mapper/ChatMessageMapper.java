@@ -0,0 +1,25 @@
+package com.uni.research.module.chat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.module.chat.entity.ChatMessage;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 对话消息 Mapper
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
+
+    /**
+     * 从新到旧读取会话中 id 小于 beforeId 的消息（键集分页，走 idx_session_id，不随会话长度变慢）
+     */
+    @Select("SELECT id, session_id, role, content, token_count, create_time FROM chat_message"
+            + " WHERE session_id = #{sessionId} AND id < #{beforeId} ORDER BY id DESC LIMIT #{limit}")
+    List<ChatMessage> selectBefore(@Param("sessionId") Long sessionId, @Param("beforeId") long beforeId,
+                                   @Param("limit") int limit);
+}
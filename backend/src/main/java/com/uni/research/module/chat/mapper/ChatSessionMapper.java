@@ -0,0 +1,32 @@
+package com.uni.research.module.chat.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.module.chat.entity.ChatSession;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 对话会话 Mapper
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ChatSessionMapper extends BaseMapper<ChatSession> {
+
+    /**
+     * 从新到旧读取用户 id 小于 beforeId 的会话（键集分页，走 idx_user_id）
+     */
+    @Select("SELECT id, user_id, title, create_time, update_time FROM chat_session"
+            + " WHERE user_id = #{userId} AND id < #{beforeId} ORDER BY id DESC LIMIT #{limit}")
+    List<ChatSession> selectBefore(@Param("userId") Long userId, @Param("beforeId") long beforeId,
+                                   @Param("limit") int limit);
+
+    /**
+     * 修改标题，带上 user_id 条件防止改到别人的会话，返回影响行数
+     */
+    @Update("UPDATE chat_session SET title = #{title} WHERE id = #{id} AND user_id = #{userId}")
+    int updateTitle(@Param("id") Long id, @Param("userId") Long userId, @Param("title") String title);
+}
@@ -0,0 +1,23 @@
+package com.uni.research.module.chat.service;
+
+import com.uni.research.module.chat.entity.ChatMessage;
+
+/**
+ * chat_message 写入器：消息先进入内存队列，按条数或时间攒批写入 MySQL
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ChatMessageWriter {
+
+    /**
+     * 提交一条消息；队列已满时在调用线程同步刷盘，写入失败时抛出异常
+     */
+    void write(ChatMessage message);
+
+    /**
+     * 立即把已提交的消息全部写入 MySQL（从数据库回填上下文之前调用，保证读到自己刚写的消息）；
+     * 写入失败时抛出异常，未写入的消息保留重试
+     */
+    void flush();
+}
@@ -0,0 +1,20 @@
+package com.uni.research.module.chat.service;
+
+import com.uni.research.module.chat.dto.ChatRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 对话服务
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ChatService {
+
+    /**
+     * 发送消息，AI 回答通过 SSE 逐 Token 推送
+     *
+     * @param userId 当前用户，会话不属于该用户时抛出 SESSION_NOT_FOUND
+     */
+    SseEmitter send(Long userId, ChatRequest request);
+}
@@ -0,0 +1,29 @@
+package com.uni.research.module.chat.service;
+
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.module.chat.dto.ChatSessionVO;
+
+/**
+ * 对话会话管理（列表与详情带缓存，写操作后失效）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ChatSessionService {
+
+    /**
+     * 游标分页查询用户的会话，按创建时间从新到旧
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页传 null
+     */
+    CursorPage<ChatSessionVO> list(Long userId, Long cursor, int size);
+
+    /**
+     * 读取用户的会话，不存在或不属于该用户时抛出 SESSION_NOT_FOUND
+     */
+    ChatSessionVO get(Long userId, Long sessionId);
+
+    ChatSessionVO create(Long userId, String title);
+
+    ChatSessionVO rename(Long userId, Long sessionId, String title);
+}
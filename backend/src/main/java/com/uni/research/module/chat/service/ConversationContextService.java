@@ -0,0 +1,24 @@
+package com.uni.research.module.chat.service;
+
+import com.uni.research.module.chat.dto.ContextWindow;
+
+/**
+ * 对话上下文存储：每个会话在 Redis 维护一个按 token 预算滚动的窗口，本地缓存快照
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface ConversationContextService {
+
+    /**
+     * 当前窗口（组装 prompt 用），耗时与会话长度无关
+     */
+    ContextWindow window(Long sessionId);
+
+    /**
+     * 追加一条消息：进入窗口并按预算淘汰最早的消息，同时持久化到 chat_message
+     *
+     * @return 追加后的窗口
+     */
+    ContextWindow append(Long sessionId, String role, String content);
+}
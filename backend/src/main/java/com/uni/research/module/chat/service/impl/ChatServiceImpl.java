@@ -0,0 +1,254 @@
+package com.uni.research.module.chat.service.impl;
+
+import com.uni.research.common.client.AiRequestCoalescer;
+import com.uni.research.common.client.GenerationMetrics;
+import com.uni.research.common.client.SseStreamRelay;
+import com.uni.research.common.config.AiServiceProperties;
+import com.uni.research.common.config.ChatContextProperties;
+import com.uni.research.common.trace.Span;
+import com.uni.research.common.trace.TraceContext;
+import com.uni.research.module.chat.dto.ChatRequest;
+import com.uni.research.module.chat.dto.ContextMessage;
+import com.uni.research.module.chat.dto.ContextWindow;
+import com.uni.research.module.chat.entity.ChatMessage;
+import com.uni.research.module.chat.service.ChatService;
+import com.uni.research.module.chat.service.ChatSessionService;
+import com.uni.research.module.chat.service.ConversationContextService;
+import com.uni.research.module.doc.service.DocumentService;
+import com.uni.research.module.rag.dto.CachedAnswer;
+import com.uni.research.module.rag.dto.RetrievedChunk;
+import com.uni.research.module.rag.service.AnswerCacheService;
+import com.uni.research.module.rag.service.RetrievalService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 对话服务实现
+ *
+ * 流程：Controller 立即返回 SseEmitter（释放 Tomcat 线程）→ retrievalExecutor 中混合检索（向量 + BM25，RRF 融合）→
+ * 检索完成后才向 aiTaskExecutor 提交任务，检索到的文本块作为 contexts 随请求调用 Python /chat →
+ * SseStreamRelay 逐事件转发给浏览器；检索失败或检索线程池已满时不带 contexts，由 AI 服务按 doc_ids 自行检索
+ *
+ * 带文档的首轮 RAG 问答（没有对话历史）先查回答缓存，命中则直接推送缓存的回答，不再调用 AI 服务；
+ * 未命中时按问题 + 历史 + 文档合并在途请求，输入完全相同时只有一个上游流，回答广播给所有提问者，
+ * 历史不同的追问不会拿到别人的回答
+ *
+ * 读写上下文前先校验会话和文档的归属（均走元数据缓存），不能借他人的会话 ID 读写历史，也不能检索他人的文档
+ *
+ * 用户消息先进入会话上下文窗口，窗口内更早的消息作为 history 发给 AI 服务；回答完整结束后再追加到窗口
+ *
+ * 链路分段：chat.context（上下文窗口，Redis / MySQL）→ rag.answer-cache →
+ * rag.retrieve（rag.keyword / rag.embed / rag.vector）→ ai.task → llm.stream（含首 Token 延迟）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+public class ChatServiceImpl implements ChatService {
+
+    private final AiRequestCoalescer coalescer;
+
+    private final AiServiceProperties aiServiceProperties;
+
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    private final AsyncTaskExecutor retrievalExecutor;
+
+    private final AnswerCacheService answerCacheService;
+
+    private final RetrievalService retrievalService;
+
+    private final ConversationContextService contextService;
+
+    private final ChatSessionService chatSessionService;
+
+    private final DocumentService documentService;
+
+    private final ChatContextProperties contextProperties;
+
+    private final GenerationMetrics generationMetrics;
+
+    public ChatServiceImpl(AiRequestCoalescer coalescer, AiServiceProperties aiServiceProperties,
+                           @Qualifier("aiTaskExecutor") AsyncTaskExecutor aiTaskExecutor,
+                           @Qualifier("retrievalExecutor") AsyncTaskExecutor retrievalExecutor,
+                           AnswerCacheService answerCacheService, RetrievalService retrievalService,
+                           ConversationContextService contextService,
+                           ChatSessionService chatSessionService, DocumentService documentService,
+                           ChatContextProperties contextProperties, GenerationMetrics generationMetrics) {
+        this.coalescer = coalescer;
+        this.aiServiceProperties = aiServiceProperties;
+        this.aiTaskExecutor = aiTaskExecutor;
+        this.retrievalExecutor = retrievalExecutor;
+        this.answerCacheService = answerCacheService;
+        this.retrievalService = retrievalService;
+        this.contextService = contextService;
+        this.chatSessionService = chatSessionService;
+        this.documentService = documentService;
+        this.contextProperties = contextProperties;
+        this.generationMetrics = generationMetrics;
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    public SseEmitter send(Long userId, ChatRequest request) {
+        Long sessionId = request.getSessionId();
+        List<Long> docIds = request.getDocIds() == null ? List.of() : request.getDocIds();
+        ContextWindow window;
+        try (Span ignored = TraceContext.start("chat.context")) {
+            chatSessionService.get(userId, sessionId);
+            documentService.checkOwner(userId, docIds);
+            window = contextService.append(sessionId, ChatMessage.ROLE_USER, request.getMessage());
+        }
+        SseEmitter emitter = new SseEmitter(aiServiceProperties.getStreamTimeout());
+
+        List<Map<String, String>> history = history(window);
+        // 回答缓存不区分上下文，只用于首轮提问
+        Optional<String> cacheKey = history.isEmpty()
+                ? answerCacheService.key(request.getMessage(), docIds) : Optional.empty();
+        if (cacheKey.isPresent()) {
+            Optional<CachedAnswer> cached;
+            try (Span span = TraceContext.start("rag.answer-cache")) {
+                cached = answerCacheService.get(cacheKey.get());
+                span.tag("hit", cached.isPresent());
+            }
+            if (cached.isPresent()) {
+                replay(emitter, cached.get());
+                contextService.append(sessionId, ChatMessage.ROLE_ASSISTANT, cached.get().getAnswer());
+                log.debug("命中回答缓存: sessionId={}", sessionId);
+                return emitter;
+            }
+        }
+
+        String message = request.getMessage();
+        // 决定回答的输入：问题、历史、文档完全相同的请求才共享上游流（contexts 由这些输入检索得到）
+        Map<String, Object> inputs = new LinkedHashMap<>();
+        inputs.put("message", message);
+        inputs.put("history", history);
+        inputs.put("doc_ids", docIds);
+        String shareKey = coalescer.key(inputs);
+        Supplier<CompletableFuture<Map<String, Object>>> payload = () -> contexts(userId, docIds, message)
+                .thenApply(contexts -> {
+                    Map<String, Object> body = new LinkedHashMap<>();
+                    body.put("session_id", sessionId);
+                    body.putAll(inputs);
+                    contexts.ifPresent(value -> body.put("contexts", value));
+                    body.put("stream", true);
+                    return body;
+                });
+
+        // 生成指标和缓存录制每次上游调用一份；回答写入会话上下文则每个提问者各一份
+        SseStreamRelay.StreamListener shared = generationMetrics.listener()
+                .andThen(cacheKey.map(answerCacheService::recorder).orElse(SseStreamRelay.StreamListener.NONE));
+        coalescer.stream("/chat", payload, shareKey, emitter, aiTaskExecutor,
+                shared, new ReplyRecorder(sessionId));
+
+        log.debug("对话请求已提交: sessionId={}, historyTokens={}", sessionId, window.tokens());
+        return emitter;
+    }
+
+    /**
+     * 混合检索：在 retrievalExecutor 中执行，完成后才提交上游流式任务。
+     * 检索要等待问题向量化，而向量化批次在 aiTaskExecutor 中执行，检索不能占用 aiTaskExecutor 的工作线程
+     */
+    private CompletableFuture<Optional<List<Map<String, Object>>>> contexts(Long userId, List<Long> docIds,
+                                                                          String question) {
+        if (docIds.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> retrieve(userId, docIds, question), retrievalExecutor);
+        } catch (TaskRejectedException e) {
+            log.warn("检索线程池已满，交由 AI 服务按 doc_ids 检索: userId={}", userId);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    }
+
+    /**
+     * 检索并转换为请求体中的 contexts，失败时返回空，不中断对话
+     */
+    private Optional<List<Map<String, Object>>> retrieve(Long userId, List<Long> docIds, String question) {
+        try {
+            List<RetrievedChunk> chunks = retrievalService.retrieve(userId, docIds, question, 0);
+            List<Map<String, Object>> contexts = new ArrayList<>(chunks.size());
+            for (RetrievedChunk chunk : chunks) {
+                Map<String, Object> context = new LinkedHashMap<>();
+                context.put("chunk_id", chunk.getChunkId());
+                context.put("doc_id", chunk.getDocId());
+                context.put("score", chunk.getScore());
+                context.put("text", chunk.getText());
+                contexts.add(context);
+            }
+            return Optional.of(contexts);
+        } catch (RuntimeException e) {
+            log.warn("混合检索失败，交由 AI 服务按 doc_ids 检索: userId={}, error={}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 以单个事件推送缓存的回答
+     */
+    private void replay(SseEmitter emitter, CachedAnswer answer) {
+        try {
+            emitter.send(SseEmitter.event().data(answer.getAnswer(), MediaType.TEXT_PLAIN));
+            emitter.complete();
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * 窗口中除本轮用户消息外的历史，按时间顺序
+     */
+    private static List<Map<String, String>> history(ContextWindow window) {
+        List<ContextMessage> messages = window.messages();
+        List<Map<String, String>> history = new ArrayList<>(Math.max(messages.size() - 1, 0));
+        for (int i = 0; i < messages.size() - 1; i++) {
+            history.add(Map.of("role", messages.get(i).getRole(), "content", messages.get(i).getContent()));
+        }
+        return history;
+    }
+
+    /**
+     * 收集 AI 回答，流正常结束后追加到会话上下文；超过单条消息上限的部分丢弃
+     */
+    private final class ReplyRecorder implements SseStreamRelay.StreamListener {
+
+        private final Long sessionId;
+
+        private final StringBuilder reply = new StringBuilder();
+
+        private ReplyRecorder(Long sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        @Override
+        public void onEvent(String eventName, String data) {
+            if (eventName == null && reply.length() < contextProperties.getMaxMessageChars()) {
+                reply.append(data);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (reply.length() > 0) {
+                contextService.append(sessionId, ChatMessage.ROLE_ASSISTANT, reply.toString());
+            }
+        }
+    }
+}
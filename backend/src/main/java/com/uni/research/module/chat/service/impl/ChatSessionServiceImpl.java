@@ -0,0 +1,106 @@
+package com.uni.research.module.chat.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.uni.research.common.cache.MetadataCache;
+import com.uni.research.common.config.MetadataCacheProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.chat.dto.ChatSessionVO;
+import com.uni.research.module.chat.entity.ChatSession;
+import com.uni.research.module.chat.mapper.ChatSessionMapper;
+import com.uni.research.module.chat.service.ChatSessionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 对话会话管理实现
+ *
+ * 与文档列表相同：键集分页 + MetadataCache 两级缓存，创建、重命名后失效该会话和用户的列表页
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+public class ChatSessionServiceImpl implements ChatSessionService {
+
+    private static final String REGION = "chat-session";
+
+    private static final String PAGE_REGION = "chat-session-page";
+
+    private final ChatSessionMapper chatSessionMapper;
+
+    private final MetadataCacheProperties properties;
+
+    private final MetadataCache.Region<ChatSession> sessions;
+
+    private final MetadataCache.Region<CursorPage<ChatSessionVO>> pages;
+
+    public ChatSessionServiceImpl(ChatSessionMapper chatSessionMapper, MetadataCache metadataCache,
+                                  MetadataCacheProperties properties) {
+        this.chatSessionMapper = chatSessionMapper;
+        this.properties = properties;
+        this.sessions = metadataCache.region(REGION, ChatSession.class);
+        this.pages = metadataCache.region(PAGE_REGION, new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public CursorPage<ChatSessionVO> list(Long userId, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, properties.getMaxPageSize()));
+        long beforeId = cursor == null ? Long.MAX_VALUE : cursor;
+        return pages.getForUser(userId, beforeId + ":" + pageSize, () -> {
+            List<ChatSessionVO> rows = chatSessionMapper.selectBefore(userId, beforeId, pageSize + 1)
+                    .stream()
+                    .map(ChatSessionServiceImpl::toVO)
+                    .toList();
+            return CursorPage.of(rows, pageSize, ChatSessionVO::getId);
+        });
+    }
+
+    @Override
+    public ChatSessionVO get(Long userId, Long sessionId) {
+        ChatSession session = sessions.get(sessionId, () -> chatSessionMapper.selectById(sessionId));
+        if (session == null || !session.getUserId().equals(userId)) {
+            throw BizException.of(ResultCode.SESSION_NOT_FOUND);
+        }
+        return toVO(session);
+    }
+
+    @Override
+    public ChatSessionVO create(Long userId, String title) {
+        LocalDateTime now = LocalDateTime.now();
+        ChatSession session = new ChatSession();
+        session.setUserId(userId);
+        session.setTitle(title);
+        session.setCreateTime(now);
+        session.setUpdateTime(now);
+        chatSessionMapper.insert(session);
+        pages.evictUser(userId);
+        log.info("会话已创建: sessionId={}, userId={}", session.getId(), userId);
+        return toVO(session);
+    }
+
+    @Override
+    public ChatSessionVO rename(Long userId, Long sessionId, String title) {
+        if (chatSessionMapper.updateTitle(sessionId, userId, title) == 0) {
+            throw BizException.of(ResultCode.SESSION_NOT_FOUND);
+        }
+        sessions.evict(sessionId);
+        pages.evictUser(userId);
+        return get(userId, sessionId);
+    }
+
+    private static ChatSessionVO toVO(ChatSession session) {
+        ChatSessionVO vo = new ChatSessionVO();
+        vo.setId(session.getId());
+        vo.setTitle(session.getTitle());
+        vo.setCreateTime(session.getCreateTime());
+        vo.setUpdateTime(session.getUpdateTime());
+        return vo;
+    }
+}
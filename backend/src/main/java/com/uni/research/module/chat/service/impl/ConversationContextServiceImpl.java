@@ -0,0 +1,327 @@
+package com.uni.research.module.chat.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.config.ChatContextProperties;
+import com.uni.research.common.constant.RedisKeyConstant;
+import com.uni.research.module.chat.dto.ContextMessage;
+import com.uni.research.module.chat.dto.ContextWindow;
+import com.uni.research.module.chat.entity.ChatMessage;
+import com.uni.research.module.chat.mapper.ChatMessageMapper;
+import com.uni.research.module.chat.service.ChatMessageWriter;
+import com.uni.research.module.chat.service.ConversationContextService;
+import com.uni.research.module.doc.parser.TokenWindowChunker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 对话上下文存储实现
+ *
+ * 对应 408 考点：数据结构 - 循环队列、滑动窗口；计算机组成 - 多级存储层次
+ *
+ * 设计思路：
+ * 1. 每个会话在 Redis 保存一个按 token 预算滚动的窗口：List 存消息，Hash 存 token 总数和版本号
+ * 2. 追加消息用一段 Lua 脚本原子完成：RPUSH 新消息、累加 token，超出预算就 LPOP 最早的消息并扣减，
+ *    每条消息只进出窗口各一次，均摊 O(1)；窗口大小由预算决定，与会话长度无关
+ * 3. token 数在消息写入时计算一次，存进 chat_message.token_count 和窗口元素，之后只做加减，不再重新分词
+ * 4. 本地 Caffeine 缓存窗口快照，读取时只比对一次 Redis 版本号；本实例追加消息且版本号连续时，
+ *    在本地按同样的规则更新快照，不需要重新读取 List
+ * 5. Redis 中的窗口过期后，用键集分页从新到旧读取 chat_message，凑满预算即停止，只读窗口大小的数据
+ * 6. Redis 不可用时直接从 MySQL 组装窗口，对话不中断
+ * 7. 消息交给 ChatMessageWriter 异步批量入库；从 MySQL 回填前先刷盘，保证读到已提交的消息
+ *
+ * 面试话术：
+ * "多轮对话每一轮都要带上历史，如果每次都把 chat_message 全查出来再分词截断，
+ * 会话越长越慢，是 O(n) 的。我在 Redis 给每个会话维护一个按 token 预算滚动的窗口，
+ * 追加和淘汰在一段 Lua 脚本里原子完成，token 数增量维护；本地再缓存一份快照，用版本号校验。
+ * 这样每轮组装上下文只和预算有关，和会话多长没关系。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ChatContextProperties.class)
+public class ConversationContextServiceImpl implements ConversationContextService {
+
+    /**
+     * 追加消息并按预算淘汰。KEYS: 窗口 List、元数据 Hash；ARGV: 消息 JSON、token 数、预算、TTL 秒。
+     * 窗口尚未加载时返回 -1，否则返回新版本号
+     */
+    private static final DefaultRedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 0 then
+              return -1
+            end
+            redis.call('RPUSH', KEYS[1], ARGV[1])
+            local total = redis.call('HINCRBY', KEYS[2], 'tokens', ARGV[2])
+            local budget = tonumber(ARGV[3])
+            while total > budget and redis.call('LLEN', KEYS[1]) > 1 do
+              local head = cjson.decode(redis.call('LPOP', KEYS[1]))
+              total = redis.call('HINCRBY', KEYS[2], 'tokens', -head['tokens'])
+              redis.call('HSET', KEYS[2], 'truncated', 1)
+            end
+            local version = redis.call('HINCRBY', KEYS[2], 'version', 1)
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            redis.call('EXPIRE', KEYS[2], ARGV[4])
+            return version
+            """, Long.class);
+
+    /**
+     * 从 MySQL 回填窗口，已被其他实例加载时不覆盖。ARGV: token 总数、是否截断、初始版本号、TTL 秒、消息 JSON...
+     */
+    private static final DefaultRedisScript<Long> INIT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+              return 0
+            end
+            redis.call('DEL', KEYS[1])
+            for i = 5, #ARGV do
+              redis.call('RPUSH', KEYS[1], ARGV[i])
+            end
+            redis.call('HSET', KEYS[2], 'tokens', ARGV[1], 'truncated', ARGV[2], 'version', ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            redis.call('EXPIRE', KEYS[2], ARGV[4])
+            return 1
+            """, Long.class);
+
+    /**
+     * 一次读出元数据和全部消息，保证两者一致。返回 {version, tokens, truncated, 消息 JSON...}，未加载时返回空列表
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> READ_SCRIPT = new DefaultRedisScript<>("""
+            local meta = redis.call('HMGET', KEYS[2], 'version', 'tokens', 'truncated')
+            if not meta[1] then
+              return {}
+            end
+            local result = {meta[1], meta[2], meta[3]}
+            for _, message in ipairs(redis.call('LRANGE', KEYS[1], 0, -1)) do
+              result[#result + 1] = message
+            end
+            return result
+            """, List.class);
+
+    private final ChatContextProperties properties;
+
+    private final ChatMessageMapper chatMessageMapper;
+
+    private final ChatMessageWriter chatMessageWriter;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Long, ContextWindow> localWindows;
+
+    private final Counter localHits;
+
+    private final Counter redisLoads;
+
+    private final Counter databaseLoads;
+
+    public ConversationContextServiceImpl(ChatContextProperties properties, ChatMessageMapper chatMessageMapper,
+                                          ChatMessageWriter chatMessageWriter, StringRedisTemplate redisTemplate,
+                                          ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.chatMessageMapper = chatMessageMapper;
+        this.chatMessageWriter = chatMessageWriter;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.localWindows = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxSessions())
+                .expireAfterAccess(properties.getLocalTtl())
+                .build();
+        this.localHits = loadCounter(meterRegistry, "local");
+        this.redisLoads = loadCounter(meterRegistry, "redis");
+        this.databaseLoads = loadCounter(meterRegistry, "database");
+    }
+
+    private static Counter loadCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("chat.context.loads")
+                .description("对话上下文窗口读取来源")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public ContextWindow window(Long sessionId) {
+        try {
+            ContextWindow cached = localWindows.getIfPresent(sessionId);
+            if (cached != null) {
+                Object version = redisTemplate.opsForHash().get(metaKey(sessionId), "version");
+                if (version != null && Long.parseLong(version.toString()) == cached.version()) {
+                    localHits.increment();
+                    return cached;
+                }
+            }
+            ContextWindow window = readFromRedis(sessionId);
+            if (window == null) {
+                chatMessageWriter.flush();
+                window = loadFromDatabase(sessionId);
+                initRedis(sessionId, window);
+                // 以 Redis 为准：并发回填时其他实例可能先写入了
+                window = readFromRedis(sessionId);
+            }
+            if (window != null) {
+                localWindows.put(sessionId, window);
+                return window;
+            }
+        } catch (RuntimeException e) {
+            log.warn("读取 Redis 对话上下文失败，从数据库组装: sessionId={}, error={}", sessionId, e.getMessage());
+            localWindows.invalidate(sessionId);
+        }
+        chatMessageWriter.flush();
+        return loadFromDatabase(sessionId);
+    }
+
+    @Override
+    public ContextWindow append(Long sessionId, String role, String content) {
+        String text = content.length() > properties.getMaxMessageChars()
+                ? content.substring(0, properties.getMaxMessageChars()) : content;
+        ContextMessage message = new ContextMessage(role, text, TokenWindowChunker.estimateTokens(text));
+        ChatMessage entity = new ChatMessage();
+        entity.setSessionId(sessionId);
+        entity.setRole(role);
+        entity.setContent(text);
+        entity.setTokenCount(message.getTokens());
+        entity.setCreateTime(LocalDateTime.now());
+
+        ContextWindow window = null;
+        try {
+            long version = appendToRedis(sessionId, message);
+            if (version < 0) {
+                // 窗口未加载：先用已入库的历史回填（本条尚未提交给写入器），再追加本条
+                chatMessageWriter.flush();
+                initRedis(sessionId, loadFromDatabase(sessionId));
+                version = appendToRedis(sessionId, message);
+            }
+            ContextWindow cached = localWindows.getIfPresent(sessionId);
+            window = cached != null && cached.version() == version - 1
+                    ? extend(cached, message, version)
+                    : readFromRedis(sessionId);
+        } catch (RuntimeException e) {
+            log.warn("更新 Redis 对话上下文失败，从数据库组装: sessionId={}, error={}", sessionId, e.getMessage());
+        }
+        chatMessageWriter.write(entity);
+        if (window != null) {
+            localWindows.put(sessionId, window);
+            return window;
+        }
+        localWindows.invalidate(sessionId);
+        chatMessageWriter.flush();
+        return loadFromDatabase(sessionId);
+    }
+
+    private long appendToRedis(Long sessionId, ContextMessage message) {
+        Long version = redisTemplate.execute(APPEND_SCRIPT, List.of(windowKey(sessionId), metaKey(sessionId)),
+                toJson(message), String.valueOf(message.getTokens()), String.valueOf(properties.getTokenBudget()),
+                String.valueOf(properties.getRedisTtl().toSeconds()));
+        return version == null ? -1 : version;
+    }
+
+    /**
+     * 在本地快照上按与 Lua 脚本相同的规则追加并淘汰，窗口大小受预算限制，复制开销与会话长度无关
+     */
+    private ContextWindow extend(ContextWindow window, ContextMessage message, long version) {
+        Deque<ContextMessage> messages = new ArrayDeque<>(window.messages());
+        messages.addLast(message);
+        int tokens = window.tokens() + message.getTokens();
+        boolean truncated = window.truncated();
+        while (tokens > properties.getTokenBudget() && messages.size() > 1) {
+            tokens -= messages.removeFirst().getTokens();
+            truncated = true;
+        }
+        return new ContextWindow(List.copyOf(messages), tokens, version, truncated);
+    }
+
+    private ContextWindow readFromRedis(Long sessionId) {
+        List<?> result = redisTemplate.execute(READ_SCRIPT, List.of(windowKey(sessionId), metaKey(sessionId)));
+        if (result == null || result.isEmpty()) {
+            return null;
+        }
+        List<ContextMessage> messages = new ArrayList<>(result.size() - 3);
+        for (int i = 3; i < result.size(); i++) {
+            messages.add(fromJson(result.get(i).toString()));
+        }
+        redisLoads.increment();
+        return new ContextWindow(Collections.unmodifiableList(messages), Integer.parseInt(result.get(1).toString()),
+                Long.parseLong(result.get(0).toString()), "1".equals(String.valueOf(result.get(2))));
+    }
+
+    /**
+     * 从新到旧分页读取消息，凑满预算即停止（至少保留最近一条）
+     */
+    private ContextWindow loadFromDatabase(Long sessionId) {
+        databaseLoads.increment();
+        Deque<ContextMessage> messages = new ArrayDeque<>();
+        int tokens = 0;
+        long cursor = Long.MAX_VALUE;
+        while (true) {
+            List<ChatMessage> page = chatMessageMapper.selectBefore(sessionId, cursor, properties.getLoadPageSize());
+            for (ChatMessage row : page) {
+                int rowTokens = row.getTokenCount() != null
+                        ? row.getTokenCount() : TokenWindowChunker.estimateTokens(row.getContent());
+                if (!messages.isEmpty() && tokens + rowTokens > properties.getTokenBudget()) {
+                    return new ContextWindow(List.copyOf(messages), tokens, 0, true);
+                }
+                messages.addFirst(new ContextMessage(row.getRole(), row.getContent(), rowTokens));
+                tokens += rowTokens;
+                cursor = row.getId();
+            }
+            if (page.size() < properties.getLoadPageSize()) {
+                return new ContextWindow(List.copyOf(messages), tokens, 0, false);
+            }
+        }
+    }
+
+    /**
+     * 写入 Redis；初始版本号取当前时间，窗口过期重建后不会与旧的本地快照版本号相同
+     */
+    private void initRedis(Long sessionId, ContextWindow window) {
+        List<String> args = new ArrayList<>(window.messages().size() + 4);
+        args.add(String.valueOf(window.tokens()));
+        args.add(window.truncated() ? "1" : "0");
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(properties.getRedisTtl().toSeconds()));
+        for (ContextMessage message : window.messages()) {
+            args.add(toJson(message));
+        }
+        redisTemplate.execute(INIT_SCRIPT, List.of(windowKey(sessionId), metaKey(sessionId)), args.toArray());
+    }
+
+    private String toJson(ContextMessage message) {
+        try {
+            return objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("对话消息序列化失败", e);
+        }
+    }
+
+    private ContextMessage fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, ContextMessage.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("对话消息反序列化失败", e);
+        }
+    }
+
+    private static String windowKey(Long sessionId) {
+        return RedisKeyConstant.CHAT_CONTEXT + sessionId;
+    }
+
+    private static String metaKey(Long sessionId) {
+        return RedisKeyConstant.CHAT_CONTEXT_META + sessionId;
+    }
+}
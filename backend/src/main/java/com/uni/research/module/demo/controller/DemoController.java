@@ -3,6 +3,8 @@ package com.uni.research.module.demo.controller;
 import com.uni.research.common.exception.BizException;
 import com.uni.research.common.result.Result;
 import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.demo.dto.EchoVO;
+import com.uni.research.module.demo.dto.StatusVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -35,12 +37,8 @@ public class DemoController {
      */
     @Operation(summary = "测试成功响应", description = "返回一个成功的响应示例")
     @GetMapping("/success")
-    public Result<Map<String, Object>> testSuccess() {
-        Map<String, Object> data = new HashMap<>();
-        data.put("message", "Hello, Uni-Research-Assistant!");
-        data.put("timestamp", LocalDateTime.now());
-        data.put("status", "running");
-        data.put("version", "1.0.0");
+    public Result<StatusVO> testSuccess() {
+        StatusVO data = new StatusVO("Hello, Uni-Research-Assistant!", LocalDateTime.now(), "running", "1.0.0");
         
         log.info("测试成功响应接口被调用");
         return Result.success(data);
@@ -51,11 +49,8 @@ public class DemoController {
      */
     @Operation(summary = "测试带参数接口", description = "接收参数并返回处理结果")
     @GetMapping("/echo")
-    public Result<Map<String, Object>> testEcho(@RequestParam(defaultValue = "World") String name) {
-        Map<String, Object> data = new HashMap<>();
-        data.put("input", name);
-        data.put("output", "Hello, " + name + "!");
-        data.put("length", name.length());
+    public Result<EchoVO> testEcho(@RequestParam(defaultValue = "World") String name) {
+        EchoVO data = new EchoVO(name, "Hello, " + name + "!", name.length());
         
         log.info("Echo 接口被调用，参数: {}", name);
         return Result.success("处理成功", data);
@@ -0,0 +1,13 @@
+package com.uni.research.module.demo.dto;
+
+/**
+ * 演示接口：回显结果
+ *
+ * @param input  输入参数
+ * @param output 处理结果
+ * @param length 输入长度
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record EchoVO(String input, String output, int length) {
+}
@@ -0,0 +1,16 @@
+package com.uni.research.module.demo.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 演示接口：服务状态
+ *
+ * @param message   欢迎语
+ * @param timestamp 服务器当前时间
+ * @param status    运行状态
+ * @param version   版本号
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record StatusVO(String message, LocalDateTime timestamp, String status, String version) {
+}
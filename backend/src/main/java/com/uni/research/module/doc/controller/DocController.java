@@ -0,0 +1,74 @@
+package com.uni.research.module.doc.controller;
+
+import com.uni.research.common.annotation.RateLimit;
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.DocProgressVO;
+import com.uni.research.module.doc.dto.DocumentVO;
+import com.uni.research.module.doc.service.DocJobService;
+import com.uni.research.module.doc.service.DocProcessService;
+import com.uni.research.module.doc.service.DocumentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 文档控制器
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Tag(name = "文档管理", description = "文档处理进度与重新处理")
+@RestController
+@RequestMapping("/doc")
+@RequiredArgsConstructor
+public class DocController {
+
+    private final DocProcessService docProcessService;
+
+    private final DocJobService docJobService;
+
+    private final DocumentService documentService;
+
+    @Operation(summary = "文档列表", description = "按上传时间从新到旧的游标分页，下一页传上一页返回的 nextCursor")
+    @GetMapping("/list")
+    public Result<CursorPage<DocumentVO>> list(@RequestParam(required = false) Long cursor,
+                                               @RequestParam(defaultValue = "20") int size) {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        return Result.success(documentService.list(userId, cursor, size));
+    }
+
+    @Operation(summary = "查询处理进度", description = "解析与向量化进度，前端上传完成后轮询")
+    @GetMapping("/{id}/progress")
+    public Result<DocProgressVO> progress(@PathVariable Long id) {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        return Result.success(docProcessService.progress(userId, id));
+    }
+
+    @Operation(summary = "重新处理", description = "处理失败（进入死信）的文档重新入队")
+    @RateLimit(name = "doc-reprocess", permits = 10, periodSeconds = 60)
+    @PostMapping("/{id}/reprocess")
+    public Result<Void> reprocess(@PathVariable Long id) {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        docJobService.reprocess(userId, id);
+        return Result.success();
+    }
+}
@@ -0,0 +1,90 @@
+package com.uni.research.module.doc.controller;
+
+import com.uni.research.common.annotation.ApiLog;
+import com.uni.research.common.annotation.RateLimit;
+import com.uni.research.common.context.UserContext;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.UploadInitRequest;
+import com.uni.research.module.doc.dto.UploadResultVO;
+import com.uni.research.module.doc.dto.UploadSessionVO;
+import com.uni.research.module.doc.service.DocUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * 文档分片上传控制器
+ *
+ * 流程：init 获取 uploadId 与分片大小 → 逐片 PUT（可并发、可断点续传）→ complete 合并
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Tag(name = "文档上传", description = "分片上传、断点续传与合并")
+@RestController
+@RequestMapping("/doc/upload")
+@RequiredArgsConstructor
+public class DocUploadController {
+
+    private final DocUploadService docUploadService;
+
+    @Operation(summary = "初始化上传", description = "返回 uploadId、分片大小和分片数")
+    @RateLimit(name = "doc-upload-init", permits = 30, periodSeconds = 60)
+    @PostMapping("/init")
+    public Result<UploadSessionVO> init(@Valid @RequestBody UploadInitRequest request) {
+        return Result.success(docUploadService.init(currentUserId(), request));
+    }
+
+    @Operation(summary = "查询上传进度", description = "断点续传时获取已上传的分片序号")
+    @GetMapping("/{uploadId}")
+    public Result<UploadSessionVO> status(@PathVariable String uploadId) {
+        return Result.success(docUploadService.status(currentUserId(), uploadId));
+    }
+
+    @Operation(summary = "上传分片", description = "请求体为分片原始字节，可选请求头 X-Chunk-Sha256 用于完整性校验")
+    @ApiLog(args = false)
+    @PutMapping(value = "/{uploadId}/chunks/{index}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public Result<Void> uploadChunk(@PathVariable String uploadId, @PathVariable int index,
+                                    @RequestHeader(value = "X-Chunk-Sha256", required = false) String sha256,
+                                    HttpServletRequest request) throws IOException {
+        docUploadService.uploadChunk(currentUserId(), uploadId, index, request.getInputStream(), sha256);
+        return Result.success();
+    }
+
+    @Operation(summary = "完成上传", description = "合并分片并创建文档，内容已存在时直接复用")
+    @PostMapping("/{uploadId}/complete")
+    public Result<UploadResultVO> complete(@PathVariable String uploadId) {
+        return Result.success(docUploadService.complete(currentUserId(), uploadId));
+    }
+
+    @Operation(summary = "取消上传", description = "删除已上传的分片")
+    @DeleteMapping("/{uploadId}")
+    public Result<Void> abort(@PathVariable String uploadId) {
+        docUploadService.abort(currentUserId(), uploadId);
+        return Result.success();
+    }
+
+    private static Long currentUserId() {
+        Long userId = UserContext.getUserId();
+        if (userId == null) {
+            throw new BizException(ResultCode.UNAUTHORIZED);
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文档处理进度
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocProgressVO {
+
+    private Long docId;
+
+    /**
+     * 文档状态：0-未处理，1-向量化中，2-已完成
+     */
+    private Integer status;
+
+    /**
+     * 处理百分比（0~100）
+     */
+    private int percent;
+
+    /**
+     * 已写入的文本块数
+     */
+    private long chunks;
+
+    /**
+     * 最近一次处理失败的原因，没有失败时为 null
+     */
+    private String error;
+}
@@ -0,0 +1,34 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档列表项（不含存储路径等内部字段）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+public class DocumentVO {
+
+    private Long id;
+
+    private String title;
+
+    private String fileName;
+
+    private Long fileSize;
+
+    private String fileType;
+
+    /**
+     * 状态：0-未处理，1-向量化中，2-已完成
+     */
+    private Integer status;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,31 @@
+package com.uni.research.module.doc.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 初始化分片上传请求
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+public class UploadInitRequest {
+
+    /**
+     * 原始文件名（含扩展名）
+     */
+    @NotBlank(message = "文件名不能为空")
+    @Size(max = 255, message = "文件名不能超过 255 个字符")
+    private String fileName;
+
+    /**
+     * 文件大小（字节）
+     */
+    @NotNull(message = "文件大小不能为空")
+    @Positive(message = "文件大小必须大于 0")
+    private Long fileSize;
+}
@@ -0,0 +1,36 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分片合并结果
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadResultVO {
+
+    private Long docId;
+
+    /**
+     * 识别出的文件类型：pdf/txt/markdown
+     */
+    private String fileType;
+
+    private Long fileSize;
+
+    /**
+     * 内容指纹
+     */
+    private String fileHash;
+
+    /**
+     * 是否命中已上传的同一文件（直接复用，未新建文档）
+     */
+    private boolean deduplicated;
+}
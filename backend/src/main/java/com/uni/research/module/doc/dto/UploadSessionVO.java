@@ -0,0 +1,33 @@
+package com.uni.research.module.doc.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 分片上传会话（初始化与断点续传查询共用）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionVO {
+
+    private String uploadId;
+
+    /**
+     * 分片大小（字节），最后一片可以更小
+     */
+    private int chunkSize;
+
+    private int totalChunks;
+
+    /**
+     * 已上传完成的分片序号（从 0 开始），续传时跳过
+     */
+    private List<Integer> uploadedChunks;
+}
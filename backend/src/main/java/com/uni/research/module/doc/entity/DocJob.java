@@ -0,0 +1,88 @@
+package com.uni.research.module.doc.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档处理任务实体（doc_job）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@TableName("doc_job")
+public class DocJob {
+
+    /**
+     * 状态：等待执行（含退避中）
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * 状态：执行中（持有租约）
+     */
+    public static final int STATUS_RUNNING = 1;
+
+    /**
+     * 状态：成功
+     */
+    public static final int STATUS_SUCCEEDED = 2;
+
+    /**
+     * 状态：死信（重试次数用尽）
+     */
+    public static final int STATUS_DEAD = 3;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long docId;
+
+    /**
+     * 所属用户 ID（公平调度）
+     */
+    private Long userId;
+
+    /**
+     * 优先级，越大越先执行
+     */
+    private Integer priority;
+
+    /**
+     * 状态：0-等待，1-执行中，2-成功，3-死信
+     */
+    private Integer status;
+
+    /**
+     * 已尝试次数（领取时加 1）
+     */
+    private Integer attempts;
+
+    /**
+     * 最早可执行时间
+     */
+    private LocalDateTime nextRunAt;
+
+    /**
+     * 租约持有者（实例标识）
+     */
+    private String leaseOwner;
+
+    /**
+     * 租约到期时间
+     */
+    private LocalDateTime leaseUntil;
+
+    /**
+     * 最近一次失败原因
+     */
+    private String lastError;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
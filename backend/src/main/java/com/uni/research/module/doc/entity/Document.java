@@ -0,0 +1,81 @@
+package com.uni.research.module.doc.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文档实体（doc_document）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@TableName("doc_document")
+public class Document {
+
+    /**
+     * 状态：未处理
+     */
+    public static final int STATUS_PENDING = 0;
+
+    /**
+     * 状态：向量化中
+     */
+    public static final int STATUS_PROCESSING = 1;
+
+    /**
+     * 状态：已完成
+     */
+    public static final int STATUS_COMPLETED = 2;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 所属用户 ID
+     */
+    private Long userId;
+
+    /**
+     * 文档标题
+     */
+    private String title;
+
+    /**
+     * 文件名
+     */
+    private String fileName;
+
+    /**
+     * 文件存储路径
+     */
+    private String filePath;
+
+    /**
+     * 文件大小（字节）
+     */
+    private Long fileSize;
+
+    /**
+     * 文件类型：pdf/txt/markdown
+     */
+    private String fileType;
+
+    /**
+     * 内容指纹（各分片 SHA-256 再做一次 SHA-256），用于去重，也是存储 key 的一部分
+     */
+    private String fileHash;
+
+    /**
+     * 状态：0-未处理，1-向量化中，2-已完成
+     */
+    private Integer status;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime updateTime;
+}
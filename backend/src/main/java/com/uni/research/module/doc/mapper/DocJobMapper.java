@@ -0,0 +1,84 @@
+package com.uni.research.module.doc.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.module.doc.entity.DocJob;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文档处理任务 Mapper
+ *
+ * 所有状态变更都是带条件的 UPDATE（CAS），时间统一取数据库的 NOW(3)，不依赖各实例时钟一致
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocJobMapper extends BaseMapper<DocJob> {
+
+    /**
+     * 可领取的任务：等待中且已到执行时间，或执行中但租约已过期（持有者宕机）。
+     * 每个用户按优先级、入队顺序取前 perUser 条，再按各用户的名次交错排列后截断到 limit，
+     * 单个用户积压再多也只占 perUser 个候选位置，其他用户（包括他们的低优先级任务）总能进入候选
+     */
+    @Select("SELECT * FROM (SELECT j.*, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY priority DESC, id) AS user_rank"
+            + " FROM doc_job j WHERE status IN (0, 1) AND next_run_at <= NOW(3)"
+            + " AND (status = 0 OR lease_until < NOW(3))) t"
+            + " WHERE user_rank <= #{perUser} ORDER BY user_rank, priority DESC, id LIMIT #{limit}")
+    List<DocJob> selectRunnable(@Param("perUser") int perUser, @Param("limit") int limit);
+
+    /**
+     * 各用户当前持有有效租约的任务数（公平调度依据）
+     */
+    @Select("SELECT user_id AS userId, COUNT(*) AS running FROM doc_job"
+            + " WHERE status = 1 AND lease_until >= NOW(3) GROUP BY user_id")
+    List<Map<String, Object>> countRunningByUser();
+
+    /**
+     * 领取任务：条件与 selectRunnable 相同，多个实例并发领取同一任务时只有一个返回 1
+     */
+    @Update("UPDATE doc_job SET status = 1, attempts = attempts + 1, lease_owner = #{owner},"
+            + " lease_until = DATE_ADD(NOW(3), INTERVAL #{leaseMillis} * 1000 MICROSECOND)"
+            + " WHERE id = #{id} AND status IN (0, 1) AND next_run_at <= NOW(3)"
+            + " AND (status = 0 OR lease_until < NOW(3))")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    /**
+     * 续约，返回 0 表示租约已丢失（过期后被其他实例领走）
+     */
+    @Update("UPDATE doc_job SET lease_until = DATE_ADD(NOW(3), INTERVAL #{leaseMillis} * 1000 MICROSECOND)"
+            + " WHERE id = #{id} AND status = 1 AND lease_owner = #{owner}")
+    int renew(@Param("id") Long id, @Param("owner") String owner, @Param("leaseMillis") long leaseMillis);
+
+    @Update("UPDATE doc_job SET status = 2, lease_owner = NULL, lease_until = NULL"
+            + " WHERE id = #{id} AND status = 1 AND lease_owner = #{owner}")
+    int markSucceeded(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * 失败后退避重试：回到等待状态，delayMillis 之后才能再次被领取
+     */
+    @Update("UPDATE doc_job SET status = 0, lease_owner = NULL, lease_until = NULL, last_error = #{error},"
+            + " next_run_at = DATE_ADD(NOW(3), INTERVAL #{delayMillis} * 1000 MICROSECOND)"
+            + " WHERE id = #{id} AND status = 1 AND lease_owner = #{owner}")
+    int retryLater(@Param("id") Long id, @Param("owner") String owner, @Param("delayMillis") long delayMillis,
+                   @Param("error") String error);
+
+    @Update("UPDATE doc_job SET status = 3, lease_owner = NULL, lease_until = NULL, last_error = #{error}"
+            + " WHERE id = #{id} AND status = 1 AND lease_owner = #{owner}")
+    int markDead(@Param("id") Long id, @Param("owner") String owner, @Param("error") String error);
+
+    /**
+     * 文档是否已有未结束的任务（等待或执行中）
+     */
+    @Select("SELECT COUNT(*) FROM doc_job WHERE doc_id = #{docId} AND status IN (0, 1)")
+    long countActiveByDoc(@Param("docId") Long docId);
+
+    /**
+     * 文档最近一个任务
+     */
+    @Select("SELECT * FROM doc_job WHERE doc_id = #{docId} ORDER BY id DESC LIMIT 1")
+    DocJob selectLatestByDoc(@Param("docId") Long docId);
+}
@@ -0,0 +1,53 @@
+package com.uni.research.module.doc.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.uni.research.module.doc.entity.Document;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 文档 Mapper
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocumentMapper extends BaseMapper<Document> {
+
+    /**
+     * 查询用户已完成向量化的文档 ID（走 idx_user_id 索引，只取主键）
+     */
+    @Select("SELECT id FROM doc_document WHERE user_id = #{userId} AND status = 2")
+    List<Long> selectCompletedIds(@Param("userId") Long userId);
+
+    /**
+     * 查询用户全部文档 ID（任意状态）
+     */
+    @Select("SELECT id FROM doc_document WHERE user_id = #{userId}")
+    List<Long> selectIdsByUser(@Param("userId") Long userId);
+
+    /**
+     * 按内容指纹查找用户已上传的同一文件（走 idx_user_hash 索引）
+     */
+    @Select("SELECT * FROM doc_document WHERE user_id = #{userId} AND file_hash = #{fileHash} LIMIT 1")
+    Document selectByFileHash(@Param("userId") Long userId, @Param("fileHash") String fileHash);
+
+    /**
+     * 从新到旧读取用户 id 小于 beforeId 的文档（键集分页）。
+     * idx_user_id 二级索引的叶子节点按 (user_id, id) 有序，直接定位到游标位置往后读 limit 条，
+     * 深翻页不用像 LIMIT offset 那样先扫过前面所有行
+     */
+    @Select("SELECT id, user_id, title, file_name, file_size, file_type, status, create_time, update_time"
+            + " FROM doc_document WHERE user_id = #{userId} AND id < #{beforeId} ORDER BY id DESC LIMIT #{limit}")
+    List<Document> selectBefore(@Param("userId") Long userId, @Param("beforeId") long beforeId,
+                                @Param("limit") int limit);
+
+    /**
+     * 条件更新状态（CAS）：只有当前状态为 from 时才改为 to，返回影响行数，
+     * 用于保证同一文档不会被两个任务同时处理
+     */
+    @Update("UPDATE doc_document SET status = #{to} WHERE id = #{id} AND status = #{from}")
+    int updateStatus(@Param("id") Long id, @Param("from") int from, @Param("to") int to);
+}
@@ -0,0 +1,43 @@
+package com.uni.research.module.doc.parser;
+
+import com.uni.research.module.doc.storage.FileTypeDetector;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * PDF 按页抽取文本
+ *
+ * PDFBox 从文件随机读取对象（按需解析，不整体读入内存），解析过程中的临时流缓存到临时文件；
+ * 每次只抽取一页交给下游，大论文第一页的文本块也能立刻开始向量化
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class PdfTextExtractor implements TextExtractor {
+
+    @Override
+    public boolean supports(String fileType) {
+        return FileTypeDetector.TYPE_PDF.equals(fileType);
+    }
+
+    @Override
+    public void extract(Path file, Listener listener) throws IOException {
+        try (PDDocument document = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+            int pages = document.getNumberOfPages();
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int page = 1; page <= pages; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                listener.onText(stripper.getText(document));
+                listener.onProgress(page, pages);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.uni.research.module.doc.parser;
+
+import com.uni.research.module.doc.storage.FileTypeDetector;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * TXT / Markdown 按固定字符缓冲流式读取
+ *
+ * 编码识别：用前 64KB 做严格 UTF-8 解码，出现非法序列则按 GB18030（兼容 GBK）读取；
+ * Markdown 原文直接作为文本，标记符号对向量化影响很小
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Component
+public class PlainTextExtractor implements TextExtractor {
+
+    private static final int SNIFF_BYTES = 64 * 1024;
+
+    private static final int BUFFER_CHARS = 8192;
+
+    private static final Charset GB18030 = Charset.forName("GB18030");
+
+    @Override
+    public boolean supports(String fileType) {
+        return FileTypeDetector.TYPE_TXT.equals(fileType) || FileTypeDetector.TYPE_MARKDOWN.equals(fileType);
+    }
+
+    @Override
+    public void extract(Path file, Listener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long total = channel.size();
+            Charset charset = detectCharset(channel);
+            channel.position(0);
+            try (Reader reader = new InputStreamReader(Channels.newInputStream(channel), charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE))) {
+                char[] buffer = new char[BUFFER_CHARS];
+                boolean first = true;
+                int n;
+                while ((n = reader.read(buffer)) > 0) {
+                    // 跳过 UTF-8 BOM
+                    int offset = first && buffer[0] == '\uFEFF' ? 1 : 0;
+                    first = false;
+                    listener.onText(new String(buffer, offset, n - offset));
+                    listener.onProgress(channel.position(), total);
+                }
+            }
+        }
+    }
+
+    private static Charset detectCharset(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(SNIFF_BYTES, channel.size()));
+        while (head.hasRemaining() && channel.read(head) > 0) {
+            // 读满嗅探缓冲或到达文件末尾
+        }
+        head.flip();
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        CharBuffer out = CharBuffer.allocate(head.remaining());
+        // endOfInput=false：缓冲末尾被截断的多字节字符不算非法
+        boolean utf8 = !decoder.decode(head, out, false).isError();
+        return utf8 ? StandardCharsets.UTF_8 : GB18030;
+    }
+}
@@ -0,0 +1,42 @@
+package com.uni.research.module.doc.parser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 文档文本抽取器：边读边回调，不把整篇文档的文本放进内存
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface TextExtractor {
+
+    /**
+     * 是否支持该文件类型（pdf / txt / markdown）
+     */
+    boolean supports(String fileType);
+
+    /**
+     * 按顺序抽取文本
+     *
+     * @param file     本地文件
+     * @param listener 文本片段与进度回调
+     */
+    void extract(Path file, Listener listener) throws IOException;
+
+    /**
+     * 抽取回调
+     */
+    interface Listener {
+
+        /**
+         * 一段连续文本（一页 PDF 或一个读缓冲的文本），片段之间按原文顺序
+         */
+        void onText(CharSequence text);
+
+        /**
+         * 抽取进度（已处理 / 总量，单位由实现决定：PDF 为页，文本为字节）
+         */
+        void onProgress(long done, long total);
+    }
+}
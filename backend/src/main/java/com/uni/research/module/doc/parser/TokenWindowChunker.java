@@ -0,0 +1,226 @@
+package com.uni.research.module.doc.parser;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * 滑动窗口切块器：按近似 token 数切分，相邻块保留重叠，边输入边输出
+ *
+ * 对应 408 考点：数据结构 - 顺序表、滑动窗口
+ *
+ * 设计思路：
+ * 1. 近似 token：每个汉字 / 假名 / 谚文、每个标点算 1 个，连续字母数字算 1 个（超过 16 个字符再拆分），
+ *    与 BPE 分词器的计数在同一量级，不依赖模型词表
+ * 2. 缓冲区只保留"尚未输出的文本 + 重叠部分"，凑满一个窗口立即输出，内存与文档长度无关
+ * 3. 切点优先选在窗口后 1/4 范围内的句末标点或段落换行处，避免把一句话切成两半
+ * 4. 输入片段末尾尚未结束的单词先不计数，等下一个片段到达或 finish 时再处理
+ *
+ * 非线程安全，每篇文档一个实例
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class TokenWindowChunker {
+
+    /**
+     * 连续字母数字超过该长度时拆成多个 token
+     */
+    private static final int MAX_WORD_CHARS = 16;
+
+    private final int windowTokens;
+
+    private final int overlapTokens;
+
+    private final Consumer<String> sink;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private int[] starts = new int[1024];
+
+    private int[] ends = new int[1024];
+
+    private int tokenCount;
+
+    /**
+     * 下一个待分词的缓冲区位置
+     */
+    private int scanPos;
+
+    /**
+     * 缓冲区开头已经随上一块输出过的 token 数（重叠部分）
+     */
+    private int carried;
+
+    private int chunkCount;
+
+    public TokenWindowChunker(int windowTokens, int overlapTokens, Consumer<String> sink) {
+        if (windowTokens <= 0 || overlapTokens < 0 || overlapTokens * 2 >= windowTokens) {
+            throw new IllegalArgumentException("重叠 token 数必须小于窗口的一半: window=" + windowTokens
+                    + ", overlap=" + overlapTokens);
+        }
+        this.windowTokens = windowTokens;
+        this.overlapTokens = overlapTokens;
+        this.sink = sink;
+    }
+
+    /**
+     * 按与切块相同的规则估算一段文本的 token 数（对话上下文预算等场景使用）
+     */
+    public static int estimateTokens(CharSequence text) {
+        int tokens = 0;
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (isWordChar(c)) {
+                int j = i + 1;
+                while (j < length && j - i < MAX_WORD_CHARS && isWordChar(text.charAt(j))) {
+                    j++;
+                }
+                tokens++;
+                i = j;
+            } else {
+                tokens++;
+                i += Character.charCount(Character.codePointAt(text, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 追加一段文本，凑满窗口的部分立即输出
+     */
+    public void accept(CharSequence text) {
+        buffer.append(text);
+        tokenize(false);
+        while (tokenCount >= windowTokens) {
+            emit(cutPoint());
+        }
+    }
+
+    /**
+     * 输入结束：输出剩余文本
+     */
+    public void finish() {
+        tokenize(true);
+        while (tokenCount >= windowTokens) {
+            emit(cutPoint());
+        }
+        if (tokenCount > carried) {
+            emit(tokenCount);
+        }
+        buffer.setLength(0);
+        tokenCount = 0;
+        scanPos = 0;
+        carried = 0;
+    }
+
+    /**
+     * 已输出的文本块数
+     */
+    public int chunkCount() {
+        return chunkCount;
+    }
+
+    private void tokenize(boolean endOfInput) {
+        int length = buffer.length();
+        int i = scanPos;
+        while (i < length) {
+            char c = buffer.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (isWordChar(c)) {
+                int j = i + 1;
+                while (j < length && j - i < MAX_WORD_CHARS && isWordChar(buffer.charAt(j))) {
+                    j++;
+                }
+                if (j == length && !endOfInput) {
+                    break;
+                }
+                addToken(i, j);
+                i = j;
+            } else {
+                if (Character.isHighSurrogate(c) && i + 1 == length && !endOfInput) {
+                    break;
+                }
+                int j = i + Character.charCount(Character.codePointAt(buffer, i));
+                addToken(i, j);
+                i = j;
+            }
+        }
+        scanPos = i;
+    }
+
+    private void addToken(int start, int end) {
+        if (tokenCount == starts.length) {
+            starts = Arrays.copyOf(starts, tokenCount * 2);
+            ends = Arrays.copyOf(ends, tokenCount * 2);
+        }
+        starts[tokenCount] = start;
+        ends[tokenCount] = end;
+        tokenCount++;
+    }
+
+    /**
+     * 在窗口后 1/4 范围内找最后一个句子边界，找不到则取满窗口
+     */
+    private int cutPoint() {
+        int min = Math.max(windowTokens - windowTokens / 4, carried + 1);
+        for (int n = windowTokens; n >= min; n--) {
+            if (isBoundaryAfter(n - 1)) {
+                return n;
+            }
+        }
+        return windowTokens;
+    }
+
+    private boolean isBoundaryAfter(int token) {
+        char c = buffer.charAt(starts[token]);
+        if (c == '。' || c == '！' || c == '？' || c == '；' || c == '!' || c == '?' || c == ';') {
+            return true;
+        }
+        int gapEnd = token + 1 < tokenCount ? starts[token + 1] : buffer.length();
+        for (int i = ends[token]; i < gapEnd; i++) {
+            if (buffer.charAt(i) == '\n') {
+                return true;
+            }
+        }
+        // 英文句点后须跟空白，排除小数点和缩写中间的点
+        return c == '.' && gapEnd > ends[token];
+    }
+
+    /**
+     * 输出前 n 个 token，保留最后 overlapTokens 个作为下一块的开头
+     */
+    private void emit(int n) {
+        sink.accept(buffer.substring(starts[0], ends[n - 1]));
+        chunkCount++;
+
+        int keepFrom = n == tokenCount ? tokenCount : Math.max(n - overlapTokens, 1);
+        int offset = keepFrom < tokenCount ? starts[keepFrom] : scanPos;
+        buffer.delete(0, offset);
+        int remaining = tokenCount - keepFrom;
+        for (int t = 0; t < remaining; t++) {
+            starts[t] = starts[keepFrom + t] - offset;
+            ends[t] = ends[keepFrom + t] - offset;
+        }
+        tokenCount = remaining;
+        scanPos -= offset;
+        carried = n - keepFrom;
+    }
+
+    private static boolean isWordChar(char c) {
+        if (!Character.isLetterOrDigit(c)) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script != Character.UnicodeScript.HAN
+                && script != Character.UnicodeScript.HIRAGANA
+                && script != Character.UnicodeScript.KATAKANA
+                && script != Character.UnicodeScript.HANGUL;
+    }
+}
@@ -0,0 +1,23 @@
+package com.uni.research.module.doc.service;
+
+/**
+ * 文档处理任务队列（持久化在 doc_job 表，多实例共同消费）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocJobService {
+
+    /**
+     * 为文档创建处理任务；已有未结束的任务时忽略
+     *
+     * @param fileSize 文件大小，用于计算优先级（小文件优先）
+     * @return 是否新建了任务
+     */
+    boolean enqueue(Long docId, Long userId, long fileSize);
+
+    /**
+     * 用户手动重新处理（如死信后修复了文件）：文档须为未处理状态
+     */
+    void reprocess(Long userId, Long docId);
+}
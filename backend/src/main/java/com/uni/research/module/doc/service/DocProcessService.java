@@ -0,0 +1,25 @@
+package com.uni.research.module.doc.service;
+
+import com.uni.research.module.doc.dto.DocProgressVO;
+
+/**
+ * 文档处理流水线（解析 → 切块 → 向量化 → 写入 pgvector）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocProcessService {
+
+    /**
+     * 同步处理一篇文档：状态 0 → 1 → 2，失败时清理已写入的文本块、状态回到 0 并抛出异常（由任务队列决定是否重试）
+     *
+     * @param lease 任务租约，每批写库和最终状态更新前检查；丢失时停止处理且不做清理（文档已由其他实例接管）
+     * @return 是否实际处理（文档不存在或不是未处理状态时返回 false）
+     */
+    boolean process(Long docId, JobLease lease);
+
+    /**
+     * 查询处理进度
+     */
+    DocProgressVO progress(Long userId, Long docId);
+}
@@ -0,0 +1,44 @@
+package com.uni.research.module.doc.service;
+
+import com.uni.research.module.doc.dto.UploadInitRequest;
+import com.uni.research.module.doc.dto.UploadResultVO;
+import com.uni.research.module.doc.dto.UploadSessionVO;
+
+import java.io.InputStream;
+
+/**
+ * 文档分片上传服务（断点续传 + 内容去重）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocUploadService {
+
+    /**
+     * 创建上传会话，返回服务端决定的分片大小和分片数
+     */
+    UploadSessionVO init(Long userId, UploadInitRequest request);
+
+    /**
+     * 查询会话状态（断点续传时获取已上传的分片）
+     */
+    UploadSessionVO status(Long userId, String uploadId);
+
+    /**
+     * 写入一个分片；同一分片重复上传时以最后一次为准
+     *
+     * @param body           分片内容（请求体原始字节流）
+     * @param expectedSha256 客户端计算的分片 SHA-256（十六进制），为空时不校验
+     */
+    void uploadChunk(Long userId, String uploadId, int index, InputStream body, String expectedSha256);
+
+    /**
+     * 合并全部分片并创建文档记录
+     */
+    UploadResultVO complete(Long userId, String uploadId);
+
+    /**
+     * 取消上传，删除已上传的分片
+     */
+    void abort(Long userId, String uploadId);
+}
@@ -0,0 +1,45 @@
+package com.uni.research.module.doc.service;
+
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.module.doc.dto.DocumentVO;
+import com.uni.research.module.doc.entity.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 文档元数据查询（带缓存）与写后失效
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface DocumentService {
+
+    /**
+     * 游标分页查询用户的文档，按上传时间从新到旧
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页传 null
+     */
+    CursorPage<DocumentVO> list(Long userId, Long cursor, int size);
+
+    /**
+     * 读取文档（缓存，返回的对象不得修改），不存在时返回 null。
+     * 需要以数据库为准的场景（如状态 CAS）应直接查库
+     */
+    Document get(Long docId);
+
+    /**
+     * 校验文档都属于该用户，任一文档不存在或属于他人时抛出 DOCUMENT_NOT_FOUND（两种情况不区分，不暴露他人文档是否存在）
+     */
+    void checkOwner(Long userId, Collection<Long> docIds);
+
+    /**
+     * 检索范围：该用户已处理完成的文档（走缓存，不查库）；指定 docIds 时只保留其中属于该用户且已完成的文档
+     */
+    List<Long> searchableIds(Long userId, Collection<Long> docIds);
+
+    /**
+     * 文档新增或更新后调用：清理该文档和所属用户列表的缓存
+     */
+    void onChanged(Long userId, Long docId);
+}
@@ -0,0 +1,67 @@
+package com.uni.research.module.doc.service;
+
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+
+/**
+ * 文档任务租约在本实例的视图（防护令牌）
+ *
+ * 对应 408 考点：操作系统 - 互斥与租约（持有者必须在租约到期前自行停止）
+ *
+ * 设计思路：
+ * 1. 续约线程维护：续约成功刷新时间，续约返回 0（已被接管或已结束）立即标记丢失
+ * 2. 续约 SQL 出错、或进程停顿（GC、宕机恢复）错过续约时，按本地时钟判断：
+ *    距上次确认超过 validity 即视为丢失，不等数据库告知
+ * 3. validity 取租约时长的 2/3：确认时间取续约 SQL 发出之前，本地判定总早于数据库到期，
+ *    余下 1/3 留给正在进行的一次写库落地，其他实例领取之前本实例已经停止写入
+ * 4. 处理线程在每批写库和最终状态更新前调用 check()，丢失后抛出异常并且不做清理（文档已归新的持有者）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class JobLease {
+
+    private final long validityNanos;
+
+    private volatile long confirmedNanos;
+
+    private volatile boolean lost;
+
+    /**
+     * @param leaseMillis    租约时长
+     * @param confirmedNanos 领取 SQL 发出前的 System.nanoTime()
+     */
+    public JobLease(long leaseMillis, long confirmedNanos) {
+        this.validityNanos = leaseMillis * 1_000_000L * 2 / 3;
+        this.confirmedNanos = confirmedNanos;
+    }
+
+    /**
+     * 续约成功
+     *
+     * @param sentNanos 续约 SQL 发出前的 System.nanoTime()
+     */
+    public void renewed(long sentNanos) {
+        confirmedNanos = sentNanos;
+    }
+
+    /**
+     * 续约返回 0：租约已被其他实例接管
+     */
+    public void lost() {
+        lost = true;
+    }
+
+    public boolean isHeld() {
+        return !lost && System.nanoTime() - confirmedNanos < validityNanos;
+    }
+
+    /**
+     * 写入前调用，租约已丢失时抛出异常终止处理
+     */
+    public void check() {
+        if (!isHeld()) {
+            throw new BizException(ResultCode.DOCUMENT_PROCESSING, "任务租约已丢失，停止处理");
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.uni.research.module.doc.service.impl;
+
+import com.uni.research.common.config.DocPipelineProperties;
+import com.uni.research.common.event.DocumentUploadedEvent;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.entity.DocJob;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocJobMapper;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.doc.service.DocJobService;
+import com.uni.research.module.doc.service.DocProcessService;
+import com.uni.research.module.doc.service.DocumentService;
+import com.uni.research.module.doc.service.JobLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文档处理任务队列实现
+ *
+ * 对应 408 考点：操作系统 - 进程调度（优先级 + 公平调度）、互斥与租约；数据库 - 乐观并发控制
+ *
+ * 设计思路：
+ * 1. 任务持久化在 MySQL doc_job 表，重启不丢；每个实例一个调度线程，空闲槽位（workers）有余量时才领取任务
+ * 2. 领取是一条带条件的 UPDATE（CAS）：多个实例同时领取同一任务只有一个成功，实例越多吞吐越高，不会重复处理
+ * 3. 租约代替固定时长的分布式锁：执行期间每 1/3 租约续约一次，实例宕机后租约过期，任务被其他实例接管；
+ *    大文件处理多久都不会因为锁过期被并发执行。续约失败或长时间未能续约（GC 停顿、数据库不可达）时，
+ *    本实例在数据库租约到期前就停止写入（见 JobLease），接管者重置文档重新处理时不会与旧持有者同时写
+ * 4. 调度顺序：先按用户当前执行中的任务数升序（公平，避免一个用户批量上传占满所有槽位），
+ *    再按优先级降序（小文件优先，大 PDF 不会堵住小文件），最后按入队顺序；
+ *    候选在 SQL 中就按用户分组取前几条，一个用户积压的小文件不会把其他用户的任务挤出候选
+ * 5. 失败按 1s / 2s / 4s 指数退避重试，达到最大次数进入死信（status = 3），保留失败原因，用户可手动重新处理
+ * 6. 调度线程不依赖任何请求触发，fast 配置开启全局延迟加载时也必须随启动创建（@Lazy(false)）
+ *
+ * 面试话术：
+ * "文档向量化原来是 Redis SET NX 加 5 分钟锁，重启任务就丢，大文件超过 5 分钟还会被重复执行。
+ * 我改成了 MySQL 任务表 + 租约：领取是一条 CAS 更新，执行中定期续约，宕机后租约过期自动转移。
+ * 调度先看用户当前占用的槽位做公平，再看文件大小做优先级；失败指数退避，三次重试后进死信。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class DocJobServiceImpl implements DocJobService {
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final DocPipelineProperties.Job properties;
+
+    private final DocJobMapper docJobMapper;
+
+    private final DocumentMapper documentMapper;
+
+    private final DocProcessService docProcessService;
+
+    private final DocumentService documentService;
+
+    private final TaskExecutor docProcessExecutor;
+
+    /**
+     * 本实例的处理槽位，与 docProcessExecutor 线程数一致
+     */
+    private final Semaphore slots;
+
+    /**
+     * 本实例执行中的任务 -> 租约（续约线程维护，处理线程写库前检查）
+     */
+    private final Map<Long, JobLease> running = new ConcurrentHashMap<>();
+
+    private final String owner;
+
+    private final Object signal = new Object();
+
+    private final Counter succeeded;
+
+    private final Counter retried;
+
+    private final Counter dead;
+
+    private final Counter leaseLost;
+
+    private final Timer queueWait;
+
+    private volatile boolean active = true;
+
+    private Thread dispatcher;
+
+    private ScheduledExecutorService leaseRenewer;
+
+    public DocJobServiceImpl(DocPipelineProperties properties, DocJobMapper docJobMapper,
+                             DocumentMapper documentMapper, DocProcessService docProcessService,
+                             DocumentService documentService,
+                             @Qualifier("docProcessExecutor") TaskExecutor docProcessExecutor,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties.getJob();
+        this.docJobMapper = docJobMapper;
+        this.documentMapper = documentMapper;
+        this.docProcessService = docProcessService;
+        this.documentService = documentService;
+        this.docProcessExecutor = docProcessExecutor;
+        this.slots = new Semaphore(properties.getWorkers());
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "#" + UUID.randomUUID().toString().substring(0, 8);
+        this.succeeded = jobCounter(meterRegistry, "succeeded");
+        this.retried = jobCounter(meterRegistry, "retried");
+        this.dead = jobCounter(meterRegistry, "dead");
+        this.leaseLost = jobCounter(meterRegistry, "lease_lost");
+        this.queueWait = Timer.builder("doc.job.queue.wait")
+                .description("任务从入队到被领取的等待时间")
+                .register(meterRegistry);
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("doc.job.outcomes")
+                .description("文档处理任务结果")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::dispatchLoop, "doc-job-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        long renewMillis = Math.max(1000, properties.getLease().toMillis() / 3);
+        leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "doc-job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+        log.info("文档任务调度已启动: owner={}, workers={}, lease={}", owner, slots.availablePermits(),
+                properties.getLease());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        active = false;
+        wakeUp();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        // 在途任务由 docProcessExecutor 关闭时等待；续约线程最后停止，等待期间租约不会过期
+        leaseRenewer.shutdown();
+    }
+
+    @EventListener
+    public void onDocumentUploaded(DocumentUploadedEvent event) {
+        Document document = documentMapper.selectById(event.getDocId());
+        if (document != null) {
+            enqueue(document.getId(), document.getUserId(), document.getFileSize() == null ? 0 : document.getFileSize());
+        }
+    }
+
+    @Override
+    public boolean enqueue(Long docId, Long userId, long fileSize) {
+        if (docJobMapper.countActiveByDoc(docId) > 0) {
+            return false;
+        }
+        DocJob job = new DocJob();
+        job.setDocId(docId);
+        job.setUserId(userId);
+        job.setPriority(priorityFor(fileSize));
+        job.setStatus(DocJob.STATUS_PENDING);
+        job.setAttempts(0);
+        job.setNextRunAt(LocalDateTime.now());
+        docJobMapper.insert(job);
+        log.info("文档处理任务已入队: jobId={}, docId={}, userId={}, priority={}",
+                job.getId(), docId, userId, job.getPriority());
+        wakeUp();
+        return true;
+    }
+
+    @Override
+    public void reprocess(Long userId, Long docId) {
+        // 依据状态做决策，直接查库，不读元数据缓存
+        Document document = documentMapper.selectById(docId);
+        if (document == null || !document.getUserId().equals(userId)) {
+            throw new BizException(ResultCode.DOCUMENT_NOT_FOUND);
+        }
+        if (!Integer.valueOf(Document.STATUS_PENDING).equals(document.getStatus())) {
+            throw new BizException(ResultCode.DOCUMENT_PROCESSING, "文档正在处理或已完成");
+        }
+        if (!enqueue(docId, userId, document.getFileSize() == null ? 0 : document.getFileSize())) {
+            throw new BizException(ResultCode.DOCUMENT_PROCESSING);
+        }
+    }
+
+    /**
+     * 小文件优先：&lt;1MB 为 3，&lt;10MB 为 2，&lt;50MB 为 1，其余为 0
+     */
+    static int priorityFor(long fileSize) {
+        long mb = fileSize / (1024 * 1024);
+        if (mb < 1) {
+            return 3;
+        }
+        if (mb < 10) {
+            return 2;
+        }
+        return mb < 50 ? 1 : 0;
+    }
+
+    /**
+     * 调度循环：有空闲槽位时领取一个任务交给线程池，领不到就等待轮询间隔或入队通知
+     */
+    private void dispatchLoop() {
+        while (active) {
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            DocJob job = null;
+            try {
+                job = claimNext();
+            } catch (RuntimeException e) {
+                log.warn("领取文档任务失败: {}", e.getMessage());
+            }
+            if (job == null) {
+                slots.release();
+                await(properties.getPollInterval());
+                continue;
+            }
+            DocJob claimed = job;
+            JobLease lease = running.get(claimed.getId());
+            try {
+                docProcessExecutor.execute(() -> run(claimed, lease));
+            } catch (TaskRejectedException e) {
+                // 线程池已关闭：放弃租约，到期后由其他实例接管
+                running.remove(claimed.getId());
+                slots.release();
+                log.warn("文档处理线程池拒绝任务，等待租约过期后重新调度: jobId={}", claimed.getId());
+            }
+        }
+    }
+
+    /**
+     * 扫描候选任务，按（用户执行中任务数，优先级，ID）排序后依次尝试 CAS 领取
+     */
+    private DocJob claimNext() {
+        List<DocJob> candidates = docJobMapper.selectRunnable(properties.getPerUserScanLimit(),
+                properties.getScanLimit());
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Map<Long, Long> runningByUser = new HashMap<>();
+        for (Map<String, Object> row : docJobMapper.countRunningByUser()) {
+            runningByUser.put(((Number) row.get("userId")).longValue(), ((Number) row.get("running")).longValue());
+        }
+        candidates.sort(Comparator
+                .comparingLong((DocJob job) -> runningByUser.getOrDefault(job.getUserId(), 0L))
+                .thenComparing(DocJob::getPriority, Comparator.reverseOrder())
+                .thenComparing(DocJob::getId));
+        long leaseMillis = properties.getLease().toMillis();
+        for (DocJob job : candidates) {
+            long sentNanos = System.nanoTime();
+            if (docJobMapper.claim(job.getId(), owner, leaseMillis) == 1) {
+                running.put(job.getId(), new JobLease(leaseMillis, sentNanos));
+                job.setAttempts(job.getAttempts() + 1);
+                if (job.getCreateTime() != null && job.getAttempts() == 1) {
+                    queueWait.record(Duration.between(job.getCreateTime(), LocalDateTime.now()));
+                }
+                return job;
+            }
+        }
+        return null;
+    }
+
+    private void run(DocJob job, JobLease lease) {
+        try {
+            lease.check();
+            if (job.getAttempts() > 1) {
+                // 上一次尝试若中途宕机，文档会停在"向量化中"，先恢复为未处理（进死信前也要恢复，否则无法手动重新处理）
+                if (documentMapper.updateStatus(job.getDocId(), Document.STATUS_PROCESSING, Document.STATUS_PENDING) == 1) {
+                    documentService.onChanged(job.getUserId(), job.getDocId());
+                }
+            }
+            if (job.getAttempts() > properties.getMaxAttempts()) {
+                // 上一个持有者在最后一次尝试中宕机
+                finishDead(job, "重试次数已用尽（执行实例中途退出）");
+                return;
+            }
+            docProcessService.process(job.getDocId(), lease);
+            if (docJobMapper.markSucceeded(job.getId(), owner) == 1) {
+                succeeded.increment();
+            } else {
+                leaseLost.increment();
+                log.warn("任务完成时租约已丢失: jobId={}, docId={}", job.getId(), job.getDocId());
+            }
+        } catch (RuntimeException e) {
+            String error = truncate(e.getMessage());
+            if (!lease.isHeld()) {
+                leaseLost.increment();
+                log.warn("任务租约已丢失，放弃本次执行: jobId={}, docId={}, error={}", job.getId(), job.getDocId(), error);
+            } else if (job.getAttempts() >= properties.getMaxAttempts()) {
+                finishDead(job, error);
+            } else {
+                long delayMillis = properties.getRetryBaseDelay().toMillis() << (job.getAttempts() - 1);
+                if (docJobMapper.retryLater(job.getId(), owner, delayMillis, error) == 1) {
+                    retried.increment();
+                    log.warn("文档处理失败，{}ms 后重试: jobId={}, docId={}, attempt={}/{}, error={}", delayMillis,
+                            job.getId(), job.getDocId(), job.getAttempts(), properties.getMaxAttempts(), error);
+                }
+            }
+        } finally {
+            running.remove(job.getId());
+            slots.release();
+            wakeUp();
+        }
+    }
+
+    private void finishDead(DocJob job, String error) {
+        if (docJobMapper.markDead(job.getId(), owner, error) == 1) {
+            dead.increment();
+            log.error("文档处理任务进入死信: jobId={}, docId={}, attempts={}, error={}",
+                    job.getId(), job.getDocId(), job.getAttempts(), error);
+        }
+    }
+
+    private void renewLeases() {
+        long leaseMillis = properties.getLease().toMillis();
+        running.forEach((jobId, lease) -> {
+            long sentNanos = System.nanoTime();
+            try {
+                if (docJobMapper.renew(jobId, owner, leaseMillis) == 0) {
+                    // 处理线程在下一次写库前发现并停止
+                    lease.lost();
+                    leaseLost.increment();
+                    log.warn("任务租约续约失败（已被其他实例接管或已结束）: jobId={}", jobId);
+                } else {
+                    lease.renewed(sentNanos);
+                }
+            } catch (RuntimeException e) {
+                // 不确认续约，持续出错时租约按本地时钟在数据库到期前失效
+                log.warn("任务租约续约出错: jobId={}, error={}", jobId, e.getMessage());
+            }
+        });
+    }
+
+    private void await(Duration timeout) {
+        synchronized (signal) {
+            try {
+                signal.wait(Math.max(1, timeout.toMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                active = false;
+            }
+        }
+    }
+
+    private void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "未知错误";
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -0,0 +1,485 @@
+package com.uni.research.module.doc.service.impl;
+
+import com.uni.research.common.config.StorageProperties;
+import com.uni.research.common.event.DocumentUploadedEvent;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.UploadInitRequest;
+import com.uni.research.module.doc.dto.UploadResultVO;
+import com.uni.research.module.doc.dto.UploadSessionVO;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.doc.service.DocUploadService;
+import com.uni.research.module.doc.service.DocumentService;
+import com.uni.research.module.doc.storage.FileStorage;
+import com.uni.research.module.doc.storage.FileTypeDetector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 文档分片上传服务实现
+ *
+ * 对应 408 考点：操作系统 - 文件系统、I/O 方式（DMA / 零拷贝）；计算机网络 - 数据完整性校验
+ *
+ * 设计思路：
+ * 1. 分片以请求体原始字节流上传（不走 multipart，Tomcat 不再落一次临时文件），
+ *    DigestInputStream 边读边算 SHA-256，FileChannel.transferFrom 直接写入分片文件，
+ *    堆上只有固定大小的读缓冲，与文件大小无关
+ * 2. 分片先写临时文件，校验通过后 rename 为 "{序号}-{sha256}.part"，rename 是原子的，
+ *    所以目录里存在的 .part 一定是完整分片；断点续传时列目录即可知道已上传哪些分片
+ * 3. 内容指纹 = 按顺序拼接各分片 SHA-256 后再做一次 SHA-256（与 S3 分段上传 ETag 同思路），
+ *    合并时不需要再把文件读一遍；同一用户重复上传同一内容直接复用，不同用户共享存储对象
+ * 4. 合并用 FileChannel.transferTo（Linux 上为 copy_file_range / sendfile），数据不经过用户态；
+ *    本地存储时合并结果 rename 到存储目录，全程只写一次磁盘
+ * 5. 文件类型只看第 0 片的前 512 字节魔数，首片上传时即拒绝不支持的类型
+ *
+ * 面试话术：
+ * "大文件上传我做了前端分片 + 断点续传。每个分片是边收边算哈希边落盘的，
+ * 用 transferFrom 写文件，内存占用和文件大小无关；合并用 transferTo 零拷贝。
+ * 文件指纹用分片哈希再哈希，合并时不用重新读文件，同一个文件传第二次直接秒回。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(StorageProperties.class)
+public class DocUploadServiceImpl implements DocUploadService {
+
+    private static final Pattern UPLOAD_ID = Pattern.compile("[0-9a-f]{32}");
+
+    private static final String SESSION_FILE = "session.properties";
+
+    private static final String PART_SUFFIX = ".part";
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final StorageProperties properties;
+
+    private final FileStorage fileStorage;
+
+    private final DocumentMapper documentMapper;
+
+    private final DocumentService documentService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Path tempRoot;
+
+    /**
+     * 正在合并的上传会话，防止重复提交
+     */
+    private final Set<String> completing = ConcurrentHashMap.newKeySet();
+
+    private final Counter uploadedBytes;
+
+    private final Counter deduplicated;
+
+    private final Timer mergeLatency;
+
+    public DocUploadServiceImpl(StorageProperties properties, FileStorage fileStorage,
+                                DocumentMapper documentMapper, DocumentService documentService,
+                                ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.fileStorage = fileStorage;
+        this.documentMapper = documentMapper;
+        this.documentService = documentService;
+        this.eventPublisher = eventPublisher;
+        this.tempRoot = Paths.get(properties.getTempDir()).toAbsolutePath().normalize();
+        this.uploadedBytes = Counter.builder("doc.upload.bytes")
+                .description("已接收的分片字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.deduplicated = Counter.builder("doc.upload.deduplicated")
+                .description("内容指纹命中、直接复用的上传次数")
+                .register(meterRegistry);
+        this.mergeLatency = Timer.builder("doc.upload.merge")
+                .description("分片合并并存储的耗时")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public UploadSessionVO init(Long userId, UploadInitRequest request) {
+        if (!FileTypeDetector.supportsExtension(request.getFileName())) {
+            throw new BizException(ResultCode.BAD_REQUEST, "仅支持 PDF、TXT、Markdown 文件");
+        }
+        if (request.getFileSize() > properties.getMaxFileSize()) {
+            throw new BizException(ResultCode.BAD_REQUEST,
+                    "文件大小超过上限 " + properties.getMaxFileSize() / 1024 / 1024 + "MB");
+        }
+        int chunkSize = properties.getChunkSize();
+        int totalChunks = (int) ((request.getFileSize() + chunkSize - 1) / chunkSize);
+        Session session = new Session(userId, request.getFileName(), request.getFileSize(), chunkSize, totalChunks);
+        String uploadId = UUID.randomUUID().toString().replace("-", "");
+        try {
+            Path dir = Files.createDirectories(tempRoot.resolve(uploadId));
+            session.write(dir.resolve(SESSION_FILE));
+        } catch (IOException e) {
+            log.error("创建上传会话失败: userId={}, error={}", userId, e.getMessage());
+            throw new BizException("创建上传会话失败");
+        }
+        log.info("创建上传会话: uploadId={}, userId={}, fileName={}, size={}, chunks={}",
+                uploadId, userId, request.getFileName(), request.getFileSize(), totalChunks);
+        return new UploadSessionVO(uploadId, chunkSize, totalChunks, new ArrayList<>());
+    }
+
+    @Override
+    public UploadSessionVO status(Long userId, String uploadId) {
+        Path dir = sessionDir(uploadId);
+        Session session = loadSession(userId, dir);
+        return new UploadSessionVO(uploadId, session.chunkSize(), session.totalChunks(),
+                new ArrayList<>(listParts(dir).keySet()));
+    }
+
+    @Override
+    public void uploadChunk(Long userId, String uploadId, int index, InputStream body, String expectedSha256) {
+        Path dir = sessionDir(uploadId);
+        Session session = loadSession(userId, dir);
+        if (index < 0 || index >= session.totalChunks()) {
+            throw new BizException(ResultCode.BAD_REQUEST, "分片序号越界: " + index);
+        }
+        long expectedLength = session.chunkLength(index);
+        Path temp = dir.resolve(index + "-" + UUID.randomUUID() + ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            long written = 0;
+            boolean trailing;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(new DigestInputStream(body, digest))) {
+                while (written < expectedLength) {
+                    long n = out.transferFrom(in, written, expectedLength - written);
+                    if (n <= 0) {
+                        break;
+                    }
+                    written += n;
+                }
+                trailing = body.read() != -1;
+            }
+            uploadedBytes.increment(written);
+            if (written != expectedLength || trailing) {
+                throw new BizException(ResultCode.BAD_REQUEST, "分片大小不符，应为 " + expectedLength + " 字节");
+            }
+            String sha256 = HEX.formatHex(digest.digest());
+            if (expectedSha256 != null && !expectedSha256.isBlank() && !sha256.equalsIgnoreCase(expectedSha256)) {
+                throw new BizException(ResultCode.BAD_REQUEST, "分片校验失败，请重新上传");
+            }
+            if (index == 0 && detectType(temp, session.fileName()) == null) {
+                throw new BizException(ResultCode.BAD_REQUEST, "文件内容与类型不符，仅支持 PDF、TXT、Markdown 文件");
+            }
+            Path part = dir.resolve(index + "-" + sha256 + PART_SUFFIX);
+            Files.move(temp, part, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            removeStaleParts(dir, index, part);
+        } catch (IOException e) {
+            log.warn("分片写入失败: uploadId={}, index={}, error={}", uploadId, index, e.getMessage());
+            throw new BizException("分片写入失败，请重试");
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    @Override
+    public UploadResultVO complete(Long userId, String uploadId) {
+        Path dir = sessionDir(uploadId);
+        Session session = loadSession(userId, dir);
+        if (!completing.add(uploadId)) {
+            throw new BizException(ResultCode.BAD_REQUEST, "文件正在合并，请勿重复提交");
+        }
+        try {
+            Map<Integer, Path> parts = listParts(dir);
+            if (parts.size() != session.totalChunks()) {
+                throw new BizException(ResultCode.BAD_REQUEST,
+                        "分片未上传完整：" + parts.size() + "/" + session.totalChunks());
+            }
+            MessageDigest fingerprint = sha256();
+            for (Map.Entry<Integer, Path> entry : parts.entrySet()) {
+                Path part = entry.getValue();
+                if (Files.size(part) != session.chunkLength(entry.getKey())) {
+                    throw new BizException(ResultCode.BAD_REQUEST, "分片 " + entry.getKey() + " 大小不符，请重新上传");
+                }
+                fingerprint.update(HEX.parseHex(partHash(part)));
+            }
+            String fileHash = HEX.formatHex(fingerprint.digest());
+            String fileType = detectType(parts.get(0), session.fileName());
+            if (fileType == null) {
+                throw new BizException(ResultCode.BAD_REQUEST, "文件内容与类型不符，仅支持 PDF、TXT、Markdown 文件");
+            }
+
+            Document existing = documentMapper.selectByFileHash(userId, fileHash);
+            if (existing != null) {
+                deduplicated.increment();
+                deleteSession(dir);
+                log.info("上传内容已存在，复用文档: uploadId={}, docId={}", uploadId, existing.getId());
+                return new UploadResultVO(existing.getId(), existing.getFileType(), existing.getFileSize(), fileHash, true);
+            }
+
+            String key = fileHash.substring(0, 2) + "/" + fileHash + "." + FileTypeDetector.storageExtension(fileType);
+            long start = System.nanoTime();
+            if (!fileStorage.exists(key)) {
+                Path merged = dir.resolve("merged.tmp");
+                merge(parts, merged);
+                fileStorage.put(key, merged, FileTypeDetector.contentType(fileType));
+            } else {
+                deduplicated.increment();
+            }
+            mergeLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            Document document = new Document();
+            document.setUserId(userId);
+            document.setTitle(stripExtension(session.fileName()));
+            document.setFileName(session.fileName());
+            document.setFilePath(key);
+            document.setFileSize(session.fileSize());
+            document.setFileType(fileType);
+            document.setFileHash(fileHash);
+            document.setStatus(Document.STATUS_PENDING);
+            documentMapper.insert(document);
+            documentService.onChanged(userId, document.getId());
+            deleteSession(dir);
+            eventPublisher.publishEvent(new DocumentUploadedEvent(this, document.getId(), userId));
+            log.info("上传完成: uploadId={}, docId={}, type={}, size={}, costMs={}", uploadId, document.getId(),
+                    fileType, session.fileSize(), (System.nanoTime() - start) / 1_000_000);
+            return new UploadResultVO(document.getId(), fileType, session.fileSize(), fileHash, false);
+        } catch (IOException e) {
+            log.error("分片合并失败: uploadId={}, error={}", uploadId, e.getMessage());
+            throw new BizException("文件合并失败，请重试");
+        } finally {
+            completing.remove(uploadId);
+        }
+    }
+
+    @Override
+    public void abort(Long userId, String uploadId) {
+        Path dir = sessionDir(uploadId);
+        loadSession(userId, dir);
+        deleteSession(dir);
+    }
+
+    /**
+     * 定期清理过期的上传会话（目录最后修改时间超过 uploadTtl）
+     */
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT5M")
+    public void cleanExpiredSessions() {
+        if (!Files.isDirectory(tempRoot)) {
+            return;
+        }
+        FileTime deadline = FileTime.from(Instant.now().minus(properties.getUploadTtl()));
+        int removed = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(tempRoot)) {
+            for (Path dir : sessions) {
+                if (Files.isDirectory(dir) && !completing.contains(dir.getFileName().toString())
+                        && Files.getLastModifiedTime(dir).compareTo(deadline) < 0) {
+                    deleteSession(dir);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理过期上传会话失败: {}", e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("已清理过期上传会话: count={}", removed);
+        }
+    }
+
+    /**
+     * 零拷贝合并：transferTo 由内核在文件之间直接搬运数据
+     */
+    private void merge(Map<Integer, Path> parts, Path merged) throws IOException {
+        try (FileChannel out = FileChannel.open(merged, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Path part : parts.values()) {
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    long transferred = 0;
+                    while (transferred < size) {
+                        transferred += in.transferTo(transferred, size - transferred, out);
+                    }
+                    position += size;
+                }
+            }
+            out.force(false);
+            log.debug("分片合并完成: parts={}, bytes={}", parts.size(), position);
+        }
+    }
+
+    /**
+     * 读取分片文件头部识别类型
+     */
+    private String detectType(Path firstPart, String fileName) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(FileTypeDetector.HEAD_BYTES);
+        try (FileChannel channel = FileChannel.open(firstPart, StandardOpenOption.READ)) {
+            while (head.hasRemaining() && channel.read(head) > 0) {
+                // 读满头部或到达文件末尾
+            }
+        }
+        return FileTypeDetector.detect(head.array(), head.position(), fileName);
+    }
+
+    /**
+     * 列出已完成的分片：序号 → 文件，按序号升序
+     */
+    private Map<Integer, Path> listParts(Path dir) {
+        Map<Integer, Path> parts = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + PART_SUFFIX)) {
+            for (Path part : stream) {
+                parts.merge(partIndex(part), part, (a, b) -> newer(a, b));
+            }
+        } catch (IOException e) {
+            log.warn("读取分片列表失败: dir={}, error={}", dir, e.getMessage());
+            throw new BizException("读取上传进度失败");
+        }
+        return parts;
+    }
+
+    /**
+     * 同一分片被并发重复上传时可能短暂存在两份，取较新的一份
+     */
+    private static Path newer(Path a, Path b) {
+        try {
+            return Files.getLastModifiedTime(a).compareTo(Files.getLastModifiedTime(b)) >= 0 ? a : b;
+        } catch (IOException e) {
+            return Files.exists(a) ? a : b;
+        }
+    }
+
+    private void removeStaleParts(Path dir, int index, Path keep) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, index + "-*" + PART_SUFFIX)) {
+            for (Path part : stream) {
+                if (!part.equals(keep)) {
+                    deleteQuietly(part);
+                }
+            }
+        }
+    }
+
+    private static int partIndex(Path part) {
+        String name = part.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.indexOf('-')));
+    }
+
+    private static String partHash(Path part) {
+        String name = part.getFileName().toString();
+        return name.substring(name.indexOf('-') + 1, name.length() - PART_SUFFIX.length());
+    }
+
+    private Path sessionDir(String uploadId) {
+        if (uploadId == null || !UPLOAD_ID.matcher(uploadId).matches()) {
+            throw new BizException(ResultCode.NOT_FOUND, "上传会话不存在或已过期");
+        }
+        return tempRoot.resolve(uploadId);
+    }
+
+    private Session loadSession(Long userId, Path dir) {
+        Session session;
+        try {
+            session = Session.read(dir.resolve(SESSION_FILE));
+        } catch (IOException | RuntimeException e) {
+            session = null;
+        }
+        // 不属于当前用户的会话同样视为不存在，不暴露会话 ID 是否有效
+        if (session == null || !session.userId().equals(userId)) {
+            throw new BizException(ResultCode.NOT_FOUND, "上传会话不存在或已过期");
+        }
+        return session;
+    }
+
+    private void deleteSession(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(DocUploadServiceImpl::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("删除上传会话目录失败: dir={}, error={}", dir, e.getMessage());
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("删除文件失败: path={}, error={}", path, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+
+    /**
+     * 上传会话元数据，保存在会话目录的 session.properties
+     */
+    private record Session(Long userId, String fileName, long fileSize, int chunkSize, int totalChunks) {
+
+        long chunkLength(int index) {
+            return index < totalChunks - 1 ? chunkSize : fileSize - (long) chunkSize * (totalChunks - 1);
+        }
+
+        void write(Path file) throws IOException {
+            Properties props = new Properties();
+            props.setProperty("userId", String.valueOf(userId));
+            props.setProperty("fileName", fileName);
+            props.setProperty("fileSize", String.valueOf(fileSize));
+            props.setProperty("chunkSize", String.valueOf(chunkSize));
+            props.setProperty("totalChunks", String.valueOf(totalChunks));
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                props.store(writer, null);
+            }
+        }
+
+        static Session read(Path file) throws IOException {
+            Properties props = new Properties();
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                props.load(reader);
+            }
+            return new Session(Long.valueOf(props.getProperty("userId")), props.getProperty("fileName"),
+                    Long.parseLong(props.getProperty("fileSize")), Integer.parseInt(props.getProperty("chunkSize")),
+                    Integer.parseInt(props.getProperty("totalChunks")));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.uni.research.module.doc.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.uni.research.common.cache.MetadataCache;
+import com.uni.research.common.config.MetadataCacheProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.doc.dto.DocumentVO;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.doc.service.DocumentService;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 文档元数据查询实现
+ *
+ * 对应 408 考点：数据库 - B+ 树索引（范围查询）、计算机组成 - 多级缓存
+ *
+ * 设计思路：
+ * 1. 列表用键集分页（id &lt; 游标 ORDER BY id DESC），每页耗时只和页大小有关，与翻到第几页、用户有多少文档无关
+ * 2. 列表页和单个文档都走 MetadataCache 两级缓存；上传完成、处理状态变化时由写入方调用 onChanged 失效
+ * 3. 多查一条判断是否还有下一页，不做 COUNT(*)
+ * 4. 归属校验复用单个文档的缓存：文档的 user_id 写入后不再变化，缓存不会给出过期的归属
+ * 5. 检索范围同样走缓存：用户已完成文档的 ID 列表按用户版本号缓存，状态变化经 onChanged 失效；
+ *    指定文档时逐个读单个文档的缓存判断归属和状态，检索路径上不再有 MySQL 往返
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Service
+public class DocumentServiceImpl implements DocumentService {
+
+    private static final String REGION = "doc";
+
+    private static final String PAGE_REGION = "doc-page";
+
+    private static final String COMPLETED_REGION = "doc-completed";
+
+    private final DocumentMapper documentMapper;
+
+    private final MetadataCacheProperties properties;
+
+    private final MetadataCache.Region<Document> documents;
+
+    private final MetadataCache.Region<CursorPage<DocumentVO>> pages;
+
+    private final MetadataCache.Region<List<Long>> completedIds;
+
+    public DocumentServiceImpl(DocumentMapper documentMapper, MetadataCache metadataCache,
+                               MetadataCacheProperties properties) {
+        this.documentMapper = documentMapper;
+        this.properties = properties;
+        this.documents = metadataCache.region(REGION, Document.class);
+        this.pages = metadataCache.region(PAGE_REGION, new TypeReference<>() {
+        });
+        this.completedIds = metadataCache.region(COMPLETED_REGION, new TypeReference<>() {
+        });
+    }
+
+    @Override
+    public CursorPage<DocumentVO> list(Long userId, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, properties.getMaxPageSize()));
+        long beforeId = cursor == null ? Long.MAX_VALUE : cursor;
+        return pages.getForUser(userId, beforeId + ":" + pageSize, () -> {
+            List<DocumentVO> rows = documentMapper.selectBefore(userId, beforeId, pageSize + 1)
+                    .stream()
+                    .map(DocumentServiceImpl::toVO)
+                    .toList();
+            return CursorPage.of(rows, pageSize, DocumentVO::getId);
+        });
+    }
+
+    @Override
+    public Document get(Long docId) {
+        return documents.get(docId, () -> documentMapper.selectById(docId));
+    }
+
+    @Override
+    public void checkOwner(Long userId, Collection<Long> docIds) {
+        for (Long docId : docIds) {
+            Document document = get(docId);
+            if (document == null || !document.getUserId().equals(userId)) {
+                throw BizException.of(ResultCode.DOCUMENT_NOT_FOUND);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> searchableIds(Long userId, Collection<Long> docIds) {
+        if (docIds == null || docIds.isEmpty()) {
+            return completedIds.getForUser(userId, "all", () -> documentMapper.selectCompletedIds(userId));
+        }
+        List<Long> searchable = new ArrayList<>(docIds.size());
+        for (Long docId : docIds) {
+            Document document = get(docId);
+            if (document != null && document.getUserId().equals(userId)
+                    && Integer.valueOf(Document.STATUS_COMPLETED).equals(document.getStatus())) {
+                searchable.add(docId);
+            }
+        }
+        return searchable;
+    }
+
+    @Override
+    public void onChanged(Long userId, Long docId) {
+        documents.evict(docId);
+        pages.evictUser(userId);
+        completedIds.evictUser(userId);
+    }
+
+    private static DocumentVO toVO(Document document) {
+        DocumentVO vo = new DocumentVO();
+        vo.setId(document.getId());
+        vo.setTitle(document.getTitle());
+        vo.setFileName(document.getFileName());
+        vo.setFileSize(document.getFileSize());
+        vo.setFileType(document.getFileType());
+        vo.setStatus(document.getStatus());
+        vo.setCreateTime(document.getCreateTime());
+        vo.setUpdateTime(document.getUpdateTime());
+        return vo;
+    }
+}
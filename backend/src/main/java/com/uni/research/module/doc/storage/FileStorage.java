@@ -0,0 +1,39 @@
+package com.uni.research.module.doc.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * 文件存储（本地磁盘 / MinIO），按 storage.type 选择实现
+ *
+ * 存储 key 由上传服务按内容指纹生成，相同内容只存一份
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface FileStorage {
+
+    /**
+     * 对象是否已存在（用于内容去重）
+     */
+    boolean exists(String key) throws IOException;
+
+    /**
+     * 把本地已合并好的文件存入存储；调用后 source 可能被移走，调用方不应再使用
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * 打开对象的输入流，调用方负责关闭
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * 获取对象的本地文件（供需要随机访问的解析器使用，如 PDF）：
+     * 本地存储直接返回存储文件，对象存储流式下载到临时文件，调用方用完后关闭
+     */
+    LocalFile fetch(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,114 @@
+package com.uni.research.module.doc.storage;
+
+import java.util.Locale;
+
+/**
+ * 文件类型识别：只看文件头若干字节（Magic Number），不信任扩展名
+ *
+ * 对应 408 考点：操作系统 - 文件系统（文件的逻辑结构与文件头）
+ *
+ * 设计思路：
+ * 1. PDF 以 "%PDF-" 开头，直接按魔数判断
+ * 2. TXT / Markdown 没有魔数，用"是否像文本"判断：不含 NUL 和除空白外的 C0 控制字符，
+ *    UTF-8 与 GBK 的多字节都 ≥ 0x80，两种编码的中文文本都能通过；再由扩展名区分 txt / markdown
+ * 3. 扩展名与内容矛盾（如 .pdf 但不是 PDF 魔数、.txt 但内容是二进制）一律拒绝
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class FileTypeDetector {
+
+    public static final String TYPE_PDF = "pdf";
+
+    public static final String TYPE_TXT = "txt";
+
+    public static final String TYPE_MARKDOWN = "markdown";
+
+    /**
+     * 识别所需的最大头部字节数
+     */
+    public static final int HEAD_BYTES = 512;
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    private FileTypeDetector() {
+    }
+
+    /**
+     * 识别文件类型
+     *
+     * @param head     文件头部字节
+     * @param length   有效长度
+     * @param fileName 原始文件名（用于区分文本类型）
+     * @return pdf / txt / markdown，不支持的类型返回 null
+     */
+    public static String detect(byte[] head, int length, String fileName) {
+        String extension = extension(fileName);
+        if (startsWith(head, length, PDF_MAGIC)) {
+            return "pdf".equals(extension) ? TYPE_PDF : null;
+        }
+        if (!looksLikeText(head, length)) {
+            return null;
+        }
+        return switch (extension) {
+            case "txt", "text" -> TYPE_TXT;
+            case "md", "markdown" -> TYPE_MARKDOWN;
+            default -> null;
+        };
+    }
+
+    /**
+     * 扩展名是否属于支持的类型（初始化上传时提前拒绝，内容仍以魔数为准）
+     */
+    public static boolean supportsExtension(String fileName) {
+        return switch (extension(fileName)) {
+            case "pdf", "txt", "text", "md", "markdown" -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * 类型对应的 Content-Type
+     */
+    public static String contentType(String type) {
+        return switch (type) {
+            case TYPE_PDF -> "application/pdf";
+            case TYPE_MARKDOWN -> "text/markdown";
+            default -> "text/plain";
+        };
+    }
+
+    /**
+     * 存储时使用的扩展名
+     */
+    public static String storageExtension(String type) {
+        return TYPE_MARKDOWN.equals(type) ? "md" : type;
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        if (length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (head[i] != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean looksLikeText(byte[] head, int length) {
+        for (int i = 0; i < length; i++) {
+            int b = head[i] & 0xFF;
+            if (b < 0x20 && b != '\t' && b != '\n' && b != '\r' && b != '\f' && b != 0x1B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName == null ? -1 : fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
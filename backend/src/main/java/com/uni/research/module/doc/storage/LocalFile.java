@@ -0,0 +1,31 @@
+package com.uni.research.module.doc.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 存储对象对应的本地文件；对象存储下载出来的临时文件在 close 时删除
+ *
+ * @param path      本地文件路径
+ * @param temporary 是否为临时副本
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+public record LocalFile(Path path, boolean temporary) implements AutoCloseable {
+
+    @Override
+    public void close() {
+        if (!temporary) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: path={}, error={}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.uni.research.module.doc.storage;
+
+import com.uni.research.common.config.StorageProperties;
+import io.minio.BucketExistsArgs;
+import io.minio.GetObjectArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.UploadObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.MinioException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+
+/**
+ * MinIO 对象存储
+ *
+ * put 使用 uploadObject 从本地文件分段上传，SDK 按固定段大小读取，堆内存与文件大小无关
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(StorageProperties.class)
+@ConditionalOnProperty(prefix = "storage", name = "type", havingValue = "minio")
+public class MinioFileStorage implements FileStorage {
+
+    private final MinioClient client;
+
+    private final String bucket;
+
+    private volatile boolean bucketReady;
+
+    public MinioFileStorage(StorageProperties properties) {
+        StorageProperties.Minio minio = properties.getMinio();
+        this.client = MinioClient.builder()
+                .endpoint(minio.getEndpoint())
+                .credentials(minio.getAccessKey(), minio.getSecretKey())
+                .build();
+        this.bucket = minio.getBucket();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        try {
+            client.statObject(StatObjectArgs.builder().bucket(bucket).object(key).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code()) || "NoSuchBucket".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw new IOException("MinIO 查询对象失败: " + key, e);
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException("MinIO 查询对象失败: " + key, e);
+        }
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        try {
+            ensureBucket();
+            client.uploadObject(UploadObjectArgs.builder()
+                    .bucket(bucket)
+                    .object(key)
+                    .filename(source.toString())
+                    .contentType(contentType)
+                    .build());
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException("MinIO 上传对象失败: " + key, e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        try {
+            return client.getObject(GetObjectArgs.builder().bucket(bucket).object(key).build());
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException("MinIO 读取对象失败: " + key, e);
+        }
+    }
+
+    @Override
+    public LocalFile fetch(String key) throws IOException {
+        Path temp = Files.createTempFile("minio-", ".tmp");
+        try (InputStream in = open(key)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return new LocalFile(temp, true);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            client.removeObject(RemoveObjectArgs.builder().bucket(bucket).object(key).build());
+        } catch (MinioException | GeneralSecurityException e) {
+            throw new IOException("MinIO 删除对象失败: " + key, e);
+        }
+    }
+
+    private void ensureBucket() throws MinioException, GeneralSecurityException, IOException {
+        if (bucketReady) {
+            return;
+        }
+        if (!client.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+            client.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+            log.info("MinIO 存储桶已创建: {}", bucket);
+        }
+        bucketReady = true;
+    }
+}
@@ -0,0 +1,27 @@
+package com.uni.research.module.rag.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 缓存的 RAG 回答
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedAnswer {
+
+    /**
+     * 完整回答文本
+     */
+    private String answer;
+
+    /**
+     * 首次生成该回答的耗时（毫秒），命中缓存时计入"节省的 LLM 耗时"
+     */
+    private long generationMillis;
+}
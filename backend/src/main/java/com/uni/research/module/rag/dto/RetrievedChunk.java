@@ -0,0 +1,46 @@
+package com.uni.research.module.rag.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 混合检索结果中的一个文本块
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedChunk {
+
+    private Long chunkId;
+
+    private Long docId;
+
+    /**
+     * RRF 融合分值
+     */
+    private double score;
+
+    /**
+     * 向量相似度，未被向量检索召回时为 null
+     */
+    private Float vectorScore;
+
+    /**
+     * 在向量结果中的名次（从 1 开始），未召回时为 null
+     */
+    private Integer vectorRank;
+
+    /**
+     * 在关键词结果中的名次（从 1 开始），未召回时为 null
+     */
+    private Integer keywordRank;
+
+    /**
+     * 文本块原文（作为上下文发给 AI 服务）
+     */
+    private String text;
+}
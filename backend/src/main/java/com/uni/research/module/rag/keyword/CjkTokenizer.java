@@ -0,0 +1,99 @@
+package com.uni.research.module.rag.keyword;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 中英文混合分词器
+ *
+ * 设计思路：
+ * 1. 不依赖词典：中文（以及日文假名、韩文）连续片段切成重叠的二元组（"向量检索" → 向量 / 量检 / 检索），
+ *    单字片段保留单字；查询用同样的规则切分，只要查询词在原文里连续出现就一定能命中
+ * 2. 英文和数字按连续字母数字切词，统一小写；全角字母数字先转半角
+ * 3. 标点、空白作为分隔符丢弃；高频无意义的二元组（如"的是"）由 BM25 的 IDF 自动降权，不单独维护停用词表
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class CjkTokenizer {
+
+    private CjkTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
+
+    public static void tokenize(String text, Consumer<String> sink) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder word = new StringBuilder();
+        StringBuilder cjk = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            codePoint = toHalfWidth(codePoint);
+            if (isCjk(codePoint)) {
+                flushWord(word, sink);
+                cjk.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushCjk(cjk, sink);
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flushWord(word, sink);
+                flushCjk(cjk, sink);
+            }
+        }
+        flushWord(word, sink);
+        flushCjk(cjk, sink);
+    }
+
+    private static void flushWord(StringBuilder word, Consumer<String> sink) {
+        if (word.length() > 0) {
+            sink.accept(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    /**
+     * 中文片段切二元组（按码点，避免切断代理对）
+     */
+    private static void flushCjk(StringBuilder cjk, Consumer<String> sink) {
+        if (cjk.length() == 0) {
+            return;
+        }
+        int count = cjk.codePointCount(0, cjk.length());
+        if (count == 1) {
+            sink.accept(cjk.toString());
+        } else {
+            int start = 0;
+            for (int n = 0; n < count - 1; n++) {
+                int second = cjk.offsetByCodePoints(start, 1);
+                int end = cjk.offsetByCodePoints(second, 1);
+                sink.accept(cjk.substring(start, end));
+                start = second;
+            }
+        }
+        cjk.setLength(0);
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    /**
+     * 全角 ASCII（！到～）转半角
+     */
+    private static int toHalfWidth(int codePoint) {
+        return codePoint >= 0xFF01 && codePoint <= 0xFF5E ? codePoint - 0xFEE0 : codePoint;
+    }
+}
@@ -0,0 +1,309 @@
+package com.uni.research.module.rag.keyword;
+
+import com.uni.research.module.rag.vector.LongHeap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * 内存倒排索引（BM25 打分）
+ *
+ * 对应 408 考点：数据结构 - 散列表、顺序表；数据库 - 索引
+ *
+ * 设计思路：
+ * 1. 词典为 HashMap&lt;词项, 倒排表&gt;，倒排表是两个基本类型数组：文本块序号 int[] + 词频 int[]，
+ *    按插入顺序追加，无需排序；每个文本块只存 chunkId / docId / 长度
+ * 2. BM25：score = Σ IDF(t) · tf·(k1+1) / (tf + k1·(1 - b + b·len/avgLen))，
+ *    IDF(t) = ln(1 + (N - df + 0.5) / (df + 0.5))，恒为正
+ * 3. 检索按词项逐个累加（term-at-a-time），只遍历查询词的倒排表，不扫描全部文本块；
+ *    分值累加在开放定址散列表（序号 → 分值，线性探测）中，容量按查询词的倒排项总数分配，与索引规模无关
+ * 4. 删除用墓碑位图，倒排表不改写；N 和 df 包含墓碑，墓碑过多时由上层整体重建
+ *
+ * 面试话术：
+ * "关键词检索我没有引入 Elasticsearch，而是在 JVM 里按用户建了倒排索引。
+ * 中文用二元组切分，不需要词典；倒排表用 int 数组存，没有装箱；打分用 BM25。
+ * 向量检索擅长语义相近，关键词检索擅长专有名词、公式编号这种精确匹配，两路结果最后用 RRF 融合。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class InvertedIndex {
+
+    private final float k1;
+
+    private final float b;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> terms = new HashMap<>();
+
+    private final Map<Long, Integer> ordinalByChunk = new HashMap<>();
+
+    private final Map<Long, Integer> chunkCountByDoc = new HashMap<>();
+
+    private final BitSet deleted = new BitSet();
+
+    private long[] chunkIds;
+
+    private long[] docIds;
+
+    private int[] lengths;
+
+    private int size;
+
+    private int deletedCount;
+
+    private long totalLength;
+
+    private long postingCount;
+
+    public InvertedIndex(float k1, float b, int initialCapacity) {
+        this.k1 = k1;
+        this.b = b;
+        int capacity = Math.max(initialCapacity, 16);
+        this.chunkIds = new long[capacity];
+        this.docIds = new long[capacity];
+        this.lengths = new int[capacity];
+    }
+
+    /**
+     * 添加一个文本块；相同 chunkId 已存在时忽略
+     */
+    public void add(long chunkId, long docId, String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int[] length = {0};
+        CjkTokenizer.tokenize(text, token -> {
+            frequencies.merge(token, 1, Integer::sum);
+            length[0]++;
+        });
+        lock.writeLock().lock();
+        try {
+            Integer existing = ordinalByChunk.get(chunkId);
+            if (existing != null && !deleted.get(existing)) {
+                return;
+            }
+            if (size == chunkIds.length) {
+                int capacity = size + (size >> 1);
+                chunkIds = Arrays.copyOf(chunkIds, capacity);
+                docIds = Arrays.copyOf(docIds, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+            }
+            int ordinal = size++;
+            chunkIds[ordinal] = chunkId;
+            docIds[ordinal] = docId;
+            lengths[ordinal] = length[0];
+            totalLength += length[0];
+            ordinalByChunk.put(chunkId, ordinal);
+            chunkCountByDoc.merge(docId, 1, Integer::sum);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                terms.computeIfAbsent(entry.getKey(), key -> new Postings()).add(ordinal, entry.getValue());
+            }
+            postingCount += frequencies.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除某文档的全部文本块（墓碑标记），返回删除数量
+     */
+    public int removeDocument(long docId) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if (docIds[ordinal] == docId && !deleted.get(ordinal)) {
+                    deleted.set(ordinal);
+                    ordinalByChunk.remove(chunkIds[ordinal]);
+                    removed++;
+                }
+            }
+            deletedCount += removed;
+            chunkCountByDoc.remove(docId);
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * BM25 Top-K 检索
+     *
+     * @param query     查询文本（与文档同样的规则分词，重复词项只计一次）
+     * @param docFilter 文档过滤条件，null 表示不过滤
+     */
+    public List<KeywordHit> search(String query, int k, LongPredicate docFilter) {
+        Set<String> queryTerms = new LinkedHashSet<>(CjkTokenizer.tokenize(query));
+        lock.readLock().lock();
+        try {
+            if (k <= 0 || size == 0 || queryTerms.isEmpty()) {
+                return Collections.emptyList();
+            }
+            float averageLength = Math.max(1f, (float) totalLength / size);
+            List<Postings> matched = new ArrayList<>(queryTerms.size());
+            long postingTotal = 0;
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings != null) {
+                    matched.add(postings);
+                    postingTotal += postings.size;
+                }
+            }
+            if (matched.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Scores scores = new Scores((int) Math.min(postingTotal, size));
+            for (Postings postings : matched) {
+                float idf = (float) Math.log(1 + (size - postings.size + 0.5) / (postings.size + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int ordinal = postings.ordinals[i];
+                    if (deleted.get(ordinal) || (docFilter != null && !docFilter.test(docIds[ordinal]))) {
+                        continue;
+                    }
+                    int tf = postings.frequencies[i];
+                    float norm = k1 * (1 - b + b * lengths[ordinal] / averageLength);
+                    scores.add(ordinal, idf * tf * (k1 + 1) / (tf + norm));
+                }
+            }
+
+            // 小顶堆保留分值最高的 K 个
+            LongHeap top = new LongHeap(k + 1, false);
+            for (int slot = 0; slot < scores.keys.length; slot++) {
+                int key = scores.keys[slot];
+                if (key == 0) {
+                    continue;
+                }
+                top.push(LongHeap.encode(scores.values[slot], key - 1));
+                if (top.size() > k) {
+                    top.pop();
+                }
+            }
+            long[] ascending = top.drainAscending();
+            List<KeywordHit> hits = new ArrayList<>(ascending.length);
+            for (int i = ascending.length - 1; i >= 0; i--) {
+                int ordinal = LongHeap.node(ascending[i]);
+                hits.add(new KeywordHit(chunkIds[ordinal], docIds[ordinal], LongHeap.distance(ascending[i])));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean containsDocument(long docId) {
+        lock.readLock().lock();
+        try {
+            return chunkCountByDoc.containsKey(docId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 存活的文本块数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double deletedRatio() {
+        lock.readLock().lock();
+        try {
+            return size == 0 ? 0 : (double) deletedCount / size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算内存占用（字节）：倒排表 8 字节/项 + 词典项约 64 字节 + 每个文本块 20 字节
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            return postingCount * 8 + (long) terms.size() * 64 + (long) chunkIds.length * 20;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 单次查询的分值累加表：文本块序号 → 分值，开放定址 + 线性探测，容量为不小于 2 × 预计条目数的 2 的幂
+     */
+    private static final class Scores {
+
+        /**
+         * 序号 + 1，0 表示空槽
+         */
+        private final int[] keys;
+
+        private final float[] values;
+
+        private final int shift;
+
+        private final int mask;
+
+        Scores(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.values = new float[capacity];
+            this.shift = 32 - Integer.numberOfTrailingZeros(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void add(int ordinal, float score) {
+            int key = ordinal + 1;
+            // 斐波那契散列，取乘积高位，连续序号也能均匀分布
+            int slot = (key * 0x9E3779B9) >>> shift;
+            while (true) {
+                int current = keys[slot];
+                if (current == key) {
+                    values[slot] += score;
+                    return;
+                }
+                if (current == 0) {
+                    keys[slot] = key;
+                    values[slot] = score;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * 倒排表：文本块序号 + 词频，两个平行的基本类型数组
+     */
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+
+        private int[] frequencies = new int[4];
+
+        private int size;
+
+        void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.uni.research.module.rag.keyword;
+
+/**
+ * 关键词检索命中结果
+ *
+ * @param chunkId 文本块 ID（doc_embeddings.id）
+ * @param docId   文档 ID
+ * @param score   BM25 分值
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record KeywordHit(long chunkId, long docId, float score) {
+}
@@ -0,0 +1,179 @@
+package com.uni.research.module.rag.repository;
+
+import com.uni.research.module.rag.vector.VectorCodec;
+import com.uni.research.module.rag.vector.VectorHit;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文本块向量存取（PostgreSQL + pgvector 的 doc_embeddings 表）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Repository
+public class DocEmbeddingRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DocEmbeddingRepository(@Qualifier("vectorJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 逐行回调（向量）
+     */
+    @FunctionalInterface
+    public interface EmbeddingRowHandler {
+
+        void handle(long chunkId, long docId, float[] vector);
+    }
+
+    /**
+     * 逐行回调（文本）
+     */
+    @FunctionalInterface
+    public interface ChunkTextRowHandler {
+
+        void handle(long chunkId, long docId, String text);
+    }
+
+    /**
+     * 按主键游标分页遍历指定文档的全部向量
+     *
+     * 使用 WHERE id > lastId ORDER BY id LIMIT n 而不是 OFFSET：每页都走主键索引定位，
+     * 不会随页数增加而变慢；同时避免一次性把几万行 1536 维向量读进内存
+     *
+     * @return 遍历的行数
+     */
+    public long forEachEmbedding(Collection<Long> docIds, int dimension, int pageSize, EmbeddingRowHandler handler) {
+        return forEachPage("embedding::text AS embedding", docIds, pageSize, rs ->
+                handler.handle(rs.getLong("id"), rs.getLong("doc_id"),
+                        VectorCodec.fromPgVector(rs.getString("embedding"), dimension)));
+    }
+
+    /**
+     * 按主键游标分页遍历指定文档的全部文本块原文（用于构建关键词索引）
+     */
+    public long forEachChunkText(Collection<Long> docIds, int pageSize, ChunkTextRowHandler handler) {
+        return forEachPage("chunk_text", docIds, pageSize, rs ->
+                handler.handle(rs.getLong("id"), rs.getLong("doc_id"), rs.getString("chunk_text")));
+    }
+
+    private long forEachPage(String columns, Collection<Long> docIds, int pageSize, RowCallbackHandler handler) {
+        if (docIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "SELECT id, doc_id, " + columns + " FROM doc_embeddings"
+                + " WHERE doc_id IN (" + placeholders(docIds.size()) + ") AND id > ?"
+                + " ORDER BY id LIMIT ?";
+        long lastId = 0;
+        long total = 0;
+        while (true) {
+            List<Object> args = new ArrayList<>(docIds);
+            args.add(lastId);
+            args.add(pageSize);
+            long[] page = {lastId, 0};
+            jdbcTemplate.query(sql, rs -> {
+                handler.processRow(rs);
+                page[0] = rs.getLong("id");
+                page[1]++;
+            }, args.toArray());
+            total += page[1];
+            if (page[1] < pageSize) {
+                return total;
+            }
+            lastId = page[0];
+        }
+    }
+
+    /**
+     * 统计指定文档的向量行数
+     */
+    public long countByDocIds(Collection<Long> docIds) {
+        if (docIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "SELECT COUNT(*) FROM doc_embeddings WHERE doc_id IN (" + placeholders(docIds.size()) + ")";
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, docIds.toArray());
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 按主键批量读取文本块原文（检索结果组装上下文用），已删除的文本块不在结果中
+     */
+    public Map<Long, String> findTexts(Collection<Long> chunkIds) {
+        if (chunkIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        String sql = "SELECT id, chunk_text FROM doc_embeddings WHERE id IN (" + placeholders(chunkIds.size()) + ")";
+        Map<Long, String> texts = new HashMap<>(chunkIds.size() * 2);
+        jdbcTemplate.query(sql, rs -> {
+            texts.put(rs.getLong("id"), rs.getString("chunk_text"));
+        }, chunkIds.toArray());
+        return texts;
+    }
+
+    /**
+     * pgvector 余弦距离 Top-K 检索（走 vector_cosine_ops HNSW 索引）
+     */
+    public List<VectorHit> searchNearest(Collection<Long> docIds, float[] query, int k) {
+        if (docIds.isEmpty() || k <= 0) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT id, doc_id, 1 - (embedding <=> ?::vector) AS score FROM doc_embeddings"
+                + " WHERE doc_id IN (" + placeholders(docIds.size()) + ")"
+                + " ORDER BY embedding <=> ?::vector LIMIT ?";
+        String literal = VectorCodec.toPgVector(query);
+        List<Object> args = new ArrayList<>(docIds.size() + 3);
+        args.add(literal);
+        args.addAll(docIds);
+        args.add(literal);
+        args.add(k);
+        return jdbcTemplate.query(sql, (rs, rowNum) ->
+                new VectorHit(rs.getLong("id"), rs.getLong("doc_id"), rs.getFloat("score")), args.toArray());
+    }
+
+    /**
+     * 批量写入文本块与向量，一条多值 INSERT 完成一批，返回按输入顺序的主键
+     *
+     * @param firstIndex 本批第一个文本块在文档中的序号
+     */
+    public long[] insertChunks(long docId, int firstIndex, List<String> texts, List<float[]> vectors) {
+        if (texts.isEmpty()) {
+            return new long[0];
+        }
+        String sql = "INSERT INTO doc_embeddings (doc_id, chunk_index, chunk_text, embedding) VALUES "
+                + String.join(",", Collections.nCopies(texts.size(), "(?, ?, ?, ?::vector)"))
+                + " RETURNING id";
+        List<Object> args = new ArrayList<>(texts.size() * 4);
+        for (int i = 0; i < texts.size(); i++) {
+            args.add(docId);
+            args.add(firstIndex + i);
+            args.add(texts.get(i));
+            args.add(VectorCodec.toPgVector(vectors.get(i)));
+        }
+        List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 删除文档的全部文本块，返回删除行数
+     */
+    public int deleteByDocId(long docId) {
+        return jdbcTemplate.update("DELETE FROM doc_embeddings WHERE doc_id = ?", docId);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(",", Collections.nCopies(count, "?"));
+    }
+}
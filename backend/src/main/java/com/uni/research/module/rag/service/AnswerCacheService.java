@@ -0,0 +1,40 @@
+package com.uni.research.module.rag.service;
+
+import com.uni.research.common.client.SseStreamRelay;
+import com.uni.research.module.rag.dto.CachedAnswer;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * RAG 回答缓存服务（本地 L1 + Redis L2）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface AnswerCacheService {
+
+    /**
+     * 计算缓存 Key：归一化问题 + 文档集合指纹（文档 ID 与向量版本号）
+     *
+     * Key 不含用户和对话历史：调用方须先校验文档归属，且只对没有历史的首轮提问使用
+     *
+     * @return 缓存不可用（未开启或 Redis 不可达）时返回空
+     */
+    Optional<String> key(String question, Collection<Long> docIds);
+
+    /**
+     * 查询缓存，先查本地再查 Redis
+     */
+    Optional<CachedAnswer> get(String key);
+
+    /**
+     * 创建录制器：随流式回答累积文本，正常结束后写入缓存
+     */
+    SseStreamRelay.StreamListener recorder(String key);
+
+    /**
+     * 文档重新向量化后调用：提升文档版本号并广播，使相关回答缓存失效
+     */
+    void onDocumentVectorized(Long docId);
+}
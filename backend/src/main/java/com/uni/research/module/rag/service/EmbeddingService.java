@@ -0,0 +1,23 @@
+package com.uni.research.module.rag.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 文本向量化服务（调用 Python /embed）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface EmbeddingService {
+
+    /**
+     * 异步向量化单个文本块：命中缓存立即完成，否则进入攒批队列
+     */
+    CompletableFuture<float[]> embed(String text);
+
+    /**
+     * 向量化一组文本块，结果顺序与输入一致（阻塞直到全部完成）
+     */
+    List<float[]> embedAll(List<String> texts);
+}
@@ -0,0 +1,40 @@
+package com.uni.research.module.rag.service;
+
+import com.uni.research.module.rag.keyword.KeywordHit;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 关键词检索服务（进程内 BM25 倒排索引）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface KeywordSearchService {
+
+    /**
+     * BM25 Top-K 检索；索引未就绪或未覆盖全部目标文档时返回空列表并触发预热
+     *
+     * @param userId 用户 ID
+     * @param docIds 限定的文档范围（非空）
+     * @param query  查询文本
+     * @param topK   返回条数
+     */
+    List<KeywordHit> search(Long userId, Collection<Long> docIds, String query, int topK);
+
+    /**
+     * 异步预热用户索引（已加载或正在加载时忽略）
+     */
+    void warmUp(Long userId);
+
+    /**
+     * 文本块已写入 pgvector 后调用，同步到关键词索引
+     */
+    void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<String> texts);
+
+    /**
+     * 文档已从 pgvector 删除后调用，同步到关键词索引
+     */
+    void onDocumentRemoved(Long userId, Long docId);
+}
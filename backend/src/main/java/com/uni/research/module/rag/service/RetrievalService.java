@@ -0,0 +1,25 @@
+package com.uni.research.module.rag.service;
+
+import com.uni.research.module.rag.dto.RetrievedChunk;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 混合检索服务（向量 + 关键词，RRF 融合）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface RetrievalService {
+
+    /**
+     * 检索与问题最相关的文本块，按融合分值降序
+     *
+     * @param userId   用户 ID
+     * @param docIds   限定的文档范围，为空表示该用户全部已完成文档
+     * @param question 用户问题
+     * @param topK     返回条数，不大于 0 时使用配置值
+     */
+    List<RetrievedChunk> retrieve(Long userId, Collection<Long> docIds, String question, int topK);
+}
@@ -0,0 +1,40 @@
+package com.uni.research.module.rag.service;
+
+import com.uni.research.module.rag.vector.VectorHit;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 向量检索服务（进程内 HNSW 快速路径 + pgvector 兜底）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public interface VectorSearchService {
+
+    /**
+     * Top-K 余弦检索
+     *
+     * @param userId 用户 ID
+     * @param docIds 检索范围，调用方已解析为该用户已完成的文档（见 DocumentService.searchableIds），为空时返回空
+     * @param query  查询向量
+     * @param topK   返回条数
+     */
+    List<VectorHit> search(Long userId, Collection<Long> docIds, float[] query, int topK);
+
+    /**
+     * 异步预热用户索引（已加载或正在加载时忽略）
+     */
+    void warmUp(Long userId);
+
+    /**
+     * 文本块向量已写入 pgvector 后调用，同步到本地索引
+     */
+    void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<float[]> vectors);
+
+    /**
+     * 文档向量已从 pgvector 删除后调用，同步到本地索引
+     */
+    void onDocumentRemoved(Long userId, Long docId);
+}
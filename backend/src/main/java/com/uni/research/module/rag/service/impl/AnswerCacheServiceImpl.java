@@ -0,0 +1,267 @@
+package com.uni.research.module.rag.service.impl;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.client.SseStreamRelay;
+import com.uni.research.common.config.RagCacheProperties;
+import com.uni.research.common.constant.RedisKeyConstant;
+import com.uni.research.module.rag.dto.CachedAnswer;
+import com.uni.research.module.rag.service.AnswerCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * RAG 回答缓存服务实现
+ *
+ * 对应 408 考点：计算机组成 - 多级存储层次；操作系统 - 页面置换算法（LFU / LRU）
+ *
+ * 设计思路：
+ * 1. L1 为进程内 Caffeine 缓存（W-TinyLFU 淘汰，兼顾访问频率和新鲜度），L2 为 Redis，多实例共享
+ * 2. Key = sha256(归一化问题 + 文档指纹)，归一化包括全角转半角、大小写、空白和句末标点
+ * 3. 文档指纹由排序后的 "docId@向量版本号" 组成；文档重新向量化时版本号 INCR，
+ *    旧回答的 Key 不会再被计算出来，无需扫描删除，自然过期
+ * 4. 版本号在本地缓存，变更时通过 Redis 发布 / 订阅通知所有实例清理
+ * 5. Redis 不可用时缓存整体旁路，不影响正常对话
+ * 6. Key 只由问题和文档决定，安全性依赖调用方：文档归属校验通过后才计算 Key（文档 ID 全局唯一，
+ *    能命中的只有文档所有者自己），带对话历史的追问不查也不写缓存（回答依赖上下文）
+ *
+ * 面试话术：
+ * "同一篇论文经常被很多人问几乎一样的问题，每次都要走 embed → 向量检索 → LLM 全流程。
+ * 我加了两级回答缓存：本地 Caffeine 挡住热点，Redis 让多实例共享。
+ * 缓存失效用的是版本号方案：Key 里带上文档的向量版本号，文档重新向量化就把版本号加一，
+ * 这样不需要找出并删除所有相关 Key，旧数据靠 TTL 自然淘汰。
+ * 命中率和节省的 LLM 耗时都做成了指标。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(RagCacheProperties.class)
+public class AnswerCacheServiceImpl implements AnswerCacheService {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern TRAILING_PUNCTUATION = Pattern.compile("[\\p{Punct}。？！，、；：…～\\s]+$");
+
+    private final RagCacheProperties properties;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, CachedAnswer> localAnswers;
+
+    private final Cache<Long, Long> localVersions;
+
+    private final Counter l1Hits;
+
+    private final Counter l2Hits;
+
+    private final Counter misses;
+
+    private final Timer savedLatency;
+
+    public AnswerCacheServiceImpl(RagCacheProperties properties, StringRedisTemplate redisTemplate,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                  RedisMessageListenerContainer listenerContainer) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.localAnswers = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getLocalTtl())
+                .recordStats()
+                .build();
+        this.localVersions = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxEntries())
+                .expireAfterWrite(properties.getVersionTtl())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, localAnswers, "rag.answer.local");
+        this.l1Hits = lookupCounter(meterRegistry, "l1_hit");
+        this.l2Hits = lookupCounter(meterRegistry, "l2_hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.savedLatency = Timer.builder("rag.cache.saved.latency")
+                .description("缓存命中节省的 LLM 生成耗时")
+                .register(meterRegistry);
+
+        listenerContainer.addMessageListener(this::onDocumentChanged,
+                new ChannelTopic(RedisKeyConstant.RAG_DOC_CHANGED_CHANNEL));
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("rag.cache.lookups")
+                .description("RAG 回答缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<String> key(String question, Collection<Long> docIds) {
+        if (!properties.isEnabled() || question == null || docIds == null || docIds.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Long> sortedIds = docIds.stream().distinct().sorted().toList();
+        Map<Long, Long> versions;
+        try {
+            versions = localVersions.getAll(sortedIds, this::loadVersions);
+        } catch (RuntimeException e) {
+            log.debug("读取文档版本号失败，跳过回答缓存: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        StringBuilder source = new StringBuilder(normalize(question)).append('\n');
+        for (Long docId : sortedIds) {
+            source.append(docId).append('@').append(versions.getOrDefault(docId, 0L)).append(',');
+        }
+        return Optional.of(DigestUtil.sha256Hex(source.toString()));
+    }
+
+    @Override
+    public Optional<CachedAnswer> get(String key) {
+        CachedAnswer answer = localAnswers.getIfPresent(key);
+        if (answer != null) {
+            l1Hits.increment();
+            savedLatency.record(answer.getGenerationMillis(), TimeUnit.MILLISECONDS);
+            return Optional.of(answer);
+        }
+        try {
+            String json = redisTemplate.opsForValue().get(RedisKeyConstant.RAG_ANSWER + key);
+            if (json != null) {
+                answer = objectMapper.readValue(json, CachedAnswer.class);
+                localAnswers.put(key, answer);
+                l2Hits.increment();
+                savedLatency.record(answer.getGenerationMillis(), TimeUnit.MILLISECONDS);
+                return Optional.of(answer);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("读取 Redis 回答缓存失败: {}", e.getMessage());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    @Override
+    public SseStreamRelay.StreamListener recorder(String key) {
+        return new Recorder(key);
+    }
+
+    @Override
+    public void onDocumentVectorized(Long docId) {
+        try {
+            redisTemplate.opsForValue().increment(RedisKeyConstant.RAG_DOC_VERSION + docId);
+            redisTemplate.convertAndSend(RedisKeyConstant.RAG_DOC_CHANGED_CHANNEL, String.valueOf(docId));
+        } catch (RuntimeException e) {
+            log.warn("文档版本号更新失败，回答缓存将在 TTL 后失效: docId={}, error={}", docId, e.getMessage());
+        }
+        localVersions.invalidate(docId);
+    }
+
+    /**
+     * 其他实例的文档变更广播
+     */
+    private void onDocumentChanged(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            localVersions.invalidate(Long.valueOf(body));
+        } catch (NumberFormatException e) {
+            log.warn("无法解析文档变更消息: {}", body);
+        }
+    }
+
+    private Map<Long, Long> loadVersions(Set<? extends Long> docIds) {
+        List<Long> ids = List.copyOf(docIds);
+        List<String> keys = ids.stream().map(id -> RedisKeyConstant.RAG_DOC_VERSION + id).toList();
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        Map<Long, Long> versions = new HashMap<>(ids.size() * 2);
+        for (int i = 0; i < ids.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            versions.put(ids.get(i), value == null ? 0L : Long.parseLong(value));
+        }
+        return versions;
+    }
+
+    private void put(String key, CachedAnswer answer) {
+        localAnswers.put(key, answer);
+        try {
+            redisTemplate.opsForValue().set(RedisKeyConstant.RAG_ANSWER + key,
+                    objectMapper.writeValueAsString(answer), properties.getRedisTtl());
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.debug("写入 Redis 回答缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 问题归一化：全角转半角、小写、合并空白、去掉句末标点
+     */
+    static String normalize(String question) {
+        String text = Convert.toDBC(question).toLowerCase(Locale.ROOT).trim();
+        text = WHITESPACE.matcher(text).replaceAll(" ");
+        return TRAILING_PUNCTUATION.matcher(text).replaceAll("");
+    }
+
+    /**
+     * 回答录制器：累积普通 Token 事件，超过上限则放弃缓存
+     */
+    private final class Recorder implements SseStreamRelay.StreamListener {
+
+        private final String key;
+
+        private final long startTime = System.nanoTime();
+
+        private final StringBuilder answer = new StringBuilder();
+
+        private boolean overflow;
+
+        private Recorder(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void onEvent(String eventName, String data) {
+            if (overflow || eventName != null) {
+                return;
+            }
+            if (answer.length() + data.length() > properties.getMaxAnswerChars()) {
+                overflow = true;
+                answer.setLength(0);
+                return;
+            }
+            answer.append(data);
+        }
+
+        @Override
+        public void onComplete() {
+            if (overflow || answer.length() == 0) {
+                return;
+            }
+            long costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            put(key, new CachedAnswer(answer.toString(), costMillis));
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.uni.research.module.rag.service.impl;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.client.AiServiceClient;
+import com.uni.research.common.client.CircuitOpenException;
+import com.uni.research.common.concurrent.RejectableTask;
+import com.uni.research.common.concurrent.TaskFeedback;
+import com.uni.research.common.config.EmbeddingProperties;
+import com.uni.research.common.constant.RedisKeyConstant;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.module.rag.service.EmbeddingService;
+import com.uni.research.module.rag.vector.VectorCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文本向量化服务实现
+ *
+ * 对应 408 考点：计算机网络 - 减少往返次数（批处理）；操作系统 - 生产者-消费者模型
+ *
+ * 设计思路：
+ * 1. 内容哈希缓存：Key = sha256(模型名 + 文本)，重复上传、多人共享的论文不会重复向量化
+ *    - L1 本地 Caffeine，按字节数限制容量；L2 Redis，按批 MGET / Pipeline 写入
+ *    - 向量以 float32 存储（本地 float[]，Redis 中 Base64），不使用 List&lt;Double&gt;
+ * 2. 攒批：文本块进入有界队列，后台线程按"数量上限或等待时间上限"打包，一次 HTTP 调用处理一批
+ * 3. 相同内容同时在途时共享同一个 Future，只发送一次
+ * 4. 响应体用 Jackson 流式解析，数字直接写入 float[]，不经过中间对象
+ * 5. 批次在 aiTaskExecutor 中执行，受全局并发许可约束
+ * 6. 停止时攒批线程先处理完队列，之后不再接受新文本块，残留在队列中的 Future 立即以异常结束，调用方不会永久等待
+ *
+ * 面试话术：
+ * "大 PDF 有几百个 chunk，逐个调 /embed 就是几百次 HTTP 往返。
+ * 我做了一个攒批器：第一个 chunk 入队后最多等 20ms 或者攒够 64 个就发一批，
+ * 这和 TCP 的 Nagle 算法思路一样，用很小的延迟换吞吐。
+ * 同时按内容哈希缓存向量，重复上传的文档几乎不产生 AI 调用；
+ * 向量用 float[] 存，比 List<Double> 省了五六倍内存。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(EmbeddingProperties.class)
+public class EmbeddingServiceImpl implements EmbeddingService {
+
+    private static final String EMBEDDINGS_FIELD = "embeddings";
+
+    private final EmbeddingProperties properties;
+
+    private final AiServiceClient aiServiceClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    private final Cache<String, float[]> localCache;
+
+    private final Map<String, CompletableFuture<float[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final BlockingQueue<Pending> queue;
+
+    private final Counter localHits;
+
+    private final Counter redisHits;
+
+    private final Counter deduplicated;
+
+    private final Counter misses;
+
+    private final DistributionSummary batchSize;
+
+    private final Timer batchLatency;
+
+    private Thread batcher;
+
+    private volatile boolean running = true;
+
+    /**
+     * 攒批线程已退出，队列不再有消费者
+     */
+    private volatile boolean stopped;
+
+    public EmbeddingServiceImpl(EmbeddingProperties properties, AiServiceClient aiServiceClient,
+                                ObjectMapper objectMapper, StringRedisTemplate redisTemplate,
+                                @Qualifier("aiTaskExecutor") AsyncTaskExecutor aiTaskExecutor,
+                                MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.aiServiceClient = aiServiceClient;
+        this.objectMapper = objectMapper;
+        this.redisTemplate = redisTemplate;
+        this.aiTaskExecutor = aiTaskExecutor;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.localCache = Caffeine.newBuilder()
+                .maximumWeight(properties.getLocalCacheBytes())
+                .weigher((String key, float[] vector) -> vector.length * Float.BYTES + key.length())
+                .build();
+
+        this.localHits = lookupCounter(meterRegistry, "local_hit");
+        this.redisHits = lookupCounter(meterRegistry, "redis_hit");
+        this.deduplicated = lookupCounter(meterRegistry, "deduplicated");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        this.batchSize = DistributionSummary.builder("embedding.batch.size")
+                .description("每次调用 /embed 的文本块数")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("embedding.batch.latency")
+                .description("单批 /embed 调用耗时")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("embedding.cache.lookups")
+                .description("向量缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        batcher = new Thread(this::batchLoop, "embedding-batcher");
+        batcher.setDaemon(true);
+        batcher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        batcher.join(TimeUnit.SECONDS.toMillis(10));
+        stopped = true;
+        failQueued();
+    }
+
+    @Override
+    public CompletableFuture<float[]> embed(String text) {
+        if (!running) {
+            return CompletableFuture.failedFuture(BizException.of(ResultCode.AI_SERVICE_BUSY));
+        }
+        String hash = hash(text);
+        float[] cached = localCache.getIfPresent(hash);
+        if (cached != null) {
+            localHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<float[]> future = new CompletableFuture<>();
+        CompletableFuture<float[]> existing = inFlight.putIfAbsent(hash, future);
+        if (existing != null) {
+            deduplicated.increment();
+            return existing;
+        }
+        future.whenComplete((vector, error) -> inFlight.remove(hash, future));
+
+        try {
+            // 队列满时阻塞调用方，形成背压
+            queue.put(new Pending(hash, text, future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(BizException.of(ResultCode.AI_SERVICE_BUSY));
+        }
+        // 与 stop() 并发：入队发生在攒批线程退出之后时，由这里清理（stop 先置标志再清队列，两边至少有一方看到这个文本块）
+        if (stopped) {
+            failQueued();
+        }
+        return future;
+    }
+
+    @Override
+    public List<float[]> embedAll(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = texts.stream().map(this::embed).toList();
+        List<float[]> vectors = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<float[]> future : futures) {
+                vectors.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof BizException biz) {
+                throw biz;
+            }
+            throw new BizException(ResultCode.AI_SERVICE_ERROR, "向量化失败: " + e.getCause().getMessage());
+        }
+        return vectors;
+    }
+
+    /**
+     * 攒批循环：取到第一个文本块后，在 maxBatchDelay 内尽量凑满 maxBatchSize
+     */
+    private void batchLoop() {
+        long maxDelayNanos = properties.getMaxBatchDelay().toNanos();
+        int maxBatchSize = properties.getMaxBatchSize();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void failQueued() {
+        List<Pending> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (Pending pending : remaining) {
+            pending.future().completeExceptionally(BizException.of(ResultCode.AI_SERVICE_BUSY));
+        }
+        if (!remaining.isEmpty()) {
+            log.warn("向量化服务已停止，丢弃队列中的文本块: count={}", remaining.size());
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        BatchTask task = new BatchTask(batch);
+        try {
+            aiTaskExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            task.reject(e);
+        }
+    }
+
+    /**
+     * 处理一批：先查 Redis，剩余的调用 /embed
+     */
+    private void process(List<Pending> batch) {
+        List<Pending> missing = lookupRedis(batch);
+        if (missing.isEmpty()) {
+            return;
+        }
+        misses.increment(missing.size());
+        batchSize.record(missing.size());
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("model", properties.getModel());
+        payload.put("texts", missing.stream().map(Pending::text).toList());
+
+        long startTime = System.nanoTime();
+        List<float[]> vectors;
+        try (Response response = aiServiceClient.execute("/embed", payload)) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new BizException(ResultCode.AI_SERVICE_ERROR, "向量化服务响应异常: HTTP " + response.code());
+            }
+            vectors = parseEmbeddings(body.byteStream());
+        } catch (CircuitOpenException e) {
+            throw new BizException(ResultCode.AI_SERVICE_BUSY, e.getMessage());
+        } catch (IOException e) {
+            throw new BizException(ResultCode.AI_SERVICE_ERROR, "向量化服务调用失败: " + e.getMessage());
+        } finally {
+            batchLatency.record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+        if (vectors.size() != missing.size()) {
+            throw new BizException(ResultCode.AI_SERVICE_ERROR,
+                    "向量化结果数量不匹配: expected=" + missing.size() + ", actual=" + vectors.size());
+        }
+
+        for (int i = 0; i < missing.size(); i++) {
+            Pending pending = missing.get(i);
+            localCache.put(pending.hash(), vectors.get(i));
+            pending.future().complete(vectors.get(i));
+        }
+        storeRedis(missing, vectors);
+    }
+
+    private List<Pending> lookupRedis(List<Pending> batch) {
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(
+                    batch.stream().map(p -> RedisKeyConstant.RAG_EMBEDDING + p.hash()).toList());
+        } catch (RuntimeException e) {
+            log.debug("读取 Redis 向量缓存失败: {}", e.getMessage());
+            return batch;
+        }
+        if (values == null) {
+            return batch;
+        }
+        List<Pending> missing = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            String value = values.get(i);
+            if (value == null) {
+                missing.add(pending);
+            } else {
+                float[] vector = VectorCodec.fromBase64(value);
+                localCache.put(pending.hash(), vector);
+                redisHits.increment();
+                pending.future().complete(vector);
+            }
+        }
+        return missing;
+    }
+
+    private void storeRedis(List<Pending> pendings, List<float[]> vectors) {
+        Expiration expiration = Expiration.from(properties.getRedisTtl());
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < pendings.size(); i++) {
+                    byte[] key = (RedisKeyConstant.RAG_EMBEDDING + pendings.get(i).hash())
+                            .getBytes(StandardCharsets.UTF_8);
+                    byte[] value = VectorCodec.toBase64(vectors.get(i)).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().set(key, value, expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.debug("写入 Redis 向量缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 流式解析 {"embeddings": [[...], [...]]}，数字直接写入 float[]
+     */
+    private List<float[]> parseEmbeddings(InputStream body) throws IOException {
+        List<float[]> vectors = new ArrayList<>();
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            while (parser.nextToken() != null) {
+                if (parser.currentToken() != JsonToken.FIELD_NAME
+                        || !EMBEDDINGS_FIELD.equals(parser.currentName())) {
+                    continue;
+                }
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    break;
+                }
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    float[] vector = new float[properties.getDimension()];
+                    int size = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (size == vector.length) {
+                            vector = Arrays.copyOf(vector, size * 2);
+                        }
+                        vector[size++] = parser.getFloatValue();
+                    }
+                    vectors.add(size == vector.length ? vector : Arrays.copyOf(vector, size));
+                }
+                break;
+            }
+        }
+        return vectors;
+    }
+
+    private String hash(String text) {
+        return DigestUtil.sha256Hex(properties.getModel() + '\n' + text);
+    }
+
+    private record Pending(String hash, String text, CompletableFuture<float[]> future) {
+    }
+
+    /**
+     * 一批向量化任务；失败或被拒绝时整批 Future 异常结束
+     */
+    private final class BatchTask implements RejectableTask {
+
+        private final List<Pending> batch;
+
+        private BatchTask(List<Pending> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                log.warn("向量化批次失败: size={}, error={}", batch.size(), e.getMessage());
+                // 失败已交给 Future，run() 正常返回，需单独告诉限流器
+                TaskFeedback.dropped();
+                fail(e);
+            }
+        }
+
+        @Override
+        public void reject(RuntimeException cause) {
+            fail(cause);
+        }
+
+        private void fail(RuntimeException cause) {
+            for (Pending pending : batch) {
+                pending.future().completeExceptionally(cause);
+            }
+        }
+    }
+}
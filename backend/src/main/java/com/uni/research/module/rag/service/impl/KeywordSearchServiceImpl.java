@@ -0,0 +1,180 @@
+package com.uni.research.module.rag.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.config.RetrievalProperties;
+import com.uni.research.common.event.UserLoginEvent;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.rag.keyword.InvertedIndex;
+import com.uni.research.module.rag.keyword.KeywordHit;
+import com.uni.research.module.rag.repository.DocEmbeddingRepository;
+import com.uni.research.module.rag.service.KeywordSearchService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 关键词检索服务实现
+ *
+ * 设计思路：
+ * 1. 每个用户一份 InvertedIndex，生命周期与向量索引一致：登录时预热，Caffeine 按内存字节淘汰
+ * 2. 预热从 pgvector 的 chunk_text 按主键游标分页读取；之后文档向量化时增量追加，删除时打墓碑
+ * 3. 索引未就绪时关键词这一路返回空，由混合检索退化为纯向量检索，不做全表扫描、也不依赖外部搜索服务
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(RetrievalProperties.class)
+public class KeywordSearchServiceImpl implements KeywordSearchService {
+
+    private final RetrievalProperties properties;
+
+    private final DocEmbeddingRepository embeddingRepository;
+
+    private final DocumentMapper documentMapper;
+
+    private final TaskExecutor vectorIndexExecutor;
+
+    private final Cache<Long, InvertedIndex> indexes;
+
+    private final Map<Long, WarmUpState<InvertedIndex>> warming = new ConcurrentHashMap<>();
+
+    private final Timer searchLatency;
+
+    private final Timer warmUpLatency;
+
+    public KeywordSearchServiceImpl(RetrievalProperties properties, DocEmbeddingRepository embeddingRepository,
+                                    DocumentMapper documentMapper,
+                                    @Qualifier("vectorIndexExecutor") TaskExecutor vectorIndexExecutor,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.embeddingRepository = embeddingRepository;
+        this.documentMapper = documentMapper;
+        this.vectorIndexExecutor = vectorIndexExecutor;
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(properties.getKeywordMaxResidentBytes() / 1024)
+                .<Long, InvertedIndex>weigher((userId, index) -> (int) Math.min(index.memoryBytes() / 1024, Integer.MAX_VALUE))
+                .expireAfterAccess(properties.getKeywordIdleTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "keyword.index");
+        this.searchLatency = Timer.builder("keyword.search.latency")
+                .description("关键词检索耗时")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.warmUpLatency = Timer.builder("keyword.index.warmup")
+                .description("用户关键词索引预热耗时")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<KeywordHit> search(Long userId, Collection<Long> docIds, String query, int topK) {
+        if (!properties.isKeywordEnabled() || docIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        InvertedIndex index = indexes.getIfPresent(userId);
+        if (index == null) {
+            warmUp(userId);
+            return Collections.emptyList();
+        }
+        for (Long docId : docIds) {
+            if (!index.containsDocument(docId)) {
+                return Collections.emptyList();
+            }
+        }
+        Set<Long> allowed = new HashSet<>(docIds);
+        return searchLatency.record(() -> index.search(query, topK, allowed::contains));
+    }
+
+    @EventListener
+    public void onUserLogin(UserLoginEvent event) {
+        warmUp(event.getUserId());
+    }
+
+    @Override
+    public void warmUp(Long userId) {
+        if (!properties.isKeywordEnabled() || userId == null || indexes.getIfPresent(userId) != null) {
+            return;
+        }
+        WarmUpState<InvertedIndex> state = new WarmUpState<>();
+        if (warming.putIfAbsent(userId, state) != null) {
+            return;
+        }
+        try {
+            vectorIndexExecutor.execute(() -> {
+                try {
+                    warmUpLatency.record(() -> load(userId, state));
+                } catch (RuntimeException e) {
+                    log.warn("用户关键词索引预热失败: userId={}, error={}", userId, e.getMessage());
+                } finally {
+                    warming.remove(userId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            warming.remove(userId);
+            log.debug("关键词索引预热队列已满，跳过: userId={}", userId);
+        }
+    }
+
+    private void load(Long userId, WarmUpState<InvertedIndex> state) {
+        List<Long> docIds = documentMapper.selectCompletedIds(userId);
+        InvertedIndex index = new InvertedIndex(properties.getBm25K1(), properties.getBm25B(), 1024);
+        long loaded = embeddingRepository.forEachChunkText(docIds, properties.getWarmUpPageSize(), index::add);
+        state.publish(index, () -> indexes.put(userId, index));
+        log.info("用户关键词索引预热完成: userId={}, docs={}, chunks={}", userId, docIds.size(), loaded);
+    }
+
+    @Override
+    public void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<String> texts) {
+        apply(userId, index -> {
+            for (int i = 0; i < chunkIds.length; i++) {
+                index.add(chunkIds[i], docId, texts.get(i));
+            }
+        });
+    }
+
+    @Override
+    public void onDocumentRemoved(Long userId, Long docId) {
+        apply(userId, index -> index.removeDocument(docId));
+        InvertedIndex index = indexes.getIfPresent(userId);
+        if (index != null && index.deletedRatio() > properties.getKeywordRebuildDeletedRatio()) {
+            indexes.invalidate(userId);
+            warmUp(userId);
+        }
+    }
+
+    /**
+     * 把变更应用到本地索引：正在预热则暂存，已发布则直接应用，都不是则无需处理（下次预热时全量加载）
+     */
+    private void apply(Long userId, Consumer<InvertedIndex> change) {
+        if (!properties.isKeywordEnabled() || userId == null) {
+            return;
+        }
+        WarmUpState<InvertedIndex> state = warming.get(userId);
+        if (state != null && state.defer(change)) {
+            return;
+        }
+        InvertedIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+}
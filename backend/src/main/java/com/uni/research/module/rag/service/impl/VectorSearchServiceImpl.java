@@ -0,0 +1,459 @@
+package com.uni.research.module.rag.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uni.research.common.config.EmbeddingProperties;
+import com.uni.research.common.config.VectorIndexProperties;
+import com.uni.research.common.event.UserLoginEvent;
+import com.uni.research.common.trace.TraceContext;
+import com.uni.research.module.doc.mapper.DocumentMapper;
+import com.uni.research.module.rag.repository.DocEmbeddingRepository;
+import com.uni.research.module.rag.service.VectorSearchService;
+import com.uni.research.module.rag.vector.HnswIndex;
+import com.uni.research.module.rag.vector.SegmentedVectorStore;
+import com.uni.research.module.rag.vector.VectorHit;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * 向量检索服务实现
+ *
+ * 对应 408 考点：计算机组成 - 存储层次（把热数据放到离 CPU 更近的地方）；操作系统 - 同步与互斥、内存映射
+ *
+ * 设计思路：
+ * 1. 三级检索路径：进程内 HNSW（堆内，近似检索）→ 本地段文件（mmap，精确扫描）→ pgvector（网络）
+ * 2. 每个用户一份 HnswIndex，放在 Caffeine 中按内存字节加权，超出上限整体淘汰、空闲超时释放
+ * 3. 每个用户一份 SegmentedVectorStore，启动时只做内存映射，不读数据，重启后立即可以走本地精确扫描
+ * 4. 用户登录时异步预热：先与 MySQL 对账（删除已不存在的文档、只从 pgvector 拉取段文件里缺失的文档），
+ *    再从本地段文件建 HNSW 图
+ * 5. 检索时目标文档全部在本地就走本地，否则回退 pgvector 并顺手触发预热
+ * 6. 一致性：向量先写 pgvector，再调用 onChunksWritten / onDocumentRemoved 同步段文件和 HNSW；
+ *    预热期间到达的 HNSW 变更先暂存，建图完成后按顺序重放再发布索引，
+ *    插入按 chunkId 幂等，所以"预热读到了"和"增量又写一次"重叠也不会重复
+ * 7. 删除是墓碑标记：HNSW 墓碑过多时丢弃重建，段文件墓碑过多时后台合并
+ *
+ * 面试话术：
+ * "检索路径上最慢的不是 HNSW 计算，而是到 pgvector 的网络往返。
+ * 我把每个用户自己的向量工作集在登录时加载到进程内的 HNSW 索引里，检索变成纯内存操作；
+ * 同时向量会落一份本地段文件，重启时 mmap 进来就能服务，不用再从 pgvector 拉几百万行。
+ * pgvector 仍是唯一数据源，本地索引和段文件都只是它的可丢弃副本：
+ * 写入先落库再更新副本，预热时和 MySQL 对账，副本被淘汰或损坏了就回退到 pgvector。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(VectorIndexProperties.class)
+public class VectorSearchServiceImpl implements VectorSearchService {
+
+    private final VectorIndexProperties properties;
+
+    private final int dimension;
+
+    private final DocEmbeddingRepository embeddingRepository;
+
+    private final DocumentMapper documentMapper;
+
+    private final TaskExecutor vectorIndexExecutor;
+
+    private final Cache<Long, HnswIndex> indexes;
+
+    /**
+     * 用户 -> 本地段文件（打开后常驻，只占文件映射，不占堆）
+     */
+    private final Map<Long, SegmentedVectorStore> stores = new ConcurrentHashMap<>();
+
+    /**
+     * 正在预热的用户 -> 预热期间到达的变更
+     */
+    private final Map<Long, WarmUpState<HnswIndex>> warming = new ConcurrentHashMap<>();
+
+    private final Timer localLatency;
+
+    private final Timer segmentLatency;
+
+    private final Timer remoteLatency;
+
+    private final Timer warmUpLatency;
+
+    public VectorSearchServiceImpl(VectorIndexProperties properties, EmbeddingProperties embeddingProperties,
+                                   DocEmbeddingRepository embeddingRepository, DocumentMapper documentMapper,
+                                   @Qualifier("vectorIndexExecutor") TaskExecutor vectorIndexExecutor,
+                                   MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.dimension = embeddingProperties.getDimension();
+        this.embeddingRepository = embeddingRepository;
+        this.documentMapper = documentMapper;
+        this.vectorIndexExecutor = vectorIndexExecutor;
+        // 权重单位为 KB（Caffeine 权重是 int）；权重在放入时计算，之后的增量写入不再重新计重
+        this.indexes = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxResidentBytes() / 1024)
+                .<Long, HnswIndex>weigher((userId, index) -> (int) Math.min(index.memoryBytes() / 1024, Integer.MAX_VALUE))
+                .expireAfterAccess(properties.getIdleTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "vector.index");
+        Gauge.builder("vector.index.chunks", indexes,
+                        cache -> cache.asMap().values().stream().mapToLong(HnswIndex::size).sum())
+                .description("本地向量索引中的文本块总数")
+                .register(meterRegistry);
+        Gauge.builder("vector.segment.chunks", stores,
+                        map -> map.values().stream().mapToLong(SegmentedVectorStore::liveRows).sum())
+                .description("本地段文件中的文本块总数")
+                .register(meterRegistry);
+        this.localLatency = searchTimer(meterRegistry, "local");
+        this.segmentLatency = searchTimer(meterRegistry, "segment");
+        this.remoteLatency = searchTimer(meterRegistry, "pgvector");
+        this.warmUpLatency = Timer.builder("vector.index.warmup")
+                .description("用户向量索引预热耗时")
+                .register(meterRegistry);
+    }
+
+    private static Timer searchTimer(MeterRegistry meterRegistry, String path) {
+        return Timer.builder("vector.search.latency")
+                .description("向量检索耗时")
+                .tag("path", path)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动时映射已有的段文件（只建立映射、统计文档行数，不把向量读进堆）
+     */
+    @PostConstruct
+    public void openSegments() {
+        if (!properties.isEnabled() || !properties.isSegmentsEnabled()) {
+            return;
+        }
+        Path root = Paths.get(properties.getSegmentDir());
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.filter(Files::isDirectory).toList()) {
+                String name = dir.getFileName().toString();
+                if (!name.chars().allMatch(Character::isDigit)) {
+                    continue;
+                }
+                try {
+                    stores.put(Long.parseLong(name), openStore(dir));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("向量段文件打开失败，该用户将从 pgvector 重新加载: dir={}, error={}", dir, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描向量段目录失败: {}", e.getMessage());
+        }
+        log.info("向量段文件映射完成: users={}, costMs={}", stores.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @PreDestroy
+    public void closeSegments() {
+        stores.values().forEach(store -> {
+            try {
+                store.close();
+            } catch (IOException e) {
+                log.debug("关闭向量段文件失败: {}", e.getMessage());
+            }
+        });
+        stores.clear();
+    }
+
+    @Override
+    public List<VectorHit> search(Long userId, Collection<Long> scope, float[] query, int topK) {
+        if (scope == null || scope.isEmpty()) {
+            return List.of();
+        }
+        if (properties.isEnabled()) {
+            HnswIndex index = indexes.getIfPresent(userId);
+            if (index != null && covers(scope, index::containsDocument)) {
+                TraceContext.current().tag("path", "hnsw");
+                return localLatency.record(() -> searchLocal(index, scope, query, topK));
+            }
+            if (index == null) {
+                warmUp(userId);
+            }
+            SegmentedVectorStore store = stores.get(userId);
+            if (store != null && covers(scope, store::containsDocument)) {
+                List<VectorHit> hits = segmentLatency.record(() -> searchSegments(store, scope, query, topK));
+                if (hits != null) {
+                    TraceContext.current().tag("path", "segment");
+                    return hits;
+                }
+            }
+        }
+        TraceContext.current().tag("path", "pgvector");
+        return remoteLatency.record(() -> embeddingRepository.searchNearest(scope, query, topK));
+    }
+
+    private List<VectorHit> searchLocal(HnswIndex index, Collection<Long> scope, float[] query, int topK) {
+        Set<Long> allowed = new HashSet<>(scope);
+        List<VectorHit> hits = index.search(query, topK, properties.getEfSearch(), allowed::contains);
+        // 过滤范围很窄时近似检索的候选集里可能凑不满 K 条，改为在本地精确扫描
+        if (hits.size() < topK) {
+            hits = index.bruteForce(query, topK, allowed::contains);
+        }
+        return hits;
+    }
+
+    /**
+     * 在段文件上精确扫描；读取失败返回 null，由调用方回退 pgvector
+     */
+    private List<VectorHit> searchSegments(SegmentedVectorStore store, Collection<Long> scope, float[] query,
+                                           int topK) {
+        Set<Long> allowed = new HashSet<>(scope);
+        try {
+            return store.search(query, topK, allowed::contains);
+        } catch (IOException | RuntimeException e) {
+            log.warn("向量段文件检索失败，回退 pgvector: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 本地是否包含全部目标文档（新上传、尚未同步的文档只能查 pgvector）
+     */
+    private static boolean covers(Collection<Long> scope, LongPredicate contains) {
+        if (scope.isEmpty()) {
+            return false;
+        }
+        for (Long docId : scope) {
+            if (!contains.test(docId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @EventListener
+    public void onUserLogin(UserLoginEvent event) {
+        warmUp(event.getUserId());
+    }
+
+    @Override
+    public void warmUp(Long userId) {
+        if (!properties.isEnabled() || userId == null || indexes.getIfPresent(userId) != null) {
+            return;
+        }
+        WarmUpState<HnswIndex> state = new WarmUpState<>();
+        if (warming.putIfAbsent(userId, state) != null) {
+            return;
+        }
+        try {
+            vectorIndexExecutor.execute(() -> {
+                try {
+                    warmUpLatency.record(() -> load(userId, state));
+                } catch (RuntimeException e) {
+                    log.warn("用户向量索引预热失败: userId={}, error={}", userId, e.getMessage());
+                } finally {
+                    warming.remove(userId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            warming.remove(userId);
+            log.debug("向量索引预热队列已满，跳过: userId={}", userId);
+        }
+    }
+
+    private void load(Long userId, WarmUpState<HnswIndex> state) {
+        if (properties.isSegmentsEnabled()) {
+            loadFromSegments(userId, state);
+        } else {
+            loadFromPgvector(userId, state);
+        }
+    }
+
+    /**
+     * 先对账段文件，再从段文件建图：重启后只需从 pgvector 拉取停机期间新增的文档
+     */
+    private void loadFromSegments(Long userId, WarmUpState<HnswIndex> state) {
+        SegmentedVectorStore store = reconcile(userId);
+        long total = store.liveRows();
+        if (total > properties.getMaxChunksPerUser()) {
+            log.info("用户文本块数超过 HNSW 索引上限，检索走段文件精确扫描: userId={}, chunks={}", userId, total);
+            return;
+        }
+        HnswIndex index = new HnswIndex(dimension, properties.getM(), properties.getEfConstruction(), (int) total);
+        try {
+            store.forEach(index::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        state.publish(index, () -> indexes.put(userId, index));
+        log.info("用户向量索引预热完成: userId={}, chunks={}, source=segment", userId, index.size());
+    }
+
+    private void loadFromPgvector(Long userId, WarmUpState<HnswIndex> state) {
+        List<Long> docIds = documentMapper.selectCompletedIds(userId);
+        long total = embeddingRepository.countByDocIds(docIds);
+        if (total > properties.getMaxChunksPerUser()) {
+            log.info("用户文本块数超过本地索引上限，检索走 pgvector: userId={}, chunks={}", userId, total);
+            return;
+        }
+        HnswIndex index = new HnswIndex(dimension, properties.getM(), properties.getEfConstruction(), (int) total);
+        long loaded = embeddingRepository.forEachEmbedding(docIds, dimension, properties.getWarmUpPageSize(),
+                index::add);
+        state.publish(index, () -> indexes.put(userId, index));
+        log.info("用户向量索引预热完成: userId={}, docs={}, chunks={}, source=pgvector", userId, docIds.size(), loaded);
+    }
+
+    /**
+     * 段文件与 MySQL 对账：删除已不存在的文档，按文档从 pgvector 补齐缺失的已完成文档
+     *
+     * 按文档整体追加，避免检索线程看到"只加载了一半"的文档
+     */
+    private SegmentedVectorStore reconcile(Long userId) {
+        SegmentedVectorStore store = store(userId);
+        Set<Long> existing = new HashSet<>(documentMapper.selectIdsByUser(userId));
+        int removed = 0;
+        int pulled = 0;
+        try {
+            for (Long docId : List.copyOf(store.documentIds())) {
+                if (!existing.contains(docId)) {
+                    store.removeDocument(docId);
+                    removed++;
+                }
+            }
+            for (Long docId : documentMapper.selectCompletedIds(userId)) {
+                if (store.containsDocument(docId)) {
+                    continue;
+                }
+                List<Long> chunkIds = new ArrayList<>();
+                List<float[]> vectors = new ArrayList<>();
+                embeddingRepository.forEachEmbedding(List.of(docId), dimension, properties.getWarmUpPageSize(),
+                        (chunkId, doc, vector) -> {
+                            chunkIds.add(chunkId);
+                            vectors.add(vector);
+                        });
+                if (!chunkIds.isEmpty()) {
+                    store.append(docId, chunkIds.stream().mapToLong(Long::longValue).toArray(), vectors);
+                    pulled++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (removed > 0 || pulled > 0) {
+            log.info("向量段文件对账完成: userId={}, removedDocs={}, pulledDocs={}", userId, removed, pulled);
+        }
+        compactIfNeeded(store);
+        return store;
+    }
+
+    @Override
+    public void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<float[]> vectors) {
+        if (!properties.isEnabled() || userId == null) {
+            return;
+        }
+        if (properties.isSegmentsEnabled()) {
+            try {
+                store(userId).append(docId, chunkIds, vectors);
+            } catch (IOException | RuntimeException e) {
+                // 段文件写失败不影响主流程：该文档在本地不完整，检索时 covers 判定不通过会走 pgvector
+                log.warn("写入向量段文件失败: userId={}, docId={}, error={}", userId, docId, e.getMessage());
+            }
+        }
+        apply(userId, index -> {
+            for (int i = 0; i < chunkIds.length; i++) {
+                index.add(chunkIds[i], docId, vectors.get(i));
+            }
+        });
+    }
+
+    @Override
+    public void onDocumentRemoved(Long userId, Long docId) {
+        if (!properties.isEnabled() || userId == null) {
+            return;
+        }
+        SegmentedVectorStore store = stores.get(userId);
+        if (store != null) {
+            try {
+                store.removeDocument(docId);
+                compactIfNeeded(store);
+            } catch (IOException e) {
+                log.warn("写入向量段墓碑失败: userId={}, docId={}, error={}", userId, docId, e.getMessage());
+            }
+        }
+        apply(userId, index -> index.removeDocument(docId));
+        HnswIndex index = indexes.getIfPresent(userId);
+        if (index != null && index.deletedRatio() > properties.getCompactDeletedRatio()) {
+            indexes.invalidate(userId);
+            warmUp(userId);
+        }
+    }
+
+    /**
+     * 把变更应用到本地索引：正在预热则暂存，已发布则直接应用，都不是则无需处理（下次预热时全量加载）
+     */
+    private void apply(Long userId, Consumer<HnswIndex> change) {
+        WarmUpState<HnswIndex> state = warming.get(userId);
+        if (state != null && state.defer(change)) {
+            return;
+        }
+        HnswIndex index = indexes.getIfPresent(userId);
+        if (index != null) {
+            change.accept(index);
+        }
+    }
+
+    private void compactIfNeeded(SegmentedVectorStore store) {
+        if (store.deletedRatio() <= properties.getCompactDeletedRatio()) {
+            return;
+        }
+        try {
+            vectorIndexExecutor.execute(() -> {
+                try {
+                    store.compact();
+                } catch (IOException | RuntimeException e) {
+                    log.warn("向量段文件合并失败: {}", e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.debug("向量索引线程池已满，本次跳过段文件合并");
+        }
+    }
+
+    private SegmentedVectorStore store(Long userId) {
+        return stores.computeIfAbsent(userId, id -> {
+            try {
+                return openStore(Paths.get(properties.getSegmentDir(), String.valueOf(id)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private SegmentedVectorStore openStore(Path dir) throws IOException {
+        return SegmentedVectorStore.open(dir, dimension, properties.getSegmentMaxRows());
+    }
+}
@@ -0,0 +1,36 @@
+package com.uni.research.module.rag.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 单个用户的索引预热状态：建索引期间到达的增量变更按顺序暂存，发布前重放
+ *
+ * 配合"先查预热状态、再查已发布索引"的读取顺序使用：发布时先放入缓存、再关闭暂存，
+ * 所以 defer 返回 false 时调用方一定能在缓存里看到索引，变更不会丢
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+final class WarmUpState<T> {
+
+    private final List<Consumer<T>> pending = new ArrayList<>();
+
+    private boolean published;
+
+    synchronized boolean defer(Consumer<T> change) {
+        if (published) {
+            return false;
+        }
+        pending.add(change);
+        return true;
+    }
+
+    synchronized void publish(T index, Runnable install) {
+        pending.forEach(change -> change.accept(index));
+        pending.clear();
+        install.run();
+        published = true;
+    }
+}
@@ -0,0 +1,108 @@
+package com.uni.research.module.rag.vector;
+
+import java.util.Arrays;
+
+/**
+ * long 类型二叉堆（无装箱）
+ *
+ * 向量检索中把 (距离, 节点) 编码成一个 long：高 32 位为非负 float 距离的位模式，低 32 位为节点编号。
+ * 非负 float 的位模式与数值大小单调一致，所以直接比较 long 就是先按距离、再按节点排序。
+ * 该编码同样适用于其他非负分值（如 BM25），此时"距离"即分值
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class LongHeap {
+
+    private final boolean maxHeap;
+
+    private long[] items;
+
+    private int size;
+
+    public LongHeap(int capacity, boolean maxHeap) {
+        this.items = new long[Math.max(capacity, 4)];
+        this.maxHeap = maxHeap;
+    }
+
+    public static long encode(float distance, int node) {
+        float clamped = distance > 0 ? distance : 0f;
+        return ((long) Float.floatToRawIntBits(clamped) << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    public static float distance(long item) {
+        return Float.intBitsToFloat((int) (item >>> 32));
+    }
+
+    public static int node(long item) {
+        return (int) item;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long peek() {
+        return items[0];
+    }
+
+    public void push(long item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        int i = size++;
+        items[i] = item;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(items[i], items[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    public long pop() {
+        long top = items[0];
+        items[0] = items[--size];
+        int i = 0;
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int right = left + 1;
+            int child = right < size && before(items[right], items[left]) ? right : left;
+            if (!before(items[child], items[i])) {
+                break;
+            }
+            swap(i, child);
+            i = child;
+        }
+        return top;
+    }
+
+    /**
+     * 取出全部元素，按距离升序排列
+     */
+    public long[] drainAscending() {
+        long[] sorted = Arrays.copyOf(items, size);
+        Arrays.sort(sorted);
+        size = 0;
+        return sorted;
+    }
+
+    private boolean before(long a, long b) {
+        return maxHeap ? a > b : a < b;
+    }
+
+    private void swap(int i, int j) {
+        long tmp = items[i];
+        items[i] = items[j];
+        items[j] = tmp;
+    }
+}
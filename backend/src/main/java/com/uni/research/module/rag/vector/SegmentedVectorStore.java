@@ -0,0 +1,429 @@
+package com.uni.research.module.rag.vector;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 单个用户的向量段集合（磁盘持久化、内存映射检索）
+ *
+ * 对应 408 考点：操作系统 - 内存映射文件、页缓存；数据库 - 追加写日志与合并（LSM 思想）
+ *
+ * 设计思路：
+ * 1. 目录结构：{userId}/seg-000001.vec|.ids ...，只有最后一个段可写，写满后滚动新段；
+ *    MANIFEST 记录当前有效的段序号，以"写临时文件 + 原子改名"更新，是段列表变更的唯一提交点，
+ *    不在 MANIFEST 中的段文件（压缩或滚动中途崩溃的产物）在下次打开时清理
+ * 2. 删除不改写段文件，而是向 tombstones.del 追加 (docId, 删除位置)：
+ *    行位置 = (段序号 << 32) | 行号，早于删除位置的该文档行视为已删除，
+ *    这样文档重新向量化后追加的新行不会被旧墓碑误删
+ * 3. 墓碑占比过高时 compact()：把存活行的原始字节拷贝到序号更大的新段，提交 MANIFEST 后再删除旧段；
+ *    旧墓碑的删除位置都小于新段的行位置，即使来不及清空也不会误删
+ * 4. 检索是在映射内存上的精确扫描（Top-K 堆），重启后打开文件即可服务，不需要从 pgvector 重新拉取
+ *
+ * 面试话术：
+ * "向量如果只放在 JVM 堆里，每次重启都要从 pgvector 拉几百万行才能服务。
+ * 我设计了一个简单的段文件格式：定长 float32 向量 + chunkId/docId 表，只追加写，用 mmap 读。
+ * 重启时只需要把文件映射进来，数据由操作系统按需换页，几秒内就能开始检索，而且向量内存不在 Java 堆上、不增加 GC 压力。
+ * 删除用墓碑 + 后台合并，思路和 LSM-Tree 一样。"
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+public class SegmentedVectorStore implements Closeable {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("seg-(\\d{6})\\.(vec|ids)");
+
+    private static final String MANIFEST_FILE = "MANIFEST";
+
+    private static final String TOMBSTONE_FILE = "tombstones.del";
+
+    private final Path directory;
+
+    private final int dimension;
+
+    private final int maxRowsPerSegment;
+
+    /**
+     * 当前段列表（整体替换，检索线程拿到的是不可变快照）
+     */
+    private volatile List<VectorSegment> segments;
+
+    /**
+     * docId -> 删除位置（早于该位置的行已删除）
+     */
+    private final Map<Long, Long> tombstones = new ConcurrentHashMap<>();
+
+    /**
+     * docId -> 存活行数
+     */
+    private final Map<Long, Integer> liveChunksByDoc = new ConcurrentHashMap<>();
+
+    private FileChannel tombstoneChannel;
+
+    private long totalRows;
+
+    private long deletedRows;
+
+    private SegmentedVectorStore(Path directory, int dimension, int maxRowsPerSegment) {
+        this.directory = directory;
+        this.dimension = dimension;
+        this.maxRowsPerSegment = maxRowsPerSegment;
+    }
+
+    /**
+     * 打开（不存在则创建）用户的段目录：映射已有段、加载墓碑、统计每个文档的存活行数
+     */
+    public static SegmentedVectorStore open(Path directory, int dimension, int maxRowsPerSegment) throws IOException {
+        Files.createDirectories(directory);
+        SegmentedVectorStore store = new SegmentedVectorStore(directory, dimension, maxRowsPerSegment);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        List<Integer> sequences = readManifest();
+        // 不在 MANIFEST 中的段文件是压缩 / 滚动中途崩溃的产物，直接清理，缺失的数据由上层对账补齐
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Matcher matcher = SEGMENT_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && !sequences.contains(Integer.parseInt(matcher.group(1)))) {
+                    deleteQuietly(file);
+                }
+            }
+        }
+        List<VectorSegment> opened = new ArrayList<>(sequences.size());
+        segments = opened;
+        for (int sequence : sequences) {
+            opened.add(VectorSegment.open(vecPath(sequence), idsPath(sequence), sequence, dimension,
+                    maxRowsPerSegment));
+        }
+
+        tombstoneChannel = FileChannel.open(directory.resolve(TOMBSTONE_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long tombstoneBytes = tombstoneChannel.size() / 16 * 16;
+        tombstoneChannel.truncate(tombstoneBytes);
+        if (tombstoneBytes > 0) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) tombstoneBytes).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 0;
+            while (buffer.hasRemaining()) {
+                int read = tombstoneChannel.read(buffer, offset);
+                if (read < 0) {
+                    break;
+                }
+                offset += read;
+            }
+            buffer.flip();
+            while (buffer.remaining() >= 16) {
+                tombstones.merge(buffer.getLong(), buffer.getLong(), Math::max);
+            }
+        }
+
+        for (VectorSegment segment : opened) {
+            VectorSegment.View view = segment.view();
+            for (int row = 0; row < view.rows(); row++) {
+                totalRows++;
+                long docId = view.docId(row);
+                if (isDeleted(docId, position(segment.sequence(), row))) {
+                    deletedRows++;
+                } else {
+                    liveChunksByDoc.merge(docId, 1, Integer::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * 追加一个文档的一批文本块向量（写入前归一化，检索时点积即余弦相似度）
+     */
+    public synchronized void append(long docId, long[] chunkIds, List<float[]> vectors) throws IOException {
+        List<float[]> normalized = new ArrayList<>(vectors.size());
+        for (float[] vector : vectors) {
+            normalized.add(VectorCodec.normalize(vector.clone()));
+        }
+        int written = 0;
+        while (written < chunkIds.length) {
+            written += activeSegment().append(docId, chunkIds, normalized, written);
+        }
+        totalRows += written;
+        liveChunksByDoc.merge(docId, written, Integer::sum);
+    }
+
+    /**
+     * 删除文档：追加一条墓碑记录，已写入的该文档行全部失效
+     */
+    public synchronized int removeDocument(long docId) throws IOException {
+        Integer live = liveChunksByDoc.remove(docId);
+        if (live == null) {
+            return 0;
+        }
+        List<VectorSegment> current = segments;
+        long position = current.isEmpty() ? 0
+                : position(current.get(current.size() - 1).sequence(), current.get(current.size() - 1).count());
+        ByteBuffer record = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        record.putLong(docId).putLong(position).flip();
+        long offset = tombstoneChannel.size();
+        while (record.hasRemaining()) {
+            offset += tombstoneChannel.write(record, offset);
+        }
+        tombstones.merge(docId, position, Math::max);
+        deletedRows += live;
+        return live;
+    }
+
+    /**
+     * 精确 Top-K 检索（在映射内存上线性扫描）
+     *
+     * @param query     查询向量（不会被修改）
+     * @param docFilter 文档过滤条件，null 表示不过滤
+     */
+    public List<VectorHit> search(float[] query, int k, LongPredicate docFilter) throws IOException {
+        if (k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] q = VectorCodec.normalize(query.clone());
+        List<VectorSegment> current = segments;
+        VectorSegment.View[] views = new VectorSegment.View[current.size()];
+        // base[s] 为第 s 个段第 0 行的全局序号，候选堆中只存全局序号，结果里再二分反查段和行
+        int[] base = new int[views.length];
+        int ordinal = 0;
+        for (int i = 0; i < views.length; i++) {
+            views[i] = current.get(i).view();
+            base[i] = ordinal;
+            ordinal += views[i].rows();
+        }
+        LongHeap top = new LongHeap(k + 1, true);
+        for (int s = 0; s < views.length; s++) {
+            VectorSegment.View view = views[s];
+            int sequence = current.get(s).sequence();
+            for (int row = 0; row < view.rows(); row++) {
+                long docId = view.docId(row);
+                if ((docFilter != null && !docFilter.test(docId)) || isDeleted(docId, position(sequence, row))) {
+                    continue;
+                }
+                float distance = 1 - view.dot(row, q);
+                if (top.size() < k || distance < LongHeap.distance(top.peek())) {
+                    top.push(LongHeap.encode(distance, base[s] + row));
+                    if (top.size() > k) {
+                        top.pop();
+                    }
+                }
+            }
+        }
+        long[] sorted = top.drainAscending();
+        List<VectorHit> hits = new ArrayList<>(sorted.length);
+        for (long item : sorted) {
+            int global = LongHeap.node(item);
+            int s = Arrays.binarySearch(base, global);
+            // 空段与后一段的 base 相同，向后找到真正包含该行的段
+            s = s >= 0 ? s : -s - 2;
+            while (s + 1 < base.length && base[s + 1] <= global) {
+                s++;
+            }
+            VectorSegment.View view = views[s];
+            int row = global - base[s];
+            hits.add(new VectorHit(view.chunkId(row), view.docId(row), 1 - LongHeap.distance(item)));
+        }
+        return hits;
+    }
+
+    /**
+     * 遍历全部存活行（用于构建 HNSW 索引），vector 参数在回调间复用
+     */
+    public void forEach(RowHandler handler) throws IOException {
+        float[] buffer = new float[dimension];
+        for (VectorSegment segment : segments) {
+            VectorSegment.View view = segment.view();
+            for (int row = 0; row < view.rows(); row++) {
+                long docId = view.docId(row);
+                if (!isDeleted(docId, position(segment.sequence(), row))) {
+                    view.copyVector(row, buffer);
+                    handler.handle(view.chunkId(row), docId, buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并：把存活行的原始字节拷贝到新段，提交 MANIFEST 后删除旧段并清空墓碑
+     */
+    public synchronized void compact() throws IOException {
+        List<VectorSegment> old = segments;
+        int nextSequence = old.isEmpty() ? 1 : old.get(old.size() - 1).sequence() + 1;
+        List<VectorSegment> compacted = new ArrayList<>();
+        VectorSegment target = null;
+        long rows = 0;
+        try {
+            for (VectorSegment segment : old) {
+                VectorSegment.View view = segment.view();
+                for (int row = 0; row < view.rows(); row++) {
+                    if (isDeleted(view.docId(row), position(segment.sequence(), row))) {
+                        continue;
+                    }
+                    if (target == null || target.isFull()) {
+                        int sequence = nextSequence + compacted.size();
+                        target = VectorSegment.create(vecPath(sequence), idsPath(sequence), sequence, dimension,
+                                maxRowsPerSegment);
+                        compacted.add(target);
+                    }
+                    target.appendRaw(view, row);
+                    rows++;
+                }
+            }
+            writeManifest(compacted);
+        } catch (IOException | RuntimeException e) {
+            for (VectorSegment segment : compacted) {
+                segment.close();
+                deleteQuietly(vecPath(segment.sequence()));
+                deleteQuietly(idsPath(segment.sequence()));
+            }
+            throw e;
+        }
+
+        segments = compacted;
+        tombstoneChannel.truncate(0);
+        tombstones.clear();
+        for (VectorSegment segment : old) {
+            segment.close();
+            deleteQuietly(vecPath(segment.sequence()));
+            deleteQuietly(idsPath(segment.sequence()));
+        }
+        long removed = totalRows - rows;
+        totalRows = rows;
+        deletedRows = 0;
+        log.info("向量段合并完成: dir={}, segments={}, liveRows={}, removedRows={}",
+                directory, compacted.size(), rows, removed);
+    }
+
+    private VectorSegment activeSegment() throws IOException {
+        List<VectorSegment> current = segments;
+        if (!current.isEmpty() && !current.get(current.size() - 1).isFull()) {
+            return current.get(current.size() - 1);
+        }
+        int sequence = current.isEmpty() ? 1 : current.get(current.size() - 1).sequence() + 1;
+        VectorSegment created = VectorSegment.create(vecPath(sequence), idsPath(sequence), sequence, dimension,
+                maxRowsPerSegment);
+        List<VectorSegment> next = new ArrayList<>(current);
+        next.add(created);
+        writeManifest(next);
+        segments = next;
+        return created;
+    }
+
+    private List<Integer> readManifest() throws IOException {
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        List<Integer> sequences = new ArrayList<>();
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest)) {
+                if (!line.isBlank()) {
+                    sequences.add(Integer.parseInt(line.trim()));
+                }
+            }
+        }
+        return sequences;
+    }
+
+    private void writeManifest(List<VectorSegment> live) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (VectorSegment segment : live) {
+            content.append(segment.sequence()).append('\n');
+        }
+        Path manifest = directory.resolve(MANIFEST_FILE);
+        Path tmp = directory.resolve(MANIFEST_FILE + ".tmp");
+        Files.writeString(tmp, content);
+        Files.move(tmp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 删除段文件；Windows 下仍被映射的文件无法删除，留待下次打开时按 MANIFEST 清理
+     */
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.debug("段文件暂时无法删除，稍后清理: {}", file);
+        }
+    }
+
+    private boolean isDeleted(long docId, long position) {
+        Long deletedBefore = tombstones.get(docId);
+        return deletedBefore != null && position < deletedBefore;
+    }
+
+    private static long position(int sequence, int row) {
+        return ((long) sequence << 32) | row;
+    }
+
+    private Path vecPath(int sequence) {
+        return directory.resolve(String.format("seg-%06d.vec", sequence));
+    }
+
+    private Path idsPath(int sequence) {
+        return directory.resolve(String.format("seg-%06d.ids", sequence));
+    }
+
+    /**
+     * 存活的文档 ID
+     */
+    public Collection<Long> documentIds() {
+        return Collections.unmodifiableSet(liveChunksByDoc.keySet());
+    }
+
+    public boolean containsDocument(long docId) {
+        return liveChunksByDoc.containsKey(docId);
+    }
+
+    public synchronized long liveRows() {
+        return totalRows - deletedRows;
+    }
+
+    public synchronized double deletedRatio() {
+        return totalRows == 0 ? 0 : (double) deletedRows / totalRows;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        List<VectorSegment> current = segments;
+        if (current != null) {
+            for (VectorSegment segment : current) {
+                segment.close();
+            }
+        }
+        if (tombstoneChannel != null) {
+            tombstoneChannel.close();
+        }
+    }
+
+    /**
+     * 逐行回调
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+
+        void handle(long chunkId, long docId, float[] vector);
+    }
+}
@@ -0,0 +1,109 @@
+package com.uni.research.module.rag.vector;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/**
+ * 向量编解码与基础运算
+ *
+ * 向量统一使用 float32（float[]），不使用 List&lt;Double&gt;：
+ * 1536 维向量 float[] 约 6KB，而 List&lt;Double&gt; 每个元素是一个 16 字节对象加 4~8 字节引用，约 37KB
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class VectorCodec {
+
+    private VectorCodec() {
+    }
+
+    /**
+     * float32 小端字节序编码
+     */
+    public static byte[] toBytes(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    public static float[] fromBytes(byte[] bytes) {
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    /**
+     * Base64 编码（用于存入 Redis 字符串）
+     */
+    public static String toBase64(float[] vector) {
+        return Base64.getEncoder().encodeToString(toBytes(vector));
+    }
+
+    public static float[] fromBase64(String text) {
+        return fromBytes(Base64.getDecoder().decode(text));
+    }
+
+    /**
+     * pgvector 文本格式编码：[0.1,0.2,...]
+     */
+    public static String toPgVector(float[] vector) {
+        StringBuilder builder = new StringBuilder(vector.length * 12).append('[');
+        for (int i = 0; i < vector.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(vector[i]);
+        }
+        return builder.append(']').toString();
+    }
+
+    /**
+     * pgvector 文本格式解码（逐段解析，不做 split 产生中间数组）
+     */
+    public static float[] fromPgVector(String text, int dimension) {
+        float[] vector = new float[dimension];
+        int index = 0;
+        int start = 1;
+        int end = text.length() - 1;
+        for (int i = start; i <= end && index < dimension; i++) {
+            if (i == end || text.charAt(i) == ',') {
+                vector[index++] = Float.parseFloat(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        if (index != dimension) {
+            throw new IllegalArgumentException("向量维度不匹配: expected=" + dimension + ", actual=" + index);
+        }
+        return vector;
+    }
+
+    /**
+     * 原地归一化为单位向量，之后余弦相似度即为点积
+     */
+    public static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        if (norm == 0) {
+            return vector;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * 点积
+     */
+    public static float dot(float[] a, float[] b) {
+        float sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,13 @@
+package com.uni.research.module.rag.vector;
+
+/**
+ * 向量检索命中结果
+ *
+ * @param chunkId 文本块 ID（doc_embeddings.id）
+ * @param docId   文档 ID
+ * @param score   余弦相似度，越大越相似
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record VectorHit(long chunkId, long docId, float score) {
+}
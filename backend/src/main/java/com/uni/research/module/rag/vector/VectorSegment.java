@@ -0,0 +1,299 @@
+package com.uni.research.module.rag.vector;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 向量段文件（追加写、内存映射读）
+ *
+ * 一个段由两个文件组成：
+ * <pre>
+ * seg-000001.vec  头部 32 字节：magic(8) | version(4) | dimension(4) | 保留(16)
+ *                 之后每行 dimension 个 float32（小端），定长
+ * seg-000001.ids  每行 16 字节：chunkId(8) | docId(8)（小端）
+ * </pre>
+ * 行数 = min(vec 行数, ids 行数)；先写向量再写 ID，进程崩溃留下的半行在打开时截掉。
+ * 段文件只是 pgvector 的本地副本，丢失的部分由上层对账补齐，所以写入不做 fsync
+ *
+ * 读取通过 FileChannel.map 映射为只读 MappedByteBuffer：向量数据在页缓存里，不占 Java 堆，
+ * 检索直接在映射内存上计算点积，没有拷贝。旧映射从不主动 unmap（Java 17 没有安全的 unmap API），
+ * 由 GC 回收，这样并发检索中的线程不会访问到已解除映射的地址
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public final class VectorSegment implements Closeable {
+
+    /**
+     * "UNIVSEG1"
+     */
+    private static final long MAGIC = 0x554E495653454731L;
+
+    private static final int VERSION = 1;
+
+    static final int HEADER_BYTES = 32;
+
+    static final int ID_ROW_BYTES = 16;
+
+    private final int sequence;
+
+    private final int dimension;
+
+    private final int rowBytes;
+
+    private final int maxRows;
+
+    private final FileChannel vecChannel;
+
+    private final FileChannel idsChannel;
+
+    /**
+     * 压缩时逐行写 ID 的复用缓冲区
+     */
+    private final ByteBuffer idBuffer = ByteBuffer.allocate(ID_ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile int count;
+
+    private volatile View view;
+
+    private VectorSegment(int sequence, int dimension, int maxRows, FileChannel vecChannel, FileChannel idsChannel,
+                          int count) {
+        this.sequence = sequence;
+        this.dimension = dimension;
+        this.rowBytes = dimension * Float.BYTES;
+        this.maxRows = maxRows;
+        this.vecChannel = vecChannel;
+        this.idsChannel = idsChannel;
+        this.count = count;
+        this.view = View.EMPTY;
+    }
+
+    /**
+     * 单个段的最大行数：受 MappedByteBuffer 2GB 上限约束
+     */
+    public static int maxRowsFor(int dimension, int configured) {
+        return (int) Math.min(configured, (Integer.MAX_VALUE - HEADER_BYTES) / ((long) dimension * Float.BYTES));
+    }
+
+    public static VectorSegment create(Path vecPath, Path idsPath, int sequence, int dimension, int maxRows)
+            throws IOException {
+        FileChannel vec = FileChannel.open(vecPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileChannel ids = FileChannel.open(idsPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putLong(MAGIC).putInt(VERSION).putInt(dimension).flip();
+        vec.write(header, 0);
+        return new VectorSegment(sequence, dimension, maxRowsFor(dimension, maxRows), vec, ids, 0);
+    }
+
+    public static VectorSegment open(Path vecPath, Path idsPath, int sequence, int dimension, int maxRows)
+            throws IOException {
+        FileChannel vec = FileChannel.open(vecPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel ids = FileChannel.open(idsPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            vec.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getLong() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("不是有效的向量段文件: " + vecPath);
+            }
+            int fileDimension = header.getInt();
+            if (fileDimension != dimension) {
+                throw new IOException("向量段维度不匹配: file=" + fileDimension + ", expected=" + dimension);
+            }
+            int rowBytes = dimension * Float.BYTES;
+            long rows = Math.min((vec.size() - HEADER_BYTES) / rowBytes, ids.size() / ID_ROW_BYTES);
+            // 截掉崩溃时写了一半的行，保证两个文件行数一致、后续追加位置正确
+            vec.truncate(HEADER_BYTES + rows * rowBytes);
+            ids.truncate(rows * ID_ROW_BYTES);
+            return new VectorSegment(sequence, dimension, maxRowsFor(dimension, maxRows), vec, ids, (int) rows);
+        } catch (IOException | RuntimeException e) {
+            vec.close();
+            ids.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 追加同一文档的一批行（调用方保证单线程写入，且向量已归一化）
+     *
+     * 整批编码进一个缓冲区，两个文件各一次写系统调用
+     *
+     * @return 实际写入的行数（受段剩余容量限制）
+     */
+    public int append(long docId, long[] chunkIds, List<float[]> vectors, int from) throws IOException {
+        int row = count;
+        int rows = Math.min(chunkIds.length - from, maxRows - row);
+        if (rows <= 0) {
+            return 0;
+        }
+        ByteBuffer vecBuffer = ByteBuffer.allocate(rows * rowBytes).order(ByteOrder.LITTLE_ENDIAN);
+        FloatBuffer floats = vecBuffer.asFloatBuffer();
+        ByteBuffer idRows = ByteBuffer.allocate(rows * ID_ROW_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = from; i < from + rows; i++) {
+            float[] vector = vectors.get(i);
+            if (vector.length != dimension) {
+                throw new IllegalArgumentException("向量维度不匹配: expected=" + dimension + ", actual=" + vector.length);
+            }
+            floats.put(vector);
+            idRows.putLong(chunkIds[i]).putLong(docId);
+        }
+        idRows.flip();
+        writeFully(vecChannel, vecBuffer, HEADER_BYTES + (long) row * rowBytes);
+        writeFully(idsChannel, idRows, (long) row * ID_ROW_BYTES);
+        count = row + rows;
+        return rows;
+    }
+
+    /**
+     * 直接追加另一个段中的一行原始字节（压缩时使用，不经过 float[] 解码）
+     */
+    void appendRaw(View source, int row) throws IOException {
+        if (isFull()) {
+            throw new IllegalStateException("向量段已满: seq=" + sequence);
+        }
+        int target = count;
+        ByteBuffer vector = source.vectorBytes.duplicate();
+        vector.position(HEADER_BYTES + row * rowBytes).limit(HEADER_BYTES + (row + 1) * rowBytes);
+        writeFully(vecChannel, vector, HEADER_BYTES + (long) target * rowBytes);
+
+        idBuffer.clear();
+        idBuffer.putLong(source.chunkId(row)).putLong(source.docId(row)).flip();
+        writeFully(idsChannel, idBuffer, (long) target * ID_ROW_BYTES);
+        count = target + 1;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 获取当前已写入数据的只读视图；有新追加的行时重新映射
+     */
+    public View view() throws IOException {
+        View current = view;
+        int rows = count;
+        if (current.rows == rows) {
+            return current;
+        }
+        synchronized (this) {
+            current = view;
+            rows = count;
+            if (current.rows != rows) {
+                MappedByteBuffer vec = vecChannel.map(FileChannel.MapMode.READ_ONLY, 0,
+                        HEADER_BYTES + (long) rows * rowBytes);
+                MappedByteBuffer ids = idsChannel.map(FileChannel.MapMode.READ_ONLY, 0, (long) rows * ID_ROW_BYTES);
+                current = new View(rows, dimension, vec, ids);
+                view = current;
+            }
+            return current;
+        }
+    }
+
+    public int sequence() {
+        return sequence;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count >= maxRows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            vecChannel.close();
+        } finally {
+            idsChannel.close();
+        }
+    }
+
+    /**
+     * 段在某一时刻的不可变只读视图，多个检索线程可以共享
+     */
+    public static final class View {
+
+        static final View EMPTY = new View(0, 0, null, null);
+
+        private final int rows;
+
+        private final int dimension;
+
+        private final ByteBuffer vectorBytes;
+
+        private final FloatBuffer vectors;
+
+        private final LongBuffer ids;
+
+        View(int rows, int dimension, MappedByteBuffer vec, MappedByteBuffer ids) {
+            this.rows = rows;
+            this.dimension = dimension;
+            if (vec == null) {
+                this.vectorBytes = null;
+                this.vectors = null;
+                this.ids = null;
+                return;
+            }
+            this.vectorBytes = vec.order(ByteOrder.LITTLE_ENDIAN);
+            this.vectors = vec.duplicate().position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN)
+                    .asFloatBuffer();
+            this.ids = ids.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        }
+
+        public int rows() {
+            return rows;
+        }
+
+        public long chunkId(int row) {
+            return ids.get(row * 2);
+        }
+
+        public long docId(int row) {
+            return ids.get(row * 2 + 1);
+        }
+
+        /**
+         * 与查询向量的点积（直接在映射内存上计算）
+         */
+        public float dot(int row, float[] query) {
+            int offset = row * dimension;
+            float s0 = 0;
+            float s1 = 0;
+            float s2 = 0;
+            float s3 = 0;
+            int i = 0;
+            for (int bound = dimension & ~3; i < bound; i += 4) {
+                s0 += query[i] * vectors.get(offset + i);
+                s1 += query[i + 1] * vectors.get(offset + i + 1);
+                s2 += query[i + 2] * vectors.get(offset + i + 2);
+                s3 += query[i + 3] * vectors.get(offset + i + 3);
+            }
+            for (; i < dimension; i++) {
+                s0 += query[i] * vectors.get(offset + i);
+            }
+            return s0 + s1 + s2 + s3;
+        }
+
+        /**
+         * 拷贝出一行向量（用于构建 HNSW 索引）
+         */
+        public void copyVector(int row, float[] target) {
+            vectors.get(row * dimension, target, 0, dimension);
+        }
+    }
+}
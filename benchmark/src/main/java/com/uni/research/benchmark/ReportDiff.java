@@ -0,0 +1,123 @@
+package com.uni.research.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 对比两个版本的性能报告
+ *
+ * 设计思路：
+ * 1. 支持 LoadTestRunner 的 load-report.csv 和 JMH 的 -rf csv 输出，按表头自动识别
+ * 2. 压测报告按场景对比 throughput_rps（越大越好）和 p50 / p99（越小越好）；
+ *    JMH 报告按 基准方法 + 模式 + 线程数 + 参数 对比 Score，thrpt 模式越大越好，其余越小越好
+ * 3. 变差超过阈值（默认 10%）的行标记为 REGRESSION，存在回归时退出码为 1，可直接用于 CI
+ *
+ * 运行：java -cp target/benchmarks.jar com.uni.research.benchmark.ReportDiff base.csv current.csv [threshold=0.1]
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class ReportDiff {
+
+    private static final List<String> LOAD_METRICS = List.of("throughput_rps", "p50_ms", "p99_ms");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: ReportDiff <base.csv> <current.csv> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+        Map<String, Metric> base = read(Path.of(args[0]));
+        Map<String, Metric> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf(Locale.ROOT, "%-70s %14s %14s %9s%n", "metric", "base", "current", "change");
+        for (Map.Entry<String, Metric> entry : current.entrySet()) {
+            Metric before = base.get(entry.getKey());
+            Metric after = entry.getValue();
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-70s %14s %14.3f %9s%n", entry.getKey(), "-", after.value(), "new");
+                continue;
+            }
+            double change = before.value() == 0 ? 0 : (after.value() - before.value()) / before.value();
+            double worse = after.higherIsBetter() ? -change : change;
+            boolean regression = worse > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14.3f %14.3f %+8.1f%%%s%n", entry.getKey(), before.value(),
+                    after.value(), change * 100, regression ? "  REGRESSION" : "");
+        }
+        for (String key : base.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-70s %14.3f %14s %9s%n", key, base.get(key).value(), "-", "removed");
+            }
+        }
+        System.out.printf(Locale.ROOT, "%n变差超过 %.0f%% 的指标: %d%n", threshold * 100, regressions);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    static Map<String, Metric> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("空报告: " + file);
+        }
+        List<String> header = split(lines.get(0));
+        Map<String, Metric> metrics = new LinkedHashMap<>();
+        boolean jmh = header.get(0).equals("Benchmark");
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> row = split(line);
+            if (jmh) {
+                readJmhRow(header, row, metrics);
+            } else {
+                readLoadRow(header, row, metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private static void readLoadRow(List<String> header, List<String> row, Map<String, Metric> metrics) {
+        String scenario = row.get(header.indexOf("scenario"));
+        for (String metric : LOAD_METRICS) {
+            double value = Double.parseDouble(row.get(header.indexOf(metric)));
+            metrics.put(scenario + " " + metric, new Metric(value, metric.equals("throughput_rps")));
+        }
+    }
+
+    private static void readJmhRow(List<String> header, List<String> row, Map<String, Metric> metrics) {
+        String mode = row.get(header.indexOf("Mode"));
+        StringBuilder key = new StringBuilder(row.get(0).replace("com.uni.research.benchmark.jmh.", ""))
+                .append(" [").append(mode).append(", t=").append(row.get(header.indexOf("Threads")));
+        for (int i = 0; i < header.size(); i++) {
+            // 多个基准类合并在一个报告里时，不属于本类的参数列为空
+            if (header.get(i).startsWith("Param: ") && i < row.size() && !row.get(i).isEmpty()) {
+                key.append(", ").append(header.get(i).substring("Param: ".length())).append('=').append(row.get(i));
+            }
+        }
+        key.append(", ").append(row.get(header.indexOf("Unit"))).append(']');
+        double score = Double.parseDouble(row.get(header.indexOf("Score")));
+        metrics.put(key.toString(), new Metric(score, mode.equals("thrpt")));
+    }
+
+    private static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        for (String cell : Arrays.asList(line.split(",", -1))) {
+            cells.add(cell.strip().replace("\"", ""));
+        }
+        return cells;
+    }
+
+    record Metric(double value, boolean higherIsBetter) {
+    }
+}
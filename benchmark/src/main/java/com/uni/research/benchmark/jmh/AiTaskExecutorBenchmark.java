@@ -0,0 +1,112 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.concurrent.AdaptiveConcurrencyLimiter;
+import com.uni.research.common.concurrent.AiTaskPermits;
+import com.uni.research.common.config.AiTaskProperties;
+import com.uni.research.common.config.ThreadPoolConfig;
+import com.uni.research.common.exception.BizException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * aiTaskExecutor 提交 / 完成的往返开销（多线程争用）
+ *
+ * 对应 408 考点：操作系统 - 线程池、信号量、生产者-消费者
+ *
+ * 设计思路：
+ * 1. 用生产配置（ThreadPoolConfig.aiTaskExecutor）创建执行器，经过自适应限流、排队指标、全局 + 单用户许可
+ * 2. rawPool：相同核心数和队列的裸 ThreadPoolExecutor，差值是装饰器（限流令牌、许可、链路移交）的开销
+ * 3. 任务只消耗 work 个 CPU 单位，测的是调度和同步本身；8 个提交线程同时 submit + get，模拟请求线程争用
+ * 4. mode=VIRTUAL 在 Java 17 上回退为平台线程池，需要在 Java 21 上运行才有对比意义
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AiTaskExecutorBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    private AiTaskProperties.ExecutorMode mode;
+
+    @Param({"0", "1000"})
+    private int work;
+
+    private AsyncTaskExecutor aiTaskExecutor;
+
+    private ExecutorService rawPool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AiTaskProperties properties = new AiTaskProperties();
+        properties.setMode(mode);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        AiTaskPermits permits = new AiTaskPermits(properties, registry);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, registry);
+        aiTaskExecutor = new ThreadPoolConfig().aiTaskExecutor(properties, permits, limiter, registry);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        rawPool = new ThreadPoolExecutor(cores, cores * 2, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(properties.getQueueCapacity()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (aiTaskExecutor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        } else if (aiTaskExecutor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        rawPool.shutdownNow();
+    }
+
+    /**
+     * 被自适应限流拒绝时返回异常本身（快速失败也是这条路径的真实开销），不中断测量
+     */
+    @Benchmark
+    public Object aiTaskExecutor() throws ExecutionException, InterruptedException {
+        try {
+            return aiTaskExecutor.submit(this::task).get();
+        } catch (BizException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object rawPool() throws ExecutionException, InterruptedException {
+        return rawPool.submit(this::task).get();
+    }
+
+    private Object task() {
+        Blackhole.consumeCPU(work);
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,109 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.aspect.ApiLogAspect;
+import com.uni.research.common.aspect.ApiMetricsAspect;
+import com.uni.research.common.config.ApiLogProperties;
+import com.uni.research.common.result.Result;
+import com.uni.research.module.demo.controller.DemoController;
+import com.uni.research.module.demo.dto.EchoVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiLogAspect / ApiMetricsAspect 开销
+ *
+ * 对应 408 考点：设计模式 - 代理模式（CGLIB 动态代理的调用开销）
+ *
+ * 设计思路：
+ * 1. 同一个 DemoController 实例分别直接调用、只织入日志切面、织入日志 + 指标切面，差值就是切面本身的开销
+ * 2. 日志输出到 NOP Appender（见 logback.xml），测的是拼接和采样，不含磁盘 I/O
+ * 3. argsSampleRate 取 0.1（默认）和 1.0（每条都渲染参数）两档，验证采样对 CPU 和分配的影响
+ *
+ * 运行：java -jar target/benchmarks.jar ApiLogAspectBenchmark -prof gc
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiLogAspectBenchmark {
+
+    @Param({"0.1", "1.0"})
+    private double argsSampleRate;
+
+    private DemoController direct;
+
+    private DemoController withLog;
+
+    private DemoController withLogAndMetrics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ApiLogProperties properties = new ApiLogProperties();
+        properties.setArgsSampleRate(argsSampleRate);
+        ApiLogAspect logAspect = new ApiLogAspect(properties);
+        ApiMetricsAspect metricsAspect = new ApiMetricsAspect(new SimpleMeterRegistry());
+
+        direct = new DemoController();
+        withLog = proxy(direct, logAspect);
+        withLogAndMetrics = proxy(direct, metricsAspect, logAspect);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/demo/echo");
+        request.setParameter("name", "World");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public Result<EchoVO> direct() {
+        return direct.testEcho("World");
+    }
+
+    @Benchmark
+    public Result<EchoVO> apiLog() {
+        return withLog.testEcho("World");
+    }
+
+    @Benchmark
+    public Result<EchoVO> apiLogAndMetrics() {
+        return withLogAndMetrics.testEcho("World");
+    }
+
+    /**
+     * 按生产环境的方式织入（CGLIB，切面顺序与注册顺序一致）
+     */
+    private static DemoController proxy(DemoController target, Object... aspects) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        for (Object aspect : aspects) {
+            factory.addAspect(aspect);
+        }
+        return factory.getProxy();
+    }
+}
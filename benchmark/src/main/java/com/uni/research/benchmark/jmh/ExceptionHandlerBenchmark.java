@@ -0,0 +1,127 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.config.ApiLogProperties;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.exception.ErrorLogAggregator;
+import com.uni.research.common.exception.GlobalExceptionHandler;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 成功路径与各类错误路径的开销对比
+ *
+ * 对应 408 考点：操作系统 - 栈帧与异常处理
+ *
+ * 设计思路：
+ * 1. 异常从 depth 层调用栈深处抛出，模拟 Controller 经过 Tomcat + Spring MVC 约百层栈帧的情况，
+ *    采集堆栈的代价与栈深成正比
+ * 2. success：正常返回 Result；expectedBiz：可预期的业务异常（不采集堆栈、日志汇总）；
+ *    sharedBiz：BizException.of 复用的共享实例；unexpectedBiz：5xxx 业务异常（采集堆栈、逐条 error 日志）；
+ *    system：未捕获的 RuntimeException 走 handleException
+ * 3. 每次调用都经过 GlobalExceptionHandler，与线上一致
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExceptionHandlerBenchmark {
+
+    @Param({"16", "128"})
+    private int depth;
+
+    private ErrorLogAggregator errorLog;
+
+    private GlobalExceptionHandler handler;
+
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        errorLog = new ErrorLogAggregator(new ApiLogProperties());
+        errorLog.start();
+        handler = new GlobalExceptionHandler(errorLog);
+        response = new MockHttpServletResponse();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        errorLog.stop();
+    }
+
+    @Benchmark
+    public Result<?> success() {
+        return call(depth, Kind.SUCCESS);
+    }
+
+    @Benchmark
+    public Result<?> expectedBiz() {
+        return call(depth, Kind.EXPECTED_BIZ);
+    }
+
+    @Benchmark
+    public Result<?> sharedBiz() {
+        return call(depth, Kind.SHARED_BIZ);
+    }
+
+    @Benchmark
+    public Result<?> unexpectedBiz() {
+        return call(depth, Kind.UNEXPECTED_BIZ);
+    }
+
+    @Benchmark
+    public Result<?> system() {
+        return call(depth, Kind.SYSTEM);
+    }
+
+    private Result<?> call(int depth, Kind kind) {
+        try {
+            return invoke(depth, kind);
+        } catch (BizException e) {
+            return handler.handleBizException(e, response);
+        } catch (RuntimeException e) {
+            return handler.handleException(e);
+        }
+    }
+
+    private static Result<?> invoke(int depth, Kind kind) {
+        if (depth > 0) {
+            return invoke(depth - 1, kind);
+        }
+        return switch (kind) {
+            case SUCCESS -> Result.success();
+            case EXPECTED_BIZ -> throw new BizException(ResultCode.USER_NOT_FOUND, "这是一个模拟的业务异常");
+            case SHARED_BIZ -> throw BizException.of(ResultCode.TOO_MANY_REQUESTS);
+            case UNEXPECTED_BIZ -> throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 服务返回 502");
+            case SYSTEM -> throw new IllegalStateException("这是一个模拟的系统异常");
+        };
+    }
+
+    private enum Kind {
+        SUCCESS,
+        EXPECTED_BIZ,
+        SHARED_BIZ,
+        UNEXPECTED_BIZ,
+        SYSTEM
+    }
+}
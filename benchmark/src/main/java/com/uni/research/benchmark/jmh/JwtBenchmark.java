@@ -0,0 +1,106 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.config.JwtProperties;
+import com.uni.research.common.security.AuthToken;
+import com.uni.research.common.security.BloomFilter;
+import com.uni.research.common.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 鉴权路径：完整验签 vs 验签缓存，以及黑名单布隆过滤器
+ *
+ * 对应 408 考点：数据结构 - 散列、布隆过滤器
+ *
+ * 设计思路：
+ * 1. parse：每次 HMAC 验签 + Base64 / JSON 解析（引入缓存之前每个请求都要做）
+ * 2. verify：JwtAuthenticationFilter 实际使用的路径，同一 Token 命中 Caffeine 缓存
+ * 3. bloomMiss：绝大多数 Token 的 jti 不在黑名单中，布隆过滤器一次判断即可放行，不用查 Redis
+ * 4. 4 个线程并发，覆盖缓存读的争用
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final int TOKENS = 1024;
+
+    private JwtTokenProvider tokenProvider;
+
+    private BloomFilter blacklist;
+
+    private String[] tokens;
+
+    private String[] tokenIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("uni-research-benchmark-secret-key-must-be-at-least-256-bits-long");
+        tokenProvider = new JwtTokenProvider(properties, new SimpleMeterRegistry());
+        JwtProperties.Blacklist blacklistProperties = properties.getBlacklist();
+        blacklist = new BloomFilter(blacklistProperties.getExpectedInsertions(),
+                blacklistProperties.getFalsePositiveRate());
+        for (int i = 0; i < blacklistProperties.getExpectedInsertions() / 2; i++) {
+            blacklist.put(UUID.randomUUID().toString());
+        }
+        tokens = new String[TOKENS];
+        tokenIds = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            tokens[i] = tokenProvider.createToken((long) i);
+            tokenIds[i] = tokenProvider.parse(tokens[i]).tokenId();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private int next;
+
+        String token(JwtBenchmark benchmark) {
+            next = (next + 1) & (TOKENS - 1);
+            return benchmark.tokens[next];
+        }
+
+        String tokenId(JwtBenchmark benchmark) {
+            next = (next + 1) & (TOKENS - 1);
+            return benchmark.tokenIds[next];
+        }
+    }
+
+    @Benchmark
+    public AuthToken parse(Cursor cursor) {
+        return tokenProvider.parse(cursor.token(this));
+    }
+
+    @Benchmark
+    public AuthToken verify(Cursor cursor) {
+        return tokenProvider.verify(cursor.token(this));
+    }
+
+    @Benchmark
+    public boolean bloomMiss(Cursor cursor) {
+        return blacklist.mightContain(cursor.tokenId(this));
+    }
+}
@@ -0,0 +1,139 @@
+package com.uni.research.benchmark.jmh;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import com.uni.research.common.result.ResultHttpMessageConverter;
+import com.uni.research.module.demo.dto.EchoVO;
+import com.uni.research.module.demo.dto.StatusVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result 创建与序列化
+ *
+ * 对应 408 考点：计算机组成 - 内存分配与缓存局部性
+ *
+ * 设计思路：
+ * 1. reflective：关闭注解后的 Bean 反射序列化（引入 ResultSerializer 之前的做法），作为基线
+ * 2. streaming：ResultSerializer 按固定字段顺序流式写出
+ * 3. defaultConverter / resultConverter：MVC 写响应时实际走的两条路径，后者复用 ObjectWriter、直接写输出流
+ * 4. sharedSuccess / newSuccess：无数据响应复用单例与每次新建的分配差异（配合 -prof gc 看 B/op）
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    /**
+     * 响应体：empty（无数据）、status（/demo/success）、list（20 条记录的分页结果）
+     */
+    @Param({"empty", "status", "list"})
+    private String payload;
+
+    private Result<?> result;
+
+    private ObjectMapper reflectiveMapper;
+
+    private ObjectMapper mapper;
+
+    private MappingJackson2HttpMessageConverter defaultConverter;
+
+    private ResultHttpMessageConverter resultConverter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        reflectiveMapper = mapper.copy().configure(MapperFeature.USE_ANNOTATIONS, false);
+        defaultConverter = new MappingJackson2HttpMessageConverter(mapper);
+        resultConverter = new ResultHttpMessageConverter(mapper);
+        result = switch (payload) {
+            case "empty" -> Result.success();
+            case "status" -> Result.success(new StatusVO("Hello, Uni-Research-Assistant!",
+                    LocalDateTime.now(), "running", "1.0.0"));
+            case "list" -> Result.success(rows(20));
+            default -> throw new IllegalArgumentException("未知 payload: " + payload);
+        };
+    }
+
+    @Benchmark
+    public byte[] reflective() throws IOException {
+        return reflectiveMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public byte[] streaming() throws IOException {
+        return mapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public MockHttpOutputMessage defaultConverter() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        defaultConverter.write(result, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    @Benchmark
+    public MockHttpOutputMessage resultConverter() throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        resultConverter.write(result, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    @Benchmark
+    public void sharedSuccess(Blackhole blackhole) {
+        blackhole.consume(Result.success());
+        blackhole.consume(Result.fail(ResultCode.TOO_MANY_REQUESTS));
+    }
+
+    @Benchmark
+    public void newSuccess(Blackhole blackhole) {
+        blackhole.consume(new Result<>(ResultCode.SUCCESS.getCode(), ResultCode.SUCCESS.getMessage(), null));
+        blackhole.consume(new Result<>(ResultCode.TOO_MANY_REQUESTS.getCode(),
+                ResultCode.TOO_MANY_REQUESTS.getMessage(), null));
+    }
+
+    private static List<Object> rows(int count) {
+        List<Object> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", 100_000L + i);
+            row.put("title", "文档标题-" + i);
+            row.put("status", "COMPLETED");
+            row.put("createTime", LocalDateTime.now());
+            row.put("echo", new EchoVO("name-" + i, "Hello, name-" + i + "!", 6));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,238 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.config.RetrievalProperties;
+import com.uni.research.common.result.CursorPage;
+import com.uni.research.module.doc.dto.DocumentVO;
+import com.uni.research.module.doc.entity.Document;
+import com.uni.research.module.doc.service.DocumentService;
+import com.uni.research.module.rag.dto.RetrievedChunk;
+import com.uni.research.module.rag.keyword.InvertedIndex;
+import com.uni.research.module.rag.keyword.KeywordHit;
+import com.uni.research.module.rag.repository.DocEmbeddingRepository;
+import com.uni.research.module.rag.service.EmbeddingService;
+import com.uni.research.module.rag.service.KeywordSearchService;
+import com.uni.research.module.rag.service.VectorSearchService;
+import com.uni.research.module.rag.service.impl.RetrievalServiceImpl;
+import com.uni.research.module.rag.vector.VectorHit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键词检索（BM25 倒排索引）与混合检索 RRF 融合
+ *
+ * 对应 408 考点：数据结构 - 倒排索引、散列表、堆（Top-K）
+ *
+ * 设计思路：
+ * 1. bm25：在 size 个合成中文文本块上按生产默认参数（k1=1.2、b=0.75）检索
+ * 2. fusion：RetrievalServiceImpl 的完整流程，范围解析、向量化、向量检索、关键词检索、原文读取都换成返回固定结果的桩，
+ *    只测并行编排、RRF 融合、排序截断本身
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RetrievalBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "大模型", "检索", "增强", "生成", "向量", "数据库", "索引", "操作系统", "进程", "线程",
+            "调度", "内存", "分页", "虚拟", "文件", "系统", "网络", "协议", "传输", "拥塞",
+            "控制", "数据结构", "散列", "排序", "图", "最短路径", "事务", "隔离", "日志", "缓存",
+            "一致性", "分布式", "共识", "算法", "复杂度", "实验", "结果", "分析", "论文", "方法"
+    };
+
+    private static final Long USER_ID = 1L;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private InvertedIndex index;
+
+    private RetrievalServiceImpl retrievalService;
+
+    private List<Long> docIds;
+
+    private String[] queries;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RetrievalProperties properties = new RetrievalProperties();
+        Random random = new Random(42);
+        index = new InvertedIndex(properties.getBm25K1(), properties.getBm25B(), size);
+        for (int chunkId = 0; chunkId < size; chunkId++) {
+            index.add(chunkId, chunkId / 50, sentence(random, 80 + random.nextInt(120)));
+        }
+        queries = new String[256];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = sentence(random, 3 + random.nextInt(4));
+        }
+
+        int candidates = properties.getTopK() * properties.getCandidateMultiplier();
+        List<VectorHit> vectorHits = new ArrayList<>(candidates);
+        List<KeywordHit> keywordHits = new ArrayList<>(candidates);
+        for (int i = 0; i < candidates; i++) {
+            vectorHits.add(new VectorHit(i * 2L, i / 5, 0.95f - i * 0.005f));
+            keywordHits.add(new KeywordHit(i * 3L, i / 5, 12f - i * 0.1f));
+        }
+        docIds = new ArrayList<>();
+        for (long docId = 0; docId < candidates / 5 + 1; docId++) {
+            docIds.add(docId);
+        }
+        retrievalService = new RetrievalServiceImpl(properties, new StubEmbeddingService(),
+                new StubVectorSearchService(vectorHits), new StubKeywordSearchService(keywordHits),
+                new StubDocumentService(), new StubEmbeddingRepository(), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public List<KeywordHit> bm25() {
+        return index.search(nextQuery(), 20, null);
+    }
+
+    @Benchmark
+    public List<RetrievedChunk> fusion() {
+        return retrievalService.retrieve(USER_ID, docIds, nextQuery(), 0);
+    }
+
+    private String nextQuery() {
+        cursor = (cursor + 1) & (queries.length - 1);
+        return queries[cursor];
+    }
+
+    /**
+     * 词频近似 Zipf 分布：排在前面的词出现得更多，倒排链长短不一
+     */
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder(words * 3);
+        for (int i = 0; i < words; i++) {
+            int rank = (int) Math.floor(Math.pow(VOCABULARY.length, random.nextDouble())) - 1;
+            text.append(VOCABULARY[rank]);
+            if (random.nextInt(8) == 0) {
+                text.append('，');
+            }
+        }
+        return text.append('。').toString();
+    }
+
+    private static final class StubEmbeddingService implements EmbeddingService {
+
+        private final CompletableFuture<float[]> vector = CompletableFuture.completedFuture(new float[384]);
+
+        @Override
+        public CompletableFuture<float[]> embed(String text) {
+            return vector;
+        }
+
+        @Override
+        public List<float[]> embedAll(List<String> texts) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class StubDocumentService implements DocumentService {
+
+        @Override
+        public CursorPage<DocumentVO> list(Long userId, Long cursor, int size) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Document get(Long docId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void checkOwner(Long userId, Collection<Long> docIds) {
+        }
+
+        @Override
+        public List<Long> searchableIds(Long userId, Collection<Long> docIds) {
+            return List.copyOf(docIds);
+        }
+
+        @Override
+        public void onChanged(Long userId, Long docId) {
+        }
+    }
+
+    private static final class StubEmbeddingRepository extends DocEmbeddingRepository {
+
+        private StubEmbeddingRepository() {
+            super(null);
+        }
+
+        @Override
+        public Map<Long, String> findTexts(Collection<Long> chunkIds) {
+            Map<Long, String> texts = new HashMap<>(chunkIds.size() * 2);
+            for (Long chunkId : chunkIds) {
+                texts.put(chunkId, "文本块");
+            }
+            return texts;
+        }
+    }
+
+    private record StubVectorSearchService(List<VectorHit> hits) implements VectorSearchService {
+
+        @Override
+        public List<VectorHit> search(Long userId, Collection<Long> docIds, float[] query, int topK) {
+            return hits;
+        }
+
+        @Override
+        public void warmUp(Long userId) {
+        }
+
+        @Override
+        public void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<float[]> vectors) {
+        }
+
+        @Override
+        public void onDocumentRemoved(Long userId, Long docId) {
+        }
+    }
+
+    private record StubKeywordSearchService(List<KeywordHit> hits) implements KeywordSearchService {
+
+        @Override
+        public List<KeywordHit> search(Long userId, Collection<Long> docIds, String query, int topK) {
+            return hits;
+        }
+
+        @Override
+        public void warmUp(Long userId) {
+        }
+
+        @Override
+        public void onChunksWritten(Long userId, Long docId, long[] chunkIds, List<String> texts) {
+        }
+
+        @Override
+        public void onDocumentRemoved(Long userId, Long docId) {
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.uni.research.benchmark.jmh;
+
+import com.uni.research.common.config.VectorIndexProperties;
+import com.uni.research.module.rag.vector.HnswIndex;
+import com.uni.research.module.rag.vector.SegmentedVectorStore;
+import com.uni.research.module.rag.vector.VectorHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 向量检索：HNSW 近似检索 vs 暴力扫描 vs 内存映射段扫描
+ *
+ * 对应 408 考点：数据结构 - 图的遍历、堆（Top-K）；操作系统 - 内存映射文件
+ *
+ * 设计思路：
+ * 1. 按生产默认参数（m=16、efConstruction=64、efSearch=64）建图，与同一批向量的暴力扫描对比
+ * 2. 段扫描走 SegmentedVectorStore（mmap 顺序读 + 点积），代表冷启动时索引未建好的路径
+ * 3. 建图后先用 100 个查询算一次 recall@10 打印出来，速度和召回率要一起看
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class VectorSearchBenchmark {
+
+    private static final int TOP_K = 10;
+
+    private static final int CHUNKS_PER_DOC = 50;
+
+    private static final int RECALL_QUERIES = 100;
+
+    @Param({"10000", "50000"})
+    private int size;
+
+    @Param({"384"})
+    private int dimension;
+
+    private final VectorIndexProperties properties = new VectorIndexProperties();
+
+    private HnswIndex index;
+
+    private SegmentedVectorStore segments;
+
+    private Path segmentDir;
+
+    private float[][] queries;
+
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        index = new HnswIndex(dimension, properties.getM(), properties.getEfConstruction(), size);
+        segmentDir = Files.createTempDirectory("bench-segments");
+        segments = SegmentedVectorStore.open(segmentDir, dimension, properties.getSegmentMaxRows());
+
+        long chunkId = 0;
+        for (long docId = 0; chunkId < size; docId++) {
+            int rows = (int) Math.min(CHUNKS_PER_DOC, size - chunkId);
+            long[] chunkIds = new long[rows];
+            List<float[]> vectors = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++, chunkId++) {
+                float[] vector = randomVector(random);
+                chunkIds[i] = chunkId;
+                vectors.add(vector);
+                index.add(chunkId, docId, vector);
+            }
+            segments.append(docId, chunkIds, vectors);
+        }
+
+        queries = new float[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = randomVector(random);
+        }
+        System.out.printf("%nHNSW recall@%d = %.3f (size=%d, dim=%d, efSearch=%d)%n",
+                TOP_K, recall(), size, dimension, properties.getEfSearch());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        segments.close();
+        try (Stream<Path> files = Files.walk(segmentDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<VectorHit> hnsw() {
+        return index.search(nextQuery(), TOP_K, properties.getEfSearch(), null);
+    }
+
+    @Benchmark
+    public List<VectorHit> bruteForce() {
+        return index.bruteForce(nextQuery(), TOP_K, null);
+    }
+
+    @Benchmark
+    public List<VectorHit> segmentScan() throws IOException {
+        return segments.search(nextQuery(), TOP_K, null);
+    }
+
+    private float[] nextQuery() {
+        cursor = (cursor + 1) & (queries.length - 1);
+        return queries[cursor];
+    }
+
+    private double recall() {
+        int found = 0;
+        for (int i = 0; i < RECALL_QUERIES; i++) {
+            Set<Long> exact = new HashSet<>();
+            for (VectorHit hit : index.bruteForce(queries[i], TOP_K, null)) {
+                exact.add(hit.chunkId());
+            }
+            for (VectorHit hit : index.search(queries[i], TOP_K, properties.getEfSearch(), null)) {
+                if (exact.contains(hit.chunkId())) {
+                    found++;
+                }
+            }
+        }
+        return (double) found / (RECALL_QUERIES * TOP_K);
+    }
+
+    private float[] randomVector(Random random) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
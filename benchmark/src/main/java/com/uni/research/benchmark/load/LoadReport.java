@@ -0,0 +1,101 @@
+package com.uni.research.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 压测报告
+ *
+ * 设计思路：
+ * 1. load-report.csv：每个场景一行，列顺序和数值格式固定，不含时间戳等易变信息，
+ *    两个版本的报告可以直接 diff，或交给 ReportDiff 计算变化百分比
+ * 2. load-report.txt：对齐的表格 + 运行环境（JDK、CPU 核数、压测参数），方便人看
+ * 3. 延迟是客户端视角的请求往返时间（闭环压测，每个连接收到响应才发下一个请求）
+ * 4. non_2xx 统计 HTTP 状态码，result_fail 统计 Result.code 不为 200 的响应（业务异常仍返回 HTTP 200），
+ *    错误场景下两者应与请求数一致，成功场景下应为 0
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class LoadReport {
+
+    static final String CSV_HEADER =
+            "scenario,path,concurrency,requests,non_2xx,result_fail,failures,"
+                    + "throughput_rps,mean_ms,p50_ms,p90_ms,p99_ms,p999_ms,max_ms";
+
+    private final List<Row> rows = new ArrayList<>();
+
+    public void add(Row row) {
+        rows.add(row);
+    }
+
+    public void write(Path directory, List<String> environment) throws IOException {
+        Files.createDirectories(directory);
+        List<String> csv = new ArrayList<>(rows.size() + 1);
+        csv.add(CSV_HEADER);
+        for (Row row : rows) {
+            csv.add(row.toCsv());
+        }
+        Files.write(directory.resolve("load-report.csv"), csv, StandardCharsets.UTF_8);
+
+        List<String> text = new ArrayList<>(environment);
+        text.add("");
+        text.addAll(table());
+        Files.write(directory.resolve("load-report.txt"), text, StandardCharsets.UTF_8);
+    }
+
+    public List<String> table() {
+        List<String> lines = new ArrayList<>(rows.size() + 2);
+        String format = "%-14s %5s %9s %7s %8s %7s %11s %9s %9s %9s %9s %9s %9s";
+        lines.add(String.format(Locale.ROOT, format, "scenario", "conc", "requests", "non2xx", "resFail",
+                "failed", "rps", "mean(ms)", "p50(ms)", "p90(ms)", "p99(ms)", "p999(ms)", "max(ms)"));
+        for (Row row : rows) {
+            lines.add(String.format(Locale.ROOT, format, row.scenario(), row.concurrency(), row.requests(),
+                    row.non2xx(), row.resultFail(), row.failures(), decimal(row.throughput()),
+                    decimal(row.meanMs()), decimal(row.p50Ms()), decimal(row.p90Ms()), decimal(row.p99Ms()), decimal(row.p999Ms()),
+                    decimal(row.maxMs())));
+        }
+        return lines;
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    /**
+     * 一个场景的结果
+     *
+     * @param latencyMicros 测量阶段所有请求的延迟直方图（微秒）
+     * @param seconds       测量阶段实际时长
+     */
+    public record Row(String scenario, String path, int concurrency, long requests, long non2xx, long resultFail,
+                      long failures, double throughput, double meanMs, double p50Ms, double p90Ms, double p99Ms,
+                      double p999Ms, double maxMs) {
+
+        static Row of(LoadScenario scenario, Histogram latencyMicros, long non2xx, long resultFail, long failures,
+                      double seconds) {
+            long requests = latencyMicros.getTotalCount();
+            return new Row(scenario.name(), scenario.path(), scenario.concurrency(), requests, non2xx, resultFail,
+                    failures, requests / seconds, latencyMicros.getMean() / 1000.0,
+                    millis(latencyMicros, 50), millis(latencyMicros, 90), millis(latencyMicros, 99),
+                    millis(latencyMicros, 99.9), latencyMicros.getMaxValue() / 1000.0);
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        String toCsv() {
+            return String.join(",", scenario, path, String.valueOf(concurrency), String.valueOf(requests),
+                    String.valueOf(non2xx), String.valueOf(resultFail), String.valueOf(failures),
+                    decimal(throughput), decimal(meanMs), decimal(p50Ms), decimal(p90Ms), decimal(p99Ms), decimal(p999Ms), decimal(maxMs));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.uni.research.benchmark.load;
+
+/**
+ * 压测场景
+ *
+ * @param name        场景名（报告中的主键，版本之间保持不变）
+ * @param path        请求路径（含 context-path 和查询参数）
+ * @param concurrency 并发连接数
+ * @param background  测量期间同时施加、但不计入结果的背景负载，没有则为 null
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public record LoadScenario(String name, String path, int concurrency, LoadScenario background) {
+
+    public LoadScenario(String name, String path, int concurrency) {
+        this(name, path, concurrency, null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.uni.research.benchmark.load;
+
+import com.uni.research.common.aspect.ApiLogAspect;
+import com.uni.research.common.aspect.ApiMetricsAspect;
+import com.uni.research.common.client.AiEndpointRegistry;
+import com.uni.research.common.client.AiRequestCoalescer;
+import com.uni.research.common.client.AiServiceClient;
+import com.uni.research.common.concurrent.AdaptiveConcurrencyLimiter;
+import com.uni.research.common.concurrent.AiTaskPermits;
+import com.uni.research.common.config.AiServiceConfig;
+import com.uni.research.common.config.ThreadPoolConfig;
+import com.uni.research.common.config.WebConfig;
+import com.uni.research.common.exception.ErrorLogAggregator;
+import com.uni.research.common.exception.GlobalExceptionHandler;
+import com.uni.research.common.trace.SlowTraceEndpoint;
+import com.uni.research.common.trace.TraceFilter;
+import com.uni.research.common.trace.TraceRecorder;
+import com.uni.research.module.bench.controller.BenchAiController;
+import com.uni.research.module.demo.controller.DemoController;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.ManagementWebSecurityAutoConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * 压测用的精简应用上下文
+ *
+ * 设计思路：
+ * 1. 不扫描整个 com.uni.research（那样需要 MySQL / Redis / pgvector），只导入请求链路上的组件：
+ *    DemoController、统一响应转换器、全局异常处理、日志与指标切面、链路追踪过滤器，
+ *    以及 AI 调用链路（aiTaskExecutor + 限流 + 许可 + OkHttp 客户端 + 请求合并），AI 服务由 StubAiServer 代替
+ * 2. 配置仍读取被测 jar 中的 application.yml / application-dev.yml，切面采样率、线程池等参数与开发环境一致；
+ *    数据源、Redis 的自动配置排除掉，Security 与启动类一样排除
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration(exclude = {
+        DataSourceAutoConfiguration.class,
+        RedisAutoConfiguration.class,
+        SecurityAutoConfiguration.class,
+        ManagementWebSecurityAutoConfiguration.class
+})
+@Import({
+        DemoController.class,
+        BenchAiController.class,
+        WebConfig.class,
+        GlobalExceptionHandler.class,
+        ErrorLogAggregator.class,
+        ApiLogAspect.class,
+        ApiMetricsAspect.class,
+        TraceRecorder.class,
+        TraceFilter.class,
+        SlowTraceEndpoint.class,
+        AiServiceConfig.class,
+        AiEndpointRegistry.class,
+        AiServiceClient.class,
+        AiRequestCoalescer.class,
+        ThreadPoolConfig.class,
+        AiTaskPermits.class,
+        AdaptiveConcurrencyLimiter.class
+})
+public class LoadTestApplication {
+}
@@ -0,0 +1,288 @@
+package com.uni.research.benchmark.load;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * HTTP 压测入口
+ *
+ * 对应 408 考点：计算机网络 - TCP 长连接；操作系统 - 排队论（吞吐量与响应时间）
+ *
+ * 设计思路：
+ * 1. 进程内启动 StubAiServer 和精简的 Spring Boot 应用（LoadTestApplication，随机端口），
+ *    不依赖 MySQL / Redis / Python 服务，任何机器上一条命令即可复现
+ * 2. 每个场景先预热再测量：concurrency 个线程各持一条 Keep-Alive 连接闭环发请求，
+ *    延迟记录到 HdrHistogram（微秒精度），结束后合并计算分位数
+ * 3. 覆盖 DemoController 的全部接口（成功、业务异常、系统异常、参数异常、/demo/slow），
+ *    经 aiTaskExecutor 调用 AI 服务桩的接口（逐个调用 / 相同请求合并），以及"/demo/slow 占着 Tomcat 线程时普通接口的延迟"混合场景
+ * 4. 结果写入 load-report.csv（可 diff）和 load-report.txt，用 ReportDiff 对比两个版本
+ *
+ * 运行：java -cp target/benchmarks.jar com.uni.research.benchmark.load.LoadTestRunner
+ *       --duration=20s --warmup=5s --concurrency=32 --ai-latency=20ms --out=target/load-report
+ *       [--scenarios=success,echo,slow]
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * ResultSerializer 固定先写 code，成功响应一定以此开头
+     */
+    private static final byte[] OK_PREFIX = "{\"code\":200,".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpClient client;
+
+    private final String baseUrl;
+
+    private final Duration warmup;
+
+    private final Duration duration;
+
+    LoadTestRunner(String baseUrl, Duration warmup, Duration duration, int maxConnections) {
+        this.baseUrl = baseUrl;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, maxConnections / 4)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Duration warmup = duration(options.getOrDefault("warmup", "5s"));
+        Duration duration = duration(options.getOrDefault("duration", "20s"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        int slowConcurrency = Integer.parseInt(options.getOrDefault("slow-concurrency", "64"));
+        Duration aiLatency = duration(options.getOrDefault("ai-latency", "20ms"));
+        Path out = Path.of(options.getOrDefault("out", "target/load-report"));
+
+        List<LoadScenario> scenarios = scenarios(concurrency, slowConcurrency);
+        if (options.containsKey("scenarios")) {
+            List<String> selected = Arrays.asList(options.get("scenarios").split(","));
+            scenarios = scenarios.stream().filter(scenario -> selected.contains(scenario.name())).toList();
+        }
+
+        try (StubAiServer stub = new StubAiServer(aiLatency)) {
+            ServletWebServerApplicationContext context = (ServletWebServerApplicationContext)
+                    new SpringApplication(LoadTestApplication.class).run(
+                            "--server.port=0",
+                            "--ai-service.base-url=" + stub.baseUrl(),
+                            "--logging.level.com.uni.research=info",
+                            "--spring.main.banner-mode=off");
+            try {
+                String baseUrl = "http://127.0.0.1:" + context.getWebServer().getPort();
+                LoadTestRunner runner = new LoadTestRunner(baseUrl, warmup, duration,
+                        concurrency + slowConcurrency);
+                LoadReport report = new LoadReport();
+                for (LoadScenario scenario : scenarios) {
+                    log.info("压测场景开始: {} {} concurrency={}", scenario.name(), scenario.path(),
+                            scenario.concurrency());
+                    LoadReport.Row row = runner.run(scenario);
+                    report.add(row);
+                    log.info("压测场景结束: {} rps={} p99={}ms", row.scenario(),
+                            String.format("%.1f", row.throughput()), String.format("%.2f", row.p99Ms()));
+                }
+                List<String> environment = List.of(
+                        "# generated: " + OffsetDateTime.now(),
+                        "# java: " + System.getProperty("java.vendor") + " " + System.getProperty("java.version"),
+                        "# cpus: " + Runtime.getRuntime().availableProcessors(),
+                        "# warmup=" + warmup + " duration=" + duration + " concurrency=" + concurrency
+                                + " slow-concurrency=" + slowConcurrency + " ai-latency=" + aiLatency);
+                report.write(out, environment);
+                report.table().forEach(System.out::println);
+                System.out.println("报告已写入: " + out.toAbsolutePath());
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 默认场景：DemoController 全部接口 + AI 调用链路 + 慢接口占用线程时的混合负载
+     */
+    static List<LoadScenario> scenarios(int concurrency, int slowConcurrency) {
+        LoadScenario slow = new LoadScenario("slow", "/api/demo/slow", slowConcurrency);
+        return List.of(
+                new LoadScenario("success", "/api/demo/success", concurrency),
+                new LoadScenario("echo", "/api/demo/echo?name=World", concurrency),
+                new LoadScenario("info", "/api/demo/info", concurrency),
+                new LoadScenario("error-biz", "/api/demo/error/biz", concurrency),
+                new LoadScenario("error-system", "/api/demo/error/system", concurrency),
+                new LoadScenario("error-param", "/api/demo/error/param?age=200", concurrency),
+                new LoadScenario("ai-embed", "/api/bench/ai/embed", concurrency),
+                new LoadScenario("ai-embed-shared", "/api/bench/ai/embed-shared", concurrency),
+                slow,
+                new LoadScenario("mixed-success", "/api/demo/success", concurrency, slow));
+    }
+
+    LoadReport.Row run(LoadScenario scenario) throws InterruptedException {
+        AtomicBoolean backgroundRunning = new AtomicBoolean(true);
+        ExecutorService background = null;
+        if (scenario.background() != null) {
+            background = startBackground(scenario.background(), backgroundRunning);
+        }
+        try {
+            drive(scenario, warmup);
+            long start = System.nanoTime();
+            Result result = drive(scenario, duration);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return LoadReport.Row.of(scenario, result.latency(), result.non2xx(), result.resultFail(),
+                    result.failures(), seconds);
+        } finally {
+            backgroundRunning.set(false);
+            if (background != null) {
+                background.shutdown();
+                background.awaitTermination(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * concurrency 个线程闭环压测 length 时间，返回合并后的结果
+     */
+    private Result drive(LoadScenario scenario, Duration length) throws InterruptedException {
+        HttpRequest request = request(scenario);
+        long deadline = System.nanoTime() + length.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(scenario.concurrency());
+        List<Future<Result>> futures = new ArrayList<>(scenario.concurrency());
+        for (int i = 0; i < scenario.concurrency(); i++) {
+            futures.add(workers.submit(() -> loop(request, deadline)));
+        }
+        workers.shutdown();
+        Histogram latency = new Histogram(MAX_LATENCY_MICROS, 3);
+        long non2xx = 0;
+        long resultFail = 0;
+        long failures = 0;
+        for (Future<Result> future : futures) {
+            try {
+                Result result = future.get();
+                latency.add(result.latency());
+                non2xx += result.non2xx();
+                resultFail += result.resultFail();
+                failures += result.failures();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("压测线程异常", e.getCause());
+            }
+        }
+        return new Result(latency, non2xx, resultFail, failures);
+    }
+
+    private Result loop(HttpRequest request, long deadline) {
+        Histogram latency = new Histogram(MAX_LATENCY_MICROS, 3);
+        long non2xx = 0;
+        long resultFail = 0;
+        long failures = 0;
+        while (System.nanoTime() - deadline < 0) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                if (response.statusCode() / 100 != 2) {
+                    non2xx++;
+                }
+                if (!startsWith(response.body(), OK_PREFIX)) {
+                    resultFail++;
+                }
+                latency.recordValue(Math.min((System.nanoTime() - start) / 1000, MAX_LATENCY_MICROS));
+            } catch (IOException e) {
+                failures++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return new Result(latency, non2xx, resultFail, failures);
+    }
+
+    private static boolean startsWith(byte[] body, byte[] prefix) {
+        return body.length >= prefix.length && Arrays.equals(body, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    private ExecutorService startBackground(LoadScenario background, AtomicBoolean running) {
+        HttpRequest request = request(background);
+        ExecutorService executor = Executors.newFixedThreadPool(background.concurrency());
+        for (int i = 0; i < background.concurrency(); i++) {
+            executor.execute(() -> {
+                while (running.get()) {
+                    try {
+                        client.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (IOException e) {
+                        // 背景负载只负责占用服务端线程，失败不影响测量
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        return executor;
+    }
+
+    private HttpRequest request(LoadScenario scenario) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + scenario.path()))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为 --key=value: " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    /**
+     * 解析 500ms / 20s / 2m 形式的时长
+     */
+    private static Duration duration(String text) {
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        long value = Long.parseLong(text.substring(0, text.length() - 1));
+        return switch (text.charAt(text.length() - 1)) {
+            case 's' -> Duration.ofSeconds(value);
+            case 'm' -> Duration.ofMinutes(value);
+            default -> throw new IllegalArgumentException("无法解析时长: " + text);
+        };
+    }
+
+    private record Result(Histogram latency, long non2xx, long resultFail, long failures) {
+    }
+}
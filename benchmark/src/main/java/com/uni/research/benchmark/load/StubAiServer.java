@@ -0,0 +1,83 @@
+package com.uni.research.benchmark.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测用的 Python AI 服务桩
+ *
+ * 设计思路：
+ * 1. JDK 自带 HttpServer，监听随机端口，AiServiceClient 的 base-url 指向它
+ * 2. 任意 POST 接口都按固定延迟返回一个固定的 JSON，模拟下游模型的处理时间，
+ *    压测结果只反映 Java 侧（线程池、许可、熔断、连接池）的开销和排队
+ * 3. 处理线程数足够大，桩本身不会成为瓶颈；打开 TCP_NODELAY，否则响应头和响应体分两次写出时
+ *    Nagle 算法与客户端延迟确认叠加，每个请求凭空多出约 40ms
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+public class StubAiServer implements AutoCloseable {
+
+    private static final byte[] EMBED_RESPONSE = ("{\"embeddings\":[[" + "0.01,".repeat(383) + "0.01]]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    static {
+        // 必须在 HttpServer 首次使用前设置（ServerConfig 静态初始化时读取）
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final long latencyMillis;
+
+    public StubAiServer(Duration latency) throws IOException {
+        this.latencyMillis = latency.toMillis();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newFixedThreadPool(512, runnable -> {
+            Thread thread = new Thread(runnable, "stub-ai");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, EMBED_RESPONSE.length);
+            exchange.getResponseBody().write(EMBED_RESPONSE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        server.stop(0);
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
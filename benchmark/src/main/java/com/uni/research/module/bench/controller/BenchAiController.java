@@ -0,0 +1,75 @@
+package com.uni.research.module.bench.controller;
+
+import com.uni.research.common.client.AiRequestCoalescer;
+import com.uni.research.common.client.AiServiceClient;
+import com.uni.research.common.exception.BizException;
+import com.uni.research.common.result.Result;
+import com.uni.research.common.result.ResultCode;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 压测专用接口：经 aiTaskExecutor 调用 AI 服务桩
+ *
+ * 放在 module.*.controller 包下，与业务 Controller 一样被 ApiLogAspect / ApiMetricsAspect 织入；
+ * 只存在于 benchmark 模块，不会打进后端
+ *
+ * @author wrench1024
+ * @since 2026-10-16
+ */
+@RestController
+@RequestMapping("/bench/ai")
+public class BenchAiController {
+
+    private final AiServiceClient aiServiceClient;
+
+    private final AiRequestCoalescer coalescer;
+
+    private final AsyncTaskExecutor aiTaskExecutor;
+
+    public BenchAiController(AiServiceClient aiServiceClient, AiRequestCoalescer coalescer,
+                             @Qualifier("aiTaskExecutor") AsyncTaskExecutor aiTaskExecutor) {
+        this.aiServiceClient = aiServiceClient;
+        this.coalescer = coalescer;
+        this.aiTaskExecutor = aiTaskExecutor;
+    }
+
+    /**
+     * 与对话接口相同的调用方式：请求线程提交 AI 任务后立即释放，结果异步写回
+     */
+    @GetMapping("/embed")
+    public CompletableFuture<Result<Integer>> embed(@RequestParam(defaultValue = "压测文本") String text) {
+        return CompletableFuture.supplyAsync(() -> Result.success(call(text)), aiTaskExecutor);
+    }
+
+    /**
+     * 同一段文本经请求合并调用：并发的相同请求共享一次上游调用，对比 /embed 看排队和上游负载的差异
+     */
+    @GetMapping("/embed-shared")
+    public CompletableFuture<Result<Integer>> embedShared(@RequestParam(defaultValue = "压测文本") String text) {
+        return coalescer.call("/embed", Map.of("texts", List.of(text)), aiTaskExecutor, body -> body.bytes().length)
+                .thenApply(Result::success);
+    }
+
+    private int call(String text) {
+        try (Response response = aiServiceClient.execute("/embed", Map.of("texts", List.of(text)))) {
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new BizException(ResultCode.AI_SERVICE_ERROR, "AI 服务返回 " + response.code());
+            }
+            return response.body().bytes().length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}